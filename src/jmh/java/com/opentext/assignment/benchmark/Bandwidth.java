@@ -0,0 +1,27 @@
+package com.opentext.assignment.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary result of throughput benchmarks: megabytes of uncompressed data handled. JMH reports
+ * the counter as a rate, labelled ops/s, which with the default seconds time unit is MB/s.
+ * 1 MB = 10^6 bytes of ASCII data.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Bandwidth {
+    public double mbPerSec;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        mbPerSec = 0;
+    }
+
+    void add(long bytes) {
+        mbPerSec += bytes / 1_000_000.0;
+    }
+}
@@ -0,0 +1,31 @@
+package com.opentext.assignment.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+
+/**
+ * Entry point of the benchmarks profile: runs the benchmarks matching the first argument with the
+ * GC profiler attached, so every result comes with its allocation rate (gc.alloc.rate.norm is
+ * bytes per operation). Remaining arguments are regular JMH options, e.g. {@code -f 1 -wi 2}.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        String include = args.length > 0 ? args[0] : ".*";
+        CommandLineOptions jmhOptions = new CommandLineOptions(Arrays.copyOfRange(args, Math.min(1, args.length), args.length));
+        new Runner(new OptionsBuilder()
+                .parent(jmhOptions)
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
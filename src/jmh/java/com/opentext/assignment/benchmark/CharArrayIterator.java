@@ -0,0 +1,25 @@
+package com.opentext.assignment.benchmark;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/** Boxing iterator over a char array, the shape of input the codec sees from a data stream. */
+final class CharArrayIterator implements Iterator<Character> {
+    private final char[] data;
+    private int position;
+
+    CharArrayIterator(char[] data) {
+        this.data = data;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return position < data.length;
+    }
+
+    @Override
+    public Character next() {
+        if (position >= data.length) throw new NoSuchElementException();
+        return data[position++];
+    }
+}
@@ -0,0 +1,30 @@
+package com.opentext.assignment.benchmark;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Repeats a block of characters up to a total length, so objects far larger than the heap can be
+ * written without holding their content in memory.
+ */
+final class CyclicCharIterator implements Iterator<Character> {
+    private final char[] block;
+    private final long length;
+    private long position;
+
+    CyclicCharIterator(char[] block, long length) {
+        this.block = block;
+        this.length = length;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return position < length;
+    }
+
+    @Override
+    public Character next() {
+        if (position >= length) throw new NoSuchElementException();
+        return block[(int) (position++ % block.length)];
+    }
+}
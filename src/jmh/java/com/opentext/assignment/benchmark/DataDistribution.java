@@ -0,0 +1,53 @@
+package com.opentext.assignment.benchmark;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generated inputs for the codec benchmarks. Each distribution stresses a different part of the
+ * RLE format (character followed by the run length if above 1). Data is deterministic per seed.
+ */
+public enum DataDistribution {
+    /** No two adjacent characters are equal: the worst case, every run is a single character. */
+    ALL_UNIQUE(1, 1, false),
+    /** Runs of 1 to 4 characters, single-digit counts. */
+    SHORT_RUNS(1, 4, false),
+    /** Runs of 50 to 500 characters, the case RLE is made for. */
+    LONG_RUNS(50, 500, false),
+    /** Runs of 1 to 8 with random case; 'a' and 'A' are different characters to the codec. */
+    MIXED_CASE(1, 8, true),
+    /** Runs of 10 to 99,999 characters, counts of two to five digits. */
+    MULTI_DIGIT(10, 99_999, false);
+
+    private final int minRun;
+    private final int maxRun;
+    private final boolean mixedCase;
+
+    DataDistribution(int minRun, int maxRun, boolean mixedCase) {
+        this.minRun = minRun;
+        this.maxRun = maxRun;
+        this.mixedCase = mixedCase;
+    }
+
+    /** Generate exactly {@code length} characters. */
+    public char[] generate(int length, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        char[] data = new char[length];
+        char previous = 0;
+        int position = 0;
+        while (position < length) {
+            char c;
+            do {
+                c = (char) ('A' + random.nextInt(26));
+                if (mixedCase && random.nextBoolean()) {
+                    c = Character.toLowerCase(c);
+                }
+            } while (c == previous);
+            int run = Math.min(length - position, minRun + random.nextInt(maxRun - minRun + 1));
+            for (int i = 0; i < run; i++) {
+                data[position++] = c;
+            }
+            previous = c;
+        }
+        return data;
+    }
+}
@@ -0,0 +1,95 @@
+package com.opentext.assignment.benchmark;
+
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.model.MessageSequence;
+import com.opentext.assignment.processor.MessageProcessor;
+import com.opentext.assignment.repository.FileRepository;
+import com.opentext.assignment.service.CompressionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch cost of MessageProcessor per message, through the public process() path: ingestion,
+ * the tombstone check, in-flight credits, the dispatcher and settling the operation on the worker.
+ * The messages are CREATEs, which run as no-ops, so no repository work is measured. Run through
+ * BenchmarkRunner: gc.alloc.rate.norm is then the bytes allocated per message on all threads,
+ * including the workers; the fixed cost of one process() call is spread over the batch.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProcessorDispatchBenchmark {
+
+    /** Messages per process() call. */
+    private static final int BATCH = 4096;
+    /** Distinct IDs the batch cycles through. */
+    private static final int IDS = 256;
+
+    /** processor.dispatch.mode */
+    @Param({"ring", "sharded", "per-id"})
+    public String dispatchMode;
+
+    private Path store;
+    private MessageProcessor processor;
+    private MessageSequence batch;
+
+    private record BenchmarkMessage(String dataObjectId, Type type) implements Message {
+        @Override
+        public String getDataObjectId() {
+            return dataObjectId;
+        }
+
+        @Override
+        public Type getType() {
+            return type;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void startProcessor() {
+        store = RepositoryFixture.createStore();
+        processor = new MessageProcessor(new FileRepository(store.toString(), 8192), new CompressionService());
+        ReflectionTestUtils.setField(processor, "dispatchMode", dispatchMode);
+        // The @Value defaults of application.properties, which are not applied outside Spring
+        ReflectionTestUtils.setField(processor, "shutdownTimeoutSeconds", 60L);
+        ReflectionTestUtils.setField(processor, "ringCapacity", 4096);
+        ReflectionTestUtils.setField(processor, "ringInternCapacity", 1 << 20);
+        Message[] messages = new Message[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            messages[i] = new BenchmarkMessage("object-" + i % IDS, Message.Type.CREATE);
+        }
+        batch = () -> Arrays.stream(messages);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopProcessor() {
+        processor.shutdown();
+        RepositoryFixture.deleteStore(store);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void process() {
+        processor.process(batch);
+    }
+}
@@ -0,0 +1,61 @@
+package com.opentext.assignment.benchmark;
+
+import com.opentext.assignment.service.RLECompressorIterator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Shared set-up of the repository benchmarks: a temporary store under java.io.tmpdir (point it at
+ * the disk under test with {@code -jvmArgsAppend -Djava.io.tmpdir=...}) and generated object data.
+ */
+final class RepositoryFixture {
+
+    /** Size of the generated block that object data repeats. */
+    private static final int BLOCK_CHARS = 1 << 20;
+
+    private RepositoryFixture() {
+    }
+
+    static Path createStore() {
+        try {
+            return Files.createTempDirectory("repository-benchmark");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void deleteStore(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Block of stored characters: short-run text, RLE-encoded when the object is stored compressed.
+     * Concatenated encoded blocks are still valid RLE, so any stored length can be produced.
+     */
+    static char[] storedBlock(boolean compressed) {
+        char[] plain = DataDistribution.SHORT_RUNS.generate(BLOCK_CHARS, 7L);
+        if (!compressed) {
+            return plain;
+        }
+        StringBuilder encoded = new StringBuilder();
+        new RLECompressorIterator(new CharArrayIterator(plain)).forEachRemaining(encoded::append);
+        return encoded.toString().toCharArray();
+    }
+
+    /** Stream of exactly {@code length} stored characters. */
+    static Stream<Character> data(char[] block, long length) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new CyclicCharIterator(block, length), Spliterator.ORDERED), false);
+    }
+}
@@ -0,0 +1,105 @@
+package com.opentext.assignment.benchmark;
+
+import com.opentext.assignment.model.DataObject;
+import com.opentext.assignment.model.FileDataObject;
+import com.opentext.assignment.repository.FileRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Fixed per-object cost of FileRepository, independent of the data size: lookups and writes of
+ * empty objects are nothing but file creation, renames, meta files and existence checks. Together
+ * with RepositoryStreamingBenchmark, the streaming bandwidth of a size is roughly
+ * size / (time per operation - time per empty operation).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryMetadataBenchmark {
+
+    /** Distinct objects looked up in turn, so lookups are not served by a single hot entry. */
+    private static final int OBJECTS = 1024;
+
+    @Param({"8192", "65536"})
+    public int bufferSize;
+
+    @Param({"false", "true"})
+    public boolean compressed;
+
+    private Path store;
+    private FileRepository repository;
+    private String[] ids;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void createStore() {
+        store = RepositoryFixture.createStore();
+        repository = new FileRepository(store.toString(), bufferSize);
+        ids = new String[OBJECTS];
+        for (int i = 0; i < OBJECTS; i++) {
+            ids[i] = "object-" + i;
+            FileDataObject obj = new FileDataObject(ids[i], null, compressed);
+            obj.setData(Stream.of('A'));
+            repository.save(obj);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteStore() {
+        RepositoryFixture.deleteStore(store);
+    }
+
+    /** Existence check and meta file read. */
+    @Benchmark
+    public Optional<DataObject> findById() {
+        return repository.findById(nextId());
+    }
+
+    /** Lookup plus opening and closing the data stream without reading it. */
+    @Benchmark
+    public boolean openData() {
+        DataObject obj = repository.findById(nextId()).orElseThrow();
+        try (Stream<Character> data = obj.getData()) {
+            return data != null;
+        }
+    }
+
+    /** Temp data file, rename, temp meta file, rename. */
+    @Benchmark
+    public void createEmpty() {
+        repository.create("empty", Stream.empty());
+    }
+
+    /** Like createEmpty, plus deleting the previous data file. */
+    @Benchmark
+    public void saveEmpty() {
+        FileDataObject obj = new FileDataObject("empty", null, compressed);
+        obj.setData(Stream.empty());
+        repository.save(obj);
+    }
+
+    private String nextId() {
+        String id = ids[next];
+        next = (next + 1) % OBJECTS;
+        return id;
+    }
+}
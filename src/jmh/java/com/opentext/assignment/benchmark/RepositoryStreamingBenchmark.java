@@ -0,0 +1,106 @@
+package com.opentext.assignment.benchmark;
+
+import com.opentext.assignment.model.DataObject;
+import com.opentext.assignment.model.FileDataObject;
+import com.opentext.assignment.repository.FileRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Streaming bandwidth of FileRepository: create, save and a full read through findById and
+ * FileDataObject.getData, per object size, repository.buffer.size and stored form. The mbPerSec
+ * counter is the stored bytes moved per second; per-object fixed costs are measured separately by
+ * RepositoryMetadataBenchmark. Restrict the sizes for quick runs, e.g. {@code -p size=1024,1048576}.
+ * The checksums parameter toggles repository.checksum.enabled: the CRC32C on every written and read
+ * block and the verified open.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryStreamingBenchmark {
+
+    /** Stored object size in bytes, 1 KB to 1 GB. */
+    @Param({"1024", "65536", "1048576", "67108864", "1073741824"})
+    public long size;
+
+    @Param({"8192", "65536", "262144"})
+    public int bufferSize;
+
+    /** Stored form: RLE data with a "true" meta file, or plain data. */
+    @Param({"false", "true"})
+    public boolean compressed;
+
+    /** repository.checksum.enabled */
+    @Param({"true", "false"})
+    public boolean checksums;
+
+    private Path store;
+    private FileRepository repository;
+    private char[] block;
+
+    @Setup(Level.Trial)
+    public void createStore() {
+        store = RepositoryFixture.createStore();
+        repository = new FileRepository(store.toString(), bufferSize);
+        ReflectionTestUtils.setField(repository, "checksums", checksums);
+        block = RepositoryFixture.storedBlock(compressed);
+        saveObject("read");
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteStore() {
+        RepositoryFixture.deleteStore(store);
+    }
+
+    @Benchmark
+    public void create(Bandwidth bandwidth) {
+        repository.create("created", RepositoryFixture.data(block, size));
+        bandwidth.add(size);
+    }
+
+    @Benchmark
+    public void save(Bandwidth bandwidth) {
+        saveObject("saved");
+        bandwidth.add(size);
+    }
+
+    @Benchmark
+    public long read(Bandwidth bandwidth) {
+        DataObject obj = repository.findById("read").orElseThrow();
+        long checksum = 0;
+        try (Stream<Character> data = obj.getData()) {
+            Iterator<Character> chars = data.iterator();
+            while (chars.hasNext()) {
+                checksum += chars.next();
+            }
+        }
+        bandwidth.add(size);
+        return checksum;
+    }
+
+    private void saveObject(String id) {
+        FileDataObject obj = new FileDataObject(id, null, compressed);
+        obj.setData(RepositoryFixture.data(block, size));
+        repository.save(obj);
+    }
+}
@@ -0,0 +1,105 @@
+package com.opentext.assignment.benchmark;
+
+import com.opentext.assignment.model.FileDataObject;
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.service.CompressionService;
+import com.opentext.assignment.service.RLECompressorIterator;
+import com.opentext.assignment.service.RLEDecompressorIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Throughput of the RLE codec, on the iterators directly and through CompressionService (stream
+ * wrapping included). One operation transforms the whole input; the Bandwidth counter reports the
+ * uncompressed size handled per second in MB/s for both directions, so compress and decompress
+ * results of a distribution compare directly.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RleCodecBenchmark {
+
+    @Param({"ALL_UNIQUE", "SHORT_RUNS", "LONG_RUNS", "MIXED_CASE", "MULTI_DIGIT"})
+    public DataDistribution distribution;
+
+    /** Uncompressed input size in characters (ASCII, so also in bytes). */
+    @Param({"1048576"})
+    public int size;
+
+    private final CompressionService service = new CompressionService();
+    private char[] plain;
+    private char[] compressed;
+
+    @Setup
+    public void generate() {
+        plain = distribution.generate(size, 42L);
+        StringBuilder encoded = new StringBuilder();
+        new RLECompressorIterator(new CharArrayIterator(plain)).forEachRemaining(encoded::append);
+        compressed = encoded.toString().toCharArray();
+    }
+
+    @Benchmark
+    public long compressIterator(Bandwidth bandwidth) {
+        long checksum = drain(new RLECompressorIterator(new CharArrayIterator(plain)));
+        bandwidth.add(plain.length);
+        return checksum;
+    }
+
+    @Benchmark
+    public long decompressIterator(Bandwidth bandwidth) {
+        long checksum = drain(new RLEDecompressorIterator(new CharArrayIterator(compressed)));
+        bandwidth.add(plain.length);
+        return checksum;
+    }
+
+    @Benchmark
+    public long compressService(Bandwidth bandwidth) {
+        long checksum = transform(plain, false, Message.Type.COMPRESS);
+        bandwidth.add(plain.length);
+        return checksum;
+    }
+
+    @Benchmark
+    public long decompressService(Bandwidth bandwidth) {
+        long checksum = transform(compressed, true, Message.Type.DECOMPRESS);
+        bandwidth.add(plain.length);
+        return checksum;
+    }
+
+    private long transform(char[] input, boolean inputCompressed, Message.Type type) {
+        FileDataObject obj = new FileDataObject("bench", null, inputCompressed);
+        obj.setData(StreamSupport.stream(Spliterators.spliteratorUnknownSize(new CharArrayIterator(input), Spliterator.ORDERED), false));
+        service.processOperation(obj, type);
+        try (Stream<Character> output = obj.getData()) {
+            return drain(output.iterator());
+        }
+    }
+
+    /** Consume every character; the returned checksum keeps the work from being eliminated. */
+    private static long drain(Iterator<Character> iterator) {
+        long checksum = 0;
+        while (iterator.hasNext()) {
+            checksum = checksum * 31 + iterator.next();
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,81 @@
+package com.opentext.assignment.cli;
+
+import com.opentext.assignment.repository.FileRepository;
+import com.opentext.assignment.service.BulkImportOptions;
+import com.opentext.assignment.service.BulkImportReport;
+import com.opentext.assignment.service.BulkImportService;
+import com.opentext.assignment.service.CompressionService;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line entry point for {@link BulkImportService}. Runs without starting the Spring context.
+ * <p>
+ * Usage: {@code java -cp <jar> com.opentext.assignment.cli.BulkImportCommand --source=<dir|archive|->
+ * --storage-dir=<dir> [--concurrency=N] [--compress] [--meta-batch=N] [--buffer-size=N]}
+ * </p>
+ * A directory source imports each regular file; any other path (or {@code -} for stdin) is read as
+ * a concatenated archive stream.
+ */
+public final class BulkImportCommand {
+
+    private BulkImportCommand() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseArgs(args);
+        String source = options.get("source");
+        String storageDir = options.get("storage-dir");
+        if (source == null || storageDir == null) {
+            System.err.println("Usage: BulkImportCommand --source=<dir|archive|-> --storage-dir=<dir> "
+                    + "[--concurrency=N] [--compress] [--meta-batch=N] [--buffer-size=N]");
+            System.exit(2);
+            return;
+        }
+        FileRepository repository = new FileRepository(storageDir,
+                Integer.parseInt(options.getOrDefault("buffer-size", "65536")));
+        BulkImportService importer = new BulkImportService(repository, new CompressionService());
+        BulkImportOptions importOptions = new BulkImportOptions(
+                Integer.parseInt(options.getOrDefault("concurrency", "0")),
+                Boolean.parseBoolean(options.getOrDefault("compress", "false")),
+                Integer.parseInt(options.getOrDefault("meta-batch", "0")));
+
+        BulkImportReport report;
+        if ("-".equals(source)) {
+            report = importer.importArchive(System.in, importOptions);
+        } else if (Files.isDirectory(Path.of(source))) {
+            report = importer.importDirectory(Path.of(source), importOptions);
+        } else {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(Path.of(source)))) {
+                report = importer.importArchive(in, importOptions);
+            }
+        }
+        System.out.println(report);
+        if (report.failed() > 0) {
+            System.exit(1);
+        }
+    }
+
+    /** Parse {@code --key=value} pairs; a bare {@code --flag} is treated as {@code true}. */
+    static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+}
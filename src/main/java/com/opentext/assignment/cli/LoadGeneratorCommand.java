@@ -0,0 +1,277 @@
+package com.opentext.assignment.cli;
+
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.monitoring.LatencyHistogram;
+import com.opentext.assignment.processor.BackpressureStats;
+import com.opentext.assignment.processor.MessageProcessor;
+import com.opentext.assignment.repository.FileRepository;
+import com.opentext.assignment.service.CompressionService;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * End-to-end load generator: drives a {@link MessageProcessor} over a real {@link FileRepository}
+ * with a {@link SyntheticWorkload} and reports sustained throughput, latency percentiles per
+ * message type, in-flight depth over time and heap usage.
+ * <p>
+ * Usage: {@code java -cp <jar> com.opentext.assignment.cli.LoadGeneratorCommand --storage-dir=<dir>
+ * [--ids=N] [--zipf=S] [--mix=C:D:X] [--min-size=N] [--max-size=N] [--max-run=N] [--messages=N]
+ * [--duration=60s|30m|8h|0] [--rate=N] [--report-interval=10s] [--seed=N] [--log-level=ERROR]
+ * [--<property>=<value> ...]}
+ * </p>
+ * Options containing a dot are configuration properties of the processor and repository (e.g.
+ * {@code --processor.dispatch.mode=ring --repository.buffer.size=262144}); unset properties keep
+ * their built-in defaults, application.properties is not read. {@code --duration=0} is the soak
+ * mode: the run continues until interrupted (Ctrl+C) and still prints its final report.
+ * With {@code --rate}, messages are paced open-loop and latency is measured from each message's
+ * scheduled send time, so a stalled processor shows up in the percentiles instead of hiding behind
+ * a slower send rate.
+ */
+public final class LoadGeneratorCommand {
+
+    private final MessageProcessor processor;
+    private final SyntheticWorkload workload;
+    private final Map<Message.Type, LatencyHistogram> intervalLatency = new EnumMap<>(Message.Type.class);
+    private final Map<Message.Type, LatencyHistogram> totalLatency = new EnumMap<>(Message.Type.class);
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAccumulator peakHeap = new LongAccumulator(Math::max, 0L);
+    private final LongAccumulator peakInFlight = new LongAccumulator(Math::max, 0L);
+    private volatile boolean running = true;
+    private long startNanos;
+    private long lastReportNanos;
+    private long lastReportCompleted;
+
+    private LoadGeneratorCommand(MessageProcessor processor, SyntheticWorkload workload) {
+        this.processor = processor;
+        this.workload = workload;
+        for (Message.Type type : Message.Type.values()) {
+            intervalLatency.put(type, new LatencyHistogram());
+            totalLatency.put(type, new LatencyHistogram());
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = BulkImportCommand.parseArgs(args);
+        String storageDir = options.get("storage-dir");
+        if (storageDir == null) {
+            System.err.println("Usage: LoadGeneratorCommand --storage-dir=<dir> [--ids=N] [--zipf=S] [--mix=C:D:X] "
+                    + "[--min-size=N] [--max-size=N] [--max-run=N] [--messages=N] [--duration=60s|0] [--rate=N] "
+                    + "[--report-interval=10s] [--seed=N] [--log-level=ERROR] [--<property>=<value> ...]");
+            System.exit(2);
+            return;
+        }
+        long failures = run(options, System.out::println);
+        System.exit(failures > 0 ? 1 : 0);
+    }
+
+    /**
+     * Run one load test as configured by the options.
+     * @return number of messages whose operation failed
+     */
+    static long run(Map<String, String> options, Consumer<String> out) throws InterruptedException {
+        LogLevel logLevel = LogLevel.valueOf(options.getOrDefault("log-level", "ERROR").toUpperCase(Locale.ROOT));
+        LoggingSystem logging = LoggingSystem.get(LoadGeneratorCommand.class.getClassLoader());
+        logging.setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, logLevel);
+
+        Map<String, Object> properties = new HashMap<>();
+        options.forEach((key, value) -> {
+            if (key.contains(".")) {
+                properties.put(key, value);
+            }
+        });
+        properties.put("data.storage.dir", options.get("storage-dir"));
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("load-generator", properties));
+            context.register(FileRepository.class, CompressionService.class, MessageProcessor.class);
+            context.refresh();
+
+            String[] mix = options.getOrDefault("mix", "45:45:10").split(":");
+            if (mix.length != 3) {
+                throw new IllegalArgumentException("--mix must be COMPRESS:DECOMPRESS:DELETE weights, e.g. 45:45:10");
+            }
+            SyntheticWorkload workload = new SyntheticWorkload(context.getBean(FileRepository.class),
+                    Integer.parseInt(options.getOrDefault("ids", "10000")),
+                    Double.parseDouble(options.getOrDefault("zipf", "1.0")),
+                    Integer.parseInt(mix[0]), Integer.parseInt(mix[1]), Integer.parseInt(mix[2]),
+                    Long.parseLong(options.getOrDefault("min-size", "1024")),
+                    Long.parseLong(options.getOrDefault("max-size", "65536")),
+                    Integer.parseInt(options.getOrDefault("max-run", "16")),
+                    Long.parseLong(options.getOrDefault("seed", String.valueOf(System.nanoTime()))));
+            LoadGeneratorCommand generator = new LoadGeneratorCommand(context.getBean(MessageProcessor.class), workload);
+            return generator.drive(
+                    Long.parseLong(options.getOrDefault("messages", "0")),
+                    parseDuration(options.getOrDefault("duration", options.containsKey("messages") ? "0" : "60s")),
+                    Double.parseDouble(options.getOrDefault("rate", "0")),
+                    parseDuration(options.getOrDefault("report-interval", "10s")),
+                    out);
+        }
+    }
+
+    private long drive(long messageLimit, Duration duration, double rate, Duration reportInterval,
+                       Consumer<String> out) throws InterruptedException {
+        CountDownLatch finished = new CountDownLatch(1);
+        Thread stopOnSignal = new Thread(() -> {
+            running = false;
+            try {
+                finished.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "load-generator-stop");
+        Runtime.getRuntime().addShutdownHook(stopOnSignal);
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "load-generator-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+        startNanos = System.nanoTime();
+        lastReportNanos = startNanos;
+        long intervalMillis = Math.max(1L, reportInterval.toMillis());
+        reporter.scheduleAtFixedRate(() -> out.accept(intervalReport()), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        try {
+            long deadline = duration.isZero() ? Long.MAX_VALUE : startNanos + duration.toNanos();
+            long spacingNanos = rate > 0 ? (long) (1_000_000_000L / rate) : 0L;
+            long scheduled = startNanos;
+            Iterator<Message> feed = workload.getMessages().iterator();
+            while (running && (messageLimit <= 0 || sent.sum() < messageLimit) && System.nanoTime() < deadline) {
+                Message message = feed.next();
+                long sendNanos;
+                if (spacingNanos > 0) {
+                    scheduled += spacingNanos;
+                    long wait = scheduled - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    sendNanos = scheduled;
+                } else {
+                    sendNanos = System.nanoTime();
+                }
+                LatencyHistogram latency = intervalLatency.get(message.getType());
+                processor.submit(message).whenComplete((ignored, failure) -> {
+                    latency.record(System.nanoTime() - sendNanos);
+                    if (failure != null) {
+                        failed.increment();
+                    }
+                    completed.increment();
+                });
+                sent.increment();
+            }
+            if (!processor.flush(10, TimeUnit.MINUTES)) {
+                out.accept("Accepted operations did not complete within 10 minutes");
+            }
+        } finally {
+            reporter.shutdownNow();
+            out.accept(intervalReport());
+            out.accept(finalReport());
+            finished.countDown();
+            try {
+                Runtime.getRuntime().removeShutdownHook(stopOnSignal);
+            } catch (IllegalStateException e) {
+                // Already shutting down: the hook is running and waits for the latch above
+            }
+        }
+        return failed.sum();
+    }
+
+    /** One line per interval: throughput, in-flight depth, heap and latency since the last report. */
+    private synchronized String intervalReport() {
+        long now = System.nanoTime();
+        long done = completed.sum();
+        double seconds = Math.max(1e-9, (now - lastReportNanos) / 1e9);
+        double throughput = (done - lastReportCompleted) / seconds;
+        lastReportNanos = now;
+        lastReportCompleted = done;
+
+        LatencyHistogram interval = new LatencyHistogram();
+        for (Message.Type type : Message.Type.values()) {
+            LatencyHistogram drained = intervalLatency.get(type).drain();
+            totalLatency.get(type).add(drained);
+            interval.add(drained);
+        }
+        BackpressureStats backpressure = processor.getBackpressureStats();
+        peakInFlight.accumulate(backpressure.inFlight());
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        peakHeap.accumulate(heap.getUsed());
+        return String.format(Locale.ROOT,
+                "[%8.1fs] sent=%d done=%d %.0f msg/s in-flight=%d heap=%d/%d MiB after-gc=%d MiB p50=%.2fms p99=%.2fms p99.9=%.2fms",
+                (now - startNanos) / 1e9, sent.sum(), done, throughput, backpressure.inFlight(),
+                heap.getUsed() >> 20, heap.getCommitted() >> 20, heapAfterLastGc() >> 20,
+                interval.percentileNanos(50) / 1e6, interval.percentileNanos(99) / 1e6, interval.percentileNanos(99.9) / 1e6);
+    }
+
+    private String finalReport() {
+        double seconds = Math.max(1e-9, (System.nanoTime() - startNanos) / 1e9);
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "Load test finished: %d messages in %.1fs, sustained %.0f msg/s, %d failed, %d objects created (%d MiB), "
+                        + "peak in-flight %d, peak heap %d MiB",
+                completed.sum(), seconds, completed.sum() / seconds, failed.sum(), workload.createdObjects(),
+                workload.createdBytes() >> 20, peakInFlight.get(), peakHeap.get() >> 20));
+        for (Message.Type type : Message.Type.values()) {
+            LatencyHistogram latency = totalLatency.get(type);
+            if (latency.count() > 0) {
+                report.append(String.format(Locale.ROOT,
+                        "%n  %-10s n=%d p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms",
+                        type, latency.count(), latency.percentileNanos(50) / 1e6, latency.percentileNanos(90) / 1e6,
+                        latency.percentileNanos(99) / 1e6, latency.percentileNanos(99.9) / 1e6, latency.maxNanos() / 1e6));
+            }
+        }
+        return report.toString();
+    }
+
+    /** Heap in use right after the last collection of each pool; a steady rise over a soak run suggests a leak. */
+    private static long heapAfterLastGc() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage afterGc = pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+            if (afterGc != null) {
+                used += afterGc.getUsed();
+            }
+        }
+        return used;
+    }
+
+    /** Accept {@code 90s}, {@code 30m}, {@code 8h}, plain seconds or an ISO-8601 duration. */
+    static Duration parseDuration(String value) {
+        String trimmed = value.trim().toLowerCase(Locale.ROOT);
+        if (trimmed.startsWith("p")) {
+            return Duration.parse(trimmed.toUpperCase(Locale.ROOT));
+        }
+        char unit = trimmed.charAt(trimmed.length() - 1);
+        if (Character.isDigit(unit)) {
+            return Duration.ofSeconds(Long.parseLong(trimmed));
+        }
+        long amount = Long.parseLong(trimmed.substring(0, trimmed.length() - 1));
+        return switch (unit) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            case 'd' -> Duration.ofDays(amount);
+            default -> throw new IllegalArgumentException("Unknown duration unit in " + value);
+        };
+    }
+}
@@ -0,0 +1,188 @@
+package com.opentext.assignment.cli;
+
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.model.MessageSequence;
+import com.opentext.assignment.repository.FileRepository;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Endless synthetic message feed for load tests.
+ * <p>
+ * - IDs are drawn from {@code idCount} slots with a Zipf distribution (exponent 0 = uniform), so a
+ *   few hot IDs receive most of the traffic, as in production.
+ * - Message types follow the configured COMPRESS/DECOMPRESS/DELETE weights.
+ * - The object behind a slot is created in the repository the first time the slot is drawn, with a
+ *   log-uniform size between the configured bounds and short-run text. A DELETE retires the slot's
+ *   current ID; the next draw of the slot creates a fresh one, so tombstones never starve the feed.
+ * </p>
+ * The returned stream is not thread-safe and must be consumed by one thread.
+ */
+final class SyntheticWorkload implements MessageSequence {
+
+    private final FileRepository repository;
+    private final int idCount;
+    private final double[] cumulative;
+    private final int compressWeight;
+    private final int decompressWeight;
+    private final int totalWeight;
+    private final long minSize;
+    private final long maxSize;
+    private final int maxRun;
+    private final SplittableRandom random;
+
+    /** Current generation of each slot's ID; bumped by a DELETE. */
+    private final int[] generations;
+    /** Slots whose current ID exists in the repository. */
+    private final BitSet created = new BitSet();
+    private final LongAdder createdObjects = new LongAdder();
+    private final LongAdder createdBytes = new LongAdder();
+
+    SyntheticWorkload(FileRepository repository, int idCount, double zipfExponent, int compressWeight,
+                      int decompressWeight, int deleteWeight, long minSize, long maxSize, int maxRun, long seed) {
+        if (idCount <= 0 || minSize < 0 || maxSize < minSize || maxRun <= 0) {
+            throw new IllegalArgumentException("Invalid workload: ids=" + idCount + " size=" + minSize + ".." + maxSize
+                    + " maxRun=" + maxRun);
+        }
+        if (compressWeight < 0 || decompressWeight < 0 || deleteWeight < 0 || compressWeight + decompressWeight + deleteWeight == 0) {
+            throw new IllegalArgumentException("Invalid message mix");
+        }
+        this.repository = repository;
+        this.idCount = idCount;
+        this.cumulative = zipfCumulative(idCount, zipfExponent);
+        this.compressWeight = compressWeight;
+        this.decompressWeight = decompressWeight;
+        this.totalWeight = compressWeight + decompressWeight + deleteWeight;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.maxRun = maxRun;
+        this.random = new SplittableRandom(seed);
+        this.generations = new int[idCount];
+    }
+
+    @Override
+    public Stream<Message> getMessages() {
+        Iterator<Message> messages = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Message next() {
+                return nextMessage();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(messages, Spliterator.ORDERED), false);
+    }
+
+    long createdObjects() {
+        return createdObjects.sum();
+    }
+
+    long createdBytes() {
+        return createdBytes.sum();
+    }
+
+    private Message nextMessage() {
+        int slot = drawSlot();
+        String id = "load-" + slot + "-" + generations[slot];
+        if (!created.get(slot)) {
+            long size = drawSize();
+            repository.create(id, objectData(size, random.nextLong()));
+            created.set(slot);
+            createdObjects.increment();
+            createdBytes.add(size);
+        }
+        int pick = random.nextInt(totalWeight);
+        Message.Type type;
+        if (pick < compressWeight) {
+            type = Message.Type.COMPRESS;
+        } else if (pick < compressWeight + decompressWeight) {
+            type = Message.Type.DECOMPRESS;
+        } else {
+            type = Message.Type.DELETE;
+            generations[slot]++;
+            created.clear(slot);
+        }
+        return new SyntheticMessage(id, type);
+    }
+
+    private int drawSlot() {
+        if (cumulative == null) {
+            return random.nextInt(idCount);
+        }
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(idCount - 1, index >= 0 ? index : -index - 1);
+    }
+
+    private long drawSize() {
+        if (minSize == maxSize) {
+            return minSize;
+        }
+        double low = Math.log(Math.max(1L, minSize));
+        double high = Math.log(maxSize);
+        return Math.max(minSize, Math.min(maxSize, Math.round(Math.exp(low + random.nextDouble() * (high - low)))));
+    }
+
+    /** Runs of 1 to maxRun letters, generated lazily so large objects never sit on the heap. */
+    private Stream<Character> objectData(long size, long seed) {
+        SplittableRandom data = new SplittableRandom(seed);
+        Iterator<Character> chars = new Iterator<>() {
+            private long remaining = size;
+            private int run;
+            private char current;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public Character next() {
+                if (run == 0) {
+                    char next;
+                    do {
+                        next = (char) ('A' + data.nextInt(26));
+                    } while (next == current);
+                    current = next;
+                    run = 1 + data.nextInt(maxRun);
+                }
+                run--;
+                remaining--;
+                return current;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chars, Spliterator.ORDERED), false);
+    }
+
+    /** Cumulative Zipf probabilities of the slots, or null for a uniform draw. */
+    private static double[] zipfCumulative(int idCount, double exponent) {
+        if (exponent <= 0) {
+            return null;
+        }
+        double[] cumulative = new double[idCount];
+        double sum = 0;
+        for (int rank = 1; rank <= idCount; rank++) {
+            sum += 1.0 / Math.pow(rank, exponent);
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < idCount; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private record SyntheticMessage(String dataObjectId, Message.Type type) implements Message {
+        @Override public String getDataObjectId() { return dataObjectId; }
+        @Override public Type getType() { return type; }
+    }
+}
@@ -0,0 +1,439 @@
+package com.opentext.assignment.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Coordinates several processor instances that share one store directory.
+ * <p>
+ * - Membership: each instance holds an exclusive lock on {@code .cluster/member-<id>.lock} for its
+ *   lifetime. The OS drops the lock when the process dies, so a member file that can be locked by
+ *   somebody else belongs to a dead instance and is removed.
+ * - Ownership: IDs hash onto a fixed number of ranges; a consistent-hash ring over the live
+ *   members decides which instance should own each range.
+ * - Leases: an instance owns a range only while it holds the byte-range lock for it in
+ *   {@code .cluster/leases.lock}. Work on a range is counted between {@link #enter(String)} and
+ *   {@link #exit(String)}; a lease no longer assigned by the ring stops admitting work but is only
+ *   released once that count has drained, so the next owner never runs an ID concurrently with
+ *   the previous one. The new owner picks the lease up on its next refresh.
+ * </p>
+ * Refreshing happens on a background thread every refresh interval. While a range moves, neither
+ * instance admits messages for it; a {@link HandoverListener} retains them and replays them once
+ * the lease is held, before the range is reported as owned.
+ * <p>
+ * File locks are held per process, so deployments run one coordinator per JVM. Several
+ * coordinators inside one JVM see each other through the JVM's lock table, which is enough for
+ * tests but does not protect against other processes.
+ * </p>
+ */
+@Slf4j
+public class ClusterCoordinator implements AutoCloseable {
+
+    static final String CLUSTER_DIR = ".cluster";
+    static final String LEASES_FILE = "leases.lock";
+    private static final String MEMBER_PREFIX = "member-";
+    private static final String MEMBER_SUFFIX = ".lock";
+    /** Tries to lock the member file before its lock counts as held by a duplicate member ID. */
+    private static final int JOIN_ATTEMPTS = 20;
+
+    private final Path dir;
+    private final String memberId;
+    private final int rangeCount;
+    private final int virtualNodes;
+    private final long refreshIntervalMillis;
+
+    private FileChannel memberChannel;
+    private FileLock memberLock;
+    private FileChannel leaseChannel;
+    /** Leases held by this instance, by range; guarded by this. */
+    private FileLock[] leases;
+    /** Held leases no longer assigned by the ring, released once their work has drained; guarded by this. */
+    private final boolean[] draining;
+    /** Work entered per range, or -1 while no lease is held. */
+    private final AtomicIntegerArray inFlight;
+    /** Ranges admitting messages (assigned and leased), for lock-free ownership checks. */
+    private volatile boolean[] owned;
+    /** Ranges assigned by the ring whose lease is still held by another instance. */
+    private volatile boolean[] awaited;
+    private volatile HandoverListener handover = HandoverListener.NONE;
+    private volatile List<String> members = List.of();
+    /** Whether every range assigned to this instance was leased at the last refresh. */
+    private volatile boolean balanced;
+    private ScheduledExecutorService refresher;
+
+    public ClusterCoordinator(Path storeDir, String memberId, int rangeCount, int virtualNodes, long refreshIntervalMillis) {
+        if (rangeCount <= 0) {
+            throw new IllegalArgumentException("Range count must be positive, got: " + rangeCount);
+        }
+        this.dir = storeDir.resolve(CLUSTER_DIR);
+        this.memberId = memberId;
+        this.rangeCount = rangeCount;
+        this.virtualNodes = virtualNodes;
+        this.refreshIntervalMillis = Math.max(10L, refreshIntervalMillis);
+        this.leases = new FileLock[rangeCount];
+        this.draining = new boolean[rangeCount];
+        this.inFlight = new AtomicIntegerArray(rangeCount);
+        for (int range = 0; range < rangeCount; range++) {
+            inFlight.set(range, -1);
+        }
+        this.owned = new boolean[rangeCount];
+        this.awaited = new boolean[rangeCount];
+    }
+
+    /** Callbacks of a range changing hands to this instance. */
+    public interface HandoverListener {
+
+        HandoverListener NONE = new HandoverListener() {
+            @Override
+            public void acquiring(int range) {
+            }
+
+            @Override
+            public void acquired(int range) {
+            }
+        };
+
+        /**
+         * The lease of the range was taken; it is reported as owned right after this returns.
+         * Runs under the coordinator's lock and must not block.
+         */
+        void acquiring(int range);
+
+        /** The range is owned; runs after {@link #acquiring(int)}, outside the coordinator's lock. */
+        void acquired(int range);
+    }
+
+    /** Set before {@link #start()}, so ranges leased on joining are reported as well. */
+    public void setHandoverListener(HandoverListener listener) {
+        handover = listener == null ? HandoverListener.NONE : listener;
+    }
+
+    /** Join the cluster, claim the ranges assigned to this instance and start periodic refreshing. */
+    public void start() {
+        join();
+        refresh();
+        synchronized (this) {
+            refresher = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "cluster-refresh-" + memberId);
+                thread.setDaemon(true);
+                return thread;
+            });
+            refresher.scheduleWithFixedDelay(this::refreshQuietly, refreshIntervalMillis, refreshIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+        if (log.isInfoEnabled()) {
+            log.info("Member {} joined cluster in {} owning {} of {} ranges", memberId, dir, ownedRangeCount(), rangeCount);
+        }
+    }
+
+    private synchronized void join() {
+        try {
+            Files.createDirectories(dir);
+            Path memberFile = dir.resolve(MEMBER_PREFIX + memberId + MEMBER_SUFFIX);
+            for (int attempt = 1; ; attempt++) {
+                memberChannel = FileChannel.open(memberFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                try {
+                    memberLock = memberChannel.tryLock();
+                } catch (OverlappingFileLockException e) {
+                    memberChannel.close();
+                    throw e;
+                }
+                if (memberLock != null && Files.exists(memberFile)) {
+                    break;
+                }
+                // Another member probing the file holds its lock for a moment, and removes the
+                // file if it found it unlocked; only a lock that stays taken is a duplicate
+                memberChannel.close();
+                if (memberLock == null && attempt == JOIN_ATTEMPTS) {
+                    throw new IllegalStateException("Member ID already in use: " + memberId);
+                }
+                memberLock = null;
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+            leaseChannel = FileChannel.open(dir.resolve(LEASES_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        } catch (OverlappingFileLockException e) {
+            throw new IllegalStateException("Member ID already in use: " + memberId, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to join cluster in " + dir, e);
+        }
+    }
+
+    /** Range of an ID; stable across JVMs. */
+    public int rangeOf(String id) {
+        return (int) Math.floorMod(ConsistentHashRing.hash(id), (long) rangeCount);
+    }
+
+    /** Whether this instance currently admits messages for the ID: it leases the range and the ring assigns it here. */
+    public boolean owns(String id) {
+        return owned[rangeOf(id)];
+    }
+
+    /** Whether the ring assigns the ID's range to this instance but the previous owner still holds the lease. */
+    public boolean awaitsLease(int range) {
+        return awaited[range];
+    }
+
+    /** Whether this instance still holds the lease of the ID's range, owned or draining. */
+    public boolean holdsLease(String id) {
+        return inFlight.get(rangeOf(id)) >= 0;
+    }
+
+    /**
+     * Count work on the ID's range, keeping its lease until the matching {@link #exit(String)}.
+     * @return false if the lease is no longer held; nothing was counted
+     */
+    public boolean enter(String id) {
+        int range = rangeOf(id);
+        while (true) {
+            int current = inFlight.get(range);
+            if (current < 0) {
+                return false;
+            }
+            if (inFlight.compareAndSet(range, current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** End work counted by {@link #enter(String)}; the last one out of a draining range releases its lease. */
+    public void exit(String id) {
+        int range = rangeOf(id);
+        while (true) {
+            int current = inFlight.get(range);
+            if (current <= 0) {
+                // Left after close(), which already released everything
+                return;
+            }
+            if (inFlight.compareAndSet(range, current, current - 1)) {
+                if (current == 1) {
+                    releaseIfDrained(range);
+                }
+                return;
+            }
+        }
+    }
+
+    /** Release the lease of a draining range once no work is counted on it; closing the count at -1 stops entries. */
+    private synchronized void releaseIfDrained(int range) {
+        if (draining[range] && inFlight.compareAndSet(range, 0, -1)) {
+            release(leases[range]);
+            leases[range] = null;
+            draining[range] = false;
+            if (log.isDebugEnabled()) {
+                log.debug("Member {} released drained range {}", memberId, range);
+            }
+        }
+    }
+
+    /** Member the ring assigns the ID to, e.g. to forward a message; may be stale by one refresh. */
+    public String ownerOf(String id) {
+        return new ConsistentHashRing(members, virtualNodes).ownerOf(rangeKey(rangeOf(id)));
+    }
+
+    public String memberId() {
+        return memberId;
+    }
+
+    /** Live members seen at the last refresh, including this one. */
+    public List<String> members() {
+        return members;
+    }
+
+    /**
+     * Whether this instance held every range assigned to it at the last refresh. Once all members
+     * report this for the same membership, ownership is fully partitioned.
+     */
+    public boolean isBalanced() {
+        return balanced;
+    }
+
+    public int ownedRangeCount() {
+        int count = 0;
+        for (boolean held : owned) {
+            if (held) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Rescan membership and rebalance leases. Runs periodically; callable directly, e.g. in tests. */
+    public void refresh() {
+        List<Integer> acquired = rebalance();
+        for (int range : acquired) {
+            handover.acquired(range);
+        }
+    }
+
+    /** @return ranges leased by this refresh, already reported to {@link HandoverListener#acquiring(int)} */
+    private synchronized List<Integer> rebalance() {
+        List<Integer> acquired = new ArrayList<>();
+        if (leaseChannel == null) {
+            return acquired;
+        }
+        List<String> live = liveMembers();
+        members = List.copyOf(live);
+        ConsistentHashRing ring = new ConsistentHashRing(live, virtualNodes);
+        boolean[] next = new boolean[rangeCount];
+        boolean[] waiting = new boolean[rangeCount];
+        int released = 0;
+        boolean allLeased = true;
+        for (int range = 0; range < rangeCount; range++) {
+            boolean assigned = memberId.equals(ring.ownerOf(rangeKey(range)));
+            FileLock lease = leases[range];
+            if (!assigned && lease != null) {
+                // Stop admitting now; the lease goes once the admitted work has run
+                if (!draining[range]) {
+                    draining[range] = true;
+                    released++;
+                }
+                releaseIfDrained(range);
+            } else if (assigned && lease != null) {
+                draining[range] = false;
+            } else if (assigned) {
+                leases[range] = tryLease(range);
+                if (leases[range] != null) {
+                    inFlight.set(range, 0);
+                    handover.acquiring(range);
+                    acquired.add(range);
+                }
+            }
+            next[range] = assigned && leases[range] != null;
+            waiting[range] = assigned && leases[range] == null;
+            allLeased &= !assigned || next[range];
+        }
+        owned = next;
+        awaited = waiting;
+        balanced = allLeased;
+        if ((released > 0 || !acquired.isEmpty()) && log.isInfoEnabled()) {
+            log.info("Member {} rebalanced: +{} -{} ranges, {} members", memberId, acquired.size(), released, live.size());
+        }
+        return acquired;
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Cluster refresh failed for member {}: {}", memberId, e.getMessage());
+        }
+    }
+
+    private static String rangeKey(int range) {
+        return "range-" + range;
+    }
+
+    private FileLock tryLease(int range) {
+        try {
+            return leaseChannel.tryLock(range, 1, false);
+        } catch (OverlappingFileLockException e) {
+            // Held by another instance inside this JVM
+            return null;
+        } catch (IOException e) {
+            log.warn("Failed to lease range {}: {}", range, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void release(FileLock lock) {
+        try {
+            lock.release();
+        } catch (IOException e) {
+            log.warn("Failed to release lease: {}", e.getMessage());
+        }
+    }
+
+    /** Members whose lock files are still locked; files of dead members are removed. */
+    private List<String> liveMembers() {
+        List<String> live = new ArrayList<>();
+        live.add(memberId);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, MEMBER_PREFIX + "*" + MEMBER_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String id = name.substring(MEMBER_PREFIX.length(), name.length() - MEMBER_SUFFIX.length());
+                if (!id.equals(memberId) && isAlive(file)) {
+                    live.add(id);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list cluster members in " + dir, e);
+        }
+        live.sort(null);
+        return live;
+    }
+
+    private static boolean isAlive(Path memberFile) {
+        try (FileChannel channel = FileChannel.open(memberFile, StandardOpenOption.WRITE)) {
+            FileLock probe = channel.tryLock();
+            if (probe == null) {
+                return true;
+            }
+            // Nobody holds it: the member died without cleaning up. Removed under the lock, so a
+            // member joining under this name either locks it first or finds it gone and recreates it
+            Files.deleteIfExists(memberFile);
+            probe.release();
+            return false;
+        } catch (OverlappingFileLockException e) {
+            // Locked by another instance inside this JVM
+            return true;
+        } catch (IOException e) {
+            // Removed while probing
+            return false;
+        }
+    }
+
+    /** Leave the cluster: release all leases and the member lock so others take over at once. Drain work first. */
+    @Override
+    public synchronized void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+            refresher = null;
+        }
+        for (int range = 0; range < rangeCount; range++) {
+            inFlight.set(range, -1);
+            draining[range] = false;
+            if (leases[range] != null) {
+                release(leases[range]);
+                leases[range] = null;
+            }
+        }
+        owned = new boolean[rangeCount];
+        awaited = new boolean[rangeCount];
+        balanced = false;
+        try {
+            if (leaseChannel != null) {
+                leaseChannel.close();
+            }
+            if (memberLock != null) {
+                memberLock.release();
+            }
+            if (memberChannel != null) {
+                memberChannel.close();
+                Files.deleteIfExists(dir.resolve(MEMBER_PREFIX + memberId + MEMBER_SUFFIX));
+            }
+        } catch (IOException e) {
+            log.warn("Failed to leave cluster cleanly: {}", e.getMessage());
+        } finally {
+            leaseChannel = null;
+            memberLock = null;
+            memberChannel = null;
+        }
+        log.info("Member {} left cluster", memberId);
+    }
+}
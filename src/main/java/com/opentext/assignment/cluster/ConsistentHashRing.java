@@ -0,0 +1,50 @@
+package com.opentext.assignment.cluster;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent-hash ring over cluster members.
+ * <p>
+ * Every member is placed on the ring at {@code virtualNodes} points, so adding or removing one
+ * member only moves about 1/N of the keys and the load stays even.
+ * </p>
+ */
+public final class ConsistentHashRing {
+
+    private final TreeMap<Long, String> points = new TreeMap<>();
+
+    public ConsistentHashRing(Collection<String> members, int virtualNodes) {
+        int replicas = Math.max(1, virtualNodes);
+        for (String member : members) {
+            for (int i = 0; i < replicas; i++) {
+                points.put(hash(member + "#" + i), member);
+            }
+        }
+    }
+
+    /** @return the member owning the key, or null when the ring is empty */
+    public String ownerOf(String key) {
+        if (points.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = points.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : points.firstEntry().getValue();
+    }
+
+    /** 64-bit FNV-1a followed by a murmur finaliser; stable across JVMs, unlike String.hashCode spreading. */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= (h >>> 33);
+        return h;
+    }
+}
@@ -0,0 +1,52 @@
+package com.opentext.assignment.model;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Cooperative cancellation flag for a running operation.
+ * <p>
+ * Long loops (RLE iterators, repository write loops) call {@link #checkpoint()} per element; the
+ * flag itself is only read every {@link #CHECK_INTERVAL} elements, so the check costs next to
+ * nothing. A cancelled operation fails with {@link CancellationException} and its writer cleans up
+ * temp files on the way out.
+ * </p>
+ */
+public final class CancellationToken {
+
+    /** Elements processed between two reads of the flag. */
+    public static final int CHECK_INTERVAL = 8192;
+
+    /** Token that is never cancelled; used by callers that do not support cancellation. */
+    public static final CancellationToken NONE = new CancellationToken();
+
+    private volatile boolean cancelled;
+
+    /** Request cancellation; has no effect on {@link #NONE}. */
+    public void cancel() {
+        if (this != NONE) {
+            cancelled = true;
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** @throws CancellationException if cancellation was requested */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Operation cancelled");
+        }
+    }
+
+    /**
+     * Per-element hook: the counter lives with the caller so one token can be shared by several
+     * loops of the same operation.
+     * @param processed elements processed so far by the calling loop
+     */
+    public void checkpoint(long processed) {
+        if ((processed & (CHECK_INTERVAL - 1)) == 0) {
+            throwIfCancelled();
+        }
+    }
+}
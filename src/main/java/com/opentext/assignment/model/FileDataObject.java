@@ -3,9 +3,15 @@ package com.opentext.assignment.model;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
 /**
@@ -13,12 +19,18 @@ import java.util.stream.Stream;
  * <p>
  * - getData() lazily streams characters from the underlying file; it does not load the whole file.
  * - setData(Stream) stores a transient stream to be persisted by Repository.save().
- * - The compressed flag indicates the current persistent representation.
+ * - The compressed flag indicates the current logical representation. Normally the data file holds
+ *   exactly that form; after a virtual decompression it still holds the RLE form and a stored
+ *   decoder turns it into the logical form on every read.
+ * - A repository may attach a release hook (e.g. to unpin a data generation); it runs once, when
+ *   the first data stream is closed or the object is closed.
+ * - A repository may also supply the input stream of the data file, e.g. to verify a checksum
+ *   while it is read.
  * </p>
  */
 @Data
 @RequiredArgsConstructor
-public class FileDataObject implements DataObject {
+public class FileDataObject implements DataObject, AutoCloseable {
     private final String id;
     private final Path dataPath;
     private boolean compressed;
@@ -27,6 +39,15 @@ public class FileDataObject implements DataObject {
      * getData() will provide a streaming view over the data file.
      */
     private Stream<Character> dataStream;
+    /**
+     * Decodes the data file into the logical form when the two differ (virtual decompression);
+     * null when the file holds the logical form.
+     */
+    private UnaryOperator<Stream<Character>> storedDecoder;
+    /** Opens the data file in place of a plain file stream; null reads the file directly. */
+    private DataOpener dataOpener;
+    /** Runs once when the object's data is no longer needed; may be null. */
+    private Runnable releaseHook;
 
     public FileDataObject(String id, Path dataPath, boolean compressed) {
         this.id = id;
@@ -44,8 +65,8 @@ public class FileDataObject implements DataObject {
             // Stream lines and flatMap to characters. For assignment data (single-line strings),
             // this is sufficient and memory-efficient. For arbitrary binary data, a Reader-based
             // implementation would be more appropriate.
-            Stream<String> lines = Files.lines(dataPath);
-            return lines
+            Stream<String> lines = dataOpener != null ? openLines(dataOpener) : Files.lines(dataPath);
+            Stream<Character> stored = lines
                     .flatMapToInt(String::chars)
                     .mapToObj(c -> (char) c)
                     .onClose(() -> {
@@ -53,13 +74,51 @@ public class FileDataObject implements DataObject {
                             lines.close();
                         } catch (Exception e) {
                             throw new RuntimeException("Failed to close stream for ID: " + id, e);
+                        } finally {
+                            close();
                         }
                     });
+            return storedDecoder != null ? storedDecoder.apply(stored) : stored;
         } catch (IOException e) {
             throw new RuntimeException("Failed to read data for ID: " + id, e);
         }
     }
 
+    private static Stream<String> openLines(DataOpener opener) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(opener.open(), StandardCharsets.UTF_8));
+        return reader.lines().onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /** Whether the data file holds the RLE form of this logically uncompressed object. */
+    public boolean isVirtuallyDecompressed() {
+        return storedDecoder != null;
+    }
+
+    /** Run the release hook, if any; later calls do nothing. */
+    @Override
+    public void close() {
+        Runnable hook;
+        synchronized (this) {
+            hook = releaseHook;
+            releaseHook = null;
+        }
+        if (hook != null) {
+            hook.run();
+        }
+    }
+
+    /** Source of the raw bytes of the data file. */
+    @FunctionalInterface
+    public interface DataOpener {
+        InputStream open() throws IOException;
+    }
+
     @Override
     public void setData(Stream<Character> data) {
         this.dataStream = data;
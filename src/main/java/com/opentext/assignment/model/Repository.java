@@ -1,6 +1,8 @@
 package com.opentext.assignment.model;
 
+import java.nio.ByteBuffer;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Repository abstraction to persist and retrieve DataObject instances.
@@ -25,4 +27,72 @@ public interface Repository {
      * @param obj the object to save
      */
     void save(DataObject obj);
+
+    /**
+     * Persist the given object, giving up as soon as the token is cancelled. A cancelled save
+     * fails with CancellationException and leaves the previously committed state untouched.
+     * Implementations without a write loop to interrupt only check the token up front.
+     * @param obj the object to save
+     * @param token cancellation token of the running operation
+     */
+    default void save(DataObject obj, CancellationToken token) {
+        token.throwIfCancelled();
+        save(obj);
+    }
+
+    /**
+     * Size in bytes of the object's committed data. The default looks the object up and reports 0
+     * for an existing one; implementations that can stat their storage cheaply override this.
+     * @return the size, or -1 if the object does not exist
+     */
+    default long sizeOf(String objectId) {
+        return findById(objectId).isPresent() ? 0L : -1L;
+    }
+
+    /**
+     * Remove the object and everything stored for it. Implementations that cannot delete keep
+     * the object; the default does nothing.
+     */
+    default void delete(String objectId) {
+    }
+
+    /**
+     * Warm whatever cache backs the object ahead of processing it.
+     * @param scratch reusable buffer owned by the caller
+     * @return false if nothing was warmed; the default never warms
+     */
+    default boolean prefetch(String objectId, ByteBuffer scratch) {
+        return false;
+    }
+
+    /**
+     * Mark a compressed object as logically uncompressed without rewriting its data.
+     * @return false if the object cannot be virtually decompressed; the default never can
+     */
+    default boolean decompressVirtually(String objectId) {
+        return false;
+    }
+
+    /**
+     * Undo a virtual decompression by flipping the state back to compressed.
+     * @return false if the object is not virtually decompressed
+     */
+    default boolean compressVirtual(String objectId) {
+        return false;
+    }
+
+    /**
+     * Rewrite a virtually decompressed object in plain form.
+     * @return false if the object is not virtually decompressed
+     */
+    default boolean materialize(String objectId) {
+        return false;
+    }
+
+    /**
+     * Route materialisation triggered by reads to the given handler. Ignored by repositories
+     * without virtual decompression.
+     */
+    default void setMaterializeHandler(Consumer<String> handler) {
+    }
 }
@@ -0,0 +1,67 @@
+package com.opentext.assignment.monitoring;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * Latency percentiles of one message type over the rolling window, from acceptance to completion.
+ * A plain getter class rather than a record so JMX maps it to CompositeData.
+ */
+public final class LatencySnapshot {
+
+    private final long count;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p99Micros;
+    private final long p999Micros;
+    private final long maxMicros;
+
+    @ConstructorParameters({"count", "p50Micros", "p90Micros", "p99Micros", "p999Micros", "maxMicros"})
+    public LatencySnapshot(long count, long p50Micros, long p90Micros, long p99Micros, long p999Micros, long maxMicros) {
+        this.count = count;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    public static LatencySnapshot of(LatencyHistogram histogram) {
+        return new LatencySnapshot(histogram.count(), micros(histogram.percentileNanos(50)),
+                micros(histogram.percentileNanos(90)), micros(histogram.percentileNanos(99)),
+                micros(histogram.percentileNanos(99.9)), micros(histogram.maxNanos()));
+    }
+
+    private static long micros(long nanos) {
+        return nanos / 1_000L;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencySnapshot[count=" + count + ", p50=" + p50Micros + "us, p90=" + p90Micros + "us, p99=" + p99Micros
+                + "us, p99.9=" + p999Micros + "us, max=" + maxMicros + "us]";
+    }
+}
@@ -0,0 +1,31 @@
+package com.opentext.assignment.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One operation taken off its queue and run; the event spans the run, queueWait the time between
+ * acceptance and the start of the run.
+ */
+@Name("com.opentext.assignment.MessageDequeue")
+@Label("Message Dequeue")
+@Category({"Data Processor", "Processor"})
+@Description("Run of a queued operation and the time it waited in its queue")
+@StackTrace(false)
+public final class MessageDequeueEvent extends Event {
+
+    @Label("Object ID")
+    public String objectId;
+
+    @Label("Message Type")
+    public String messageType;
+
+    @Label("Queue Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    public long queueWait;
+}
@@ -0,0 +1,28 @@
+package com.opentext.assignment.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Acceptance of one message by the processor: tombstone and ownership checks, in-flight credit
+ * (backpressure) and the hand-off to the dispatcher. Only slow acceptances are recorded by default.
+ */
+@Name("com.opentext.assignment.MessageEnqueue")
+@Label("Message Enqueue")
+@Category({"Data Processor", "Processor"})
+@Description("Acceptance of a message, including time blocked on in-flight limits")
+@StackTrace(false)
+@Threshold("1 ms")
+public final class MessageEnqueueEvent extends Event {
+
+    @Label("Object ID")
+    public String objectId;
+
+    @Label("Message Type")
+    public String messageType;
+}
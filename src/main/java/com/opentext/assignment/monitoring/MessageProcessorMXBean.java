@@ -0,0 +1,59 @@
+package com.opentext.assignment.monitoring;
+
+import java.util.Map;
+
+/**
+ * Live view of a MessageProcessor, registered on the platform MBean server as
+ * {@code com.opentext.assignment:type=MessageProcessor,name=<processor.jmx.name>} when
+ * processor.jmx.enabled=true.
+ * <p>
+ * Rolling values (latencies, utilization) cover the last processor.jmx.window.seconds. The
+ * operations change concurrency and ingestion under load without a restart.
+ * </p>
+ */
+public interface MessageProcessorMXBean {
+
+    /** IDs with a queue of their own; -1 in sharded and ring dispatch, where queues are shared. */
+    int getActiveIds();
+
+    /** Operations waiting in dispatcher queues. */
+    long getQueuedOperations();
+
+    /** Deepest single queue: per ID, or per shard in sharded and ring dispatch. */
+    int getLargestQueueDepth();
+
+    /** Operations accepted but not finished, including the queued ones. */
+    int getInFlight();
+
+    int getMaxInFlight();
+
+    /** Messages whose ingestion had to wait for an in-flight credit. */
+    long getBlockedIngestions();
+
+    /** Threads running operations: the pool size, the ring workers or, for virtual threads, the I/O permits. */
+    int getWorkerThreads();
+
+    /** Operations running right now. */
+    int getBusyWorkers();
+
+    /** Share of worker time spent running operations over the window, 0 to 1. */
+    double getThreadUtilization();
+
+    /** Deleted IDs remembered, exactly or in the Bloom filter. */
+    long getTombstoneCount();
+
+    long getCancelledOperations();
+
+    boolean isIngestionPaused();
+
+    /** Latency percentiles per message type over the window, keyed by type name. */
+    Map<String, LatencySnapshot> getLatencies();
+
+    /** Change the size of the platform thread pool; fails for virtual threads and ring dispatch. */
+    void resizeExecutor(int threads);
+
+    /** Block ingestion before the next message is accepted; accepted work keeps running. */
+    void pauseIngestion();
+
+    void resumeIngestion();
+}
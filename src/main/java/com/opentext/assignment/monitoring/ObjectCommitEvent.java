@@ -0,0 +1,23 @@
+package com.opentext.assignment.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Publication of a written object: the atomic renames of the data file and of the meta file (or
+ * generation pointer). No fsync is issued; durability is left to the file system.
+ */
+@Name("com.opentext.assignment.ObjectCommit")
+@Label("Object Commit")
+@Category({"Data Processor", "Repository"})
+@Description("Atomic rename of data and meta after a write")
+@StackTrace(false)
+public final class ObjectCommitEvent extends Event {
+
+    @Label("Object ID")
+    public String objectId;
+}
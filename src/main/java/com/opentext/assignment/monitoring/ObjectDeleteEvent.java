@@ -0,0 +1,22 @@
+package com.opentext.assignment.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Removal of all files of an object.
+ */
+@Name("com.opentext.assignment.ObjectDelete")
+@Label("Object Delete")
+@Category({"Data Processor", "Repository"})
+@Description("Removal of an object's files")
+@StackTrace(false)
+public final class ObjectDeleteEvent extends Event {
+
+    @Label("Object ID")
+    public String objectId;
+}
@@ -0,0 +1,31 @@
+package com.opentext.assignment.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Repository lookup of an object: existence check and meta (or generation pointer) read. The data
+ * itself streams later, inside the Transform and ObjectWrite events of the operation.
+ */
+@Name("com.opentext.assignment.ObjectRead")
+@Label("Object Read")
+@Category({"Data Processor", "Repository"})
+@Description("Lookup of an object's state before its data is streamed")
+@StackTrace(false)
+public final class ObjectReadEvent extends Event {
+
+    @Label("Object ID")
+    public String objectId;
+
+    @Label("Found")
+    public boolean found;
+
+    @Label("Data Size")
+    @DataAmount(DataAmount.BYTES)
+    public long dataBytes;
+}
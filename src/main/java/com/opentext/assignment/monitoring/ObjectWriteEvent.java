@@ -0,0 +1,26 @@
+package com.opentext.assignment.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Streaming of an object's data into its temp file, including pulling the (possibly transformed)
+ * source stream, up to the final flush.
+ */
+@Name("com.opentext.assignment.ObjectWrite")
+@Label("Object Write")
+@Category({"Data Processor", "Repository"})
+@Description("Write of an object's data to its temp file")
+@StackTrace(false)
+public final class ObjectWriteEvent extends Event {
+
+    @Label("Object ID")
+    public String objectId;
+
+    @Label("Characters Written")
+    public long characters;
+}
@@ -0,0 +1,32 @@
+package com.opentext.assignment.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * RLE compression or decompression of one object's data stream, from creation to close of the
+ * transformed stream. The stream is consumed by the write, so this overlaps ObjectWrite.
+ */
+@Name("com.opentext.assignment.Transform")
+@Label("Transform")
+@Category({"Data Processor", "Codec"})
+@Description("RLE transform of an object's data stream")
+@StackTrace(false)
+public final class TransformEvent extends Event {
+
+    @Label("Object ID")
+    public String objectId;
+
+    @Label("Message Type")
+    public String messageType;
+
+    @Label("Input Characters")
+    public long inputCharacters;
+
+    @Label("Output Characters")
+    public long outputCharacters;
+}
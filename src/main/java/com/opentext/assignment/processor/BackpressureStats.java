@@ -0,0 +1,15 @@
+package com.opentext.assignment.processor;
+
+/**
+ * In-flight accounting of the processor's ingestion backpressure.
+ *
+ * @param globalLimit   configured global in-flight limit (0 = unbounded)
+ * @param perIdLimit    configured per-ID in-flight limit (0 = unbounded)
+ * @param inFlight      operations accepted but not yet finished
+ * @param maxInFlight   highest in-flight count observed
+ * @param blockedCount  number of messages whose ingestion had to wait for a credit
+ * @param blockedNanos  total time ingestion spent waiting for credits
+ */
+public record BackpressureStats(int globalLimit, int perIdLimit, int inFlight, int maxInFlight,
+                                long blockedCount, long blockedNanos) {
+}
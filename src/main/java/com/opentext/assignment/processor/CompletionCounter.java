@@ -0,0 +1,77 @@
+package com.opentext.assignment.processor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts operations that were accepted but have not finished, so callers can wait for them.
+ * <p>
+ * Counters may be chained: awaiting a counter also awaits its predecessor. The processor uses
+ * one chain of epochs for flush() barriers and one standalone counter per process() call.
+ * </p>
+ */
+final class CompletionCounter {
+
+    private final AtomicLong pending = new AtomicLong();
+    /** Earlier epoch that must also complete; cleared once it has. */
+    private volatile CompletionCounter previous;
+
+    CompletionCounter(CompletionCounter previous) {
+        this.previous = previous;
+    }
+
+    void register() {
+        pending.incrementAndGet();
+    }
+
+    void arrive() {
+        if (pending.decrementAndGet() == 0) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    long pending() {
+        return pending.get();
+    }
+
+    /** Wait, without a deadline, until this counter and all its predecessors reach zero. */
+    void await() throws InterruptedException {
+        synchronized (this) {
+            while (pending.get() > 0) {
+                wait();
+            }
+        }
+        CompletionCounter prev = previous;
+        if (prev != null) {
+            prev.await();
+            previous = null;
+        }
+    }
+
+    /**
+     * Wait until this counter and all its predecessors reach zero.
+     * @param deadlineNanos absolute System.nanoTime() deadline
+     * @return false if the deadline passed first
+     */
+    boolean await(long deadlineNanos) throws InterruptedException {
+        synchronized (this) {
+            while (pending.get() > 0) {
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        CompletionCounter prev = previous;
+        if (prev != null) {
+            if (!prev.await(deadlineNanos)) {
+                return false;
+            }
+            previous = null;
+        }
+        return true;
+    }
+}
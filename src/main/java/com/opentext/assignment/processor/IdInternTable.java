@@ -0,0 +1,66 @@
+package com.opentext.assignment.processor;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps object IDs to dense int handles and back. Looking up a known ID allocates nothing.
+ * <p>
+ * Handles are never recycled, so the table is bounded by a fixed capacity; once it is full,
+ * {@link #handleOf(String)} returns -1 for new IDs and callers fall back to a path that carries
+ * the ID itself.
+ * </p>
+ */
+final class IdInternTable {
+
+    private final ConcurrentHashMap<String, Integer> handles = new ConcurrentHashMap<>();
+    private final int capacity;
+    private volatile String[] ids;
+    private int size;
+
+    IdInternTable(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Intern capacity must be positive, got: " + capacity);
+        }
+        this.capacity = capacity;
+        this.ids = new String[Math.min(capacity, 1024)];
+    }
+
+    /** @return the handle of the ID, interning it if needed; -1 when the table is full */
+    int handleOf(String id) {
+        Integer handle = handles.get(id);
+        if (handle != null) {
+            return handle;
+        }
+        return intern(id);
+    }
+
+    private synchronized int intern(String id) {
+        Integer existing = handles.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        if (size >= capacity) {
+            return -1;
+        }
+        String[] current = ids;
+        if (size == current.length) {
+            String[] grown = new String[(int) Math.min(capacity, current.length * 2L)];
+            System.arraycopy(current, 0, grown, 0, size);
+            current = grown;
+        }
+        int handle = size++;
+        current[handle] = id;
+        ids = current;
+        // Publishing through the map orders the array write before any reader sees the handle
+        handles.put(id, handle);
+        return handle;
+    }
+
+    String idOf(int handle) {
+        return ids[handle];
+    }
+
+    int size() {
+        return handles.size();
+    }
+}
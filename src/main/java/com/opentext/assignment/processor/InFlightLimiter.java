@@ -0,0 +1,113 @@
+package com.opentext.assignment.processor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Credit-based bound on operations that were accepted but have not finished yet.
+ * <p>
+ * Ingestion takes one credit per message (globally and, optionally, per ID) and blocks while
+ * none are available; the credit is returned when the operation completes or is discarded.
+ * A limit of 0 disables the respective bound. Time spent blocked is recorded for monitoring.
+ * </p>
+ */
+class InFlightLimiter {
+
+    private final int globalLimit;
+    private final int perIdLimit;
+    private final Semaphore globalCredits;
+
+    /** In-flight count per ID; only maintained when a per-ID limit is configured. */
+    private final Map<String, Integer> perIdInFlight = new HashMap<>();
+    private final ReentrantLock perIdLock = new ReentrantLock();
+    private final Condition perIdReleased = perIdLock.newCondition();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final LongAdder blockedCount = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+
+    InFlightLimiter(int globalLimit, int perIdLimit) {
+        this.globalLimit = Math.max(0, globalLimit);
+        this.perIdLimit = Math.max(0, perIdLimit);
+        this.globalCredits = this.globalLimit > 0 ? new Semaphore(this.globalLimit) : null;
+    }
+
+    /** Take a credit for the given ID, blocking until one is available. */
+    void acquire(String id) throws InterruptedException {
+        long blockedSince = 0L;
+        if (perIdLimit > 0) {
+            perIdLock.lock();
+            try {
+                while (perIdInFlight.getOrDefault(id, 0) >= perIdLimit) {
+                    if (blockedSince == 0L) {
+                        blockedSince = System.nanoTime();
+                    }
+                    perIdReleased.await();
+                }
+                perIdInFlight.merge(id, 1, Integer::sum);
+            } finally {
+                perIdLock.unlock();
+            }
+        }
+        if (globalCredits != null && !globalCredits.tryAcquire()) {
+            if (blockedSince == 0L) {
+                blockedSince = System.nanoTime();
+            }
+            try {
+                globalCredits.acquire();
+            } catch (InterruptedException e) {
+                releasePerId(id, 1);
+                throw e;
+            }
+        }
+        if (blockedSince != 0L) {
+            blockedCount.increment();
+            blockedNanos.add(System.nanoTime() - blockedSince);
+        }
+        int current = inFlight.incrementAndGet();
+        if (current > maxInFlight.get()) {
+            maxInFlight.accumulateAndGet(current, Math::max);
+        }
+    }
+
+    /** Return {@code count} credits for the given ID. */
+    void release(String id, int count) {
+        if (count <= 0) {
+            return;
+        }
+        inFlight.addAndGet(-count);
+        if (globalCredits != null) {
+            globalCredits.release(count);
+        }
+        releasePerId(id, count);
+    }
+
+    private void releasePerId(String id, int count) {
+        if (perIdLimit <= 0) {
+            return;
+        }
+        perIdLock.lock();
+        try {
+            perIdInFlight.computeIfPresent(id, (k, v) -> v > count ? v - count : null);
+            perIdReleased.signalAll();
+        } finally {
+            perIdLock.unlock();
+        }
+    }
+
+    /** Operations currently holding a credit. */
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    BackpressureStats stats() {
+        return new BackpressureStats(globalLimit, perIdLimit, inFlight.get(), maxInFlight.get(),
+                blockedCount.sum(), blockedNanos.sum());
+    }
+}
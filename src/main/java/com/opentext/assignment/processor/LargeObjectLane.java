@@ -0,0 +1,65 @@
+package com.opentext.assignment.processor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Separate, capped lane for operations on large objects, so a few multi-GB jobs cannot occupy
+ * every regular worker while small jobs queue behind them.
+ * <p>
+ * A drainer that reaches a large operation hands it to this lane and stops; its queue stays
+ * marked as draining, so nothing else for that ID runs in the meantime. When the large operation
+ * finishes, the drainer resumes on the regular pool, preserving per-ID order.
+ * </p>
+ */
+@Slf4j
+final class LargeObjectLane {
+
+    private static final LargeObjectLane DISABLED = new LargeObjectLane(() -> null);
+
+    private final Supplier<ExecutorService> laneExecutor;
+
+    LargeObjectLane(Supplier<ExecutorService> laneExecutor) {
+        this.laneExecutor = laneExecutor;
+    }
+
+    static LargeObjectLane disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Run a large operation on the lane, then submit {@code resume} to {@code resumeOn}
+     * (or run it inline if that executor no longer accepts work).
+     * @return false if the operation is not large or no lane is available; the caller then runs it itself
+     */
+    boolean handOff(QueuedOperation op, ExecutorService resumeOn, Runnable resume) {
+        if (!op.isLarge()) {
+            return false;
+        }
+        ExecutorService lane = laneExecutor.get();
+        if (lane == null) {
+            return false;
+        }
+        try {
+            lane.submit(() -> {
+                try {
+                    op.run();
+                } catch (RuntimeException e) {
+                    log.error("Large operation failed for ID: {}", op.id(), e);
+                } finally {
+                    try {
+                        resumeOn.submit(resume);
+                    } catch (RejectedExecutionException e) {
+                        resume.run();
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+}
@@ -1,28 +1,127 @@
 package com.opentext.assignment.processor;
 
+import com.opentext.assignment.cluster.ClusterCoordinator;
+import com.opentext.assignment.model.CancellationToken;
 import com.opentext.assignment.model.DataObject;
+import com.opentext.assignment.model.FileDataObject;
 import com.opentext.assignment.model.Message;
 import com.opentext.assignment.model.MessageSequence;
 import com.opentext.assignment.model.Repository;
+import com.opentext.assignment.monitoring.MessageDequeueEvent;
+import com.opentext.assignment.monitoring.MessageEnqueueEvent;
+import com.opentext.assignment.repository.FileRepository;
 import com.opentext.assignment.service.CompressionService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
 
 /**
  * Processes a sequence of messages to compress or decompress DataObjects.
  * Uses a thread pool to process operations concurrently for different DataObject IDs,
  * while ensuring sequential processing for the same ID using per-ID queues.
- * Lazily initializes ExecutorService to handle multiple process() calls without RejectedExecutionException.
+ * <p>
+ * The executor is created lazily and kept for the lifetime of the processor (daemon threads), so
+ * repeated or concurrent process() calls do not pay thread start-up. Besides the batch-style
+ * process(), the processor can run as a long-lived service: submit() returns a per-message
+ * CompletableFuture, start() ingests an unbounded sequence in the background, flush() is a barrier
+ * for everything accepted so far and shutdown() stops gracefully. processAll() consumes several
+ * partitioned sources concurrently, one ingestion thread each; per-ID order holds within a source.
+ * </p>
+ * <p>
+ * With processor.dispatch.mode=sharded, IDs are hashed onto a fixed set of shard queues instead
+ * of per-ID queues, which removes per-ID allocation when there are very many distinct IDs.
+ * processor.dispatch.mode=ring goes further: IDs are interned to int handles and operations are
+ * recorded in preallocated primitive rings drained by dedicated workers, so dispatch allocates nothing.
+ * </p>
+ * <p>
+ * Ingestion is bounded by processor.max.inflight (global) and processor.max.inflight.per.id:
+ * once a limit is reached, process() blocks until running operations complete, so memory stays
+ * flat however far the message source runs ahead of the workers.
+ * </p>
+ * <p>
+ * Size-aware scheduling: COMPRESS/DECOMPRESS of objects at or above
+ * processor.large.object.threshold.bytes (file size when the message is accepted) run on a separate
+ * lane of processor.large.max.concurrent threads, so huge jobs cannot starve small ones.
+ * </p>
+ * <p>
+ * With cluster.enabled=true, several instances can share one store: each reads the full feed and
+ * processes only IDs whose consistent-hash range it holds a file-lock lease for (see
+ * ClusterCoordinator). Operations are counted against their range's lease from dispatch until they
+ * ran, and re-check it before touching the store. Messages for a range assigned here while its
+ * previous owner drains are retained and replayed in order once the lease is free, so none are
+ * lost in the handover. Write-behind is not used in a cluster.
+ * </p>
+ * <p>
+ * With processor.prefetch.window > 0, ingestion reads that many messages ahead of dispatch and a
+ * low-priority thread warms the meta file and data head of the upcoming objects;
+ * getPrefetchStats() reports the hit ratio and the lookup latency it saves.
+ * </p>
+ * <p>
+ * With processor.compress.write.behind=true, COMPRESS returns at once and is recorded as a pending
+ * intent; a low-priority scheduler dispatches intents while the processor is idle. A later
+ * COMPRESS coalesces, a later DECOMPRESS or DELETE drops the intent, and flush() runs all of them.
+ * </p>
+ * <p>
+ * With processor.decompress.mode=virtual, DECOMPRESS of a file-backed object only rewrites its
+ * state: the RLE data file stays and reads decode it on the fly until the object is materialised
+ * (materialize(), or repository.virtual.materialize.reads). A COMPRESS of such an object is again
+ * metadata only.
+ * </p>
+ * <p>
+ * A DELETE cancels work for its ID as soon as it is accepted: a running COMPRESS/DECOMPRESS stops
+ * at the next block of its transform or write loop and removes its temp file, and operations still
+ * queued ahead of the DELETE are skipped.
+ * </p>
+ * <p>
+ * Drainers run either on a fixed platform pool (default) or, with processor.execution.mode=virtual,
+ * on one virtual thread per drainer. Disk-bound work is gated by processor.io.concurrency so a very
+ * large number of virtual threads cannot all hit the filesystem at once.
+ * </p>
+ * <p>
+ * With processor.jmx.enabled=true, a MessageProcessorMXBean on the platform MBean server shows
+ * queue depths, in-flight counts, thread utilization, tombstones and rolling latency percentiles
+ * per message type, and can resize the pool and pause or resume ingestion at runtime.
+ * </p>
+ * <p>
+ * Every phase emits a JFR event (package monitoring): enqueue, dequeue with the queue wait, and
+ * the read, transform, write, commit and delete events of the repository and codec. Disabled
+ * events cost next to nothing, so they stay in place in production.
+ * </p>
  */
 @Slf4j
 @Component
@@ -30,15 +129,113 @@ public class MessageProcessor {
 
     private final Repository repository;
     private final CompressionService compressionService;
-    /** Executor shared by per-ID drainers. Lazily (re)created per process() invocation. */
+    /** Executor shared by drainers. Created lazily and kept until shutdown(). */
     private volatile ExecutorService executor;
 
-    /** Per-ID FIFO queues holding operations in submission order. */
-    private final ConcurrentHashMap<String, LinkedBlockingQueue<Runnable>> operationQueues = new ConcurrentHashMap<>();
-    /** Per-ID guard ensuring only one drainer runs at a time for that ID. */
-    private final ConcurrentHashMap<String, AtomicBoolean> processingFlags = new ConcurrentHashMap<>();
-    /** Tombstone of IDs that have been deleted; subsequent messages are ignored. */
-    private final Set<String> deletedIds = ConcurrentHashMap.newKeySet();
+    /** Queues operations per ID; created on first use and kept across process() calls. */
+    private volatile OperationDispatcher dispatcher;
+    /** Tombstones of IDs that have been deleted; subsequent messages are ignored. Created on first use. */
+    private volatile TombstoneSet deletedIds;
+
+    /** Cancellation tokens of COMPRESS/DECOMPRESS operations that are currently running, by ID. */
+    private final ConcurrentHashMap<String, CancellationToken> runningTokens = new ConcurrentHashMap<>();
+    /** DELETEs accepted but not yet run, by ID; earlier work for these IDs is cancelled. */
+    private final ConcurrentHashMap<String, Integer> pendingDeletes = new ConcurrentHashMap<>();
+    private final LongAdder cancelledOperations = new LongAdder();
+
+    /** Share the store with other instances, each processing only the ID ranges it leases. */
+    @Value("${cluster.enabled:false}")
+    private boolean clusterEnabled;
+
+    /** Unique name of this instance; empty generates one. */
+    @Value("${cluster.member.id:}")
+    private String clusterMemberId;
+
+    @Value("${cluster.ranges:1024}")
+    private int clusterRanges;
+
+    @Value("${cluster.virtual.nodes:64}")
+    private int clusterVirtualNodes;
+
+    /** How often membership is rescanned and leases rebalanced. */
+    @Value("${cluster.refresh.interval.ms:2000}")
+    private long clusterRefreshIntervalMillis;
+
+    /** Most messages retained for ranges waiting for their lease, replayed once it is taken; 0 disables it. */
+    @Value("${cluster.handover.retain.max:100000}")
+    private int clusterRetainMax;
+
+    /** Cluster membership and leases; null when clustering is disabled. Created on first use. */
+    private volatile ClusterCoordinator cluster;
+    private final LongAdder notOwnedMessages = new LongAdder();
+    /**
+     * Messages skipped for ranges assigned to this instance whose previous owner still holds the
+     * lease, by range, kept for replay once the lease is taken; guarded by itself.
+     */
+    private final Map<Integer, ArrayDeque<RetainedMessage>> retained = new HashMap<>();
+    /** Messages in {@link #retained}; guarded by it. */
+    private int retainedCount;
+    /** Ranges leased whose retained messages have not been replayed yet. */
+    private final Set<Integer> replayPending = ConcurrentHashMap.newKeySet();
+    /** Whether {@link #replayPending} is non-empty, for the lock-free admission check. */
+    private volatile boolean replaying;
+    private final LongAdder replayedMessages = new LongAdder();
+
+    private record RetainedMessage(String id, Message.Type type) {
+    }
+
+    /** materialize (rewrite the expanded data, default) or virtual (metadata only, decode on read). */
+    @Value("${processor.decompress.mode:materialize}")
+    private String decompressMode;
+
+    /** Record COMPRESS as a pending intent and run it when the processor is idle. */
+    @Value("${processor.compress.write.behind:false}")
+    private boolean compressWriteBehind;
+
+    /** Max pending write-behind intents; beyond that COMPRESS is processed inline. */
+    @Value("${processor.writebehind.max.pending:10000}")
+    private int writeBehindMaxPending;
+
+    /** The processor counts as idle with at most this many operations in flight. */
+    @Value("${processor.writebehind.idle.inflight:0}")
+    private int writeBehindIdleInFlight;
+
+    /** How long the processor must stay idle before intents are dispatched. */
+    @Value("${processor.writebehind.idle.millis:200}")
+    private long writeBehindIdleMillis;
+
+    /** Max system load per core that still counts as idle; a value <= 0 ignores the load. */
+    @Value("${processor.writebehind.idle.load:0.75}")
+    private double writeBehindIdleLoad;
+
+    /** Write-behind scheduler; null when disabled. Created on first use. */
+    private volatile WriteBehindScheduler writeBehind;
+
+    /** Messages read ahead of dispatch so their objects can be warmed; 0 disables prefetching. */
+    @Value("${processor.prefetch.window:0}")
+    private int prefetchWindow;
+
+    /** Bytes read from the head of each data file when prefetching. */
+    @Value("${processor.prefetch.head.bytes:65536}")
+    private int prefetchHeadBytes;
+
+    /** Lookahead prefetcher; null when disabled. Created on first use. */
+    private volatile Prefetcher prefetcher;
+
+    /** Deletes remembered exactly; older ones move to a Bloom filter confirmed against the store. */
+    @Value("${processor.tombstone.recent.capacity:100000}")
+    private int tombstoneRecentCapacity;
+
+    /** Size of the Bloom filter for older tombstones, in bits. */
+    @Value("${processor.tombstone.bloom.bits:8388608}")
+    private int tombstoneBloomBits;
+
+    @Value("${processor.tombstone.bloom.hashes:6}")
+    private int tombstoneBloomHashes;
+
+    /** Directory for the tombstone snapshot and journal; empty keeps tombstones in memory only. */
+    @Value("${processor.tombstone.dir:}")
+    private String tombstoneDir;
 
     @Value("${processor.thread.pool.size:0}")
     private int threadPoolSize;
@@ -46,46 +243,716 @@ public class MessageProcessor {
     @Value("${processor.shutdown.timeout.seconds:60}")
     private long shutdownTimeoutSeconds;
 
+    /** platform (fixed pool) or virtual (virtual thread per drainer, needs a Java 21+ runtime). */
+    @Value("${processor.execution.mode:platform}")
+    private String executionMode;
+
+    /** Max concurrent disk-bound operations; 0 means unlimited for platform mode and 2x cores for virtual mode. */
+    @Value("${processor.io.concurrency:0}")
+    private int ioConcurrency;
+
+    /**
+     * per-id (queue per active ID), sharded (IDs hashed onto a fixed set of shard queues) or ring
+     * (interned IDs recorded in preallocated primitive rings, allocation-free).
+     */
+    @Value("${processor.dispatch.mode:per-id}")
+    private String dispatchMode;
+
+    /** Number of shards in sharded mode (0 means 4x the platform pool size) or rings in ring mode (0 means the pool size). */
+    @Value("${processor.shard.count:0}")
+    private int shardCount;
+
+    /** Entries per ring in ring mode, rounded up to a power of two. */
+    @Value("${processor.ring.capacity:4096}")
+    private int ringCapacity;
+
+    /** Max distinct IDs interned in ring mode; further IDs take the allocating path. */
+    @Value("${processor.ring.intern.capacity:1048576}")
+    private int ringInternCapacity;
+
+    /** Max operations accepted but not finished, across all IDs; 0 means unbounded. */
+    @Value("${processor.max.inflight:0}")
+    private int maxInFlight;
+
+    /** Max operations accepted but not finished for a single ID; 0 means unbounded. */
+    @Value("${processor.max.inflight.per.id:0}")
+    private int maxInFlightPerId;
+
+    /** Ingestion credits; created together with the dispatcher. */
+    private volatile InFlightLimiter inFlightLimiter;
+
+    /** Data file size at which an operation is scheduled on the large-object lane; 0 disables the lane. */
+    @Value("${processor.large.object.threshold.bytes:67108864}")
+    private long largeObjectThresholdBytes;
+
+    /** Max large-object operations running at the same time. */
+    @Value("${processor.large.max.concurrent:1}")
+    private int largeMaxConcurrent;
+
+    /** Capped executor for large-object operations; null when the lane is disabled. */
+    private volatile ExecutorService largeExecutor;
+
+    /** Limits concurrent repository work; null when unlimited. Created together with the executor. */
+    private volatile Semaphore ioPermits;
+
+    /** Register a MessageProcessorMXBean on the platform MBean server. */
+    @Value("${processor.jmx.enabled:false}")
+    private boolean jmxEnabled;
+
+    /** Value of the name key of the MBean's ObjectName; distinguishes several processors in one JVM. */
+    @Value("${processor.jmx.name:default}")
+    private String jmxName;
+
+    /** Span of the rolling latency and utilization values of the MBean. */
+    @Value("${processor.jmx.window.seconds:60}")
+    private long jmxWindowSeconds;
+
+    /** Rolling statistics of the MBean; null while JMX is disabled. */
+    private volatile ProcessorMonitor monitor;
+    /** Guarded by this. */
+    private ObjectName registeredName;
+
+    /** Set while ingestion is paused; accept() blocks on ingestionResumed. */
+    private volatile boolean ingestionPaused;
+    private final ReentrantLock ingestionLock = new ReentrantLock();
+    private final Condition ingestionResumed = ingestionLock.newCondition();
+
+    /** Current flush epoch; every accepted operation registers with it. */
+    private final AtomicReference<CompletionCounter> epoch = new AtomicReference<>(new CompletionCounter(null));
+
+    private final AtomicInteger threadCounter = new AtomicInteger();
+
     @Autowired
     public MessageProcessor(Repository repository, CompressionService compressionService) {
         this.repository = repository;
         this.compressionService = compressionService;
     }
 
+    /**
+     * Register the MXBean on the platform MBean server when processor.jmx.enabled is set. A name
+     * that is already taken is logged and skipped, so a second processor cannot fail start-up.
+     */
+    @PostConstruct
+    public synchronized void registerMBean() {
+        if (!jmxEnabled || registeredName != null) {
+            return;
+        }
+        if (monitor == null) {
+            monitor = new ProcessorMonitor(this, jmxWindowSeconds);
+        }
+        try {
+            ObjectName name = new ObjectName("com.opentext.assignment:type=MessageProcessor,name=" + ObjectName.quote(jmxName));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(monitor, name);
+            registeredName = name;
+            if (log.isInfoEnabled()) {
+                log.info("Registered MBean {}", name);
+            }
+        } catch (InstanceAlreadyExistsException e) {
+            log.warn("MBean name {} is already registered; set processor.jmx.name to tell processors apart", jmxName);
+        } catch (JMException e) {
+            log.warn("Failed to register the processor MBean: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void unregisterMBean() {
+        if (registeredName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(registeredName);
+        } catch (JMException e) {
+            log.warn("Failed to unregister MBean {}: {}", registeredName, e.getMessage());
+        }
+        registeredName = null;
+    }
+
     /**
      * Ensure an ExecutorService exists and is usable. Creates a fixed pool sized either by
      * configuration or by the number of available processors.
      */
-    private synchronized ExecutorService ensureExecutor() {
+    private ExecutorService ensureExecutor() {
+        ExecutorService current = executor;
+        if (current != null && !current.isShutdown()) {
+            return current;
+        }
+        return createExecutor();
+    }
+
+    private synchronized ExecutorService createExecutor() {
         if (executor == null || executor.isShutdown() || executor.isTerminated()) {
-            int effectiveSize = threadPoolSize > 0 ? threadPoolSize : Math.max(1, Runtime.getRuntime().availableProcessors());
-            if (threadPoolSize <= 0 && log.isDebugEnabled()) {
-                log.debug("The processor.thread.pool.size={}, using the availableProcessors {}", threadPoolSize, effectiveSize);
+            int cores = Math.max(1, Runtime.getRuntime().availableProcessors());
+            ExecutorService virtual = "virtual".equalsIgnoreCase(executionMode) ? newVirtualThreadExecutor() : null;
+            if (virtual != null) {
+                executor = virtual;
+                int permits = ioConcurrency > 0 ? ioConcurrency : cores * 2;
+                ioPermits = new Semaphore(permits);
+                if (log.isDebugEnabled()) {
+                    log.debug("Created virtual-thread ExecutorService with {} I/O permits", permits);
+                }
+            } else {
+                int effectiveSize = threadPoolSize > 0 ? threadPoolSize : cores;
+                if (threadPoolSize <= 0 && log.isDebugEnabled()) {
+                    log.debug("The processor.thread.pool.size={}, using the availableProcessors {}", threadPoolSize, effectiveSize);
+                }
+                executor = Executors.newFixedThreadPool(effectiveSize, task -> {
+                    Thread thread = new Thread(task, "message-processor-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                ioPermits = ioConcurrency > 0 ? new Semaphore(ioConcurrency) : null;
+                if (log.isDebugEnabled()) {
+                    log.debug("Created new ExecutorService with {} threads", effectiveSize);
+                }
             }
-            executor = Executors.newFixedThreadPool(effectiveSize);
-            if (log.isDebugEnabled()) {
-                log.debug("Created new ExecutorService with {} threads", effectiveSize);
+            if (largeObjectThresholdBytes > 0) {
+                int laneSize = Math.max(1, largeMaxConcurrent);
+                largeExecutor = Executors.newFixedThreadPool(laneSize, task -> {
+                    Thread thread = new Thread(task, "message-processor-large-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                if (log.isDebugEnabled()) {
+                    log.debug("Created large-object lane with {} threads for objects >= {} bytes", laneSize, largeObjectThresholdBytes);
+                }
             }
         }
         return executor;
     }
 
+    /** Create the dispatcher on first use; it outlives individual executors. */
+    private OperationDispatcher ensureDispatcher() {
+        OperationDispatcher current = dispatcher;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (dispatcher == null) {
+                InFlightLimiter limiter = new InFlightLimiter(maxInFlight, maxInFlightPerId);
+                int poolSize = threadPoolSize > 0 ? threadPoolSize : Math.max(1, Runtime.getRuntime().availableProcessors());
+                if ("ring".equalsIgnoreCase(dispatchMode)) {
+                    int shards = shardCount > 0 ? shardCount : poolSize;
+                    int capacity = ringCapacity <= 2 ? 2 : Integer.highestOneBit(ringCapacity - 1) << 1;
+                    dispatcher = new RingDispatcher(shards, capacity, ringInternCapacity, (opId, opType, enqueued) -> runOperation(opId, opType, enqueued), limiter,
+                            "message-processor-ring-" + threadCounter.incrementAndGet() + "-");
+                    if (log.isDebugEnabled()) {
+                        log.debug("Using ring dispatch with {} rings of {} entries", shards, capacity);
+                    }
+                } else if ("sharded".equalsIgnoreCase(dispatchMode)) {
+                    int shards = shardCount > 0 ? shardCount : poolSize * 4;
+                    dispatcher = new ShardedDispatcher(shards, this::ensureExecutor, new LargeObjectLane(() -> largeExecutor));
+                    if (log.isDebugEnabled()) {
+                        log.debug("Using sharded dispatch with {} shards", shards);
+                    }
+                } else {
+                    dispatcher = new PerIdDispatcher(this::ensureExecutor, new LargeObjectLane(() -> largeExecutor));
+                }
+                inFlightLimiter = limiter;
+                // Read-triggered materialisation must not race with queued saves of the ID
+                repository.setMaterializeHandler(this::materialize);
+            }
+            return dispatcher;
+        }
+    }
+
+    /** Open the tombstone set on first use, restoring persisted deletes if a directory is configured. */
+    private TombstoneSet ensureTombstones() {
+        TombstoneSet current = deletedIds;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (deletedIds == null) {
+                if (tombstoneDir != null && !tombstoneDir.isBlank()) {
+                    deletedIds = TombstoneSet.open(Path.of(tombstoneDir), tombstoneRecentCapacity, tombstoneBloomBits,
+                            tombstoneBloomHashes, this::isAbsent);
+                } else {
+                    deletedIds = TombstoneSet.inMemory(tombstoneRecentCapacity, tombstoneBloomBits, tombstoneBloomHashes,
+                            this::isAbsent);
+                }
+            }
+            return deletedIds;
+        }
+    }
+
+    /** Start the prefetcher on first use if a window is configured. */
+    private Prefetcher ensurePrefetcher() {
+        if (prefetchWindow <= 0) {
+            return null;
+        }
+        Prefetcher current = prefetcher;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (prefetcher == null) {
+                prefetcher = new Prefetcher(repository, prefetchWindow, prefetchHeadBytes,
+                        "message-prefetch-" + threadCounter.incrementAndGet());
+            }
+            return prefetcher;
+        }
+    }
+
+    /** Start the write-behind scheduler on first use when enabled. */
+    private WriteBehindScheduler ensureWriteBehind() {
+        if (!compressWriteBehind) {
+            return null;
+        }
+        WriteBehindScheduler current = writeBehind;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (writeBehind == null) {
+                ensureDispatcher();
+                InFlightLimiter limiter = inFlightLimiter;
+                writeBehind = new WriteBehindScheduler(writeBehindMaxPending, writeBehindIdleInFlight, writeBehindIdleMillis,
+                        writeBehindIdleLoad, limiter::inFlight, id -> dispatchAccepted(id, Message.Type.COMPRESS, null, null),
+                        "message-write-behind-" + threadCounter.incrementAndGet());
+            }
+            return writeBehind;
+        }
+    }
+
+    /** Join the cluster on first use when enabled and the store is file based. */
+    private ClusterCoordinator ensureCluster() {
+        if (!clusterEnabled || !(repository instanceof FileRepository fr)) {
+            return null;
+        }
+        ClusterCoordinator current = cluster;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (cluster == null) {
+                String memberId = clusterMemberId != null && !clusterMemberId.isBlank() ? clusterMemberId : UUID.randomUUID().toString();
+                ClusterCoordinator coordinator = new ClusterCoordinator(fr.getStorageDir(), memberId, clusterRanges,
+                        clusterVirtualNodes, clusterRefreshIntervalMillis);
+                coordinator.setHandoverListener(new ClusterCoordinator.HandoverListener() {
+                    @Override
+                    public void acquiring(int range) {
+                        // Reported as owned right after this; admissions must queue behind the replay
+                        replayPending.add(range);
+                        replaying = true;
+                    }
+
+                    @Override
+                    public void acquired(int range) {
+                        synchronized (retained) {
+                            replay(range);
+                        }
+                    }
+                });
+                coordinator.start();
+                cluster = coordinator;
+            }
+            return cluster;
+        }
+    }
+
+    /** Cluster membership of this instance, or empty when clustering is disabled. */
+    public Optional<ClusterCoordinator> getClusterCoordinator() {
+        return Optional.ofNullable(ensureCluster());
+    }
+
+    /** Messages skipped because another instance owns their ID. */
+    public long getNotOwnedMessageCount() {
+        return notOwnedMessages.sum();
+    }
+
+    /** Skipped messages dispatched after all, because this instance took their range over. */
+    public long getHandoverReplayCount() {
+        return replayedMessages.sum();
+    }
+
+    /** Pending and dispatched write-behind intents, or empty when write-behind is disabled. */
+    public Optional<WriteBehindStats> getWriteBehindStats() {
+        WriteBehindScheduler current = writeBehind;
+        return current == null ? Optional.empty() : Optional.of(current.stats());
+    }
+
+    /** Hit ratio and lookup latency of the prefetcher, or empty when prefetching is disabled. */
+    public Optional<PrefetchStats> getPrefetchStats() {
+        Prefetcher current = prefetcher;
+        return current == null ? Optional.empty() : Optional.of(current.stats());
+    }
+
+    /** Confirms a Bloom filter hit: a deleted object has no data left in the repository. */
+    private boolean isAbsent(String id) {
+        return repository.sizeOf(id) < 0;
+    }
+
+    /**
+     * Load distribution across shards, or empty when the processor does not use sharded dispatch.
+     */
+    public Optional<ShardStats> getShardStats() {
+        OperationDispatcher current = dispatcher;
+        if (current instanceof RingDispatcher ring) {
+            return Optional.of(ring.stats());
+        }
+        return current instanceof ShardedDispatcher sharded ? Optional.of(sharded.stats()) : Optional.empty();
+    }
+
+    /** Number of COMPRESS/DECOMPRESS operations abandoned because a DELETE for their ID arrived. */
+    public long getCancelledOperationCount() {
+        return cancelledOperations.sum();
+    }
+
+    /** In-flight counts and time ingestion spent blocked on the configured limits. */
+    public BackpressureStats getBackpressureStats() {
+        ensureDispatcher();
+        return inFlightLimiter.stats();
+    }
+
+    /**
+     * Stop accepting messages: process(), submit() and background ingestion block before the next
+     * message until resumeIngestion(). Operations already accepted keep running.
+     */
+    public void pauseIngestion() {
+        ingestionLock.lock();
+        try {
+            if (!ingestionPaused) {
+                ingestionPaused = true;
+                log.info("Ingestion paused");
+            }
+        } finally {
+            ingestionLock.unlock();
+        }
+    }
+
+    public void resumeIngestion() {
+        ingestionLock.lock();
+        try {
+            if (ingestionPaused) {
+                ingestionPaused = false;
+                ingestionResumed.signalAll();
+                log.info("Ingestion resumed");
+            }
+        } finally {
+            ingestionLock.unlock();
+        }
+    }
+
+    public boolean isIngestionPaused() {
+        return ingestionPaused;
+    }
+
+    private void awaitIngestionResumed() {
+        ingestionLock.lock();
+        try {
+            while (ingestionPaused) {
+                ingestionResumed.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while ingestion was paused", e);
+        } finally {
+            ingestionLock.unlock();
+        }
+    }
+
+    /**
+     * Resize the platform thread pool while it runs; later executors use the new size as well.
+     * @throws IllegalStateException for virtual threads or ring dispatch, whose concurrency is
+     *                               set by processor.io.concurrency and processor.shard.count
+     */
+    public void resizeExecutor(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive, got: " + threads);
+        }
+        if ("ring".equalsIgnoreCase(dispatchMode)) {
+            throw new IllegalStateException("Ring dispatch runs operations on its fixed ring workers");
+        }
+        if ("virtual".equalsIgnoreCase(executionMode)) {
+            throw new IllegalStateException("Virtual-thread execution has no pool to resize");
+        }
+        synchronized (this) {
+            int previous = threadPoolSize;
+            threadPoolSize = threads;
+            if (executor instanceof ThreadPoolExecutor pool && !pool.isShutdown()) {
+                previous = pool.getCorePoolSize();
+                // Core may never exceed max: grow max first, shrink core first
+                if (threads > pool.getMaximumPoolSize()) {
+                    pool.setMaximumPoolSize(threads);
+                    pool.setCorePoolSize(threads);
+                } else {
+                    pool.setCorePoolSize(threads);
+                    pool.setMaximumPoolSize(threads);
+                }
+            }
+            if (log.isInfoEnabled()) {
+                log.info("Resized executor from {} to {} threads", previous, threads);
+            }
+        }
+    }
+
+    /** Queue occupancy of the dispatcher; empty before the first message. */
+    QueueDepth queueDepth() {
+        OperationDispatcher current = dispatcher;
+        return current == null ? new QueueDepth(0, 0L, 0) : current.queueDepth();
+    }
+
+    /** Like getBackpressureStats(), without creating the dispatcher. */
+    BackpressureStats currentBackpressure() {
+        InFlightLimiter limiter = inFlightLimiter;
+        return limiter == null ? new BackpressureStats(maxInFlight, maxInFlightPerId, 0, 0, 0L, 0L) : limiter.stats();
+    }
+
+    /** Threads that run operations in the current configuration. */
+    int workerCount() {
+        OperationDispatcher current = dispatcher;
+        if (current instanceof RingDispatcher ring) {
+            return ring.workerCount();
+        }
+        int cores = Math.max(1, Runtime.getRuntime().availableProcessors());
+        if ("virtual".equalsIgnoreCase(executionMode)) {
+            return ioConcurrency > 0 ? ioConcurrency : cores * 2;
+        }
+        if (executor instanceof ThreadPoolExecutor pool && !pool.isShutdown()) {
+            return pool.getCorePoolSize();
+        }
+        return threadPoolSize > 0 ? threadPoolSize : cores;
+    }
+
+    /** Deleted IDs remembered, exactly or in the Bloom filter. */
+    long tombstoneCount() {
+        TombstoneSet current = ensureTombstones();
+        return current.recentSize() + current.olderSize();
+    }
+
+    /**
+     * Look up Executors.newVirtualThreadPerTaskExecutor() reflectively so the code still compiles
+     * and runs on the Java 17 baseline. Returns null (platform pool fallback) when unavailable.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Virtual threads are not available on Java {}, falling back to platform threads",
+                    System.getProperty("java.version"));
+            return null;
+        }
+    }
+
+    /** Run a disk-bound operation while holding an I/O permit, if a limit is configured. */
+    private void runWithIoPermit(Runnable operation) {
+        Semaphore permits = ioPermits;
+        if (permits == null) {
+            operation.run();
+            return;
+        }
+        permits.acquireUninterruptibly();
+        try {
+            operation.run();
+        } finally {
+            permits.release();
+        }
+    }
+
     /**
      * Consume all messages from the given sequence, enqueue per-ID operations preserving order,
-     * and wait for completion with a graceful shutdown.
+     * and wait until the operations of this call have completed (bounded by
+     * processor.shutdown.timeout.seconds). The executor stays up for later calls.
      */
     public void process(MessageSequence sequence) {
-        ensureExecutor();
-        sequence.getMessages().forEach(this::handleMessage);
-        ExecutorService exec = executor;
-        exec.shutdown();
+        CompletionCounter call = new CompletionCounter(null);
+        try (Stream<Message> messages = sequence.getMessages()) {
+            ingest(messages.iterator(), () -> true, call);
+        }
+        awaitCall(call);
+    }
+
+    /**
+     * Consume several sequences concurrently, each on its own ingestion thread, and wait until the
+     * operations of all of them have completed (bounded like process()).
+     * <p>
+     * Ordering rule: per-ID order holds within each source. Messages for the same ID arriving from
+     * different sources are applied in the order they happen to be accepted, which is not
+     * deterministic; an ID whose messages must stay ordered has to be routed to a single source.
+     * A DELETE from any source tombstones the ID for every source.
+     * </p>
+     * A failing source does not stop the others; its first exception is rethrown once all sources
+     * have been consumed.
+     */
+    public void processAll(Collection<? extends MessageSequence> sources) {
+        CompletionCounter call = new CompletionCounter(null);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        List<Thread> ingestionThreads = new ArrayList<>(sources.size());
+        for (MessageSequence source : sources) {
+            Thread ingestion = new Thread(() -> {
+                try (Stream<Message> messages = source.getMessages()) {
+                    ingest(messages.iterator(), () -> true, call);
+                } catch (RuntimeException e) {
+                    log.error("Ingestion of a source failed", e);
+                    failure.compareAndSet(null, e);
+                }
+            }, "message-ingestion-" + threadCounter.incrementAndGet());
+            ingestion.setDaemon(true);
+            ingestion.start();
+            ingestionThreads.add(ingestion);
+        }
+        try {
+            for (Thread ingestion : ingestionThreads) {
+                ingestion.join();
+            }
+        } catch (InterruptedException e) {
+            log.error("Waiting for ingestion was interrupted", e);
+            Thread.currentThread().interrupt();
+            return;
+        }
+        awaitCall(call);
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    /** Accept messages in order, through the lookahead prefetcher when one is configured. */
+    private void ingest(Iterator<Message> messages, BooleanSupplier keepGoing, CompletionCounter call) {
+        Prefetcher lookahead = ensurePrefetcher();
+        if (lookahead != null) {
+            lookahead.lookahead(messages, keepGoing, message -> accept(message, call, null));
+            return;
+        }
+        while (keepGoing.getAsBoolean() && messages.hasNext()) {
+            accept(messages.next(), call, null);
+        }
+    }
+
+    /** Wait for the operations of one call, bounded by processor.shutdown.timeout.seconds. */
+    private void awaitCall(CompletionCounter call) {
+        long effectiveTimeout = effectiveTimeoutSeconds();
+        try {
+            if (!call.await(System.nanoTime() + TimeUnit.SECONDS.toNanos(effectiveTimeout))) {
+                log.warn("Processing did not complete within {} seconds ({} operations pending)", effectiveTimeout, call.pending());
+            }
+        } catch (InterruptedException e) {
+            log.error("Waiting for processing was interrupted", e);
+            Thread.currentThread().interrupt();
+        }
+        if (log.isDebugEnabled()) {
+            getShardStats().ifPresent(stats -> log.debug("Shard load after process(): {}", stats));
+        }
+    }
+
+    /**
+     * Accept a single message and return a future that completes once its operation has run.
+     * Messages for deleted IDs, or dropped by a later DELETE, complete normally without effect;
+     * a failing operation completes the future exceptionally.
+     */
+    public CompletableFuture<Void> submit(Message message) {
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        accept(message, null, completion);
+        return completion;
+    }
+
+    /**
+     * Ingest the sequence on a background thread, for example an unbounded feed. The returned future
+     * completes once every message of a finite sequence has been processed; cancelling it stops
+     * reading the sequence. Messages already read are still processed: the current one, or with
+     * prefetching the lookahead window, for which a blocking sequence must respond to interruption.
+     */
+    public CompletableFuture<Void> start(MessageSequence sequence) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Thread ingestion = new Thread(() -> {
+            CompletionCounter call = new CompletionCounter(null);
+            try {
+                try (Stream<Message> messages = sequence.getMessages()) {
+                    ingest(messages.iterator(), () -> !done.isDone(), call);
+                }
+                call.await();
+                done.complete(null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                done.completeExceptionally(e);
+            } catch (RuntimeException e) {
+                log.error("Ingestion failed", e);
+                done.completeExceptionally(e);
+            }
+        }, "message-ingestion-" + threadCounter.incrementAndGet());
+        ingestion.setDaemon(true);
+        ingestion.start();
+        return done;
+    }
+
+    /**
+     * Barrier: wait until every operation accepted before this call has completed, including
+     * pending write-behind COMPRESS intents, which are dispatched right away.
+     * @return false if the timeout elapsed first
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        WriteBehindScheduler pending = writeBehind;
+        if (pending != null) {
+            pending.drainAll();
+        }
+        CompletionCounter current;
+        CompletionCounter next;
+        do {
+            current = epoch.get();
+            next = new CompletionCounter(current);
+        } while (!epoch.compareAndSet(current, next));
+        return current.await(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * Graceful stop: wait for accepted work (bounded by processor.shutdown.timeout.seconds), then
+     * shut the executor down. A later call re-creates the executor lazily. Paused ingestion is
+     * resumed and the MBean unregistered; registerMBean() registers it again.
+     */
+    @PreDestroy
+    public void shutdown() {
+        // Paused ingestion threads would otherwise never see the end of their sequence
+        resumeIngestion();
+        unregisterMBean();
+        long effectiveTimeout = effectiveTimeoutSeconds();
         try {
-            long effectiveTimeout = shutdownTimeoutSeconds > 0 ? shutdownTimeoutSeconds : 60L;
-            if (shutdownTimeoutSeconds <= 0 && log.isDebugEnabled()) {
-                log.debug("Invalid processor.shutdown.timeout.seconds={}, falling back to {}", shutdownTimeoutSeconds, effectiveTimeout);
+            if (!flush(effectiveTimeout, TimeUnit.SECONDS)) {
+                log.warn("Pending operations did not complete within {} seconds", effectiveTimeout);
+            }
+            ExecutorService exec;
+            ExecutorService lane;
+            synchronized (this) {
+                exec = executor;
+                lane = largeExecutor;
+                if (cluster != null) {
+                    // Leave after the flush so no leased work is abandoned; others take over at once
+                    cluster.close();
+                    cluster = null;
+                    synchronized (retained) {
+                        retained.clear();
+                        retainedCount = 0;
+                        replayPending.clear();
+                        replaying = false;
+                    }
+                }
+                if (writeBehind != null) {
+                    // Drained by the flush above
+                    writeBehind.close();
+                    writeBehind = null;
+                }
+                if (prefetcher != null) {
+                    prefetcher.close();
+                    prefetcher = null;
+                }
+                if (deletedIds != null && deletedIds.isPersistent()) {
+                    // Persist the tombstones; a later call reopens them from disk. An in-memory
+                    // set has nowhere to reopen from, so it is kept for later calls as is
+                    deletedIds.close();
+                    deletedIds = null;
+                }
+                if (dispatcher instanceof RingDispatcher ring) {
+                    // Ring workers are dedicated threads; a later call creates a fresh dispatcher
+                    ring.close();
+                    dispatcher = null;
+                }
             }
-            if (!exec.awaitTermination(effectiveTimeout, java.util.concurrent.TimeUnit.SECONDS)) {
-                log.warn("Executor did not terminate within {} seconds", effectiveTimeout);
+            if (lane != null) {
+                lane.shutdown();
+            }
+            if (exec != null) {
+                exec.shutdown();
+                if (!exec.awaitTermination(effectiveTimeout, TimeUnit.SECONDS)) {
+                    log.warn("Executor did not terminate within {} seconds", effectiveTimeout);
+                }
             }
         } catch (InterruptedException e) {
             log.error("Executor shutdown interrupted", e);
@@ -93,105 +960,388 @@ public class MessageProcessor {
         }
     }
 
+    private long effectiveTimeoutSeconds() {
+        long effectiveTimeout = shutdownTimeoutSeconds > 0 ? shutdownTimeoutSeconds : 60L;
+        if (shutdownTimeoutSeconds <= 0 && log.isDebugEnabled()) {
+            log.debug("Invalid processor.shutdown.timeout.seconds={}, falling back to {}", shutdownTimeoutSeconds, effectiveTimeout);
+        }
+        return effectiveTimeout;
+    }
+
+    /** Whether the object's current data file is big enough for the large-object lane. */
+    private boolean isLargeObject(String id) {
+        return largeObjectThresholdBytes > 0 && repository.sizeOf(id) >= largeObjectThresholdBytes;
+    }
+
     /**
-     * Translate a Message into a Runnable operation and enqueue it on the per-ID queue.
-     * Schedules a drainer when transitioning from idle to active.
+     * Accept a message: take an in-flight credit and hand the operation to the dispatcher, which
+     * preserves per-ID order and schedules a drainer when needed.
      */
-    private void handleMessage(Message message) {
+    private void accept(Message message, CompletionCounter call, CompletableFuture<Void> completion) {
+        if (ingestionPaused) {
+            awaitIngestionResumed();
+        }
+        // Scalar-replaced while no recording enables the event, so ring dispatch stays allocation-free
+        MessageEnqueueEvent event = new MessageEnqueueEvent();
+        event.begin();
+        try {
+            admit(message, call, completion);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.objectId = message.getDataObjectId();
+                event.messageType = message.getType().name();
+                event.commit();
+            }
+        }
+    }
+
+    private void admit(Message message, CompletionCounter call, CompletableFuture<Void> completion) {
         String id = message.getDataObjectId();
         Message.Type type = message.getType();
 
         // If deleted, ignore any subsequent messages for this ID
-        if (deletedIds.contains(id)) {
+        if (ensureTombstones().contains(id)) {
             if (log.isDebugEnabled()) {
                 log.debug("Ignoring message {} for deleted ID: {}", type, id);
             }
+            if (completion != null) {
+                completion.complete(null);
+            }
             return;
         }
 
-        LinkedBlockingQueue<Runnable> queue = operationQueues.computeIfAbsent(id, k -> new LinkedBlockingQueue<>());
-        AtomicBoolean isProcessing = processingFlags.computeIfAbsent(id, k -> new AtomicBoolean(false));
+        ClusterCoordinator coordinator = ensureCluster();
+        // Owned is read first: a range reported as owned was marked for replay before
+        if (coordinator != null && (!coordinator.owns(id) || replaying) && !admitDuringHandover(coordinator, id, type)) {
+            // Every instance reads the full feed; the lease holder of the ID's range processes it
+            if (completion != null) {
+                completion.complete(null);
+            }
+            return;
+        }
 
-        Runnable operation;
-        switch (type) {
-            case CREATE -> {
-                // No data operation required; enqueue a no-op to preserve ordering semantics
-                operation = () -> log.debug("CREATE encountered for ID: {} (no-op)", id);
+        // Deferred intents would outlive the lease they were admitted under
+        WriteBehindScheduler deferrer = coordinator == null ? ensureWriteBehind() : null;
+        if (deferrer != null) {
+            if (type == Message.Type.COMPRESS && deferrer.tryDefer(id)) {
+                if (completion != null) {
+                    completion.complete(null);
+                }
+                return;
             }
-            case DELETE -> {
-                operation = () -> {
-                    // Mark as deleted to prevent future submissions from being accepted
-                    deletedIds.add(id);
-                    // Best-effort delete from repository if supported
-                    try {
-                        if (repository instanceof com.opentext.assignment.repository.FileRepository fr) {
-                            fr.delete(id);
-                        }
-                    } catch (Exception e) {
-                        log.warn("Failed to delete object {}: {}", id, e.getMessage());
-                    }
-                    // Clear any queued operations for this ID
-                    LinkedBlockingQueue<Runnable> q = operationQueues.get(id);
-                    if (q != null) {
-                        q.clear();
-                    }
-                    if (log.isInfoEnabled()) {
-                        log.info("Deleted ID: {} and cleared pending operations", id);
-                    }
-                };
+            if (type == Message.Type.DECOMPRESS || type == Message.Type.DELETE) {
+                // A pending COMPRESS would be undone anyway; one already being dispatched goes first
+                deferrer.resolveBefore(id);
             }
-            case COMPRESS, DECOMPRESS -> {
-                operation = () -> {
-                    Optional<DataObject> optObj = repository.findById(id);
-                    if (optObj.isEmpty()) {
-                        log.warn("Object not found: {}", id);
-                        return;
-                    }
-                    DataObject obj = optObj.get();
-                    compressionService.processOperation(obj, type);
-                    repository.save(obj);
-                    if (log.isInfoEnabled()) {
-                        log.info("Processed {} for ID: {}", type, id);
-                    }
-                };
+        }
+        dispatchAccepted(id, type, call, completion);
+    }
+
+    /**
+     * Admission of a message the lock-free ownership check did not clear. Messages of ranges that
+     * are coming to this instance are retained until the lease is free; a range just taken over
+     * first replays what was retained for it.
+     * @return true if the message is owned and can be dispatched now
+     */
+    private boolean admitDuringHandover(ClusterCoordinator coordinator, String id, Message.Type type) {
+        int range = coordinator.rangeOf(id);
+        synchronized (retained) {
+            if (coordinator.owns(id)) {
+                if (replayPending.contains(range)) {
+                    replay(range);
+                }
+                return true;
             }
-            default -> {
-                // Unknown type, ignore
-                operation = () -> log.debug("Skipping message type {} for ID: {}", type, id);
+            notOwnedMessages.increment();
+            if (!coordinator.awaitsLease(range)) {
+                // Owned elsewhere: its owner processes the message. Drop what was retained while the
+                // range was coming here, should it have been reassigned before its lease was free
+                ArrayDeque<RetainedMessage> stale = retained.remove(range);
+                if (stale != null) {
+                    retainedCount -= stale.size();
+                }
+                return false;
+            }
+            if (clusterRetainMax <= 0) {
+                return false;
+            }
+            ArrayDeque<RetainedMessage> queue = retained.computeIfAbsent(range, r -> new ArrayDeque<>());
+            if (retainedCount >= clusterRetainMax) {
+                if (queue.isEmpty()) {
+                    return false;
+                }
+                queue.pollFirst();
+                retainedCount--;
+            }
+            queue.addLast(new RetainedMessage(id, type));
+            retainedCount++;
+            return false;
+        }
+    }
+
+    /**
+     * Dispatch the messages retained for a range whose lease was just taken, in the order they were
+     * received; the previous owner has drained its work on them. Already applied ones run again,
+     * which leaves the same state. Called holding the {@link #retained} lock.
+     */
+    private void replay(int range) {
+        ArrayDeque<RetainedMessage> queue = retained.remove(range);
+        try {
+            if (queue == null || queue.isEmpty()) {
+                return;
+            }
+            retainedCount -= queue.size();
+            TombstoneSet tombstones = ensureTombstones();
+            for (RetainedMessage message : queue) {
+                if (!tombstones.contains(message.id())) {
+                    dispatchAccepted(message.id(), message.type(), null, null);
+                    replayedMessages.increment();
+                }
+            }
+            if (log.isInfoEnabled()) {
+                log.info("Replayed {} messages retained for range {}", queue.size(), range);
+            }
+        } finally {
+            // Only now may admissions for the range bypass the lock again
+            replayPending.remove(range);
+            replaying = !replayPending.isEmpty();
+        }
+    }
+
+    /**
+     * Take an in-flight credit and hand the operation to the dispatcher; the message has passed
+     * the tombstone and ownership checks.
+     */
+    private void dispatchAccepted(String id, Message.Type type, CompletionCounter call, CompletableFuture<Void> completion) {
+        ClusterCoordinator coordinator = cluster;
+        if (coordinator != null && !coordinator.enter(id)) {
+            // The range was handed over since the message was admitted; its next owner retained it
+            notOwnedMessages.increment();
+            if (completion != null) {
+                completion.complete(null);
+            }
+            return;
+        }
+        OperationDispatcher target = ensureDispatcher();
+        InFlightLimiter limiter = inFlightLimiter;
+        if (type == Message.Type.DELETE) {
+            // Work still queued or running for this ID would be thrown away: cancel it right now,
+            // before possibly blocking on in-flight credits held by that very work
+            pendingDeletes.merge(id, 1, Integer::sum);
+            CancellationToken running = runningTokens.get(id);
+            if (running != null) {
+                running.cancel();
             }
         }
+        try {
+            limiter.acquire(id);
+        } catch (InterruptedException e) {
+            if (type == Message.Type.DELETE) {
+                settlePendingDelete(id);
+            }
+            leaveRange(coordinator, id);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for in-flight capacity", e);
+        }
 
-        queue.add(operation);
+        if (target instanceof RingDispatcher ring && ring.tryDispatch(id, type, epoch.get(), call, completion)) {
+            return;
+        }
+
+        long enqueued = System.nanoTime();
+        QueuedOperation queued = new QueuedOperation(id, () -> runOperation(id, type, enqueued), limiter, epoch.get(),
+                call, completion);
+        if (type == Message.Type.DELETE) {
+            // A DELETE discarded by an earlier DELETE of the same ID never runs to settle its count
+            queued.onDiscard(() -> settlePendingDelete(id));
+        }
+        if (coordinator != null) {
+            queued.onDiscard(() -> coordinator.exit(id));
+        }
+        if ((type == Message.Type.COMPRESS || type == Message.Type.DECOMPRESS) && isLargeObject(id)) {
+            queued.markLarge(true);
+        }
+        target.dispatch(id, queued);
+    }
 
-        if (isProcessing.compareAndSet(false, true)) {
-            ensureExecutor().submit(() -> drainQueue(id));
+    /** End the lease count taken for the ID in dispatchAccepted. */
+    private static void leaveRange(ClusterCoordinator coordinator, String id) {
+        if (coordinator != null) {
+            coordinator.exit(id);
         }
     }
 
+    /** One accepted DELETE of the ID ran, was discarded or never got queued. */
+    private void settlePendingDelete(String id) {
+        pendingDeletes.computeIfPresent(id, (k, v) -> v > 1 ? v - 1 : null);
+    }
+
     /**
-     * Drain and execute all queued operations for the given ID sequentially.
-     * If new operations arrive during draining, the method will reschedule itself
-     * to ensure continued processing without overlapping drainers for the same ID.
+     * Rewrite a virtually decompressed object in plain form, ordered with the messages for its ID
+     * accepted so far. Completes without effect for objects that are not virtually decompressed.
      */
-    private void drainQueue(String id) {
-        LinkedBlockingQueue<Runnable> queue = operationQueues.get(id);
-        AtomicBoolean isProcessing = processingFlags.get(id);
+    public CompletableFuture<Void> materialize(String id) {
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        OperationDispatcher target = ensureDispatcher();
+        InFlightLimiter limiter = inFlightLimiter;
+        try {
+            limiter.acquire(id);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for in-flight capacity", e);
+        }
+        target.dispatch(id, new QueuedOperation(id, () -> runWithIoPermit(() -> repository.materialize(id)), limiter,
+                epoch.get(), null, completion));
+        return completion;
+    }
+
+    /**
+     * COMPRESS/DECOMPRESS that only needs a state change of the stored RLE form: DECOMPRESS in
+     * virtual mode, and both operations on a virtually decompressed object.
+     * @return false if the data has to be transformed and saved as usual
+     */
+    private boolean applyVirtually(DataObject obj, Message.Type type) {
+        if (!(obj instanceof FileDataObject fileObj)) {
+            return false;
+        }
+        if (fileObj.isVirtuallyDecompressed()) {
+            fileObj.close();
+            // The stored form already is the compressed form; a DECOMPRESS has nothing left to do
+            return type != Message.Type.COMPRESS || repository.compressVirtual(obj.getId());
+        }
+        if (type == Message.Type.DECOMPRESS && obj.isCompressed() && "virtual".equalsIgnoreCase(decompressMode)) {
+            fileObj.close();
+            return repository.decompressVirtually(obj.getId());
+        }
+        return false;
+    }
 
+    /**
+     * Execute the operation for one message, recording it as a MessageDequeueEvent with the time it
+     * spent queued since {@code enqueuedNanos} ({@link System#nanoTime()} at dispatch), and in the
+     * MBean's latency histograms when JMX is enabled.
+     */
+    void runOperation(String id, Message.Type type, long enqueuedNanos) {
+        MessageDequeueEvent event = new MessageDequeueEvent();
+        ProcessorMonitor view = monitor;
+        long started = event.isEnabled() || view != null ? System.nanoTime() : 0L;
+        if (view != null) {
+            view.started();
+        }
+        event.begin();
         try {
-            while (!queue.isEmpty()) {
-                Runnable op = queue.poll();
-                if (op != null) {
-                    op.run();
+            runOperation(id, type);
+        } finally {
+            leaveRange(cluster, id);
+            if (view != null) {
+                long now = System.nanoTime();
+                view.finished(type, now - enqueuedNanos, now - started);
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.objectId = id;
+                event.messageType = type.name();
+                event.queueWait = Math.max(0L, started - enqueuedNanos);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Execute the operation for one message. Called by drainers in per-ID order.
+     */
+    void runOperation(String id, Message.Type type) {
+        ClusterCoordinator coordinator = cluster;
+        if (coordinator != null && !coordinator.holdsLease(id)) {
+            // The lease is kept while admitted work is counted, so only leaving the cluster gets here
+            log.warn("Skipping {} for ID {}: its range is no longer leased", type, id);
+            notOwnedMessages.increment();
+            if (type == Message.Type.DELETE) {
+                settlePendingDelete(id);
+            }
+            return;
+        }
+        switch (type) {
+            case CREATE -> {
+                // No data operation required; the no-op preserves ordering semantics
+                log.debug("CREATE encountered for ID: {} (no-op)", id);
+            }
+            case DELETE -> {
+                try {
+                    // Mark as deleted to prevent future submissions from being accepted
+                    ensureTombstones().add(id);
+                    Prefetcher warm = prefetcher;
+                    if (warm != null) {
+                        warm.forget(id);
+                    }
+                } finally {
+                    settlePendingDelete(id);
+                }
+                // Best-effort delete from repository if supported
+                try {
+                    runWithIoPermit(() -> repository.delete(id));
+                } catch (Exception e) {
+                    log.warn("Failed to delete object {}: {}", id, e.getMessage());
+                }
+                // Clear any queued operations for this ID; they settle as discarded
+                ensureDispatcher().discardPending(id);
+                if (log.isInfoEnabled()) {
+                    log.info("Deleted ID: {} and cleared pending operations", id);
                 }
             }
-        } finally {
-            isProcessing.set(false);
-            if (queue.isEmpty()) {
-                operationQueues.remove(id);
-                processingFlags.remove(id);
-            } else if (isProcessing.compareAndSet(false, true)) {
-                ensureExecutor().submit(() -> drainQueue(id));
+            case COMPRESS, DECOMPRESS -> {
+                // Shared shard queues cannot be cleared per ID, so re-check the tombstone here
+                if (ensureTombstones().contains(id)) {
+                    log.debug("Skipping {} for deleted ID: {}", type, id);
+                    return;
+                }
+                CancellationToken token = new CancellationToken();
+                runningTokens.put(id, token);
+                try {
+                    // Registered before the check, so a DELETE accepted at any point cancels it
+                    if (pendingDeletes.containsKey(id)) {
+                        token.cancel();
+                    }
+                    runWithIoPermit(() -> {
+                        token.throwIfCancelled();
+                        Prefetcher warm = prefetcher;
+                        boolean hit = warm != null && warm.consume(id);
+                        long lookupStart = System.nanoTime();
+                        Optional<DataObject> optObj = repository.findById(id);
+                        if (warm != null) {
+                            warm.recordLookup(hit, System.nanoTime() - lookupStart);
+                        }
+                        if (optObj.isEmpty()) {
+                            log.warn("Object not found: {}", id);
+                            return;
+                        }
+                        DataObject obj = optObj.get();
+                        if (applyVirtually(obj, type)) {
+                            if (log.isInfoEnabled()) {
+                                log.info("Processed {} for ID: {} (metadata only)", type, id);
+                            }
+                            return;
+                        }
+                        compressionService.processOperation(obj, type, token);
+                        repository.save(obj, token);
+                        if (log.isInfoEnabled()) {
+                            log.info("Processed {} for ID: {}", type, id);
+                        }
+                    });
+                } catch (CancellationException e) {
+                    cancelledOperations.increment();
+                    if (log.isInfoEnabled()) {
+                        log.info("Cancelled {} for ID: {} ahead of a pending DELETE", type, id);
+                    }
+                } finally {
+                    runningTokens.remove(id, token);
+                }
+            }
+            default -> {
+                // Unknown type, ignore
+                log.debug("Skipping message type {} for ID: {}", type, id);
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,22 @@
+package com.opentext.assignment.processor;
+
+/**
+ * Strategy that queues per-ID operations and runs them on the processor's executor.
+ * Implementations must run operations for the same ID sequentially, in dispatch order.
+ */
+interface OperationDispatcher {
+
+    /** Queue an operation for the given ID and make sure a drainer will run it. */
+    void dispatch(String id, QueuedOperation operation);
+
+    /**
+     * Drop operations still queued for the given ID, if the strategy can do so cheaply.
+     * Dropped operations are settled via {@link QueuedOperation#discard()}. Operations must also
+     * tolerate running after their ID was deleted.
+     * @return number of operations dropped without running
+     */
+    int discardPending(String id);
+
+    /** Current queue occupancy, for monitoring; may be approximate under concurrency. */
+    QueueDepth queueDepth();
+}
@@ -0,0 +1,112 @@
+package com.opentext.assignment.processor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded multi-producer, single-consumer ring of primitive operation entries.
+ * <p>
+ * Slots are preallocated: each holds a {@code long} entry, a {@code long} stamp (the enqueue time)
+ * and a fixed number of reference attachments, and a per-slot sequence number publishes it to the consumer (the classic
+ * sequence-per-slot bounded queue). Offering and polling allocate nothing.
+ * </p>
+ */
+final class OperationRing {
+
+    /** Reference attachments stored per slot. */
+    static final int ATTACHMENTS = 3;
+
+    private final int mask;
+    private final long[] entries;
+    private final long[] stamps;
+    private final Object[] attachments;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    /** Next position to consume; only touched by the single consumer. */
+    private volatile long head;
+
+    OperationRing(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two >= 2, got: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.entries = new long[capacity];
+        this.stamps = new long[capacity];
+        this.attachments = new Object[capacity * ATTACHMENTS];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /** @return false if the ring is full */
+    boolean offer(long entry, long stamp, Object a0, Object a1, Object a2) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    entries[index] = entry;
+                    stamps[index] = stamp;
+                    int base = index * ATTACHMENTS;
+                    attachments[base] = a0;
+                    attachments[base + 1] = a1;
+                    attachments[base + 2] = a2;
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Consume the next entry into the given sink. Must only be called by the consumer thread.
+     * @return false if the ring is empty
+     */
+    boolean poll(Sink sink) {
+        long pos = head;
+        int index = (int) (pos & mask);
+        if (sequences.get(index) != pos + 1) {
+            return false;
+        }
+        long entry = entries[index];
+        long stamp = stamps[index];
+        int base = index * ATTACHMENTS;
+        Object a0 = attachments[base];
+        Object a1 = attachments[base + 1];
+        Object a2 = attachments[base + 2];
+        attachments[base] = null;
+        attachments[base + 1] = null;
+        attachments[base + 2] = null;
+        sequences.set(index, pos + mask + 1);
+        head = pos + 1;
+        sink.accept(entry, stamp, a0, a1, a2);
+        return true;
+    }
+
+    boolean isEmpty() {
+        long pos = head;
+        return sequences.get((int) (pos & mask)) != pos + 1;
+    }
+
+    /** Entries offered so far. */
+    long offered() {
+        return tail.get();
+    }
+
+    /** Entries published but not yet consumed (approximate under concurrency). */
+    int depth() {
+        return (int) Math.max(0L, tail.get() - head);
+    }
+
+    @FunctionalInterface
+    interface Sink {
+        void accept(long entry, long stamp, Object a0, Object a1, Object a2);
+    }
+}
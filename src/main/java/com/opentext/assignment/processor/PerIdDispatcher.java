@@ -0,0 +1,124 @@
+package com.opentext.assignment.processor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Dispatcher with one FIFO queue and one drain guard per active ID. Both are created when an ID
+ * becomes active and removed once its queue is drained.
+ * <p>
+ * Adding to a queue and removing an idle queue both happen inside {@link ConcurrentHashMap#compute},
+ * so an operation can never land in a queue that was just retired.
+ * </p>
+ */
+@Slf4j
+class PerIdDispatcher implements OperationDispatcher {
+
+    private final Supplier<ExecutorService> executor;
+    private final LargeObjectLane largeLane;
+
+    /** Per-ID FIFO queues holding operations in submission order, with their drain guard. */
+    private final ConcurrentHashMap<String, IdQueue> operationQueues = new ConcurrentHashMap<>();
+
+    PerIdDispatcher(Supplier<ExecutorService> executor) {
+        this(executor, LargeObjectLane.disabled());
+    }
+
+    PerIdDispatcher(Supplier<ExecutorService> executor, LargeObjectLane largeLane) {
+        this.executor = executor;
+        this.largeLane = largeLane;
+    }
+
+    @Override
+    public void dispatch(String id, QueuedOperation operation) {
+        IdQueue queue = operationQueues.compute(id, (k, existing) -> {
+            IdQueue target = existing != null ? existing : new IdQueue();
+            target.operations.add(operation);
+            return target;
+        });
+
+        if (queue.processing.compareAndSet(false, true)) {
+            executor.get().submit(() -> drainQueue(id, queue));
+        }
+    }
+
+    @Override
+    public int discardPending(String id) {
+        IdQueue queue = operationQueues.get(id);
+        if (queue == null) {
+            return 0;
+        }
+        int dropped = 0;
+        QueuedOperation op;
+        while ((op = queue.operations.poll()) != null) {
+            op.discard();
+            dropped++;
+        }
+        return dropped;
+    }
+
+    /** Walks the active queues; cost grows with the number of active IDs. */
+    @Override
+    public QueueDepth queueDepth() {
+        long queued = 0;
+        int largest = 0;
+        for (IdQueue queue : operationQueues.values()) {
+            int size = queue.operations.size();
+            queued += size;
+            largest = Math.max(largest, size);
+        }
+        return new QueueDepth(operationQueues.size(), queued, largest);
+    }
+
+    /** Number of IDs that currently have a queue. */
+    int activeIds() {
+        return operationQueues.size();
+    }
+
+    /**
+     * Drain and execute all queued operations for the given ID sequentially.
+     * If new operations arrive during draining, the method will reschedule itself
+     * to ensure continued processing without overlapping drainers for the same ID.
+     */
+    private void drainQueue(String id, IdQueue queue) {
+        boolean handedOff = false;
+        try {
+            QueuedOperation op;
+            while ((op = queue.operations.poll()) != null) {
+                if (op.isLarge() && largeLane.handOff(op, executor.get(), () -> drainQueue(id, queue))) {
+                    // The lane resumes this drainer afterwards; the ID stays marked as processing
+                    handedOff = true;
+                    return;
+                }
+                try {
+                    op.run();
+                } catch (RuntimeException e) {
+                    log.error("Operation failed for ID: {}", id, e);
+                }
+            }
+        } finally {
+            if (!handedOff) {
+                finishDrain(id, queue);
+            }
+        }
+    }
+
+    private void finishDrain(String id, IdQueue queue) {
+        queue.processing.set(false);
+        operationQueues.compute(id, (k, existing) ->
+                existing == queue && queue.operations.isEmpty() ? null : existing);
+        if (!queue.operations.isEmpty() && queue.processing.compareAndSet(false, true)) {
+            executor.get().submit(() -> drainQueue(id, queue));
+        }
+    }
+
+    private static final class IdQueue {
+        private final LinkedBlockingQueue<QueuedOperation> operations = new LinkedBlockingQueue<>();
+        private final AtomicBoolean processing = new AtomicBoolean(false);
+    }
+}
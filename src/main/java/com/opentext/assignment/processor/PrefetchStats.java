@@ -0,0 +1,26 @@
+package com.opentext.assignment.processor;
+
+/**
+ * Effectiveness of the lookahead prefetcher.
+ *
+ * @param issued               IDs warmed by the prefetch thread
+ * @param dropped              IDs not warmed because the prefetch queue or the warm set was full
+ * @param hits                 operations that found their object already warmed
+ * @param misses               operations that started cold
+ * @param avgHitLookupNanos    mean time to open the object (catalog + meta) on a hit
+ * @param avgMissLookupNanos   mean time to open the object on a miss
+ */
+public record PrefetchStats(long issued, long dropped, long hits, long misses,
+                            long avgHitLookupNanos, long avgMissLookupNanos) {
+
+    /** Fraction of operations that started warm. */
+    public double hitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /** Lookup time saved across all hits, estimated from the difference between miss and hit latency. */
+    public long estimatedSavedNanos() {
+        return Math.max(0L, avgMissLookupNanos - avgHitLookupNanos) * hits;
+    }
+}
@@ -0,0 +1,291 @@
+package com.opentext.assignment.processor;
+
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.model.Repository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Warms objects that upcoming messages will touch.
+ * <p>
+ * Ingestion runs {@code window} messages ahead of dispatch: each message entering the window
+ * queues its ID, and a single low-priority thread reads the meta file and the head of the data
+ * file so the operation later starts against a warm page cache. Prefetching is best effort: when
+ * the queue is full, IDs are dropped rather than slowing ingestion down.
+ * </p>
+ */
+@Slf4j
+class Prefetcher {
+
+    /** How long the source may have nothing ready before the window is dispatched as it is. */
+    static final long IDLE_FLUSH_MILLIS = 5;
+    /** How often an idle lookahead with an empty window re-checks whether it should stop. */
+    private static final long STOP_CHECK_MILLIS = 100;
+
+    private final Repository repository;
+    private final int window;
+    private final BlockingQueue<String> queue;
+    /** IDs warmed and not yet consumed by an operation; bounded so skipped IDs cannot pile up. */
+    private final Set<String> warmed = ConcurrentHashMap.newKeySet();
+    private final int maxWarmed;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder hitNanos = new LongAdder();
+    private final LongAdder missNanos = new LongAdder();
+
+    Prefetcher(Repository repository, int window, int headBytes, String threadName) {
+        this.repository = repository;
+        this.window = window;
+        this.queue = new ArrayBlockingQueue<>(Math.max(16, window * 2));
+        this.maxWarmed = Math.max(64, window * 4);
+        ByteBuffer scratch = ByteBuffer.allocate(Math.max(1, headBytes));
+        this.thread = new Thread(() -> warmLoop(scratch), threadName);
+        this.thread.setDaemon(true);
+        this.thread.setPriority(Thread.MIN_PRIORITY);
+        this.thread.start();
+    }
+
+    /**
+     * Feed messages to the sink in order, each one only after the next {@code window} messages
+     * have been read and queued for prefetching. When the source has nothing ready for
+     * {@link #IDLE_FLUSH_MILLIS}, the window is dispatched as it is, so a slow or trickling feed
+     * never holds its last messages back. The source is read on a separate thread for this, since an
+     * iterator cannot be asked whether its next element is ready without blocking.
+     * <p>
+     * When {@code keepGoing} turns false, the reader is stopped and every message already taken
+     * from the source is still fed to the sink, so stopping loses nothing that was read. Stopping
+     * interrupts the reader and waits for it: a source that blocks must respond to interruption.
+     * On return the reader no longer touches the source, which may then be closed.
+     * </p>
+     */
+    void lookahead(Iterator<Message> messages, BooleanSupplier keepGoing, Consumer<Message> sink) {
+        ArrayDeque<Message> ahead = new ArrayDeque<>(window + 1);
+        SourceReader source = new SourceReader(messages, window, Thread.currentThread().getName() + "-reader");
+        try {
+            boolean ended = false;
+            while (keepGoing.getAsBoolean()) {
+                Message next = source.poll(ahead.isEmpty() ? STOP_CHECK_MILLIS : IDLE_FLUSH_MILLIS);
+                if (next == SourceReader.END) {
+                    ended = true;
+                    break;
+                }
+                if (next == null) {
+                    // Nothing ready: dispatch the window rather than wait for the feed to fill it
+                    while (keepGoing.getAsBoolean() && !ahead.isEmpty()) {
+                        sink.accept(ahead.pollFirst());
+                    }
+                    continue;
+                }
+                enqueue(next);
+                ahead.addLast(next);
+                if (ahead.size() > window) {
+                    sink.accept(ahead.pollFirst());
+                }
+            }
+            if (!ended) {
+                // Stopped early: what the reader already took from the source follows the window
+                source.close();
+                source.drainTo(ahead);
+            }
+            while (!ahead.isEmpty()) {
+                sink.accept(ahead.pollFirst());
+            }
+            source.rethrowFailure();
+        } finally {
+            source.close();
+        }
+    }
+
+    private void enqueue(Message message) {
+        Message.Type type = message.getType();
+        if (type != Message.Type.COMPRESS && type != Message.Type.DECOMPRESS) {
+            return;
+        }
+        if (warmed.size() >= maxWarmed || !queue.offer(message.getDataObjectId())) {
+            dropped.increment();
+        }
+    }
+
+    private void warmLoop(ByteBuffer scratch) {
+        while (running) {
+            String id;
+            try {
+                id = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (id == null || warmed.contains(id)) {
+                continue;
+            }
+            try {
+                if (repository.prefetch(id, scratch)) {
+                    warmed.add(id);
+                    issued.increment();
+                }
+            } catch (RuntimeException e) {
+                log.debug("Prefetch failed for {}: {}", id, e.getMessage());
+            }
+        }
+    }
+
+    /** Called when an operation starts; consumes the warm mark. @return true on a hit */
+    boolean consume(String id) {
+        return warmed.remove(id);
+    }
+
+    /** Record how long the operation took to open its object. */
+    void recordLookup(boolean hit, long nanos) {
+        if (hit) {
+            hits.increment();
+            hitNanos.add(nanos);
+        } else {
+            misses.increment();
+            missNanos.add(nanos);
+        }
+    }
+
+    /** Forget a warm mark, e.g. for a deleted ID. */
+    void forget(String id) {
+        warmed.remove(id);
+    }
+
+    PrefetchStats stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        return new PrefetchStats(issued.sum(), dropped.sum(), h, m,
+                h == 0 ? 0L : hitNanos.sum() / h, m == 0 ? 0L : missNanos.sum() / m);
+    }
+
+    void close() {
+        running = false;
+        thread.interrupt();
+    }
+
+    /** Reads the source on its own thread into a small bounded queue the lookahead polls with a timeout. */
+    private static final class SourceReader implements Runnable {
+        private static final Message END = new Message() {
+            @Override
+            public String getDataObjectId() {
+                return null;
+            }
+
+            @Override
+            public Type getType() {
+                return null;
+            }
+        };
+
+        private final Iterator<Message> messages;
+        private final BlockingQueue<Message> ready;
+        private final Thread thread;
+        private volatile boolean stopped;
+        private volatile Throwable failure;
+        /** A message taken from the source when the reader was stopped before it could queue it. */
+        private volatile Message leftover;
+
+        SourceReader(Iterator<Message> messages, int window, String threadName) {
+            this.messages = messages;
+            this.ready = new ArrayBlockingQueue<>(Math.max(16, window));
+            this.thread = new Thread(this, threadName);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stopped && messages.hasNext()) {
+                    Message next = messages.next();
+                    try {
+                        ready.put(next);
+                    } catch (InterruptedException e) {
+                        // Closed by the lookahead, which collects it with the queued ones
+                        leftover = next;
+                        return;
+                    }
+                }
+                if (stopped) {
+                    return;
+                }
+            } catch (Throwable e) {
+                if (stopped) {
+                    // The source gave up on the interrupt that stopped it
+                    return;
+                }
+                failure = e;
+            }
+            try {
+                ready.put(END);
+            } catch (InterruptedException e) {
+                // Closed by the lookahead
+            }
+        }
+
+        /** The next message, {@link #END} after the last one, or null if none arrived in time. */
+        Message poll(long timeoutMillis) {
+            try {
+                return ready.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reading messages", e);
+            }
+        }
+
+        void rethrowFailure() {
+            Throwable e = failure;
+            if (e instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e instanceof Error error) {
+                throw error;
+            }
+        }
+
+        /** Move the messages read but not yet polled to the collection, in order; only after {@link #close()}. */
+        void drainTo(Collection<Message> target) {
+            ready.drainTo(target);
+            target.remove(END);
+            Message last = leftover;
+            if (last != null) {
+                target.add(last);
+                leftover = null;
+            }
+        }
+
+        /** Stop reading and wait until the reader thread no longer touches the source. */
+        void close() {
+            stopped = true;
+            thread.interrupt();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.opentext.assignment.processor;
+
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.monitoring.LatencyHistogram;
+import com.opentext.assignment.monitoring.LatencySnapshot;
+import com.opentext.assignment.monitoring.MessageProcessorMXBean;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * JMX view of a {@link MessageProcessor}.
+ * <p>
+ * Latency and busy time are recorded into a ring of {@link #SLOTS} time slots that together span
+ * the configured window; a slot is cleared by the first recording after it comes round again, so
+ * rolling values cost no background thread. Queue, in-flight and tombstone values are read from
+ * the processor on demand.
+ * </p>
+ */
+final class ProcessorMonitor implements MessageProcessorMXBean {
+
+    static final int SLOTS = 6;
+    private static final Message.Type[] TYPES = Message.Type.values();
+
+    private final MessageProcessor processor;
+    private final long slotNanos;
+    private final long startNanos = System.nanoTime();
+    /** Slot number (time since start / slotNanos) each slot currently holds. */
+    private final AtomicLongArray slotEpochs = new AtomicLongArray(SLOTS);
+    private final LatencyHistogram[][] latency = new LatencyHistogram[TYPES.length][SLOTS];
+    private final AtomicLongArray busyNanos = new AtomicLongArray(SLOTS);
+    private final AtomicInteger busy = new AtomicInteger();
+
+    ProcessorMonitor(MessageProcessor processor, long windowSeconds) {
+        this.processor = processor;
+        this.slotNanos = Math.max(1L, windowSeconds) * 1_000_000_000L / SLOTS;
+        for (LatencyHistogram[] perType : latency) {
+            for (int i = 0; i < SLOTS; i++) {
+                perType[i] = new LatencyHistogram();
+            }
+        }
+    }
+
+    /** An operation starts running on a worker. */
+    void started() {
+        busy.incrementAndGet();
+    }
+
+    /**
+     * An operation finished.
+     * @param latencyNanos time since the message was dispatched
+     * @param runNanos     time the operation held its worker
+     */
+    void finished(Message.Type type, long latencyNanos, long runNanos) {
+        busy.decrementAndGet();
+        int slot = slot(System.nanoTime());
+        latency[type.ordinal()][slot].record(latencyNanos);
+        busyNanos.addAndGet(slot, runNanos);
+    }
+
+    private int slot(long now) {
+        long epoch = (now - startNanos) / slotNanos;
+        int slot = (int) (epoch % SLOTS);
+        long held = slotEpochs.get(slot);
+        if (held < epoch && slotEpochs.compareAndSet(slot, held, epoch)) {
+            // Recordings racing with the reset may be lost; acceptable for a monitoring view
+            for (LatencyHistogram[] perType : latency) {
+                perType[slot].reset();
+            }
+            busyNanos.set(slot, 0L);
+        }
+        return slot;
+    }
+
+    /** Whether the slot holds data of the current window. */
+    private boolean live(int slot, long currentEpoch) {
+        return slotEpochs.get(slot) > currentEpoch - SLOTS;
+    }
+
+    @Override
+    public int getActiveIds() {
+        return processor.queueDepth().activeIds();
+    }
+
+    @Override
+    public long getQueuedOperations() {
+        return processor.queueDepth().queued();
+    }
+
+    @Override
+    public int getLargestQueueDepth() {
+        return processor.queueDepth().largestQueue();
+    }
+
+    @Override
+    public int getInFlight() {
+        return processor.currentBackpressure().inFlight();
+    }
+
+    @Override
+    public int getMaxInFlight() {
+        return processor.currentBackpressure().maxInFlight();
+    }
+
+    @Override
+    public long getBlockedIngestions() {
+        return processor.currentBackpressure().blockedCount();
+    }
+
+    @Override
+    public int getWorkerThreads() {
+        return processor.workerCount();
+    }
+
+    @Override
+    public int getBusyWorkers() {
+        return Math.max(0, busy.get());
+    }
+
+    @Override
+    public double getThreadUtilization() {
+        long now = System.nanoTime();
+        long elapsed = now - startNanos;
+        long currentEpoch = elapsed / slotNanos;
+        long total = 0;
+        for (int i = 0; i < SLOTS; i++) {
+            if (live(i, currentEpoch)) {
+                total += busyNanos.get(i);
+            }
+        }
+        long covered = Math.min(elapsed, (SLOTS - 1) * slotNanos + elapsed % slotNanos);
+        int workers = Math.max(1, processor.workerCount());
+        return covered <= 0 ? 0.0 : Math.min(1.0, (double) total / ((double) covered * workers));
+    }
+
+    @Override
+    public long getTombstoneCount() {
+        return processor.tombstoneCount();
+    }
+
+    @Override
+    public long getCancelledOperations() {
+        return processor.getCancelledOperationCount();
+    }
+
+    @Override
+    public boolean isIngestionPaused() {
+        return processor.isIngestionPaused();
+    }
+
+    @Override
+    public Map<String, LatencySnapshot> getLatencies() {
+        long currentEpoch = (System.nanoTime() - startNanos) / slotNanos;
+        Map<String, LatencySnapshot> result = new LinkedHashMap<>();
+        for (Message.Type type : TYPES) {
+            LatencyHistogram merged = new LatencyHistogram();
+            for (int i = 0; i < SLOTS; i++) {
+                if (live(i, currentEpoch)) {
+                    merged.add(latency[type.ordinal()][i]);
+                }
+            }
+            result.put(type.name(), LatencySnapshot.of(merged));
+        }
+        return result;
+    }
+
+    @Override
+    public void resizeExecutor(int threads) {
+        processor.resizeExecutor(threads);
+    }
+
+    @Override
+    public void pauseIngestion() {
+        processor.pauseIngestion();
+    }
+
+    @Override
+    public void resumeIngestion() {
+        processor.resumeIngestion();
+    }
+}
@@ -0,0 +1,11 @@
+package com.opentext.assignment.processor;
+
+/**
+ * Point-in-time queue occupancy of a dispatcher.
+ *
+ * @param activeIds     IDs with a queue of their own, or -1 when queues are shared (sharded, ring)
+ * @param queued        operations waiting in queues, not counting the ones running
+ * @param largestQueue  deepest single queue: per ID, or per shard when queues are shared
+ */
+record QueueDepth(int activeIds, long queued, int largestQueue) {
+}
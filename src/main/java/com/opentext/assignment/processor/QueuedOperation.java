@@ -0,0 +1,116 @@
+package com.opentext.assignment.processor;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An accepted message waiting in a dispatcher queue. Whether it runs or is discarded by a DELETE,
+ * it settles its bookkeeping exactly once: the in-flight credit, the counters of its
+ * process() call and flush epoch, and the caller's future, if any.
+ */
+final class QueuedOperation implements Runnable {
+
+    private final String id;
+    private final Runnable body;
+    private final InFlightLimiter limiter;
+    private final CompletionCounter epoch;
+    private final CompletionCounter call;
+    private final CompletableFuture<Void> completion;
+    /** Runs on the capped large-object lane instead of the regular pool. */
+    private boolean large;
+    /** Undoes what accepting the operation recorded, when it is dropped instead of run. */
+    private Runnable onDiscard;
+
+    QueuedOperation(String id, Runnable body, InFlightLimiter limiter, CompletionCounter epoch,
+                    CompletionCounter call, CompletableFuture<Void> completion) {
+        this.id = id;
+        this.body = body;
+        this.limiter = limiter;
+        this.epoch = epoch;
+        this.call = call;
+        this.completion = completion;
+        if (epoch != null) {
+            epoch.register();
+        }
+        if (call != null) {
+            call.register();
+        }
+    }
+
+    /** Wrap a plain task with no bookkeeping; used where only ordering matters. */
+    static QueuedOperation of(String id, Runnable body) {
+        return new QueuedOperation(id, body, null, null, null, null);
+    }
+
+    String id() {
+        return id;
+    }
+
+    boolean isLarge() {
+        return large;
+    }
+
+    QueuedOperation markLarge(boolean large) {
+        this.large = large;
+        return this;
+    }
+
+    /** Run the action if the operation is discarded; actions added earlier run first. */
+    QueuedOperation onDiscard(Runnable onDiscard) {
+        Runnable previous = this.onDiscard;
+        this.onDiscard = previous == null ? onDiscard : () -> {
+            try {
+                previous.run();
+            } finally {
+                onDiscard.run();
+            }
+        };
+        return this;
+    }
+
+    @Override
+    public void run() {
+        try {
+            body.run();
+        } catch (RuntimeException | Error e) {
+            settle(e);
+            throw e;
+        }
+        settle(null);
+    }
+
+    /** Settle without running: the operation was dropped because its ID was deleted. */
+    void discard() {
+        try {
+            if (onDiscard != null) {
+                onDiscard.run();
+            }
+        } finally {
+            settle(null);
+        }
+    }
+
+    private void settle(Throwable failure) {
+        settle(id, limiter, epoch, call, completion, failure);
+    }
+
+    /** Shared bookkeeping for operations that are not materialised as objects (ring dispatch). */
+    static void settle(String id, InFlightLimiter limiter, CompletionCounter epoch, CompletionCounter call,
+                       CompletableFuture<Void> completion, Throwable failure) {
+        if (limiter != null) {
+            limiter.release(id, 1);
+        }
+        if (completion != null) {
+            if (failure == null) {
+                completion.complete(null);
+            } else {
+                completion.completeExceptionally(failure);
+            }
+        }
+        if (call != null) {
+            call.arrive();
+        }
+        if (epoch != null) {
+            epoch.arrive();
+        }
+    }
+}
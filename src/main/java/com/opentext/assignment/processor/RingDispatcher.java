@@ -0,0 +1,214 @@
+package com.opentext.assignment.processor;
+
+import com.opentext.assignment.model.Message;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+/**
+ * Allocation-free dispatcher: IDs are interned to int handles and each operation is recorded as a
+ * primitive (handle, type) entry in a preallocated ring, so the steady-state hot path creates no
+ * lambda, queue node or per-ID state. ProcessorDispatchBenchmark measures the full accept path
+ * through this dispatcher; only a JFR recording of the enqueue and dequeue events allocates.
+ * <p>
+ * IDs are hashed onto a fixed number of shards exactly like {@link ShardedDispatcher}; every shard
+ * has one ring drained by a dedicated daemon worker thread that parks while its ring is empty.
+ * A single consumer per shard keeps operations for the same ID in order. When the ring is full,
+ * producers spin briefly and then park, which bounds memory like any other backpressure.
+ * </p>
+ * <p>
+ * Operations that cannot be encoded (intern table full, or callers handing in a
+ * {@link QueuedOperation}) go through the same shard ring as an opaque entry, so ordering holds
+ * across both paths. The large-object lane is not used in this mode: large operations run on their
+ * shard worker like any other.
+ * </p>
+ */
+@Slf4j
+class RingDispatcher implements OperationDispatcher {
+
+    /** Type code for an entry whose {@link QueuedOperation} travels as an attachment. */
+    private static final int OPAQUE = 0xFF;
+    private static final Message.Type[] TYPES = Message.Type.values();
+
+    private final IdInternTable ids;
+    private final Runner runner;
+    private final InFlightLimiter limiter;
+    private final Worker[] workers;
+    private volatile boolean running = true;
+
+    RingDispatcher(int shardCount, int ringCapacity, int internCapacity, BiConsumer<String, Message.Type> runner,
+                   InFlightLimiter limiter, String threadNamePrefix) {
+        this(shardCount, ringCapacity, internCapacity, (id, type, enqueuedNanos) -> runner.accept(id, type), limiter,
+                threadNamePrefix);
+    }
+
+    RingDispatcher(int shardCount, int ringCapacity, int internCapacity, Runner runner,
+                   InFlightLimiter limiter, String threadNamePrefix) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive, got: " + shardCount);
+        }
+        this.ids = new IdInternTable(internCapacity);
+        this.runner = runner;
+        this.limiter = limiter;
+        this.workers = new Worker[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            workers[i] = new Worker(new OperationRing(ringCapacity), threadNamePrefix + i);
+        }
+        for (Worker worker : workers) {
+            worker.thread.start();
+        }
+    }
+
+    /** Same spread hash as the sharded dispatcher, computed from the (cached) String hash. */
+    int shardIndex(String id) {
+        int h = id.hashCode();
+        h ^= (h >>> 16);
+        return (h & 0x7fffffff) % workers.length;
+    }
+
+    /**
+     * Record the operation as a primitive ring entry. Registers with the counters exactly like a
+     * {@link QueuedOperation} and settles them once the operation has run.
+     * @return false if the ID cannot be interned; the caller then dispatches a QueuedOperation
+     */
+    boolean tryDispatch(String id, Message.Type type, CompletionCounter epoch, CompletionCounter call,
+                        CompletableFuture<Void> completion) {
+        int handle = ids.handleOf(id);
+        if (handle < 0) {
+            return false;
+        }
+        if (epoch != null) {
+            epoch.register();
+        }
+        if (call != null) {
+            call.register();
+        }
+        long entry = ((long) handle << 8) | type.ordinal();
+        workers[shardIndex(id)].publish(entry, System.nanoTime(), epoch, call, completion);
+        return true;
+    }
+
+    @Override
+    public void dispatch(String id, QueuedOperation operation) {
+        workers[shardIndex(id)].publish(OPAQUE, 0L, null, null, operation);
+    }
+
+    /** Rings are shared between IDs; deleted IDs are skipped when their operations run. */
+    @Override
+    public int discardPending(String id) {
+        return 0;
+    }
+
+    @Override
+    public QueueDepth queueDepth() {
+        long queued = 0;
+        int largest = 0;
+        for (Worker worker : workers) {
+            int depth = worker.ring.depth();
+            queued += depth;
+            largest = Math.max(largest, depth);
+        }
+        return new QueueDepth(-1, queued, largest);
+    }
+
+    /** Snapshot of per-shard load; queue depth is the deepest ring at the time of the call. */
+    ShardStats stats() {
+        long[] offered = new long[workers.length];
+        int maxDepth = 0;
+        for (int i = 0; i < workers.length; i++) {
+            offered[i] = workers[i].ring.offered();
+            maxDepth = Math.max(maxDepth, workers[i].ring.depth());
+        }
+        return ShardStats.of(offered, maxDepth);
+    }
+
+    int workerCount() {
+        return workers.length;
+    }
+
+    /** Stop accepting work; workers finish what is already in their rings and exit. */
+    void close() {
+        running = false;
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker.thread);
+        }
+    }
+
+    /** Runs one decoded operation; receives the {@link System#nanoTime()} at which it was published. */
+    @FunctionalInterface
+    interface Runner {
+        void run(String id, Message.Type type, long enqueuedNanos);
+    }
+
+    private final class Worker implements Runnable, OperationRing.Sink {
+        private final OperationRing ring;
+        private final Thread thread;
+        /** Set while the worker is parked or about to park; producers unpark it. */
+        private volatile boolean idle;
+
+        Worker(OperationRing ring, String name) {
+            this.ring = ring;
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        void publish(long entry, long stamp, Object a0, Object a1, Object a2) {
+            int spins = 0;
+            while (!ring.offer(entry, stamp, a0, a1, a2)) {
+                if (++spins < 64) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(10_000L);
+                }
+            }
+            if (idle) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                if (ring.poll(this)) {
+                    continue;
+                }
+                if (!running) {
+                    return;
+                }
+                idle = true;
+                // Re-check after announcing idleness so a concurrent publish is never missed
+                if (ring.isEmpty() && running) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void accept(long entry, long stamp, Object a0, Object a1, Object a2) {
+            int code = (int) (entry & 0xFF);
+            if (code == OPAQUE) {
+                try {
+                    ((QueuedOperation) a2).run();
+                } catch (RuntimeException e) {
+                    log.error("Operation failed in ring worker", e);
+                }
+                return;
+            }
+            String id = ids.idOf((int) (entry >>> 8));
+            Throwable failure = null;
+            try {
+                runner.run(id, TYPES[code], stamp);
+            } catch (RuntimeException e) {
+                // One failing ID must not stall the other IDs sharing this ring
+                log.error("Operation failed in ring worker", e);
+                failure = e;
+            }
+            QueuedOperation.settle(id, limiter, (CompletionCounter) a0, (CompletionCounter) a1,
+                    (CompletableFuture<Void>) a2, failure);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.opentext.assignment.processor;
+
+/**
+ * Load distribution across the shards of the sharded dispatcher.
+ *
+ * @param shardCount        number of shards
+ * @param totalEnqueued     operations dispatched since the processor started
+ * @param maxShardEnqueued  operations dispatched to the busiest shard
+ * @param maxQueueDepth     deepest queue observed on any shard
+ * @param skew              busiest shard relative to the mean (1.0 is perfectly even)
+ */
+public record ShardStats(int shardCount, long totalEnqueued, long maxShardEnqueued, int maxQueueDepth, double skew) {
+
+    static ShardStats of(long[] enqueuedPerShard, int maxQueueDepth) {
+        long total = 0;
+        long max = 0;
+        for (long count : enqueuedPerShard) {
+            total += count;
+            max = Math.max(max, count);
+        }
+        double mean = enqueuedPerShard.length == 0 ? 0 : (double) total / enqueuedPerShard.length;
+        double skew = mean > 0 ? max / mean : 1.0;
+        return new ShardStats(enqueuedPerShard.length, total, max, maxQueueDepth, skew);
+    }
+}
@@ -0,0 +1,159 @@
+package com.opentext.assignment.processor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Dispatcher that hashes each ID to one of a fixed number of shards. Every shard owns a
+ * multi-producer queue drained by at most one task at a time, so operations for the same ID
+ * keep their order by construction and no per-ID state is allocated or removed.
+ * <p>
+ * A drainer runs at most {@link #DRAIN_BATCH} operations before yielding its thread, so a hot
+ * shard cannot monopolise the pool while other shards wait. A large-object operation is handed to
+ * the large lane and holds its shard until done, so IDs sharing that shard wait behind it; more
+ * shards make that less likely.
+ * </p>
+ */
+@Slf4j
+class ShardedDispatcher implements OperationDispatcher {
+
+    static final int DRAIN_BATCH = 256;
+
+    private final Supplier<ExecutorService> executor;
+    private final LargeObjectLane largeLane;
+    private final Shard[] shards;
+
+    ShardedDispatcher(int shardCount, Supplier<ExecutorService> executor) {
+        this(shardCount, executor, LargeObjectLane.disabled());
+    }
+
+    ShardedDispatcher(int shardCount, Supplier<ExecutorService> executor, LargeObjectLane largeLane) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive, got: " + shardCount);
+        }
+        this.executor = executor;
+        this.largeLane = largeLane;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    /** Map an ID to its shard; the hash is spread so similar IDs do not cluster. */
+    int shardIndex(String id) {
+        int h = id.hashCode();
+        h ^= (h >>> 16);
+        return (h & 0x7fffffff) % shards.length;
+    }
+
+    @Override
+    public void dispatch(String id, QueuedOperation operation) {
+        Shard shard = shards[shardIndex(id)];
+        shard.queue.add(operation);
+        shard.enqueued.increment();
+        int depth = shard.depth.incrementAndGet();
+        if (depth > shard.maxDepth.get()) {
+            shard.maxDepth.accumulateAndGet(depth, Math::max);
+        }
+        if (shard.active.compareAndSet(false, true)) {
+            ExecutorService exec = executor.get();
+            exec.submit(() -> shard.drain(exec));
+        }
+    }
+
+    /** Shard queues are shared between IDs; deleted IDs are skipped when their operations run. */
+    @Override
+    public int discardPending(String id) {
+        return 0;
+    }
+
+    @Override
+    public QueueDepth queueDepth() {
+        long queued = 0;
+        int largest = 0;
+        for (Shard shard : shards) {
+            int depth = Math.max(0, shard.depth.get());
+            queued += depth;
+            largest = Math.max(largest, depth);
+        }
+        return new QueueDepth(-1, queued, largest);
+    }
+
+    /** Snapshot of per-shard load, used to detect hash skew. */
+    ShardStats stats() {
+        long[] enqueued = new long[shards.length];
+        int maxDepth = 0;
+        for (int i = 0; i < shards.length; i++) {
+            enqueued[i] = shards[i].enqueued.sum();
+            maxDepth = Math.max(maxDepth, shards[i].maxDepth.get());
+        }
+        return ShardStats.of(enqueued, maxDepth);
+    }
+
+    private final class Shard {
+        private final ConcurrentLinkedQueue<QueuedOperation> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean active = new AtomicBoolean(false);
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicInteger maxDepth = new AtomicInteger();
+        private final LongAdder enqueued = new LongAdder();
+
+        /**
+         * Run queued operations on the given executor. Once that executor is shutting down
+         * (processor shutdown), the drainer stops yielding and finishes the queue itself, because
+         * a task resubmitted elsewhere would not be awaited.
+         */
+        private void drain(ExecutorService exec) {
+            while (true) {
+                try {
+                    if (runBatch(exec, exec.isShutdown() ? Integer.MAX_VALUE : DRAIN_BATCH)) {
+                        // Handed off to the large-object lane, which resumes this drainer; stay active
+                        return;
+                    }
+                } catch (RuntimeException | Error e) {
+                    active.set(false);
+                    throw e;
+                }
+                active.set(false);
+                if (queue.isEmpty() || !active.compareAndSet(false, true)) {
+                    return;
+                }
+                if (!exec.isShutdown()) {
+                    try {
+                        exec.submit(() -> drain(exec));
+                        return;
+                    } catch (RejectedExecutionException e) {
+                        // Shut down in the meantime: keep draining on this thread
+                    }
+                }
+            }
+        }
+
+        /** @return true if the batch stopped because an operation was handed to the large-object lane */
+        private boolean runBatch(ExecutorService exec, int limit) {
+            for (int i = 0; i < limit; i++) {
+                QueuedOperation op = queue.poll();
+                if (op == null) {
+                    return false;
+                }
+                depth.decrementAndGet();
+                if (op.isLarge() && largeLane.handOff(op, exec, () -> drain(exec))) {
+                    return true;
+                }
+                try {
+                    op.run();
+                } catch (RuntimeException e) {
+                    // One failing ID must not stall the other IDs sharing this shard
+                    log.error("Operation failed in shard drainer", e);
+                }
+            }
+            return false;
+        }
+    }
+}
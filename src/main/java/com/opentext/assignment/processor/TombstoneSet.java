@@ -0,0 +1,270 @@
+package com.opentext.assignment.processor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+
+/**
+ * Bounded set of deleted IDs.
+ * <p>
+ * - The most recent deletes are kept exactly, up to a configured capacity.
+ * - Older deletes move into a fixed-size Bloom filter. A Bloom hit is confirmed with a caller
+ *   supplied check (the object no longer exists), so a false positive never drops a message for a
+ *   live object.
+ * - With a directory configured, deletes are appended to a journal and periodically compacted into
+ *   a snapshot of the filter plus the recent window, so tombstones survive a restart.
+ * </p>
+ * Queries are lock-free; adds are serialised.
+ */
+@Slf4j
+final class TombstoneSet {
+
+    static final String SNAPSHOT_FILE = ".tombstones";
+    static final String JOURNAL_FILE = ".tombstones.log";
+    private static final int SNAPSHOT_MAGIC = 0x544f4d42; // "TOMB"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final int recentCapacity;
+    private final Set<String> recent = ConcurrentHashMap.newKeySet();
+    /** Insertion order of the recent window; guarded by this. */
+    private final ArrayDeque<String> order = new ArrayDeque<>();
+    private final int bloomBits;
+    private final int bloomHashes;
+    private final AtomicLongArray bloom;
+    /** IDs moved into the Bloom filter; while 0 the filter is not consulted at all. */
+    private volatile long olderCount;
+    private final Predicate<String> confirmDeleted;
+
+    private final Path dir;
+    /** Guarded by this; null when not persistent. */
+    private BufferedWriter journal;
+    private int journalEntries;
+
+    private TombstoneSet(int recentCapacity, int bloomBits, int bloomHashes, Predicate<String> confirmDeleted, Path dir) {
+        this.recentCapacity = Math.max(1, recentCapacity);
+        this.bloomBits = Math.max(64, bloomBits);
+        this.bloomHashes = Math.max(1, bloomHashes);
+        this.bloom = new AtomicLongArray((this.bloomBits + 63) >>> 6);
+        this.confirmDeleted = confirmDeleted;
+        this.dir = dir;
+    }
+
+    /** Purely in-memory set; lost on restart. */
+    static TombstoneSet inMemory(int recentCapacity, int bloomBits, int bloomHashes, Predicate<String> confirmDeleted) {
+        return new TombstoneSet(recentCapacity, bloomBits, bloomHashes, confirmDeleted, null);
+    }
+
+    /**
+     * Open a persistent set in the given directory, restoring the snapshot and replaying the
+     * journal. A persisted filter keeps its original geometry even if the configuration changed.
+     */
+    static TombstoneSet open(Path dir, int recentCapacity, int bloomBits, int bloomHashes, Predicate<String> confirmDeleted) {
+        try {
+            Files.createDirectories(dir);
+            Path snapshot = dir.resolve(SNAPSHOT_FILE);
+            TombstoneSet set;
+            if (Files.exists(snapshot)) {
+                try (DataInputStream in = new DataInputStream(Files.newInputStream(snapshot))) {
+                    if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                        throw new IOException("Unrecognised tombstone snapshot " + snapshot);
+                    }
+                    int bits = in.readInt();
+                    int hashes = in.readInt();
+                    set = new TombstoneSet(recentCapacity, bits, hashes, confirmDeleted, dir);
+                    set.olderCount = in.readLong();
+                    for (int i = 0; i < set.bloom.length(); i++) {
+                        set.bloom.set(i, in.readLong());
+                    }
+                    int recentSize = in.readInt();
+                    for (int i = 0; i < recentSize; i++) {
+                        set.remember(in.readUTF());
+                    }
+                }
+            } else {
+                set = new TombstoneSet(recentCapacity, bloomBits, bloomHashes, confirmDeleted, dir);
+            }
+            Path journalPath = dir.resolve(JOURNAL_FILE);
+            if (Files.exists(journalPath)) {
+                try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+                    String id;
+                    while ((id = reader.readLine()) != null) {
+                        if (!id.isEmpty()) {
+                            set.remember(id);
+                        }
+                    }
+                }
+            }
+            synchronized (set) {
+                // Start from a compact state so the journal only holds deletes of this run
+                set.compact();
+            }
+            if (log.isInfoEnabled()) {
+                log.info("Loaded {} recent and {} older tombstones from {}", set.recent.size(), set.olderCount, dir);
+            }
+            return set;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open tombstones in " + dir, e);
+        }
+    }
+
+    /** Whether the ID was deleted. Called for every message, so it must stay cheap. */
+    boolean contains(String id) {
+        if (recent.contains(id)) {
+            return true;
+        }
+        return olderCount > 0 && mightContain(id) && confirmDeleted.test(id);
+    }
+
+    /** Record a delete; persisted before returning when the set is persistent. */
+    synchronized void add(String id) {
+        if (!remember(id) || journal == null) {
+            return;
+        }
+        try {
+            journal.write(id);
+            journal.write('\n');
+            journal.flush();
+            if (++journalEntries >= recentCapacity) {
+                compact();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to persist tombstone for {}: {}", id, e.getMessage());
+        }
+    }
+
+    /** Whether deletes are journaled to disk and survive a {@link #close()} and reopen. */
+    boolean isPersistent() {
+        return dir != null;
+    }
+
+    int recentSize() {
+        return recent.size();
+    }
+
+    long olderSize() {
+        return olderCount;
+    }
+
+    /** Heap held by the Bloom filter, in bytes. */
+    long bloomBytes() {
+        return bloom.length() * 8L;
+    }
+
+    /** Close the journal; further adds are kept in memory only. */
+    synchronized void close() {
+        if (journal != null) {
+            try {
+                compact();
+                journal.close();
+            } catch (IOException e) {
+                log.warn("Failed to close tombstone journal: {}", e.getMessage());
+            }
+            journal = null;
+        }
+    }
+
+    /** Add to the recent window, evicting the oldest entries into the Bloom filter. */
+    private synchronized boolean remember(String id) {
+        if (!recent.add(id)) {
+            return false;
+        }
+        order.addLast(id);
+        while (order.size() > recentCapacity) {
+            String evicted = order.pollFirst();
+            // Set the filter bits before leaving the window so the ID never looks live
+            addToBloom(evicted);
+            olderCount++;
+            recent.remove(evicted);
+        }
+        return true;
+    }
+
+    /** Write a snapshot atomically and start an empty journal; caller holds the lock. */
+    private void compact() throws IOException {
+        if (dir == null) {
+            return;
+        }
+        Path snapshot = dir.resolve(SNAPSHOT_FILE);
+        Path temp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+        List<String> window = new ArrayList<>(order);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(bloomBits);
+            out.writeInt(bloomHashes);
+            out.writeLong(olderCount);
+            for (int i = 0; i < bloom.length(); i++) {
+                out.writeLong(bloom.get(i));
+            }
+            out.writeInt(window.size());
+            for (String id : window) {
+                out.writeUTF(id);
+            }
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (journal != null) {
+            journal.close();
+        }
+        journal = Files.newBufferedWriter(dir.resolve(JOURNAL_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        journalEntries = 0;
+    }
+
+    private void addToBloom(String id) {
+        int h1 = spread(id.hashCode());
+        int h2 = secondaryHash(id);
+        for (int i = 0; i < bloomHashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bloomBits);
+            int word = bit >>> 6;
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bloom.get(word);
+            } while ((current & mask) == 0 && !bloom.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    private boolean mightContain(String id) {
+        int h1 = spread(id.hashCode());
+        int h2 = secondaryHash(id);
+        for (int i = 0; i < bloomHashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bloomBits);
+            if ((bloom.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /** FNV-1a over the characters; independent enough from String.hashCode for double hashing. */
+    private static int secondaryHash(String id) {
+        int h = 0x811c9dc5;
+        for (int i = 0; i < id.length(); i++) {
+            h ^= id.charAt(i);
+            h *= 0x01000193;
+        }
+        return h | 1;
+    }
+}
@@ -0,0 +1,236 @@
+package com.opentext.assignment.processor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Records COMPRESS messages as pending intents and dispatches them later, when the processor is
+ * idle, through the regular per-ID path.
+ * <p>
+ * - Idle means: at most {@code idleInFlight} operations in flight and, if configured, a system
+ *   load per core below {@code idleLoadPerCore}, continuously for {@code idleMillis}.
+ * - At most {@code maxPending} intents are kept; beyond that COMPRESS is processed inline.
+ * - A later COMPRESS for the ID coalesces into the pending intent. A later DECOMPRESS or DELETE
+ *   drops it (compress-then-decompress/delete has the same outcome as not compressing) and is
+ *   then dispatched as usual. An intent being dispatched at that moment is waited for (parked on
+ *   its latch, since dispatch may block on in-flight credits), so the later message always runs
+ *   after it.
+ * </p>
+ */
+@Slf4j
+class WriteBehindScheduler {
+
+    /** A pending COMPRESS; once dispatching, later messages for the ID wait on its latch. */
+    private static final class Intent {
+        /** Set under the map's lock for the ID. */
+        private volatile boolean dispatching;
+        private final CountDownLatch dispatched = new CountDownLatch(1);
+
+        /** Wait, without spinning, until the intent has been handed to the dispatcher. */
+        void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    dispatched.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private final ConcurrentHashMap<String, Intent> intents = new ConcurrentHashMap<>();
+    /** Dispatch order; may contain IDs whose intent was dropped meanwhile. */
+    private final ConcurrentLinkedQueue<String> order = new ConcurrentLinkedQueue<>();
+    private final int maxPending;
+    private final int idleInFlight;
+    private final long idleNanos;
+    private final double idleLoadPerCore;
+    private final IntSupplier inFlight;
+    private final Consumer<String> dispatchCompress;
+    private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    WriteBehindScheduler(int maxPending, int idleInFlight, long idleMillis, double idleLoadPerCore,
+                         IntSupplier inFlight, Consumer<String> dispatchCompress, String threadName) {
+        this.maxPending = Math.max(1, maxPending);
+        this.idleInFlight = Math.max(0, idleInFlight);
+        this.idleNanos = Math.max(0L, idleMillis) * 1_000_000L;
+        this.idleLoadPerCore = idleLoadPerCore;
+        this.inFlight = inFlight;
+        this.dispatchCompress = dispatchCompress;
+        this.thread = new Thread(this::idleLoop, threadName);
+        this.thread.setDaemon(true);
+        this.thread.setPriority(Thread.MIN_PRIORITY);
+        this.thread.start();
+    }
+
+    /**
+     * Record a COMPRESS as an intent.
+     * @return false if the caller must dispatch the COMPRESS itself (bound reached, or an intent
+     *         for the ID is being dispatched right now; that one has been waited for)
+     */
+    boolean tryDefer(String id) {
+        boolean[] recorded = new boolean[1];
+        Intent intent = intents.compute(id, (key, current) -> {
+            if (current != null && !current.dispatching) {
+                coalesced.increment();
+                recorded[0] = true;
+                return current;
+            }
+            if (current == null && intents.size() < maxPending) {
+                deferred.increment();
+                order.add(key);
+                recorded[0] = true;
+                return new Intent();
+            }
+            return current;
+        });
+        if (recorded[0]) {
+            return true;
+        }
+        if (intent == null) {
+            rejected.increment();
+        } else {
+            intent.await();
+        }
+        return false;
+    }
+
+    /**
+     * Resolve the intent of an ID before a DECOMPRESS or DELETE for it is dispatched: drop a
+     * pending one, or wait for one that is being dispatched.
+     */
+    void resolveBefore(String id) {
+        if (intents.isEmpty()) {
+            return;
+        }
+        Intent after = intents.computeIfPresent(id, (key, current) -> {
+            if (!current.dispatching) {
+                cancelled.increment();
+                return null;
+            }
+            return current;
+        });
+        if (after != null) {
+            after.await();
+        }
+    }
+
+    /**
+     * Dispatch every pending intent now, e.g. before a flush or shutdown, and wait for intents the
+     * idle thread is dispatching at the same time.
+     */
+    void drainAll() {
+        String id;
+        while ((id = order.poll()) != null) {
+            dispatchOne(id);
+        }
+        boolean waited;
+        do {
+            waited = false;
+            for (Intent intent : intents.values()) {
+                if (intent.dispatching) {
+                    intent.await();
+                    waited = true;
+                }
+            }
+        } while (waited);
+    }
+
+    WriteBehindStats stats() {
+        return new WriteBehindStats(intents.size(), deferred.sum(), coalesced.sum(), cancelled.sum(),
+                dispatched.sum(), rejected.sum());
+    }
+
+    void close() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    private void dispatchOne(String id) {
+        Intent[] taken = new Intent[1];
+        intents.computeIfPresent(id, (key, current) -> {
+            if (!current.dispatching) {
+                current.dispatching = true;
+                taken[0] = current;
+            }
+            return current;
+        });
+        Intent intent = taken[0];
+        if (intent == null) {
+            // Dropped by a later DECOMPRESS/DELETE
+            return;
+        }
+        try {
+            dispatchCompress.accept(id);
+            dispatched.increment();
+        } catch (RuntimeException e) {
+            log.warn("Failed to dispatch write-behind COMPRESS for {}: {}", id, e.getMessage());
+        } finally {
+            intents.remove(id, intent);
+            intent.dispatched.countDown();
+        }
+    }
+
+    private void idleLoop() {
+        long tickNanos = Math.max(5_000_000L, idleNanos / 4);
+        long quietSince = 0L;
+        while (running) {
+            LockSupport.parkNanos(this, tickNanos);
+            if (order.isEmpty()) {
+                quietSince = 0L;
+                continue;
+            }
+            if (!isIdle()) {
+                quietSince = 0L;
+                continue;
+            }
+            long now = System.nanoTime();
+            if (quietSince == 0L) {
+                quietSince = now;
+            }
+            if (now - quietSince < idleNanos) {
+                continue;
+            }
+            // Dispatch while the processor stays idle; the dispatched work itself ends the idle period
+            String id;
+            while (running && isIdle() && (id = order.poll()) != null) {
+                dispatchOne(id);
+            }
+            quietSince = 0L;
+        }
+    }
+
+    private boolean isIdle() {
+        if (inFlight.getAsInt() > idleInFlight) {
+            return false;
+        }
+        if (idleLoadPerCore > 0) {
+            double load = os.getSystemLoadAverage();
+            // Not available on every platform (negative); in-flight work alone decides then
+            return load < 0 || load / Math.max(1, os.getAvailableProcessors()) < idleLoadPerCore;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,14 @@
+package com.opentext.assignment.processor;
+
+/**
+ * Counters of the write-behind COMPRESS scheduler.
+ *
+ * @param pending     intents recorded and not yet dispatched
+ * @param deferred    COMPRESS messages recorded as intents
+ * @param coalesced   COMPRESS messages folded into an intent that was already pending
+ * @param cancelled   intents dropped because a later DECOMPRESS or DELETE for the ID arrived
+ * @param dispatched  intents handed to the regular per-ID dispatch
+ * @param rejected    COMPRESS messages processed inline because the pending bound was reached
+ */
+public record WriteBehindStats(int pending, long deferred, long coalesced, long cancelled, long dispatched, long rejected) {
+}
@@ -0,0 +1,178 @@
+package com.opentext.assignment.repository;
+
+import com.opentext.assignment.model.CancellationToken;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Temp data file being written by a save: a buffered UTF-8 writer whose CRC32C is updated with
+ * every output block and whose characters feed the run statistics as they pass, so the
+ * {@link ObjectAttributes} of the file are known when it is flushed, without a second pass.
+ * With a stripe target, data beyond the first chunk continues in further chunk files
+ * ({@link StripedOutputStream}); those are deleted on close unless {@link #published()} was called.
+ * <p>
+ * A large parallel source of known size is written by several threads at once
+ * ({@link ParallelDataWriter}); the file and its attributes are the same as from a sequential write.
+ * </p>
+ */
+final class DataFileOutput implements Closeable {
+
+    private final FileChannel channel;
+    private final CRC32C crc;
+    private final Path path;
+    private final int bufferSize;
+    private final BufferedWriter writer;
+    private final ObjectAttributes.Codec codec;
+    private RunStats runs;
+    private final StripedOutputStream striped;
+    private boolean published;
+    /** Runs the segments of parallel writes; null writes everything in order. */
+    private final ExecutorService parallelIo;
+    /** Result of a parallel write, null after sequential writes. */
+    private ParallelDataWriter parallel;
+
+    /**
+     * @param checksum         compute the CRC32C of the written bytes
+     * @param codec            form of the characters that will be written
+     * @param stripes          where to continue once the file holds one chunk; null for a single file
+     * @param parallelIo       pool for the segments of a parallel write; null disables parallel writes
+     */
+    DataFileOutput(Path path, int bufferSize, boolean checksum, ObjectAttributes.Codec codec,
+                   StripedOutputStream.Target stripes, ExecutorService parallelIo) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.path = path;
+        this.bufferSize = bufferSize;
+        this.crc = checksum ? new CRC32C() : null;
+        this.striped = stripes == null ? null : new StripedOutputStream(channel, stripes, bufferSize);
+        OutputStream out = striped != null ? striped : Channels.newOutputStream(channel);
+        if (crc != null) {
+            out = new CheckedOutputStream(out, crc);
+        }
+        this.writer = new BufferedWriter(new OutputStreamWriter(new BufferedOutputStream(out, Math.max(1024, bufferSize)),
+                StandardCharsets.UTF_8));
+        this.codec = codec;
+        this.parallelIo = parallelIo;
+        this.runs = codec == ObjectAttributes.Codec.RLE ? new RunStats.Encoded() : new RunStats.Plain();
+    }
+
+    void write(char ch) throws IOException {
+        runs.accept(ch);
+        writer.write(ch);
+    }
+
+    /**
+     * Write every character of a source. A parallel source that reports its exact size and splits
+     * into sized parts is written by several threads when it has at least {@code parallelMinChars}
+     * characters; plain data of a single file only, since RLE tokens cannot be cut at arbitrary
+     * points and chunks of a striped file are placed as they fill. Other sources are written in order.
+     * @param parallelMinChars smallest source written in parallel; 0 disables parallel writes
+     */
+    void writeAll(Stream<Character> data, CancellationToken token, long parallelMinChars) throws IOException {
+        Stream<Character> sequential = data;
+        if (data.isParallel() && parallelMinChars > 0 && parallelIo != null && striped == null && codec == ObjectAttributes.Codec.PLAIN
+                && runs.characters == 0) {
+            Spliterator<Character> source = data.spliterator();
+            long size = source.getExactSizeIfKnown();
+            if (source.hasCharacteristics(Spliterator.SUBSIZED) && size >= parallelMinChars) {
+                ParallelDataWriter writer = new ParallelDataWriter(channel, path, bufferSize, crc != null, token, parallelIo);
+                writer.write(source, size, segmentChars(size, parallelMinChars));
+                parallel = writer;
+                runs = writer.runs();
+                return;
+            }
+            sequential = StreamSupport.stream(source, false);
+        }
+        try {
+            sequential.forEachOrdered(ch -> {
+                token.checkpoint(runs.characters + 1);
+                try {
+                    write(ch);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** Several segments per worker even out uneven progress; tiny segments only add overhead. */
+    private static long segmentChars(long size, long parallelMinChars) {
+        return Math.max(parallelMinChars / 16, size / (4L * ParallelDataWriter.THREADS));
+    }
+
+    /** Characters written so far. */
+    long characters() {
+        return runs.characters;
+    }
+
+    /** Flush everything written and describe the file. */
+    ObjectAttributes finish(Path path) throws IOException {
+        writer.flush();
+        if (striped != null) {
+            striped.complete();
+            if (striped.isStriped()) {
+                // The first chunk too must be durable before a manifest can name it
+                channel.force(true);
+            }
+        }
+        if (parallel != null) {
+            // Positioned writes leave the channel position at 0; the file ends where the data does
+            channel.truncate(parallel.bytes());
+        }
+        runs.close();
+        long plain = codec == ObjectAttributes.Codec.RLE ? runs.otherLength : runs.characters;
+        long encoded = codec == ObjectAttributes.Codec.RLE ? runs.characters : runs.otherLength;
+        long dataBytes = striped != null ? striped.bytes() : channel.size();
+        int checksum = crc == null ? 0 : parallel != null ? parallel.crc() : (int) crc.getValue();
+        return new ObjectAttributes(dataBytes, Files.getLastModifiedTime(path).toMillis(), crc != null, checksum, codec, plain, encoded, runs.count, runs.longest,
+                System.currentTimeMillis());
+    }
+
+    /** Whether the data outgrew the first chunk and was striped. */
+    boolean isStriped() {
+        return striped != null && striped.isStriped();
+    }
+
+    /** Chunk files after the first (the temp file), in data order. */
+    List<Path> extraChunks() {
+        return striped == null ? List.of() : striped.extraChunks();
+    }
+
+    /** The extra chunks are referenced by a published manifest and must outlive this output. */
+    void published() {
+        published = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.close();
+        } finally {
+            channel.close();
+            if (striped != null && !published) {
+                striped.abort();
+            }
+        }
+    }
+}
@@ -1,24 +1,47 @@
 package com.opentext.assignment.repository;
 
+import com.opentext.assignment.model.CancellationToken;
 import com.opentext.assignment.model.DataObject;
 import com.opentext.assignment.model.FileDataObject;
+import com.opentext.assignment.monitoring.ObjectCommitEvent;
+import com.opentext.assignment.monitoring.ObjectDeleteEvent;
+import com.opentext.assignment.monitoring.ObjectReadEvent;
+import com.opentext.assignment.monitoring.ObjectWriteEvent;
+import com.opentext.assignment.service.RLEDecompressorIterator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
-import java.io.BufferedOutputStream;
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * File-system based Repository implementation.
@@ -27,6 +50,30 @@ import java.util.stream.Stream;
  * - All writes use temporary files and atomic move to avoid partial reads.
  * - Buffered I/O with configurable buffer size for performance.
  * - Streaming write: data is not loaded into memory.
+ * - Optional generational layout (repository.layout=generational): every save writes a new
+ *   {@code <id>.data.g<N>} file and publishes it by atomically replacing the small pointer file
+ *   {@code <id>.gen} ("N" and the compressed flag). findById pins the generation it read, so the
+ *   data stream always matches the flag even while saves continue; superseded generations are
+ *   deleted once their last reader closes its stream. Objects without a pointer are read from the
+ *   legacy layout and migrated on their next save.
+ * - Virtual decompression: {@link #decompressVirtually(String)} only records that the RLE data file
+ *   now stands for the uncompressed object (meta {@code "false\nstored=rle"}, or a third pointer
+ *   token {@code rle}). Reads decode on the fly; the object is rewritten in plain form on
+ *   {@link #materialize(String)} or after repository.virtual.materialize.reads closed reads.
+ * - Lookups, data writes, commits (renames) and deletes emit JFR events (monitoring package).
+ * - Integrity: every data file gets a {@code <data file>.attr} sidecar with the CRC32C of its bytes,
+ *   computed on the output blocks while they are written and published with the commit rename (a
+ *   striped object's on its first chunk). Reads update a CRC32C as they go and fail at the end of
+ *   the file if it does not match, so a damaged or externally changed file is never copied into a new save.
+ * - Attributes: the same sidecar records the codec, plain and RLE lengths, run count, longest run and
+ *   save time, collected per character during the write ({@link #attributesOf(String)},
+ *   {@link #stats()}).
+ * - Striping (repository.stripe.dirs, legacy layout): data beyond one chunk continues in chunk files
+ *   across the stripe directories, written and read ahead in parallel, and is committed as a group
+ *   by the atomic rename of an {@code <id>.stripe} manifest ({@link StripeManifest}).
+ * - Parallel writes (repository.parallel.write.min.chars): a large parallel stream of known size is
+ *   written by several threads at known offsets of the temp file ({@link ParallelDataWriter}) and
+ *   committed by the same single rename.
  * </p>
  */
 @Slf4j
@@ -40,14 +87,78 @@ public class FileRepository implements com.opentext.assignment.model.Repository
     @Value("${repository.buffer.size:8192}")
     private int bufferSize;
 
+    /** legacy ({@code <id>.data} + {@code <id>.meta}, default) or generational. */
+    @Value("${repository.layout:legacy}")
+    private String layout;
+
+    /** Closed reads of a virtually decompressed object after which it is materialised; 0 = only on request. */
+    @Value("${repository.virtual.materialize.reads:0}")
+    private int materializeAfterReads;
+
+    /** Record the CRC32C of every data file in its attributes and verify it on read. */
+    @Value("${repository.checksum.enabled:true}")
+    private boolean checksums = true;
+
+    /** Comma-separated directories for the chunks of objects larger than one chunk; empty disables striping. */
+    @Value("${repository.stripe.dirs:}")
+    private String stripeDirs = "";
+
+    /** Chunk size of striped objects; smaller objects keep the single-file layout. */
+    @Value("${repository.stripe.chunk.bytes:67108864}")
+    private long stripeChunkBytes = 67108864L;
+
+    /** Smallest sized parallel stream written by several threads at once; 0 disables parallel writes. */
+    @Value("${repository.parallel.write.min.chars:4194304}")
+    private long parallelWriteMinChars = 4194304L;
+
+    /** Meta line marking a data file that holds the RLE form of a logically uncompressed object. */
+    static final String STORED_RLE = "stored=rle";
+
+    /** Closed reads per virtually decompressed object, while below the materialisation threshold. */
+    private final ConcurrentHashMap<String, AtomicInteger> virtualReads = new ConcurrentHashMap<>();
+
+    /** Receives IDs due for materialisation; null materialises on the reading thread. */
+    private volatile Consumer<String> materializeHandler;
+
+    /** Generations still read by open data streams (generational layout). */
+    private final GenerationPins pins = new GenerationPins();
+
+    /** Base directory resolved for the current baseDirPath; avoids a createDirectories call per operation. */
+    private volatile ResolvedDir resolvedDir;
+
+    /** Stripe directories resolved for the current stripeDirs. */
+    private volatile ResolvedStripes resolvedStripes;
+
+    /** Background readers and writers of chunk files; created on first use. */
+    private volatile ExecutorService stripeIo;
+
+    /** Writers of the segments of parallel saves, bounded so large saves cannot flood the machine; created on first use. */
+    private volatile ExecutorService parallelWriteIo;
+
+    /** Create a repository outside of Spring, e.g. from command line tools. */
+    public FileRepository(String baseDirPath, int bufferSize) {
+        this.baseDirPath = baseDirPath;
+        this.bufferSize = bufferSize;
+    }
+
+    /** Directory holding the object files, created if needed; shared state such as cluster leases lives below it. */
+    public Path getStorageDir() {
+        return getBaseDir();
+    }
+
     /** Resolve and ensure the base directory exists. */
     private Path getBaseDir() {
+        ResolvedDir resolved = resolvedDir;
+        if (resolved != null && resolved.configured().equals(baseDirPath)) {
+            return resolved.path();
+        }
         Path baseDir = Paths.get(baseDirPath);
         try {
             Files.createDirectories(baseDir);
         } catch (IOException e) {
             throw new RuntimeException("Failed to initialize repository", e);
         }
+        resolvedDir = new ResolvedDir(baseDirPath, baseDir);
         return baseDir;
     }
 
@@ -56,24 +167,33 @@ public class FileRepository implements com.opentext.assignment.model.Repository
      * Uses temp files + atomic moves to write data then meta.
      */
     public void create(String objectId, Stream<Character> initialData) {
-        Path dataPath = getBaseDir().resolve(objectId + ".data");
+        if (isGenerational()) {
+            FileDataObject obj = new FileDataObject(objectId, null, false);
+            obj.setData(initialData);
+            saveGeneration(obj, CancellationToken.NONE);
+            log.info("Created object: {}", objectId);
+            return;
+        }
         Path metaPath = getBaseDir().resolve(objectId + ".meta");
         Path tempDataPath = getBaseDir().resolve(objectId + ".data.tmp");
         Path tempMetaPath = getBaseDir().resolve(objectId + ".meta.tmp");
 
-        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new BufferedOutputStream(Files.newOutputStream(tempDataPath), Math.max(1024, bufferSize)), StandardCharsets.UTF_8));
+        StripedOutputStream.Target stripes = stripeTarget(objectId);
+
+        try (DataFileOutput out = openOutput(getBaseDir().resolve(objectId + ".data"), tempDataPath,
+                ObjectAttributes.Codec.PLAIN, stripes);
              Stream<Character> dataStream = initialData) {
-            dataStream.forEachOrdered(ch -> {
-                try {
-                    writer.write(ch);
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                }
-            });
-            writer.flush();
-            Files.move(tempDataPath, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            ObjectWriteEvent write = new ObjectWriteEvent();
+            write.begin();
+            out.writeAll(dataStream, CancellationToken.NONE, parallelWriteMinChars);
+            ObjectAttributes attributes = out.finish(tempDataPath);
+            recordWrite(write, objectId, out.characters());
+            ObjectCommitEvent commit = new ObjectCommitEvent();
+            commit.begin();
+            publishData(getBaseDir(), objectId, tempDataPath, out, stripes, attributes);
             Files.writeString(tempMetaPath, "false", StandardCharsets.UTF_8);
             Files.move(tempMetaPath, metaPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            recordCommit(commit, objectId);
             log.info("Created object: {}", objectId);
         } catch (IOException e) {
             log.error("Failed to create object: {}", objectId, e);
@@ -82,6 +202,7 @@ public class FileRepository implements com.opentext.assignment.model.Repository
             try {
                 if (Files.exists(tempDataPath)) {
                     Files.delete(tempDataPath);
+                    Files.deleteIfExists(ObjectAttributes.sidecarOf(tempDataPath));
                 }
                 if (Files.exists(tempMetaPath)) {
                     Files.delete(tempMetaPath);
@@ -94,62 +215,167 @@ public class FileRepository implements com.opentext.assignment.model.Repository
 
     @Override
     public Optional<DataObject> findById(String objectId) {
+        ObjectReadEvent event = new ObjectReadEvent();
+        event.begin();
+        Optional<DataObject> found = lookup(objectId);
+        event.end();
+        if (event.shouldCommit()) {
+            event.objectId = objectId;
+            event.found = found.isPresent();
+            event.dataBytes = found.isPresent() && found.get() instanceof FileDataObject obj ? storedBytes(obj) : -1L;
+            event.commit();
+        }
+        return found;
+    }
+
+    private Optional<DataObject> lookup(String objectId) {
+        if (isGenerational()) {
+            Path baseDir = getBaseDir();
+            Generation generation;
+            while ((generation = readPointer(baseDir, objectId)) != null) {
+                Path generationFile = generationFile(baseDir, objectId, generation.number());
+                // Pinning fails only if a save retired this generation meanwhile: re-read the pointer
+                if (pins.pin(generationFile)) {
+                    FileDataObject obj = new FileDataObject(objectId, generationFile, generation.compressed());
+                    obj.setReleaseHook(() -> pins.unpin(generationFile));
+                    verifyOnRead(obj);
+                    if (generation.storedCompressed()) {
+                        obj.setStoredDecoder(storedDecoder(objectId, true));
+                    }
+                    return Optional.of(obj);
+                }
+            }
+            // No pointer yet: object written in the legacy layout
+        }
         Path dataPath = getBaseDir().resolve(objectId + ".data");
         Path metaPath = getBaseDir().resolve(objectId + ".meta");
-        if (!Files.exists(dataPath)) {
+        Path manifestPath = StripeManifest.pathOf(getBaseDir(), objectId);
+        // A manifest wins over a data file left by an interrupted switch between the layouts
+        boolean striped = Files.exists(manifestPath);
+        if (!striped && !Files.exists(dataPath)) {
             return Optional.empty();
         }
         try {
-            boolean isCompressed = Files.exists(metaPath) &&
-                    Boolean.parseBoolean(Files.readString(metaPath).trim());
-            return Optional.of(new FileDataObject(objectId, dataPath, isCompressed));
+            boolean isCompressed = false;
+            boolean storedCompressed = false;
+            if (Files.exists(metaPath)) {
+                String[] meta = Files.readString(metaPath).trim().split("\\R");
+                isCompressed = Boolean.parseBoolean(meta[0].trim());
+                storedCompressed = meta.length > 1 && STORED_RLE.equals(meta[1].trim());
+            }
+            FileDataObject obj = new FileDataObject(objectId, striped ? manifestPath : dataPath, isCompressed);
+            if (striped) {
+                obj.setDataOpener(() -> openStriped(objectId, manifestPath));
+            } else {
+                verifyOnRead(obj);
+            }
+            if (storedCompressed) {
+                obj.setStoredDecoder(storedDecoder(objectId, true));
+            }
+            return Optional.of(obj);
         } catch (IOException e) {
             log.error("Failed to read object: {}", objectId, e);
             return Optional.empty();
         }
     }
 
+    /**
+     * Size in bytes of the object's committed data file.
+     * @return the size, or -1 if the object does not exist or cannot be read
+     */
+    @Override
+    public long sizeOf(String objectId) {
+        try {
+            StripeManifest stripes = stripesOf(objectId);
+            if (stripes != null) {
+                return stripes.totalBytes();
+            }
+            return Files.size(currentDataPath(objectId));
+        } catch (IOException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Warm the operating system cache for an object that is about to be processed: reads the meta
+     * file and up to {@code scratch.capacity()} bytes from the head of the data file.
+     * @param scratch reusable buffer owned by the caller
+     * @return false if the object does not exist
+     */
+    @Override
+    public boolean prefetch(String objectId, ByteBuffer scratch) {
+        Path baseDir = getBaseDir();
+        Path dataPath = currentDataPath(objectId);
+        Path metaPath = baseDir.resolve(objectId + (isGenerational() ? ".gen" : ".meta"));
+        try (FileChannel channel = FileChannel.open(dataPath, StandardOpenOption.READ)) {
+            scratch.clear();
+            while (scratch.hasRemaining() && channel.read(scratch) > 0) {
+                // keep reading until the head is cached or the file ends
+            }
+            if (Files.exists(metaPath)) {
+                Files.readAllBytes(metaPath);
+            }
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            log.debug("Prefetch failed for {}: {}", objectId, e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Persist the DataObject's current data stream to the file-system.
      * Data is written to a temp file then atomically moved; meta is written afterwards.
      */
     @Override
     public void save(DataObject obj) {
+        save(obj, CancellationToken.NONE);
+    }
+
+    /**
+     * Like {@link #save(DataObject)}, checking the token every block of written characters and
+     * once more before the commit rename. On cancellation the temp files are removed immediately.
+     */
+    @Override
+    public void save(DataObject obj, CancellationToken token) {
         if (!(obj instanceof FileDataObject fileObj)) {
             throw new IllegalArgumentException("Unsupported DataObject type");
         }
+        if (fileObj.isVirtuallyDecompressed()) {
+            // Writing the decoded form materialises the object; that is not a consumer read
+            fileObj.setStoredDecoder(storedDecoder(obj.getId(), false));
+        }
+        if (isGenerational()) {
+            saveGeneration(fileObj, token);
+            return;
+        }
         Path baseDir = getBaseDir();
         Path dataPath = baseDir.resolve(obj.getId() + ".data");
         Path metaPath = baseDir.resolve(obj.getId() + ".meta");
         Path tempDataPath = baseDir.resolve(obj.getId() + ".data.tmp");
         Path tempMetaPath = baseDir.resolve(obj.getId() + ".meta.tmp");
+        StripedOutputStream.Target stripes = stripeTarget(obj.getId());
 
         try (Stream<Character> dataStream = obj.getData();
-             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new BufferedOutputStream(Files.newOutputStream(tempDataPath), Math.max(1024, bufferSize)), StandardCharsets.UTF_8))) {
-            dataStream.forEachOrdered(ch -> {
-                try {
-                    writer.write(ch);
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                }
-            });
-            writer.flush();
+             DataFileOutput out = openOutput(dataPath, tempDataPath, codecOf(obj), stripes)) {
+            ObjectWriteEvent write = new ObjectWriteEvent();
+            write.begin();
+            out.writeAll(dataStream, token, parallelWriteMinChars);
+            ObjectAttributes attributes = out.finish(tempDataPath);
+            recordWrite(write, obj.getId(), out.characters());
             log.debug("Wrote data to temp file: {}", tempDataPath);
+            token.throwIfCancelled();
 
-            // Ensure target data file is replaced atomically where possible
-            if (Files.exists(dataPath)) {
-                try {
-                    Files.delete(dataPath);
-                    log.debug("Deleted existing file: {}", dataPath);
-                } catch (IOException e) {
-                    log.warn("Failed to delete existing file: {}", dataPath, e);
-                }
-            }
-            Files.move(tempDataPath, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            ObjectCommitEvent commit = new ObjectCommitEvent();
+            commit.begin();
+            publishData(baseDir, obj.getId(), tempDataPath, out, stripes, attributes);
 
             // Write meta only after data is fully in place
             Files.writeString(tempMetaPath, String.valueOf(obj.isCompressed()), StandardCharsets.UTF_8);
             Files.move(tempMetaPath, metaPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            recordCommit(commit, obj.getId());
+            virtualReads.remove(obj.getId());
             log.info("Saved object: {}", obj.getId());
         } catch (IOException e) {
             log.error("Failed to save object: {}", obj.getId(), e);
@@ -160,6 +386,7 @@ public class FileRepository implements com.opentext.assignment.model.Repository
             try {
                 if (Files.exists(tempDataPath)) {
                     Files.delete(tempDataPath);
+                    Files.deleteIfExists(ObjectAttributes.sidecarOf(tempDataPath));
                     log.debug("Cleaned up temp file: {}", tempDataPath);
                 }
                 Path tempMetaPath2 = tempMetaPath; // final reference for inner use
@@ -173,21 +400,683 @@ public class FileRepository implements com.opentext.assignment.model.Repository
         }
     }
 
+    /**
+     * Generational save: write a new generation, publish it through the pointer, retire the old one.
+     * Saves of the same ID must not run concurrently (the processor serialises them per ID).
+     */
+    private void saveGeneration(FileDataObject obj, CancellationToken token) {
+        String objectId = obj.getId();
+        Path baseDir = getBaseDir();
+        Path tempDataPath = baseDir.resolve(objectId + ".data.tmp");
+        Generation current = readPointer(baseDir, objectId);
+        long next = current == null ? 1L : current.number() + 1L;
+        try {
+            ObjectAttributes attributes;
+            try (Stream<Character> dataStream = obj.getData();
+                 DataFileOutput out = openOutput(baseDir.resolve(objectId + ".data"), tempDataPath, codecOf(obj), null)) {
+                ObjectWriteEvent write = new ObjectWriteEvent();
+                write.begin();
+                out.writeAll(dataStream, token, parallelWriteMinChars);
+                attributes = out.finish(tempDataPath);
+                recordWrite(write, objectId, out.characters());
+            }
+            token.throwIfCancelled();
+            ObjectCommitEvent commit = new ObjectCommitEvent();
+            commit.begin();
+            Path generationFile = generationFile(baseDir, objectId, next);
+            Files.move(tempDataPath, generationFile, StandardCopyOption.ATOMIC_MOVE);
+            // Before the pointer, so a reader of the new generation always finds its attributes
+            ObjectAttributes.write(generationFile, attributes);
+            writePointer(baseDir, objectId, new Generation(next, obj.isCompressed(), false));
+            recordCommit(commit, objectId);
+            virtualReads.remove(objectId);
+            if (current != null) {
+                pins.retire(generationFile(baseDir, objectId, current.number()));
+            } else {
+                // First generation of a legacy object: the pointer now supersedes the old files
+                Files.deleteIfExists(baseDir.resolve(objectId + ".data"));
+                Files.deleteIfExists(ObjectAttributes.sidecarOf(baseDir.resolve(objectId + ".data")));
+                deleteStripes(baseDir, objectId);
+                Files.deleteIfExists(baseDir.resolve(objectId + ".meta"));
+            }
+            log.info("Saved object: {} (generation {})", objectId, next);
+        } catch (IOException e) {
+            log.error("Failed to save object: {}", objectId, e);
+            throw new RuntimeException("Save failed for " + objectId, e);
+        } finally {
+            obj.setData(null);
+            // Releases the generation this object was read from, if the stream did not already
+            obj.close();
+            try {
+                Files.deleteIfExists(tempDataPath);
+            } catch (IOException e) {
+                log.warn("Failed to delete temp file for {}: {}", objectId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Virtual decompression: mark a compressed object as logically uncompressed without touching
+     * its data file. Reads decode the stored RLE form from now on.
+     * @return false if the object does not exist or is not stored compressed
+     */
+    @Override
+    public boolean decompressVirtually(String objectId) {
+        return rewriteState(objectId, true);
+    }
+
+    /**
+     * Undo a virtual decompression: the data file already holds the compressed form, so COMPRESS
+     * only has to flip the state back.
+     * @return false if the object is not virtually decompressed
+     */
+    @Override
+    public boolean compressVirtual(String objectId) {
+        return rewriteState(objectId, false);
+    }
+
+    /**
+     * Rewrite a virtually decompressed object in plain form, as a regular save.
+     * Must not run concurrently with other saves of the same ID.
+     * @return false if the object does not exist or is not virtually decompressed
+     */
+    @Override
+    public boolean materialize(String objectId) {
+        Optional<DataObject> found = findById(objectId);
+        if (found.isEmpty() || !(found.get() instanceof FileDataObject obj)) {
+            return false;
+        }
+        if (!obj.isVirtuallyDecompressed()) {
+            obj.close();
+            return false;
+        }
+        save(obj);
+        log.info("Materialised virtually decompressed object: {}", objectId);
+        return true;
+    }
+
+    /**
+     * Route IDs that reached repository.virtual.materialize.reads to the given handler instead of
+     * materialising on the reading thread, e.g. to serialise it with other operations on the ID.
+     */
+    @Override
+    public void setMaterializeHandler(Consumer<String> handler) {
+        this.materializeHandler = handler;
+    }
+
+    /**
+     * Flip between the compressed and the virtually decompressed state of an RLE data file.
+     * @param fromCompressed true: compressed to virtual; false: virtual back to compressed
+     */
+    private boolean rewriteState(String objectId, boolean fromCompressed) {
+        Path baseDir = getBaseDir();
+        try {
+            if (isGenerational()) {
+                Generation current = readPointer(baseDir, objectId);
+                if (current != null) {
+                    boolean expected = fromCompressed ? current.compressed() && !current.storedCompressed()
+                            : current.storedCompressed();
+                    if (!expected) {
+                        return false;
+                    }
+                    writePointer(baseDir, objectId, new Generation(current.number(), !fromCompressed, fromCompressed));
+                    virtualReads.remove(objectId);
+                    return true;
+                }
+            }
+            Path metaPath = baseDir.resolve(objectId + ".meta");
+            boolean hasData = Files.exists(baseDir.resolve(objectId + ".data"))
+                    || Files.exists(StripeManifest.pathOf(baseDir, objectId));
+            if (!hasData || !Files.exists(metaPath)) {
+                return false;
+            }
+            String[] meta = Files.readString(metaPath).trim().split("\\R");
+            boolean compressed = Boolean.parseBoolean(meta[0].trim());
+            boolean stored = meta.length > 1 && STORED_RLE.equals(meta[1].trim());
+            if (fromCompressed ? !compressed || stored : !stored) {
+                return false;
+            }
+            Path tempMetaPath = baseDir.resolve(objectId + ".meta.tmp");
+            Files.writeString(tempMetaPath, fromCompressed ? "false\n" + STORED_RLE : "true", StandardCharsets.UTF_8);
+            Files.move(tempMetaPath, metaPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            virtualReads.remove(objectId);
+            return true;
+        } catch (IOException e) {
+            log.error("Failed to update state of object: {}", objectId, e);
+            throw new RuntimeException("State update failed for " + objectId, e);
+        }
+    }
+
+    /** Decode the stored RLE form; counted reads may trigger materialisation once closed. */
+    private UnaryOperator<Stream<Character>> storedDecoder(String objectId, boolean countReads) {
+        return stored -> StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                        new RLEDecompressorIterator(stored.iterator()), Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try {
+                        stored.close();
+                    } finally {
+                        if (countReads) {
+                            recordVirtualRead(objectId);
+                        }
+                    }
+                });
+    }
+
+    private void recordVirtualRead(String objectId) {
+        if (materializeAfterReads <= 0) {
+            return;
+        }
+        int reads = virtualReads.computeIfAbsent(objectId, k -> new AtomicInteger()).incrementAndGet();
+        if (reads < materializeAfterReads || virtualReads.remove(objectId) == null) {
+            return;
+        }
+        Consumer<String> handler = materializeHandler;
+        try {
+            if (handler != null) {
+                handler.accept(objectId);
+            } else {
+                materialize(objectId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to materialise object {}: {}", objectId, e.getMessage());
+        }
+    }
+
+    /**
+     * Write the object's data stream to its data file, publishing the meta file only where the
+     * data would otherwise be read with the wrong flag. Always uses the legacy layout; in
+     * generational mode such objects are read through the legacy fallback until their next save.
+     * <p>
+     * A new compressed object's meta is published right before its data: a meta file without data
+     * is not an object yet, while RLE data without its meta would be read as plain. An existing
+     * object that is compressed or already has a meta file gets it rewritten after the data, as
+     * {@link #save(DataObject)} does. Only a new uncompressed object is left without meta, which
+     * reads as uncompressed; bulk loaders publish those with {@link #writeMeta(Map)} in batches.
+     * </p>
+     * @return true if the meta file was published, false if it is left to the caller
+     */
+    public boolean saveData(DataObject obj) {
+        Path baseDir = getBaseDir();
+        Path dataPath = baseDir.resolve(obj.getId() + ".data");
+        Path metaPath = baseDir.resolve(obj.getId() + ".meta");
+        Path tempDataPath = baseDir.resolve(obj.getId() + ".data.tmp");
+        boolean exists = Files.exists(dataPath) || Files.exists(StripeManifest.pathOf(baseDir, obj.getId()));
+        boolean metaFirst = obj.isCompressed() && !exists;
+        boolean metaAfter = !metaFirst && (obj.isCompressed() || Files.exists(metaPath));
+
+        try (Stream<Character> dataStream = obj.getData();
+             DataFileOutput out = openOutput(dataPath, tempDataPath, codecOf(obj), null)) {
+            ObjectWriteEvent write = new ObjectWriteEvent();
+            write.begin();
+            out.writeAll(dataStream, CancellationToken.NONE, parallelWriteMinChars);
+            ObjectAttributes attributes = out.finish(tempDataPath);
+            recordWrite(write, obj.getId(), out.characters());
+            ObjectCommitEvent commit = new ObjectCommitEvent();
+            commit.begin();
+            ObjectAttributes.write(tempDataPath, attributes);
+            if (metaFirst) {
+                publishMeta(baseDir, obj.getId(), true);
+            }
+            Files.move(tempDataPath, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            ObjectAttributes.commit(tempDataPath, dataPath);
+            deleteStripes(baseDir, obj.getId());
+            if (metaAfter) {
+                publishMeta(baseDir, obj.getId(), obj.isCompressed());
+            }
+            recordCommit(commit, obj.getId());
+            log.debug("Saved data for object: {}", obj.getId());
+            return metaFirst || metaAfter;
+        } catch (IOException e) {
+            log.error("Failed to save data for object: {}", obj.getId(), e);
+            throw new RuntimeException("Save failed for " + obj.getId(), e);
+        } finally {
+            if (obj instanceof FileDataObject fileObj) {
+                fileObj.setData(null);
+            }
+            try {
+                if (Files.deleteIfExists(tempDataPath)) {
+                    Files.deleteIfExists(ObjectAttributes.sidecarOf(tempDataPath));
+                }
+            } catch (IOException e) {
+                log.warn("Failed to delete temp file for {}: {}", obj.getId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Publish the compressed flag of several objects in one pass. Each meta file is still written
+     * through a temp file and atomic move, so readers never observe a partial flag.
+     * @param compressedFlags object ID to compressed flag, written in iteration order
+     */
+    public void writeMeta(Map<String, Boolean> compressedFlags) {
+        Path baseDir = getBaseDir();
+        for (Map.Entry<String, Boolean> entry : compressedFlags.entrySet()) {
+            try {
+                publishMeta(baseDir, entry.getKey(), entry.getValue());
+            } catch (IOException e) {
+                log.error("Failed to write meta for object: {}", entry.getKey(), e);
+                throw new RuntimeException("Meta write failed for " + entry.getKey(), e);
+            }
+        }
+        log.debug("Wrote meta for {} objects", compressedFlags.size());
+    }
+
+    /** Replace the legacy meta file of an object with its compressed flag, through a temp file. */
+    private static void publishMeta(Path baseDir, String objectId, boolean compressed) throws IOException {
+        Path metaPath = baseDir.resolve(objectId + ".meta");
+        Path tempMetaPath = baseDir.resolve(objectId + ".meta.tmp");
+        try {
+            Files.writeString(tempMetaPath, String.valueOf(compressed), StandardCharsets.UTF_8);
+            Files.move(tempMetaPath, metaPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempMetaPath);
+        }
+    }
+
     /** Delete all files associated with the given ID, including any temp files. */
+    @Override
     public void delete(String objectId) {
+        ObjectDeleteEvent event = new ObjectDeleteEvent();
+        event.begin();
+        try {
+            deleteFiles(objectId);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.objectId = objectId;
+                event.commit();
+            }
+        }
+    }
+
+    private void deleteFiles(String objectId) {
         Path baseDir = getBaseDir();
+        virtualReads.remove(objectId);
+        if (isGenerational()) {
+            deleteGenerations(baseDir, objectId);
+        }
         Path dataPath = baseDir.resolve(objectId + ".data");
         Path metaPath = baseDir.resolve(objectId + ".meta");
         Path tempDataPath = baseDir.resolve(objectId + ".data.tmp");
         Path tempMetaPath = baseDir.resolve(objectId + ".meta.tmp");
         try {
             Files.deleteIfExists(dataPath);
+            Files.deleteIfExists(ObjectAttributes.sidecarOf(dataPath));
+            deleteStripes(baseDir, objectId);
             Files.deleteIfExists(metaPath);
             Files.deleteIfExists(tempDataPath);
+            Files.deleteIfExists(ObjectAttributes.sidecarOf(tempDataPath));
             Files.deleteIfExists(tempMetaPath);
             log.info("Deleted object files for ID: {}", objectId);
         } catch (IOException e) {
             log.warn("Failed to delete files for {}: {}", objectId, e.getMessage());
         }
     }
+
+    /**
+     * Writer for a temp data file that collects its attributes while the characters pass. Attributes
+     * a crash left waiting for the legacy data file are promoted first, before the temp file hides them.
+     */
+    private DataFileOutput openOutput(Path dataPath, Path tempDataPath, ObjectAttributes.Codec codec,
+                                      StripedOutputStream.Target stripes) throws IOException {
+        ObjectAttributes.recover(dataPath);
+        return new DataFileOutput(tempDataPath, bufferSize, checksums, codec, stripes,
+                parallelWriteMinChars > 0 ? parallelWriteIo() : null);
+    }
+
+    /** Chunk placement for a legacy-layout save, or null when striping is disabled. */
+    private StripedOutputStream.Target stripeTarget(String objectId) {
+        List<Path> directories = stripeDirectories();
+        if (directories.isEmpty() || stripeChunkBytes <= 0) {
+            return null;
+        }
+        String prefix = String.format("%s.s%016x", objectId, ThreadLocalRandom.current().nextLong());
+        return new StripedOutputStream.Target(stripeChunkBytes, directories, prefix, stripeIo());
+    }
+
+    private List<Path> stripeDirectories() {
+        String configured = stripeDirs == null ? "" : stripeDirs;
+        ResolvedStripes resolved = resolvedStripes;
+        if (resolved != null && resolved.configured().equals(configured)) {
+            return resolved.directories();
+        }
+        List<Path> directories = new ArrayList<>();
+        for (String dir : configured.split(",")) {
+            if (!dir.isBlank()) {
+                Path path = Paths.get(dir.trim());
+                try {
+                    Files.createDirectories(path);
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to initialize stripe directory " + path, e);
+                }
+                directories.add(path);
+            }
+        }
+        resolvedStripes = new ResolvedStripes(configured, List.copyOf(directories));
+        return resolvedStripes.directories();
+    }
+
+    private ExecutorService stripeIo() {
+        ExecutorService io = stripeIo;
+        if (io == null) {
+            synchronized (this) {
+                if (stripeIo == null) {
+                    AtomicInteger threadCounter = new AtomicInteger();
+                    stripeIo = Executors.newCachedThreadPool(task -> {
+                        Thread thread = new Thread(task, "stripe-io-" + threadCounter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+                io = stripeIo;
+            }
+        }
+        return io;
+    }
+
+    private ExecutorService parallelWriteIo() {
+        ExecutorService io = parallelWriteIo;
+        if (io == null) {
+            synchronized (this) {
+                if (parallelWriteIo == null) {
+                    AtomicInteger threadCounter = new AtomicInteger();
+                    parallelWriteIo = Executors.newFixedThreadPool(ParallelDataWriter.THREADS, task -> {
+                        Thread thread = new Thread(task, "parallel-write-" + threadCounter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+                io = parallelWriteIo;
+            }
+        }
+        return io;
+    }
+
+    /**
+     * Move a finished temp data file into place (legacy layout). A striped output becomes the
+     * first chunk and is published together with the other chunks by the manifest rename; the
+     * manifest then supersedes a single data file, and a single data file supersedes an earlier
+     * manifest. Chunks of the replaced manifest are deleted last.
+     */
+    private void publishData(Path baseDir, String objectId, Path tempDataPath, DataFileOutput out,
+                             StripedOutputStream.Target stripes, ObjectAttributes attributes) throws IOException {
+        Path dataPath = baseDir.resolve(objectId + ".data");
+        Path manifestPath = StripeManifest.pathOf(baseDir, objectId);
+        if (!out.isStriped()) {
+            // The attributes wait next to the temp file, so the committed file is never without them;
+            // the rename replaces the old file atomically, and a concurrent reader opens one or the other
+            ObjectAttributes.write(tempDataPath, attributes);
+            Files.move(tempDataPath, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            ObjectAttributes.commit(tempDataPath, dataPath);
+            deleteStripes(baseDir, objectId);
+            return;
+        }
+        StripeManifest previous = StripeManifest.read(manifestPath);
+        Path firstChunk = baseDir.resolve(stripes.chunkPrefix() + ".c0");
+        Files.move(tempDataPath, firstChunk, StandardCopyOption.ATOMIC_MOVE);
+        List<Path> chunks = new ArrayList<>();
+        chunks.add(firstChunk);
+        chunks.addAll(out.extraChunks());
+        try {
+            // Keyed to the first chunk, whose name is unique to this save, before the manifest names it
+            ObjectAttributes.write(firstChunk, attributes);
+            new StripeManifest(stripes.chunkBytes(), attributes.dataBytes(), chunks).write(manifestPath);
+        } catch (IOException e) {
+            Files.deleteIfExists(firstChunk);
+            Files.deleteIfExists(ObjectAttributes.sidecarOf(firstChunk));
+            throw e;
+        }
+        out.published();
+        Files.deleteIfExists(dataPath);
+        Files.deleteIfExists(ObjectAttributes.sidecarOf(dataPath));
+        if (previous != null) {
+            retireChunks(previous);
+        }
+        log.debug("Striped object {} into {} chunks", objectId, chunks.size());
+    }
+
+    /** Remove the object's stripe manifest and its chunks, if it is striped. */
+    private void deleteStripes(Path baseDir, String objectId) throws IOException {
+        Path manifestPath = StripeManifest.pathOf(baseDir, objectId);
+        StripeManifest manifest = StripeManifest.read(manifestPath);
+        if (manifest != null) {
+            Files.deleteIfExists(manifestPath);
+            retireChunks(manifest);
+        }
+    }
+
+    /** Delete the chunks of a replaced manifest once no reader is opening them any more. */
+    private void retireChunks(StripeManifest manifest) {
+        pins.retire(manifest.chunks().get(0), manifest::deleteChunks);
+    }
+
+    private static ObjectAttributes.Codec codecOf(DataObject obj) {
+        return obj.isCompressed() ? ObjectAttributes.Codec.RLE : ObjectAttributes.Codec.PLAIN;
+    }
+
+    /**
+     * Attributes recorded for the object's current data file.
+     * @return empty if the object does not exist, has no attributes yet, or was changed outside the repository
+     */
+    public Optional<ObjectAttributes> attributesOf(String objectId) {
+        try {
+            StripeManifest stripes = stripesOf(objectId);
+            if (stripes != null) {
+                ObjectAttributes attributes = ObjectAttributes.read(stripes.chunks().get(0));
+                return attributes != null && attributes.describes(stripes.totalBytes())
+                        ? Optional.of(attributes) : Optional.empty();
+            }
+            Path dataFile = currentDataPath(objectId);
+            ObjectAttributes attributes = ObjectAttributes.current(dataFile);
+            return attributes != null && attributes.describes(Files.size(dataFile))
+                    ? Optional.of(attributes) : Optional.empty();
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Aggregate the attributes of every object's current data file. Reads only the small
+     * {@code .attr} records; objects without current attributes are counted as unknown.
+     */
+    public RepositoryStats stats() {
+        Path baseDir = getBaseDir();
+        RepositoryStats.Accumulator stats = new RepositoryStats.Accumulator();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(baseDir, path -> {
+            String name = path.getFileName().toString();
+            return name.endsWith(".data") || name.endsWith(".gen") || name.endsWith(StripeManifest.SUFFIX);
+        })) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String objectId = name.substring(0, name.lastIndexOf('.'));
+                // Legacy files are superseded by a generation pointer, a data file by a manifest of the same ID
+                boolean generational = isGenerational() && Files.exists(baseDir.resolve(objectId + ".gen"));
+                if (!name.endsWith(".gen") && generational
+                        || name.endsWith(".data") && Files.exists(StripeManifest.pathOf(baseDir, objectId))) {
+                    continue;
+                }
+                stats.add(attributesOf(objectId).orElse(null));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list " + baseDir, e);
+        }
+        return stats.result();
+    }
+
+    /** Let reads of the object verify its data file against the attributes recorded on save. */
+    private void verifyOnRead(FileDataObject obj) {
+        if (checksums) {
+            Path dataFile = obj.getDataPath();
+            obj.setDataOpener(() -> openVerified(obj.getId(), dataFile));
+        }
+    }
+
+    /**
+     * Open a data file, verifying it against its checksummed attributes. The attributes are read
+     * before and after the file is opened; if a save committed in between, it is unclear which
+     * file was opened, so it is opened again.
+     */
+    private static InputStream openVerified(String objectId, Path dataFile) throws IOException {
+        ObjectAttributes attributes = ObjectAttributes.current(dataFile);
+        while (true) {
+            InputStream in = Files.newInputStream(dataFile);
+            ObjectAttributes opened = ObjectAttributes.current(dataFile);
+            if (Objects.equals(opened, attributes)) {
+                if (attributes == null || !attributes.checksummed()) {
+                    return in;
+                }
+                return new VerifyingInputStream(in, objectId, attributes, () -> ObjectAttributes.current(dataFile));
+            }
+            in.close();
+            attributes = opened;
+        }
+    }
+
+    /** Open the chunks of a striped object, verifying them as one stream against the attributes of the first chunk. */
+    private InputStream openStriped(String objectId, Path manifestPath) throws IOException {
+        StripeManifest gone = null;
+        while (true) {
+            StripeManifest stripes = StripeManifest.read(manifestPath);
+            if (stripes == null) {
+                throw new NoSuchFileException(manifestPath.toString());
+            }
+            // Pinned while the chunks are opened; an open channel outlives their deletion
+            Path firstChunk = stripes.chunks().get(0);
+            if (!pins.pin(firstChunk)) {
+                if (stripes.equals(gone)) {
+                    // Still the current manifest: the chunk is missing, not replaced
+                    throw new NoSuchFileException(firstChunk.toString());
+                }
+                // A save replaced the manifest and retired its chunks: read the new one
+                gone = stripes;
+                continue;
+            }
+            try {
+                ObjectAttributes attributes = ObjectAttributes.read(firstChunk);
+                InputStream in = stripes.open(bufferSize, stripeIo());
+                if (!checksums || attributes == null || !attributes.checksummed()) {
+                    return in;
+                }
+                return new VerifyingInputStream(in, objectId, attributes);
+            } finally {
+                pins.unpin(firstChunk);
+            }
+        }
+    }
+
+    private static void recordWrite(ObjectWriteEvent event, String objectId, long characters) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.objectId = objectId;
+            event.characters = characters;
+            event.commit();
+        }
+    }
+
+    private static void recordCommit(ObjectCommitEvent event, String objectId) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.objectId = objectId;
+            event.commit();
+        }
+    }
+
+    private long storedBytes(FileDataObject obj) {
+        Path path = obj.getDataPath();
+        if (path != null && path.getFileName().toString().endsWith(StripeManifest.SUFFIX)) {
+            return sizeOf(obj.getId());
+        }
+        try {
+            return path == null ? -1L : Files.size(path);
+        } catch (IOException e) {
+            return -1L;
+        }
+    }
+
+    /** Whether the generational layout is configured. */
+    public boolean isGenerational() {
+        return "generational".equalsIgnoreCase(layout);
+    }
+
+    /** Readers currently pinning the given generation of an object (generational layout). */
+    int pinCount(String objectId, long generation) {
+        return pins.pinCount(generationFile(getBaseDir(), objectId, generation));
+    }
+
+    /** Data file of the object's current state in either layout; the first chunk of a striped object. */
+    private Path currentDataPath(String objectId) {
+        Path baseDir = getBaseDir();
+        if (isGenerational()) {
+            Generation generation = readPointer(baseDir, objectId);
+            if (generation != null) {
+                return generationFile(baseDir, objectId, generation.number());
+            }
+        }
+        StripeManifest stripes = StripeManifest.read(StripeManifest.pathOf(baseDir, objectId));
+        return stripes != null ? stripes.chunks().get(0) : baseDir.resolve(objectId + ".data");
+    }
+
+    /** @return the manifest if the object's current state is striped, otherwise null */
+    private StripeManifest stripesOf(String objectId) {
+        Path baseDir = getBaseDir();
+        if (isGenerational() && readPointer(baseDir, objectId) != null) {
+            return null;
+        }
+        return StripeManifest.read(StripeManifest.pathOf(baseDir, objectId));
+    }
+
+    private static Path generationFile(Path baseDir, String objectId, long generation) {
+        return baseDir.resolve(objectId + ".data.g" + generation);
+    }
+
+    /** @return the published generation, or null if the object has no pointer */
+    private static Generation readPointer(Path baseDir, String objectId) {
+        try {
+            String[] parts = Files.readString(baseDir.resolve(objectId + ".gen"), StandardCharsets.UTF_8).trim().split("\\s+");
+            return new Generation(Long.parseLong(parts[0]), parts.length > 1 && Boolean.parseBoolean(parts[1]),
+                    parts.length > 2 && "rle".equals(parts[2]));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            throw new RuntimeException("Unreadable generation pointer for " + objectId, e);
+        }
+    }
+
+    private static void writePointer(Path baseDir, String objectId, Generation generation) throws IOException {
+        Path pointer = baseDir.resolve(objectId + ".gen");
+        Path temp = baseDir.resolve(objectId + ".gen.tmp");
+        String state = generation.number() + " " + generation.compressed() + (generation.storedCompressed() ? " rle" : "");
+        Files.writeString(temp, state, StandardCharsets.UTF_8);
+        Files.move(temp, pointer, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Remove the pointer first so no new reader pins, then retire every generation file. */
+    private void deleteGenerations(Path baseDir, String objectId) {
+        String prefix = objectId + ".data.g";
+        try {
+            Files.deleteIfExists(baseDir.resolve(objectId + ".gen"));
+            Files.deleteIfExists(baseDir.resolve(objectId + ".gen.tmp"));
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(baseDir, path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(prefix) && name.length() > prefix.length()
+                        && name.substring(prefix.length()).chars().allMatch(Character::isDigit);
+            })) {
+                for (Path file : files) {
+                    pins.retire(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete generations of {}: {}", objectId, e.getMessage());
+        }
+    }
+
+    /** @param storedCompressed the file holds the RLE form of a logically uncompressed object */
+    private record Generation(long number, boolean compressed, boolean storedCompressed) {
+    }
+
+    private record ResolvedDir(String configured, Path path) {
+    }
+
+    private record ResolvedStripes(String configured, List<Path> directories) {
+    }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.opentext.assignment.repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reference counts of data generation files that readers still use.
+ * <p>
+ * A superseded generation is retired: it is deleted, with its attribute sidecar, right away when
+ * nobody pins it, otherwise by the last reader to unpin it. Pin and retire run inside the same map
+ * entry's compute, so a file is never deleted while a pin exists; a reader that pins a generation
+ * deleted just before must re-read the pointer.
+ * </p>
+ * The chunks of a replaced stripe manifest are retired the same way, keyed by their first chunk,
+ * so a reader opening them after reading the old manifest never finds them half deleted.
+ */
+@Slf4j
+final class GenerationPins {
+
+    private final ConcurrentHashMap<Path, PinState> states = new ConcurrentHashMap<>();
+
+    /** Pin a generation file. @return false if it no longer exists; the caller must not use it */
+    boolean pin(Path generationFile) {
+        states.compute(generationFile, (file, state) -> state == null
+                ? new PinState(1, null)
+                : new PinState(state.count() + 1, state.reclaim()));
+        if (Files.exists(generationFile)) {
+            return true;
+        }
+        unpin(generationFile);
+        return false;
+    }
+
+    void unpin(Path generationFile) {
+        states.computeIfPresent(generationFile, (file, state) -> {
+            if (state.count() > 1) {
+                return new PinState(state.count() - 1, state.reclaim());
+            }
+            if (state.reclaim() != null) {
+                state.reclaim().run();
+            }
+            return null;
+        });
+    }
+
+    /** Reclaim a superseded generation now, or once its last reader unpins it. */
+    void retire(Path generationFile) {
+        retire(generationFile, () -> deleteQuietly(generationFile));
+    }
+
+    /**
+     * Run {@code reclaim} now, or once the last reader unpins {@code key}. The reclaim must delete
+     * {@code key} itself, which is how later pins find out it is gone.
+     */
+    void retire(Path key, Runnable reclaim) {
+        states.compute(key, (file, state) -> {
+            if (state == null) {
+                reclaim.run();
+                return null;
+            }
+            return new PinState(state.count(), reclaim);
+        });
+    }
+
+    int pinCount(Path generationFile) {
+        PinState state = states.get(generationFile);
+        return state == null ? 0 : state.count();
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(ObjectAttributes.sidecarOf(file));
+        } catch (IOException e) {
+            log.warn("Failed to reclaim generation {}: {}", file, e.getMessage());
+        }
+    }
+
+    /** @param reclaim set once retired: what the last unpin has to delete */
+    private record PinState(int count, Runnable reclaim) {
+    }
+}
@@ -0,0 +1,161 @@
+package com.opentext.assignment.repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+
+/**
+ * Binary sidecar {@code <data file>.attr} describing one committed data file, captured while the
+ * file was written: its length and modification time, the CRC32C of its bytes, the codec of the
+ * stored form and the run statistics of the data.
+ * <p>
+ * The sidecar never trails its data file: it is written next to the finished temp file
+ * ({@code <data file>.tmp.attr}) before the commit rename and moved into place after it. While the
+ * temp file is gone but its sidecar is not, the sidecar belongs to the committed file, so
+ * {@link #current(Path)} reads it instead and the next save promotes it ({@link #recover(Path)}).
+ * Files with unique names (generations, stripe chunks) get their sidecar before anything points at
+ * them. A file that no longer matches its attributes is therefore damaged or was changed outside
+ * the repository, and its read fails; the modification time is informational only.
+ * </p>
+ * Record layout (68 bytes, big-endian): magic, version (short), flags (bit 0: checksummed), codec,
+ * data bytes, modification time, CRC32C (int), plain length, encoded length, run count, longest
+ * run, save time. Version 1 records (length, time and checksum only) are ignored and replaced on
+ * the next save.
+ *
+ * @param dataBytes      length of the data file in bytes
+ * @param modifiedMillis modification time of the data file when it was committed
+ * @param checksummed    whether {@code crc32c} was computed (repository.checksum.enabled)
+ * @param crc32c         CRC32C of the file's bytes
+ * @param codec          form of the stored data
+ * @param plainLength    characters of the data in uncompressed form
+ * @param encodedLength  characters of the data in RLE form
+ * @param runCount       runs of equal characters in the uncompressed data
+ * @param longestRun     length of the longest run
+ * @param savedAtMillis  wall-clock time of the save
+ */
+@Slf4j
+public record ObjectAttributes(long dataBytes, long modifiedMillis, boolean checksummed, int crc32c, Codec codec,
+                               long plainLength, long encodedLength, long runCount, long longestRun,
+                               long savedAtMillis) {
+
+    static final String SUFFIX = ".attr";
+    private static final int MAGIC = 0x41545452; // "ATTR"
+    private static final int VERSION = 2;
+    private static final int FLAG_CHECKSUMMED = 1;
+
+    /** Form in which the data file stores the object. */
+    public enum Codec {
+        PLAIN, RLE
+    }
+
+    /** Encoded size relative to the plain size; 1.0 for empty data. */
+    public double compressionRatio() {
+        return plainLength == 0 ? 1.0 : (double) encodedLength / plainLength;
+    }
+
+    public Instant savedAt() {
+        return Instant.ofEpochMilli(savedAtMillis);
+    }
+
+    static Path sidecarOf(Path dataFile) {
+        return dataFile.resolveSibling(dataFile.getFileName() + SUFFIX);
+    }
+
+    /** Temp file a data file is written to before its commit rename. */
+    private static Path tempOf(Path dataFile) {
+        return dataFile.resolveSibling(dataFile.getFileName() + ".tmp");
+    }
+
+    /** Publish the attributes of a data file through a temp file and atomic move. */
+    static void write(Path dataFile, ObjectAttributes attributes) throws IOException {
+        Path sidecar = sidecarOf(dataFile);
+        Path temp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(temp))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeByte(attributes.checksummed() ? FLAG_CHECKSUMMED : 0);
+            out.writeByte(attributes.codec().ordinal());
+            out.writeLong(attributes.dataBytes());
+            out.writeLong(attributes.modifiedMillis());
+            out.writeInt(attributes.crc32c());
+            out.writeLong(attributes.plainLength());
+            out.writeLong(attributes.encodedLength());
+            out.writeLong(attributes.runCount());
+            out.writeLong(attributes.longestRun());
+            out.writeLong(attributes.savedAtMillis());
+        }
+        Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** @return the attributes of the data file, or null if there are none or they are unreadable */
+    static ObjectAttributes read(Path dataFile) {
+        Path sidecar = sidecarOf(dataFile);
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(sidecar))) {
+            int magic = in.readInt();
+            int version = in.readShort();
+            if (magic != MAGIC || version != VERSION) {
+                if (magic != MAGIC || version > VERSION) {
+                    log.warn("Ignoring unrecognised attributes {}", sidecar);
+                }
+                return null;
+            }
+            int flags = in.readUnsignedByte();
+            int codec = in.readUnsignedByte();
+            if (codec >= Codec.values().length) {
+                log.warn("Ignoring attributes {} with unknown codec {}", sidecar, codec);
+                return null;
+            }
+            return new ObjectAttributes(in.readLong(), in.readLong(), (flags & FLAG_CHECKSUMMED) != 0, in.readInt(),
+                    Codec.values()[codec], in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readLong());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable attributes {}: {}", sidecar, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Attributes of the committed data file: those waiting next to its temp file if the temp file
+     * was already renamed into place, otherwise those of the data file itself.
+     */
+    static ObjectAttributes current(Path dataFile) {
+        Path tempFile = tempOf(dataFile);
+        if (Files.exists(sidecarOf(tempFile)) && !Files.exists(tempFile)) {
+            ObjectAttributes pending = read(tempFile);
+            if (pending != null) {
+                return pending;
+            }
+        }
+        return read(dataFile);
+    }
+
+    /** Move the attributes of a temp data file that was just renamed to {@code dataFile} into place. */
+    static void commit(Path tempFile, Path dataFile) throws IOException {
+        Files.move(sidecarOf(tempFile), sidecarOf(dataFile), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Promote attributes a crash left waiting after their data file was committed; call before the
+     * next temp file is created, which would otherwise hide them.
+     */
+    static void recover(Path dataFile) throws IOException {
+        Path tempFile = tempOf(dataFile);
+        if (Files.exists(sidecarOf(tempFile)) && !Files.exists(tempFile)) {
+            commit(tempFile, dataFile);
+        }
+    }
+
+    /** Whether these attributes were written for data of this length. */
+    boolean describes(long bytes) {
+        return bytes == dataBytes;
+    }
+}
@@ -0,0 +1,474 @@
+package com.opentext.assignment.repository;
+
+import com.opentext.assignment.model.CancellationToken;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
+
+/**
+ * Writes a sized, splittable character source into a data file with several threads.
+ * <p>
+ * The source is split into segments of known size and position. Each segment writes its characters
+ * as single bytes at its character offset with positioned writes, which is exact while the data is
+ * ASCII, as RLE data normally is. A segment that meets another character writes the rest of its
+ * UTF-8 bytes to a part file; afterwards the segments are moved to their final offsets from the
+ * last to the first (a segment never moves left), so the result is the same file a sequential
+ * UTF-8 writer would produce. CRC32C values and run statistics of the segments are combined
+ * without another pass over the data.
+ * </p>
+ * Segments run on a pool owned by the repository, not on the common ForkJoinPool, whose threads
+ * the blocking writes would take from every other parallel stream. A write returns only after all
+ * of its segments have stopped, also when one of them failed.
+ */
+final class ParallelDataWriter {
+
+    /** Threads of the segment pool, at least two since writes block; segments are sized so each thread gets several. */
+    static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private static final int CRC32C_POLY = 0x82F63B78;
+    private static final byte REPLACEMENT = '?';
+
+    private final FileChannel channel;
+    private final Path path;
+    private final int blockSize;
+    private final boolean checksum;
+    private final CancellationToken token;
+    private final ExecutorService io;
+    /** Set when a segment failed; segments that have not started yet are skipped. */
+    private volatile boolean failed;
+
+    private long bytes;
+    private int crc;
+    private RunStats.Plain runs;
+
+    ParallelDataWriter(FileChannel channel, Path path, int blockSize, boolean checksum, CancellationToken token,
+                       ExecutorService io) {
+        this.channel = channel;
+        this.path = path;
+        this.blockSize = Math.max(1024, blockSize);
+        this.checksum = checksum;
+        this.token = token;
+        this.io = io;
+    }
+
+    /** Bytes of the written file. */
+    long bytes() {
+        return bytes;
+    }
+
+    /** CRC32C of the written file, if checksums were requested. */
+    int crc() {
+        return crc;
+    }
+
+    /** Run statistics of all characters; not closed. */
+    RunStats.Plain runs() {
+        return runs;
+    }
+
+    /**
+     * Write every character of the source.
+     * @param source        SIZED and SUBSIZED source of exactly {@code size} characters
+     * @param segmentChars  target characters per segment
+     */
+    void write(Spliterator<Character> source, long size, long segmentChars) throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        split(source, Math.max(1, segmentChars), segments, new long[1]);
+        try {
+            writeSegments(segments);
+            assemble(segments);
+        } finally {
+            for (Segment segment : segments) {
+                segment.deletePart();
+            }
+        }
+        runs = new RunStats.Plain();
+        for (Segment segment : segments) {
+            runs.append(segment.runs);
+        }
+        if (runs.characters != size) {
+            throw new IOException("Sized source reported " + size + " characters but supplied " + runs.characters);
+        }
+    }
+
+    /** Write the segments on the pool and wait for every one of them; rethrows the first failure. */
+    private void writeSegments(List<Segment> segments) throws IOException {
+        List<Future<?>> writes = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+            writes.add(io.submit(() -> {
+                if (!failed) {
+                    try {
+                        segment.write();
+                    } catch (IOException | RuntimeException | Error e) {
+                        failed = true;
+                        throw e;
+                    }
+                }
+                return null;
+            }));
+        }
+        Throwable failure = null;
+        boolean interrupted = false;
+        for (Future<?> write : writes) {
+            while (true) {
+                try {
+                    write.get();
+                    break;
+                } catch (InterruptedException e) {
+                    // The segments still use the channel and part files; they must stop first
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure instanceof IOException e) {
+            throw e;
+        }
+        if (failure instanceof RuntimeException e) {
+            throw e;
+        }
+        if (failure instanceof Error e) {
+            throw e;
+        }
+    }
+
+    private void split(Spliterator<Character> source, long segmentChars, List<Segment> segments, long[] offset) {
+        if (source.estimateSize() > segmentChars) {
+            Spliterator<Character> prefix = source.trySplit();
+            if (prefix != null) {
+                split(prefix, segmentChars, segments, offset);
+                split(source, segmentChars, segments, offset);
+                return;
+            }
+        }
+        long chars = source.getExactSizeIfKnown();
+        segments.add(new Segment(segments.size(), source, offset[0]));
+        offset[0] += chars;
+    }
+
+    /**
+     * Place every segment at its final offset and compute the file's CRC32C. Only segments after
+     * the first one that needed more than one byte per character move.
+     */
+    private void assemble(List<Segment> segments) throws IOException {
+        int n = segments.size();
+        byte[][] leads = new byte[n][];
+        byte[][] trails = new byte[n][];
+        long[] finals = new long[n];
+        long position = 0;
+        for (int i = 0; i < n; i++) {
+            Segment segment = segments.get(i);
+            Segment previous = i > 0 ? segments.get(i - 1) : null;
+            Segment next = i + 1 < n ? segments.get(i + 1) : null;
+            // Surrogate pairs split between two segments are encoded at the start of the second
+            if (segment.leadingLow != 0) {
+                leads[i] = previous != null && previous.trailingHigh != 0
+                        ? utf8(Character.toCodePoint(previous.trailingHigh, segment.leadingLow))
+                        : new byte[]{REPLACEMENT};
+            } else {
+                leads[i] = new byte[0];
+            }
+            trails[i] = segment.trailingHigh != 0 && (next == null || next.leadingLow == 0)
+                    ? new byte[]{REPLACEMENT} : new byte[0];
+            finals[i] = position;
+            position += leads[i].length + segment.prefixBytes + segment.partBytes + trails[i].length;
+        }
+        bytes = position;
+        for (int i = n - 1; i >= 0; i--) {
+            Segment segment = segments.get(i);
+            long target = finals[i] + leads[i].length;
+            move(segment.charOffset, target, segment.prefixBytes);
+            writeFully(ByteBuffer.wrap(leads[i]), finals[i]);
+            target += segment.prefixBytes;
+            if (segment.part != null) {
+                try (FileChannel part = FileChannel.open(segment.part, StandardOpenOption.READ)) {
+                    ByteBuffer buffer = ByteBuffer.allocate(blockSize);
+                    while (part.read(buffer) > 0) {
+                        buffer.flip();
+                        target += writeFully(buffer, target);
+                        buffer.clear();
+                    }
+                }
+            }
+            writeFully(ByteBuffer.wrap(trails[i]), target);
+        }
+        if (checksum) {
+            int combined = 0;
+            for (int i = 0; i < n; i++) {
+                Segment segment = segments.get(i);
+                combined = combine(combined, crcOf(leads[i]), leads[i].length);
+                combined = combine(combined, segment.prefixCrc, segment.prefixBytes);
+                combined = combine(combined, segment.partCrc, segment.partBytes);
+                combined = combine(combined, crcOf(trails[i]), trails[i].length);
+            }
+            crc = combined;
+        }
+    }
+
+    /** Move a region to a later or equal offset, copying from its end so the source is read before it is overwritten. */
+    private void move(long from, long to, long length) throws IOException {
+        if (from == to || length == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(blockSize);
+        for (long done = length; done > 0; ) {
+            int n = (int) Math.min(buffer.capacity(), done);
+            done -= n;
+            buffer.clear().limit(n);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, from + done + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of " + path);
+                }
+            }
+            buffer.flip();
+            writeFully(buffer, to + done);
+        }
+    }
+
+    private int writeFully(ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    private static int crcOf(byte[] data) {
+        CRC32C crc = new CRC32C();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] utf8(int codePoint) {
+        return new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * CRC32C of the concatenation of two byte sequences from the CRC32C of each and the length of
+     * the second (zlib's crc32_combine with the Castagnoli polynomial).
+     */
+    static int combine(int crc1, int crc2, long length2) {
+        if (length2 <= 0) {
+            return crc1;
+        }
+        int[] even = new int[32];
+        int[] odd = new int[32];
+        // Operator for one zero bit
+        odd[0] = CRC32C_POLY;
+        int row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        square(even, odd); // two zero bits
+        square(odd, even); // four zero bits
+        int crc = crc1;
+        do {
+            square(even, odd);
+            if ((length2 & 1) != 0) {
+                crc = times(even, crc);
+            }
+            length2 >>= 1;
+            if (length2 == 0) {
+                break;
+            }
+            square(odd, even);
+            if ((length2 & 1) != 0) {
+                crc = times(odd, crc);
+            }
+            length2 >>= 1;
+        } while (length2 != 0);
+        return crc ^ crc2;
+    }
+
+    private static int times(int[] matrix, int vector) {
+        int sum = 0;
+        for (int i = 0; vector != 0; i++, vector >>>= 1) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void square(int[] square, int[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+
+    /** One contiguous range of the source and what writing it produced. */
+    private final class Segment {
+        private final int index;
+        private final Spliterator<Character> source;
+        private final long charOffset;
+        private final RunStats.Plain runs = new RunStats.Plain();
+        private final CRC32C crc32c = checksum ? new CRC32C() : null;
+        private ByteBuffer buffer;
+        private long prefixBytes;
+        private int prefixCrc;
+        private Path part;
+        private OutputStream partOut;
+        private long partBytes;
+        private int partCrc;
+        private char pendingHigh;
+        private char leadingLow;
+        private char trailingHigh;
+
+        Segment(int index, Spliterator<Character> source, long charOffset) {
+            this.index = index;
+            this.source = source;
+            this.charOffset = charOffset;
+        }
+
+        void write() throws IOException {
+            buffer = ByteBuffer.allocate(blockSize);
+            try {
+                source.forEachRemaining(ch -> {
+                    try {
+                        accept(ch);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (part == null) {
+                    flushInPlace();
+                    prefixCrc = crc32c == null ? 0 : (int) crc32c.getValue();
+                } else {
+                    trailingHigh = pendingHigh;
+                    flushPart();
+                    partCrc = crc32c == null ? 0 : (int) crc32c.getValue();
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                if (partOut != null) {
+                    partOut.close();
+                }
+                buffer = null;
+            }
+        }
+
+        private void accept(char ch) throws IOException {
+            runs.accept(ch);
+            token.checkpoint(runs.characters);
+            if (part == null) {
+                if (ch < 0x80) {
+                    buffer.put((byte) ch);
+                    if (!buffer.hasRemaining()) {
+                        flushInPlace();
+                    }
+                    return;
+                }
+                startPart();
+            }
+            encode(ch);
+        }
+
+        private void flushInPlace() throws IOException {
+            buffer.flip();
+            if (crc32c != null) {
+                crc32c.update(buffer.array(), 0, buffer.limit());
+            }
+            prefixBytes += writeFully(buffer, charOffset + prefixBytes);
+            buffer.clear();
+        }
+
+        /** Continue in a part file from the first character that is not a single UTF-8 byte. */
+        private void startPart() throws IOException {
+            flushInPlace();
+            prefixCrc = crc32c == null ? 0 : (int) crc32c.getValue();
+            if (crc32c != null) {
+                crc32c.reset();
+            }
+            part = path.resolveSibling(path.getFileName() + ".p" + index);
+            partOut = new BufferedOutputStream(Files.newOutputStream(part), blockSize);
+        }
+
+        /** UTF-8 with '?' for unpaired surrogates, as the sequential writer's encoder produces. */
+        private void encode(char ch) throws IOException {
+            if (pendingHigh != 0) {
+                char high = pendingHigh;
+                pendingHigh = 0;
+                if (Character.isLowSurrogate(ch)) {
+                    put(utf8(Character.toCodePoint(high, ch)));
+                    return;
+                }
+                put(REPLACEMENT);
+            }
+            if (Character.isHighSurrogate(ch)) {
+                pendingHigh = ch;
+            } else if (Character.isLowSurrogate(ch)) {
+                if (runs.characters == 1) {
+                    // May pair with a high surrogate ending the previous segment
+                    leadingLow = ch;
+                } else {
+                    put(REPLACEMENT);
+                }
+            } else if (ch < 0x80) {
+                put((byte) ch);
+            } else if (ch < 0x800) {
+                put((byte) (0xC0 | ch >> 6));
+                put((byte) (0x80 | ch & 0x3F));
+            } else {
+                put((byte) (0xE0 | ch >> 12));
+                put((byte) (0x80 | ch >> 6 & 0x3F));
+                put((byte) (0x80 | ch & 0x3F));
+            }
+        }
+
+        private void put(byte b) throws IOException {
+            buffer.put(b);
+            if (!buffer.hasRemaining()) {
+                flushPart();
+            }
+        }
+
+        private void put(byte[] bytes) throws IOException {
+            for (byte b : bytes) {
+                put(b);
+            }
+        }
+
+        private void flushPart() throws IOException {
+            if (crc32c != null) {
+                crc32c.update(buffer.array(), 0, buffer.position());
+            }
+            partOut.write(buffer.array(), 0, buffer.position());
+            partBytes += buffer.position();
+            buffer.clear();
+        }
+
+        void deletePart() {
+            if (part != null) {
+                try {
+                    Files.deleteIfExists(part);
+                } catch (IOException e) {
+                    // temp part of a failed or finished write
+                }
+            }
+        }
+    }
+}
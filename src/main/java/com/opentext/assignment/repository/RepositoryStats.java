@@ -0,0 +1,61 @@
+package com.opentext.assignment.repository;
+
+/**
+ * Totals over the {@link ObjectAttributes} of every object in the repository.
+ *
+ * @param objects           objects found
+ * @param unknown           objects without current attributes (never saved since attributes were
+ *                          introduced, or changed outside the repository); not included in the totals
+ * @param compressed        objects stored in RLE form
+ * @param storedBytes       bytes of the data files
+ * @param plainCharacters   characters of all objects in uncompressed form
+ * @param encodedCharacters characters of all objects in RLE form
+ * @param runs              runs of equal characters in all objects
+ * @param longestRun        longest run in any object
+ */
+public record RepositoryStats(long objects, long unknown, long compressed, long storedBytes, long plainCharacters,
+                              long encodedCharacters, long runs, long longestRun) {
+
+    /** RLE size relative to the uncompressed size over all known objects; 1.0 if there is no data. */
+    public double compressionRatio() {
+        return plainCharacters == 0 ? 1.0 : (double) encodedCharacters / plainCharacters;
+    }
+
+    /** Mean run length; 0 if there is no data. */
+    public double meanRunLength() {
+        return runs == 0 ? 0.0 : (double) plainCharacters / runs;
+    }
+
+    static final class Accumulator {
+        private long objects;
+        private long unknown;
+        private long compressed;
+        private long storedBytes;
+        private long plainCharacters;
+        private long encodedCharacters;
+        private long runs;
+        private long longestRun;
+
+        /** @param attributes attributes of one object, null if it has none */
+        void add(ObjectAttributes attributes) {
+            objects++;
+            if (attributes == null) {
+                unknown++;
+                return;
+            }
+            if (attributes.codec() == ObjectAttributes.Codec.RLE) {
+                compressed++;
+            }
+            storedBytes += attributes.dataBytes();
+            plainCharacters += attributes.plainLength();
+            encodedCharacters += attributes.encodedLength();
+            runs += attributes.runCount();
+            longestRun = Math.max(longestRun, attributes.longestRun());
+        }
+
+        RepositoryStats result() {
+            return new RepositoryStats(objects, unknown, compressed, storedBytes, plainCharacters, encodedCharacters,
+                    runs, longestRun);
+        }
+    }
+}
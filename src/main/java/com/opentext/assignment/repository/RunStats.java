@@ -0,0 +1,142 @@
+package com.opentext.assignment.repository;
+
+/**
+ * Run statistics collected one character at a time while a data file is written: the characters
+ * written, the length of the data in the other form (RLE for plain data, plain for RLE tokens),
+ * the number of runs and the longest run. {@link #close()} accounts for the last run.
+ */
+abstract class RunStats {
+
+    long characters;
+    /** Length of the data in the form not being written. */
+    long otherLength;
+    long count;
+    long longest;
+
+    abstract void accept(char ch);
+
+    /** The data ended: account for the last run. */
+    abstract void close();
+
+    void run(long length) {
+        count++;
+        longest = Math.max(longest, length);
+    }
+
+    /** Characters of the RLE token for a run: the character, then the count if above one. */
+    static int tokenLength(long run) {
+        if (run <= 1) {
+            return 1;
+        }
+        int length = 1;
+        for (long rest = run; rest > 0; rest /= 10) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Plain characters: the encoded length is what the RLE compressor would produce. Statistics of
+     * consecutive segments written separately can be combined with {@link #append(Plain)}.
+     */
+    static final class Plain extends RunStats {
+        private char previous;
+        private long current;
+        private char first;
+        /** Length of the first run once it is closed. */
+        private long firstRun;
+
+        @Override
+        void accept(char ch) {
+            if (characters++ == 0) {
+                first = ch;
+            }
+            if (current > 0 && ch == previous) {
+                current++;
+                return;
+            }
+            close();
+            previous = ch;
+            current = 1;
+        }
+
+        @Override
+        void close() {
+            if (current > 0) {
+                if (count == 0) {
+                    firstRun = current;
+                }
+                run(current);
+                otherLength += tokenLength(current);
+                current = 0;
+            }
+        }
+
+        /**
+         * Add the statistics of the segment that directly follows this one; neither may be closed.
+         * A run crossing the boundary is counted once.
+         */
+        void append(Plain next) {
+            if (next.characters == 0) {
+                return;
+            }
+            if (characters == 0) {
+                first = next.first;
+            }
+            characters += next.characters;
+            if (current > 0 && previous == next.first) {
+                if (next.count == 0) {
+                    // The whole next segment continues the open run
+                    current += next.current;
+                    return;
+                }
+                long joined = current + next.firstRun;
+                current = 0;
+                if (count == 0) {
+                    firstRun = joined;
+                }
+                run(joined);
+                otherLength += tokenLength(joined) + next.otherLength - tokenLength(next.firstRun);
+                count += next.count - 1;
+            } else {
+                close();
+                if (count == 0) {
+                    firstRun = next.firstRun;
+                }
+                otherLength += next.otherLength;
+                count += next.count;
+            }
+            longest = Math.max(longest, next.longest);
+            previous = next.previous;
+            current = next.current;
+        }
+    }
+
+    /** RLE tokens (a character followed by an optional decimal count): the plain length is the sum of runs. */
+    static final class Encoded extends RunStats {
+        private boolean open;
+        private long current;
+
+        @Override
+        void accept(char ch) {
+            characters++;
+            if (open && ch >= '0' && ch <= '9') {
+                current = current * 10 + (ch - '0');
+                return;
+            }
+            close();
+            open = true;
+        }
+
+        @Override
+        void close() {
+            if (open) {
+                long length = current == 0 ? 1 : current;
+                run(length);
+                otherLength += length;
+                current = 0;
+                open = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.opentext.assignment.repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Manifest {@code <id>.stripe} of an object striped into chunk files: the chunk size and total
+ * length on the first line, then the absolute path of every chunk in order. Chunks are written
+ * under names unique to their save and only become part of the object when the manifest naming
+ * them is moved into place, so a save's chunks are committed as a group by one atomic rename.
+ *
+ * @param chunkBytes size of every chunk but the last
+ * @param totalBytes length of the object's data
+ * @param chunks     chunk files in data order; the first lives in the base directory
+ */
+@Slf4j
+record StripeManifest(long chunkBytes, long totalBytes, List<Path> chunks) {
+
+    static final String SUFFIX = ".stripe";
+
+    static Path pathOf(Path baseDir, String objectId) {
+        return baseDir.resolve(objectId + SUFFIX);
+    }
+
+    /** @return the manifest, or null if the object is not striped */
+    static StripeManifest read(Path manifest) {
+        try {
+            List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+            String[] sizes = lines.get(0).trim().split("\\s+");
+            List<Path> chunks = new ArrayList<>(lines.size() - 1);
+            for (String line : lines.subList(1, lines.size())) {
+                if (!line.isBlank()) {
+                    chunks.add(Paths.get(line.trim()));
+                }
+            }
+            return new StripeManifest(Long.parseLong(sizes[0]), Long.parseLong(sizes[1]), List.copyOf(chunks));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            throw new RuntimeException("Unreadable stripe manifest " + manifest, e);
+        }
+    }
+
+    /**
+     * Publish this manifest through a temp file and atomic move: the commit point of a striped save.
+     * The temp file is forced to disk first, and the chunks must have been, so a manifest that
+     * survives a crash never names chunks whose data was still in the page cache.
+     */
+    void write(Path manifest) throws IOException {
+        StringBuilder text = new StringBuilder().append(chunkBytes).append(' ').append(totalBytes).append('\n');
+        for (Path chunk : chunks) {
+            text.append(chunk.toAbsolutePath()).append('\n');
+        }
+        Path temp = manifest.resolveSibling(manifest.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(text.toString());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Open every chunk now, so a later save that deletes them cannot cut this read short, and
+     * read them ahead in parallel on {@code io}, one chunk per directory at a time.
+     */
+    InputStream open(int blockSize, ExecutorService io) throws IOException {
+        List<FileChannel> channels = new ArrayList<>(chunks.size());
+        try {
+            for (Path chunk : chunks) {
+                channels.add(FileChannel.open(chunk, StandardOpenOption.READ));
+            }
+        } catch (IOException e) {
+            StripedInputStream.closeAll(channels);
+            throw e;
+        }
+        int directories = new HashSet<>(chunks.stream().map(Path::getParent).toList()).size();
+        return new StripedInputStream(channels, totalBytes, blockSize, directories, io);
+    }
+
+    /** Remove the chunk files and the attributes of the first, e.g. once a newer save has replaced this manifest. */
+    void deleteChunks() {
+        for (Path chunk : chunks) {
+            try {
+                Files.deleteIfExists(chunk);
+                if (chunk.equals(chunks.get(0))) {
+                    Files.deleteIfExists(ObjectAttributes.sidecarOf(chunk));
+                }
+            } catch (IOException e) {
+                log.warn("Failed to delete chunk {}: {}", chunk, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.opentext.assignment.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the chunks of a striped object as one stream. Up to {@code readAhead} chunks, normally one
+ * per stripe directory, are read concurrently by background tasks into small bounded block queues,
+ * so the devices work in parallel while the consumer drains the chunks in order.
+ */
+final class StripedInputStream extends InputStream {
+
+    private static final int QUEUED_BLOCKS = 8;
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final List<FileChannel> channels;
+    private final ChunkReader[] readers;
+    private final int blockSize;
+    private final int readAhead;
+    private final ExecutorService io;
+    private final long expectedBytes;
+    private long count;
+    private int chunk;
+    private ByteBuffer block = END;
+    private volatile boolean closed;
+
+    /** @param expectedBytes total length recorded in the manifest; a missing tail fails the read */
+    StripedInputStream(List<FileChannel> channels, long expectedBytes, int blockSize, int readAhead, ExecutorService io) {
+        this.expectedBytes = expectedBytes;
+        this.channels = channels;
+        this.readers = new ChunkReader[channels.size()];
+        this.blockSize = Math.max(1024, blockSize);
+        this.readAhead = Math.max(1, readAhead);
+        this.io = io;
+        for (int i = 0; i < Math.min(this.readAhead, channels.size()); i++) {
+            schedule(i);
+        }
+    }
+
+    private void schedule(int index) {
+        readers[index] = new ChunkReader(channels.get(index));
+        io.execute(readers[index]);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        while (!block.hasRemaining()) {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (chunk >= readers.length) {
+                if (count != expectedBytes) {
+                    throw new IOException("Striped data ended after " + count + " of " + expectedBytes + " bytes");
+                }
+                return -1;
+            }
+            ByteBuffer next = readers[chunk].take();
+            if (next == END) {
+                readers[chunk] = null;
+                if (++chunk + readAhead - 1 < readers.length) {
+                    schedule(chunk + readAhead - 1);
+                }
+            } else {
+                block = next;
+            }
+        }
+        int n = Math.min(length, block.remaining());
+        block.get(buffer, offset, n);
+        count += n;
+        return n;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        closeAll(channels);
+    }
+
+    static void closeAll(List<FileChannel> channels) {
+        for (FileChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // nothing left to read from it
+            }
+        }
+    }
+
+    /** Reads one chunk into its queue; stops early when the stream is closed. */
+    private final class ChunkReader implements Runnable {
+        private final FileChannel channel;
+        private final BlockingQueue<ByteBuffer> blocks = new ArrayBlockingQueue<>(QUEUED_BLOCKS);
+        private volatile IOException failure;
+
+        ChunkReader(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void run() {
+            try {
+                long position = 0;
+                while (!closed) {
+                    ByteBuffer next = ByteBuffer.allocate(blockSize);
+                    while (next.hasRemaining()) {
+                        int n = channel.read(next, position);
+                        if (n < 0) {
+                            break;
+                        }
+                        position += n;
+                    }
+                    next.flip();
+                    if (!next.hasRemaining()) {
+                        break;
+                    }
+                    put(next);
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new InterruptedIOException("Chunk read interrupted");
+            }
+            try {
+                put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void put(ByteBuffer next) throws InterruptedException {
+            while (!blocks.offer(next, 100, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    return;
+                }
+            }
+        }
+
+        ByteBuffer take() throws IOException {
+            ByteBuffer next;
+            try {
+                next = blocks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading a chunk");
+            }
+            if (next == END && failure != null) {
+                throw failure;
+            }
+            return next;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.opentext.assignment.repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes an object's bytes into the temp data file until it holds one chunk, then continues in
+ * further chunk files placed round-robin across the stripe directories. Chunks after the first are
+ * written by background tasks from small bounded block queues, so chunks on different devices are
+ * written in parallel; at most one chunk per directory is outstanding at a time.
+ * <p>
+ * An object that fits in one chunk never leaves the temp file and keeps the single-file layout.
+ * The extra chunks are unreferenced until the repository publishes a {@link StripeManifest}; a
+ * failed or cancelled save removes them with {@link #abort()}.
+ * </p>
+ */
+@Slf4j
+final class StripedOutputStream extends OutputStream {
+
+    private static final int QUEUED_BLOCKS = 8;
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    /**
+     * Where the chunks of one save go.
+     * @param chunkBytes  size of every chunk but the last
+     * @param directories directories for the second and later chunks, used in turn
+     * @param chunkPrefix file name prefix unique to the save; chunk k is {@code <prefix>.c<k>}
+     */
+    record Target(long chunkBytes, List<Path> directories, String chunkPrefix, ExecutorService io) {
+    }
+
+    private final FileChannel first;
+    private final Target target;
+    private final int blockSize;
+    private final List<ChunkWriter> writers = new ArrayList<>();
+    private ChunkWriter current;
+    private long chunkWritten;
+    private long bytes;
+    private byte[] block;
+    private int blockUsed;
+
+    StripedOutputStream(FileChannel first, Target target, int blockSize) {
+        this.first = first;
+        this.target = target;
+        this.blockSize = Math.max(1024, blockSize);
+    }
+
+    /** Whether the data outgrew the first chunk. */
+    boolean isStriped() {
+        return !writers.isEmpty();
+    }
+
+    /** Bytes written across all chunks. */
+    long bytes() {
+        return bytes;
+    }
+
+    /** Chunk files after the first, in data order. */
+    List<Path> extraChunks() {
+        return writers.stream().map(ChunkWriter::path).toList();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (chunkWritten == target.chunkBytes()) {
+                nextChunk();
+            }
+            int n = (int) Math.min(length, target.chunkBytes() - chunkWritten);
+            if (current == null) {
+                ByteBuffer buffer = ByteBuffer.wrap(data, offset, n);
+                while (buffer.hasRemaining()) {
+                    first.write(buffer);
+                }
+            } else {
+                if (block == null) {
+                    block = new byte[blockSize];
+                }
+                n = Math.min(n, block.length - blockUsed);
+                System.arraycopy(data, offset, block, blockUsed, n);
+                blockUsed += n;
+                if (blockUsed == block.length) {
+                    submitBlock();
+                }
+            }
+            chunkWritten += n;
+            bytes += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        if (blockUsed > 0) {
+            current.put(ByteBuffer.wrap(block, 0, blockUsed));
+            block = null;
+            blockUsed = 0;
+        }
+    }
+
+    private void nextChunk() throws IOException {
+        if (current != null) {
+            submitBlock();
+            current.put(END);
+        }
+        int index = writers.size() + 1;
+        List<Path> directories = target.directories();
+        // One outstanding chunk per directory keeps memory bounded and each device busy
+        if (writers.size() >= directories.size()) {
+            writers.get(writers.size() - directories.size()).await();
+        }
+        Path path = directories.get((index - 1) % directories.size()).resolve(target.chunkPrefix() + ".c" + index);
+        current = new ChunkWriter(path);
+        writers.add(current);
+        target.io().execute(current);
+        chunkWritten = 0;
+    }
+
+    /** Hand over buffered bytes of the current chunk without waiting for them to be written. */
+    @Override
+    public void flush() throws IOException {
+        if (current != null) {
+            submitBlock();
+        }
+    }
+
+    /** Wait until every chunk is written, forced to disk and closed; fails if any chunk could not be written. */
+    void complete() throws IOException {
+        if (current != null) {
+            submitBlock();
+            current.put(END);
+            current = null;
+        }
+        for (ChunkWriter writer : writers) {
+            writer.await();
+        }
+    }
+
+    /** Stop the chunk writers and delete their files. */
+    void abort() {
+        for (ChunkWriter writer : writers) {
+            writer.aborted = true;
+            writer.blocks.clear();
+            writer.blocks.offer(END);
+        }
+        for (ChunkWriter writer : writers) {
+            try {
+                writer.await();
+            } catch (IOException e) {
+                // the chunk is discarded anyway
+            }
+            try {
+                Files.deleteIfExists(writer.path());
+            } catch (IOException e) {
+                log.warn("Failed to delete chunk {}: {}", writer.path(), e.getMessage());
+            }
+        }
+        writers.clear();
+        current = null;
+    }
+
+    /** Drains the block queue of one chunk into its file. */
+    private static final class ChunkWriter implements Runnable {
+        private final Path path;
+        private final BlockingQueue<ByteBuffer> blocks = new ArrayBlockingQueue<>(QUEUED_BLOCKS);
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private volatile boolean aborted;
+
+        ChunkWriter(Path path) {
+            this.path = path;
+        }
+
+        Path path() {
+            return path;
+        }
+
+        @Override
+        public void run() {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer next;
+                while ((next = blocks.take()) != END && !aborted) {
+                    while (next.hasRemaining()) {
+                        channel.write(next);
+                    }
+                }
+                if (!aborted) {
+                    // On disk before the manifest naming this chunk can be published
+                    channel.force(true);
+                }
+                done.complete(null);
+            } catch (Throwable e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                done.completeExceptionally(e);
+            }
+        }
+
+        void put(ByteBuffer next) throws IOException {
+            try {
+                while (!blocks.offer(next, 100, TimeUnit.MILLISECONDS)) {
+                    if (done.isDone()) {
+                        // The writer stopped; await() reports why
+                        await();
+                        throw new IOException("Chunk writer for " + path + " stopped");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while writing " + path);
+            }
+        }
+
+        void await() throws IOException {
+            try {
+                done.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while writing " + path);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof IOException io ? io : new IOException("Failed to write " + path, cause);
+            }
+        }
+    }
+}
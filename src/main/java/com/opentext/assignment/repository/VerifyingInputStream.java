@@ -0,0 +1,101 @@
+package com.opentext.assignment.repository;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * Updates a CRC32C with every block read and compares it with the stored attributes once the end
+ * of the file is reached, before the end is reported to the reader. A consumer that writes the data
+ * elsewhere therefore fails before it can commit a copy of a damaged file.
+ * <p>
+ * The attributes are read before the file is opened, so a save committed in between pairs them
+ * with the newer file. A mismatch is checked once more against the attributes current at the end
+ * of the read, and only reported if the bytes match neither.
+ * </p>
+ */
+final class VerifyingInputStream extends FilterInputStream {
+
+    private final String objectId;
+    private final ObjectAttributes expected;
+    private final Supplier<ObjectAttributes> current;
+    private final CRC32C crc = new CRC32C();
+    private long count;
+    private boolean verified;
+
+    /** For a file that is never replaced in place, e.g. a generation or a stripe chunk. */
+    VerifyingInputStream(InputStream in, String objectId, ObjectAttributes expected) {
+        this(in, objectId, expected, () -> expected);
+    }
+
+    VerifyingInputStream(InputStream in, String objectId, ObjectAttributes expected,
+                         Supplier<ObjectAttributes> current) {
+        super(in);
+        this.objectId = objectId;
+        this.expected = expected;
+        this.current = current;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            verify();
+        } else {
+            crc.update(b);
+            count++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int n = in.read(buffer, offset, length);
+        if (n < 0) {
+            verify();
+        } else {
+            crc.update(buffer, offset, n);
+            count += n;
+        }
+        return n;
+    }
+
+    /** Skipped bytes are read through the checksum as well. */
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] scratch = new byte[(int) Math.min(8192, Math.max(1, n))];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(scratch, 0, (int) Math.min(scratch.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void verify() throws IOException {
+        if (verified) {
+            return;
+        }
+        if (!matches(expected) && !matches(current.get())) {
+            throw new IOException(String.format("Checksum mismatch for object %s: read %d bytes with CRC32C %08x,"
+                    + " expected %d bytes with %08x", objectId, count, (int) crc.getValue(), expected.dataBytes(),
+                    expected.crc32c()));
+        }
+        verified = true;
+    }
+
+    private boolean matches(ObjectAttributes attributes) {
+        return attributes != null && attributes.checksummed() && count == attributes.dataBytes()
+                && (int) crc.getValue() == attributes.crc32c();
+    }
+}
@@ -0,0 +1,23 @@
+package com.opentext.assignment.service;
+
+/**
+ * Tuning knobs for a {@link BulkImportService} run.
+ *
+ * @param concurrency   number of objects written in parallel; 0 or less means availableProcessors
+ * @param compress      RLE-compress data on the way in and mark the objects as compressed
+ * @param metaBatchSize number of meta files published per batch; 0 or less means 256
+ */
+public record BulkImportOptions(int concurrency, boolean compress, int metaBatchSize) {
+
+    public static BulkImportOptions defaults() {
+        return new BulkImportOptions(0, false, 0);
+    }
+
+    int effectiveConcurrency() {
+        return concurrency > 0 ? concurrency : Math.max(1, Runtime.getRuntime().availableProcessors());
+    }
+
+    int effectiveMetaBatchSize() {
+        return metaBatchSize > 0 ? metaBatchSize : 256;
+    }
+}
@@ -0,0 +1,34 @@
+package com.opentext.assignment.service;
+
+import java.time.Duration;
+
+/**
+ * Outcome of a bulk import: object and character counts plus derived throughput.
+ *
+ * @param imported   objects whose data and meta were written
+ * @param failed     objects that could not be written (logged and skipped)
+ * @param characters source characters consumed, before any compression
+ * @param elapsed    wall-clock duration of the import
+ */
+public record BulkImportReport(long imported, long failed, long characters, Duration elapsed) {
+
+    public double objectsPerSecond() {
+        return perSecond(imported);
+    }
+
+    /** Source throughput in MiB/s, counting one byte per character. */
+    public double megabytesPerSecond() {
+        return perSecond(characters) / (1024.0 * 1024.0);
+    }
+
+    private double perSecond(long amount) {
+        long nanos = Math.max(1L, elapsed.toNanos());
+        return amount * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("imported=%d, failed=%d, characters=%d, elapsed=%dms, objects/s=%.1f, MiB/s=%.2f",
+                imported, failed, characters, elapsed.toMillis(), objectsPerSecond(), megabytesPerSecond());
+    }
+}
@@ -0,0 +1,321 @@
+package com.opentext.assignment.service;
+
+import com.opentext.assignment.model.DataObject;
+import com.opentext.assignment.model.FileDataObject;
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.repository.FileRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Creates many objects at once from a source directory or a concatenated archive stream.
+ * <p>
+ * - Objects are written in parallel by a bounded pool; the producer blocks once
+ *   {@code concurrency * 2} objects are queued, so a huge source never piles up in memory.
+ * - Data may optionally be RLE-compressed on the way in, without an intermediate uncompressed file.
+ * - A compressed object's meta file is published with its data, so its RLE data is never read
+ *   as plain. New uncompressed objects read correctly without one; their meta files are
+ *   published in batches, keeping the per-object path down to a single temp write and rename.
+ *   A failed batch is retried later and never counts against the objects themselves.
+ * </p>
+ * Archive format: a sequence of entries, each a header line {@code <objectId>\t<charCount>\n}
+ * followed by exactly {@code charCount} UTF-8 characters.
+ */
+@Slf4j
+@Service
+public class BulkImportService {
+
+    /** Entries up to this many characters are buffered and handed to workers; larger ones stream inline. */
+    static final int MAX_BUFFERED_ENTRY_CHARS = 1 << 20;
+
+    private final FileRepository repository;
+    private final CompressionService compressionService;
+
+    @Autowired
+    public BulkImportService(FileRepository repository, CompressionService compressionService) {
+        this.repository = repository;
+        this.compressionService = compressionService;
+    }
+
+    /**
+     * Import every regular file in the given directory; the file name becomes the object ID.
+     */
+    public BulkImportReport importDirectory(Path sourceDir, BulkImportOptions options) {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(sourceDir)) {
+            files = listing.filter(Files::isRegularFile).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list import directory " + sourceDir, e);
+        }
+        try (ImportRun run = new ImportRun(options)) {
+            for (Path file : files) {
+                String objectId = file.getFileName().toString();
+                run.submit(objectId, () -> new FileDataObject(objectId, file, false).getData());
+            }
+            return run.finish();
+        }
+    }
+
+    /**
+     * Import all entries of a concatenated archive stream. The stream is read sequentially on the
+     * calling thread while entries are written in parallel.
+     */
+    public BulkImportReport importArchive(InputStream archive, BulkImportOptions options) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(archive, StandardCharsets.UTF_8));
+        try (ImportRun run = new ImportRun(options)) {
+            String header;
+            while ((header = reader.readLine()) != null) {
+                if (header.isEmpty()) {
+                    continue;
+                }
+                int tab = header.lastIndexOf('\t');
+                if (tab <= 0) {
+                    throw new IllegalArgumentException("Malformed archive header: " + header);
+                }
+                String objectId = header.substring(0, tab);
+                long length = Long.parseLong(header.substring(tab + 1).trim());
+                if (length <= MAX_BUFFERED_ENTRY_CHARS) {
+                    String content = readFully(reader, (int) length, objectId);
+                    run.submit(objectId, () -> content.chars().mapToObj(c -> (char) c));
+                } else {
+                    // Too large to buffer: write on the reader thread, the entry must be consumed in order anyway
+                    EntryChars entry = new EntryChars(reader, length, objectId);
+                    run.importInline(objectId, entry.stream());
+                    // A failed import leaves the reader inside the entry; the next header follows it
+                    entry.skipRest();
+                }
+            }
+            return run.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read import archive", e);
+        }
+    }
+
+    private static String readFully(Reader reader, int length, String objectId) throws IOException {
+        char[] buffer = new char[length];
+        int read = 0;
+        while (read < length) {
+            int n = reader.read(buffer, read, length - read);
+            if (n < 0) {
+                throw new IOException("Truncated archive entry: " + objectId);
+            }
+            read += n;
+        }
+        return new String(buffer);
+    }
+
+    /** Exactly {@code length} characters of one archive entry, read lazily from the reader. */
+    private static final class EntryChars implements Iterator<Character> {
+        private final Reader reader;
+        private final String objectId;
+        private long remaining;
+
+        EntryChars(Reader reader, long length, String objectId) {
+            this.reader = reader;
+            this.objectId = objectId;
+            this.remaining = length;
+        }
+
+        Stream<Character> stream() {
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public Character next() {
+            if (remaining <= 0) throw new NoSuchElementException();
+            try {
+                int c = reader.read();
+                if (c < 0) {
+                    throw new IOException("Truncated archive entry: " + objectId);
+                }
+                remaining--;
+                return (char) c;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /** Consume whatever the import did not read, so the reader stands at the next header. */
+        void skipRest() throws IOException {
+            while (remaining > 0) {
+                long skipped = reader.skip(remaining);
+                if (skipped <= 0) {
+                    if (reader.read() < 0) {
+                        throw new IOException("Truncated archive entry: " + objectId);
+                    }
+                    skipped = 1;
+                }
+                remaining -= skipped;
+            }
+        }
+    }
+
+    /** Supplies the source data of one object when its worker starts. */
+    @FunctionalInterface
+    private interface DataSource {
+        Stream<Character> open();
+    }
+
+    /** State of a single import call: worker pool, queue bound, meta batch and counters. */
+    private final class ImportRun implements AutoCloseable {
+        private final BulkImportOptions options;
+        private final ExecutorService workers;
+        private final Semaphore queued;
+        private final ConcurrentLinkedQueue<Map.Entry<String, Boolean>> pendingMeta = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingMetaCount = new AtomicInteger();
+        private final ReentrantLock metaLock = new ReentrantLock();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong characters = new AtomicLong();
+        private final long startNanos = System.nanoTime();
+
+        ImportRun(BulkImportOptions options) {
+            this.options = options;
+            this.workers = Executors.newFixedThreadPool(options.effectiveConcurrency());
+            this.queued = new Semaphore(options.effectiveConcurrency() * 2);
+        }
+
+        void submit(String objectId, DataSource source) {
+            queued.acquireUninterruptibly();
+            try {
+                workers.execute(() -> {
+                    try {
+                        importOne(objectId, source.open());
+                    } finally {
+                        queued.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                queued.release();
+                throw e;
+            }
+        }
+
+        void importInline(String objectId, Stream<Character> data) {
+            importOne(objectId, data);
+        }
+
+        private void importOne(String objectId, Stream<Character> data) {
+            boolean metaPublished;
+            try {
+                // Sources are sequential streams consumed on this thread, so a plain counter will do
+                long[] counted = new long[1];
+                DataObject obj = new FileDataObject(objectId, null, false);
+                obj.setData(data.peek(c -> counted[0]++));
+                if (options.compress()) {
+                    compressionService.processOperation(obj, Message.Type.COMPRESS);
+                }
+                metaPublished = repository.saveData(obj);
+                characters.addAndGet(counted[0]);
+                imported.incrementAndGet();
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+                log.warn("Failed to import object {}: {}", objectId, e.getMessage());
+                return;
+            }
+            if (metaPublished) {
+                return;
+            }
+            pendingMeta.add(Map.entry(objectId, false));
+            if (pendingMetaCount.incrementAndGet() >= options.effectiveMetaBatchSize() && metaLock.tryLock()) {
+                try {
+                    flushMeta(options.effectiveMetaBatchSize());
+                } finally {
+                    metaLock.unlock();
+                }
+            }
+        }
+
+        /**
+         * Write up to {@code limit} queued meta entries; caller must hold metaLock. A failed batch
+         * goes back to the queue for the next flush: its objects are imported and read correctly
+         * without meta, so the failure is not theirs.
+         * @return false if the batch could not be written
+         */
+        private boolean flushMeta(int limit) {
+            Map<String, Boolean> batch = new LinkedHashMap<>();
+            Map.Entry<String, Boolean> entry;
+            while (batch.size() < limit && (entry = pendingMeta.poll()) != null) {
+                batch.put(entry.getKey(), entry.getValue());
+            }
+            if (batch.isEmpty()) {
+                return true;
+            }
+            try {
+                repository.writeMeta(batch);
+                pendingMetaCount.addAndGet(-batch.size());
+                return true;
+            } catch (RuntimeException e) {
+                log.warn("Failed to publish a batch of {} meta files, will retry: {}", batch.size(), e.getMessage());
+                pendingMeta.addAll(batch.entrySet());
+                return false;
+            }
+        }
+
+        BulkImportReport finish() {
+            workers.shutdown();
+            try {
+                while (!workers.awaitTermination(60, TimeUnit.SECONDS)) {
+                    log.info("Bulk import still running: {} objects imported", imported.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Bulk import interrupted", e);
+            }
+            metaLock.lock();
+            try {
+                if (!flushMeta(Integer.MAX_VALUE)) {
+                    log.warn("{} imported objects are left without a meta file; they read as uncompressed",
+                            pendingMetaCount.get());
+                }
+            } finally {
+                metaLock.unlock();
+            }
+            BulkImportReport report = new BulkImportReport(imported.get(), failed.get(), characters.get(),
+                    Duration.ofNanos(System.nanoTime() - startNanos));
+            if (log.isInfoEnabled()) {
+                log.info("Bulk import finished: {}", report);
+            }
+            return report;
+        }
+
+        @Override
+        public void close() {
+            workers.shutdownNow();
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package com.opentext.assignment.service;
 
+import com.opentext.assignment.model.CancellationToken;
 import com.opentext.assignment.model.DataObject;
 import com.opentext.assignment.model.Message;
+import com.opentext.assignment.monitoring.TransformEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.Iterator;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -15,6 +18,8 @@ import java.util.stream.StreamSupport;
  * Stateless service that transforms DataObject data streams using RLE.
  * It never materializes full content in memory; instead it returns transformed
  * streams backed by iterators.
+ * While the TransformEvent JFR event is enabled, each transformed stream is counted on both sides
+ * and the event is committed when the stream is closed.
  */
 @Slf4j
 @Service
@@ -25,12 +30,20 @@ public class CompressionService {
      * Updates both the DataObject's data stream and the compressed flag.
      */
     public void processOperation(DataObject obj, Message.Type type) {
+        processOperation(obj, type, CancellationToken.NONE);
+    }
+
+    /**
+     * Same as {@link #processOperation(DataObject, Message.Type)}, but the returned stream checks the
+     * token every block and fails with CancellationException once it is cancelled.
+     */
+    public void processOperation(DataObject obj, Message.Type type, CancellationToken token) {
         if (type == Message.Type.COMPRESS) {
             if (obj.isCompressed()) {
                 log.warn("Object {} already compressed, skipping", obj.getId());
                 return;
             }
-            Stream<Character> compressed = compress(obj.getData());
+            Stream<Character> compressed = transform(obj.getId(), type, obj.getData(), in -> compress(in, token));
             obj.setData(compressed);
             obj.setCompressed(true);
         } else if (type == Message.Type.DECOMPRESS) {
@@ -38,18 +51,42 @@ public class CompressionService {
                 log.warn("Object {} not compressed, skipping", obj.getId());
                 return;
             }
-            Stream<Character> decompressed = decompress(obj.getData());
+            Stream<Character> decompressed = transform(obj.getId(), type, obj.getData(), in -> decompress(in, token));
             obj.setData(decompressed);
             obj.setCompressed(false);
         }
     }
 
+    /**
+     * Apply the codec, counting input and output and committing a TransformEvent on close while the
+     * event is enabled. With the event disabled the codec stream is returned as is.
+     */
+    private static Stream<Character> transform(String objectId, Message.Type type, Stream<Character> input,
+                                               UnaryOperator<Stream<Character>> codec) {
+        TransformEvent event = new TransformEvent();
+        if (!event.isEnabled()) {
+            return codec.apply(input);
+        }
+        event.begin();
+        long[] counts = new long[2];
+        return codec.apply(input.peek(c -> counts[0]++)).peek(c -> counts[1]++).onClose(() -> {
+            event.end();
+            if (event.shouldCommit()) {
+                event.objectId = objectId;
+                event.messageType = type.name();
+                event.inputCharacters = counts[0];
+                event.outputCharacters = counts[1];
+                event.commit();
+            }
+        });
+    }
+
     /**
      * Return a stream that emits RLE-compressed characters from the input stream.
      * Closing the returned stream closes the input.
      */
-    private Stream<Character> compress(Stream<Character> input) {
-        Iterator<Character> iterator = new RLECompressorIterator(input.iterator());
+    private Stream<Character> compress(Stream<Character> input, CancellationToken token) {
+        Iterator<Character> iterator = new RLECompressorIterator(input.iterator(), token);
         return StreamSupport.stream(
                 Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED),
                 false
@@ -63,8 +100,8 @@ public class CompressionService {
      * Return a stream that emits characters from an RLE-compressed input stream.
      * Closing the returned stream closes the input.
      */
-    private Stream<Character> decompress(Stream<Character> input) {
-        Iterator<Character> iterator = new RLEDecompressorIterator(input.iterator());
+    private Stream<Character> decompress(Stream<Character> input, CancellationToken token) {
+        Iterator<Character> iterator = new RLEDecompressorIterator(input.iterator(), token);
         return StreamSupport.stream(
                 Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED),
                 false
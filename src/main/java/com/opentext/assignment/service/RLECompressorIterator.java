@@ -1,5 +1,7 @@
 package com.opentext.assignment.service;
 
+import com.opentext.assignment.model.CancellationToken;
+
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -7,6 +9,8 @@ import java.util.NoSuchElementException;
  * Iterator that performs run-length encoding (RLE) compression.
  * Emits each unique character followed by its count if > 1 (e.g., "AAAA" -> "A4").
  * Handles empty input ("" -> ""), single characters ("A" -> "A"), and multi-digit counts ("AAAAAAAAAA" -> "A10").
+ * An optional CancellationToken is checked every block of input characters, so even a single huge
+ * run stops promptly once cancelled.
  */
 public class RLECompressorIterator implements Iterator<Character> {
     private final Iterator<Character> inputIterator;
@@ -15,12 +19,24 @@ public class RLECompressorIterator implements Iterator<Character> {
     private String countStr;
     private int countIndex;
     private Character nextChar;
+    private final CancellationToken token;
+    private long consumed;
 
     public RLECompressorIterator(Iterator<Character> inputIterator) {
+        this(inputIterator, CancellationToken.NONE);
+    }
+
+    public RLECompressorIterator(Iterator<Character> inputIterator, CancellationToken token) {
         this.inputIterator = inputIterator;
+        this.token = token;
         advanceGroup();
     }
 
+    private Character read() {
+        token.checkpoint(++consumed);
+        return inputIterator.next();
+    }
+
     private void advanceGroup() {
         count = 0;
         countStr = null;
@@ -29,14 +45,14 @@ public class RLECompressorIterator implements Iterator<Character> {
             currentChar = nextChar;
             nextChar = null;
         } else if (inputIterator.hasNext()) {
-            currentChar = inputIterator.next();
+            currentChar = read();
         } else {
             currentChar = null;
             return;
         }
         count = 1;
         while (inputIterator.hasNext()) {
-            Character next = inputIterator.next();
+            Character next = read();
             if (next.equals(currentChar)) {
                 count++;
             } else {
@@ -1,5 +1,7 @@
 package com.opentext.assignment.service;
 
+import com.opentext.assignment.model.CancellationToken;
+
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import org.slf4j.Logger;
@@ -11,6 +13,7 @@ import org.slf4j.LoggerFactory;
  * (e.g., "A2" -> "AA", "A" -> "A", "A10" -> "AAAAAAAAAA").
  * Throws IllegalArgumentException for invalid input (non-letters, non-digits after letters,
  * zero or negative counts, or counts exceeding Integer.MAX_VALUE).
+ * An optional CancellationToken is checked every block of output characters.
  */
 public class RLEDecompressorIterator implements Iterator<Character> {
     private static final Logger log = LoggerFactory.getLogger(RLEDecompressorIterator.class);
@@ -20,9 +23,16 @@ public class RLEDecompressorIterator implements Iterator<Character> {
     private int emitIndex;
     private Character nextChar;
     private boolean initialized;
+    private final CancellationToken token;
+    private long emitted;
 
     public RLEDecompressorIterator(Iterator<Character> inputIterator) {
+        this(inputIterator, CancellationToken.NONE);
+    }
+
+    public RLEDecompressorIterator(Iterator<Character> inputIterator, CancellationToken token) {
         this.inputIterator = inputIterator;
+        this.token = token;
         this.initialized = false;
     }
 
@@ -91,6 +101,7 @@ public class RLEDecompressorIterator implements Iterator<Character> {
     public Character next() {
         ensureInitialized();
         if (!hasNext()) throw new NoSuchElementException();
+        token.checkpoint(++emitted);
         Character toReturn = currentChar;
         emitIndex++;
         if (emitIndex == count) {
@@ -0,0 +1,110 @@
+package com.opentext.assignment;
+
+import org.junit.jupiter.api.Assumptions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Budgets and measurement helpers of the performance regression guard tests.
+ * <p>
+ * The guards are skipped unless -Drun.perf.guard.tests=true (the perf-guard Maven profile sets it).
+ * Budgets come from the checked-in perf-guard-baseline.properties, or from the file named by
+ * -Dperf.guard.baseline. Throughput minima scale with -Dperf.guard.throughput.factor (default 1.0),
+ * e.g. 0.5 on a slow CI machine; allocation budgets do not depend on the machine and never scale.
+ * </p>
+ */
+public final class PerfGuard {
+
+    private static final Properties BASELINE = loadBaseline();
+
+    private PerfGuard() {
+    }
+
+    public static void assumeEnabled() {
+        Assumptions.assumeTrue(Boolean.getBoolean("run.perf.guard.tests"),
+                "Performance guards are disabled. Enable with -Drun.perf.guard.tests=true or -Pperf-guard");
+        Assumptions.assumeTrue(threads().isThreadAllocatedMemorySupported() && threads().isThreadAllocatedMemoryEnabled(),
+                "Thread allocation accounting is not available on this JVM");
+    }
+
+    /** Maximum bytes allocated per input character for the given budget key. */
+    public static double allocationBudget(String key) {
+        return Double.parseDouble(required(key + ".alloc.bytes.per.char.max"));
+    }
+
+    /** Minimum MB/s (10^6 bytes of input per second) for the given budget key. */
+    public static double throughputFloor(String key) {
+        double factor = Double.parseDouble(System.getProperty("perf.guard.throughput.factor", "1.0"));
+        return Double.parseDouble(required(key + ".mb.per.sec.min")) * factor;
+    }
+
+    /**
+     * Fewest bytes the current thread allocated in one of {@code runs} runs of the task. A single run
+     * can catch the JIT mid-recompilation, when escape analysis does not yet remove allocations.
+     */
+    public static long allocatedBytes(int runs, Runnable task) {
+        long threadId = Thread.currentThread().getId();
+        long least = Long.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            long before = threads().getThreadAllocatedBytes(threadId);
+            task.run();
+            least = Math.min(least, threads().getThreadAllocatedBytes(threadId) - before);
+        }
+        return least;
+    }
+
+    /**
+     * Best throughput of {@code runs} timed runs after {@code warmups} untimed ones; the best run is
+     * the least disturbed by GC pauses and other load on the machine.
+     * @param bytes input bytes processed by one run
+     */
+    public static double bestMbPerSec(int warmups, int runs, long bytes, Runnable task) {
+        for (int i = 0; i < warmups; i++) {
+            task.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return bytes / 1e6 / (Math.max(1L, best) / 1e9);
+    }
+
+    /** Log a measurement next to its budget so a failing or passing run can be re-baselined. */
+    public static void report(String key, String metric, double measured, double budget) {
+        System.out.printf("[PERF_GUARD] %s.%s measured=%.3f budget=%.3f%n", key, metric, measured, budget);
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        return (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    private static String required(String name) {
+        String value = BASELINE.getProperty(name);
+        if (value == null) {
+            throw new IllegalStateException("Missing performance budget " + name);
+        }
+        return value.trim();
+    }
+
+    private static Properties loadBaseline() {
+        Properties properties = new Properties();
+        String override = System.getProperty("perf.guard.baseline");
+        try (InputStream in = override != null ? Files.newInputStream(Path.of(override))
+                : PerfGuard.class.getResourceAsStream("/perf-guard-baseline.properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load performance baseline", e);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,67 @@
+package com.opentext.assignment.cli;
+
+import com.opentext.assignment.monitoring.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadGeneratorCommandTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testHistogramPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1_000L);
+        }
+        assertEquals(10_000, histogram.count());
+        assertEquals(5_000_000L, histogram.percentileNanos(50), 5_000_000L * 0.07);
+        assertEquals(9_900_000L, histogram.percentileNanos(99), 9_900_000L * 0.07);
+        assertEquals(10_000_000L, histogram.maxNanos());
+        assertTrue(histogram.percentileNanos(100) <= histogram.maxNanos());
+
+        LatencyHistogram interval = histogram.drain();
+        assertEquals(10_000, interval.count());
+        assertEquals(0L, histogram.percentileNanos(50));
+    }
+
+    @Test
+    void testParseDuration() {
+        assertEquals(Duration.ofSeconds(90), LoadGeneratorCommand.parseDuration("90s"));
+        assertEquals(Duration.ofMinutes(30), LoadGeneratorCommand.parseDuration("30m"));
+        assertEquals(Duration.ofHours(8), LoadGeneratorCommand.parseDuration("8h"));
+        assertEquals(Duration.ofSeconds(45), LoadGeneratorCommand.parseDuration("45"));
+        assertEquals(Duration.ofMinutes(2), LoadGeneratorCommand.parseDuration("PT2M"));
+        assertEquals(Duration.ZERO, LoadGeneratorCommand.parseDuration("0"));
+    }
+
+    @Test
+    void testShortRunProcessesEveryMessageAndReports() throws InterruptedException {
+        List<String> output = new ArrayList<>();
+        long failures = LoadGeneratorCommand.run(Map.of(
+                "storage-dir", tempDir.toString(),
+                "ids", "200",
+                "zipf", "1.2",
+                "mix", "45:45:10",
+                "min-size", "100",
+                "max-size", "4096",
+                "messages", "1000",
+                "seed", "1",
+                "log-level", "INFO",
+                "processor.max.inflight", "128"), output::add);
+
+        assertEquals(0, failures);
+        String summary = output.get(output.size() - 1);
+        assertTrue(summary.startsWith("Load test finished: 1000 messages"), summary);
+        assertTrue(summary.contains("COMPRESS") && summary.contains("DECOMPRESS") && summary.contains("DELETE"), summary);
+    }
+}
@@ -0,0 +1,179 @@
+package com.opentext.assignment.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterCoordinatorTest {
+
+    private static final int RANGES = 128;
+
+    @TempDir
+    Path tempDir;
+
+    private final List<ClusterCoordinator> started = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        started.forEach(ClusterCoordinator::close);
+    }
+
+    private ClusterCoordinator join(String memberId) {
+        // Long interval: the tests drive refresh() themselves
+        ClusterCoordinator coordinator = new ClusterCoordinator(tempDir, memberId, RANGES, 32, 60_000);
+        coordinator.start();
+        started.add(coordinator);
+        return coordinator;
+    }
+
+    @Test
+    void testRangesArePartitionedAfterRebalance() {
+        ClusterCoordinator a = join("node-a");
+        assertEquals(RANGES, a.ownedRangeCount());
+        assertTrue(a.isBalanced());
+
+        ClusterCoordinator b = join("node-b");
+        // a still holds every lease, so b cannot take its share yet
+        assertEquals(0, b.ownedRangeCount());
+        assertFalse(b.isBalanced());
+
+        a.refresh();
+        b.refresh();
+        assertTrue(a.isBalanced());
+        assertTrue(b.isBalanced());
+        assertEquals(List.of("node-a", "node-b"), a.members());
+        assertEquals(RANGES, a.ownedRangeCount() + b.ownedRangeCount());
+        assertTrue(a.ownedRangeCount() > 0 && b.ownedRangeCount() > 0);
+        for (int i = 0; i < 1000; i++) {
+            String id = "object-" + i;
+            assertTrue(a.owns(id) ^ b.owns(id), id);
+            assertEquals(a.owns(id) ? "node-a" : "node-b", a.ownerOf(id));
+        }
+    }
+
+    @Test
+    void testSurvivorTakesOverWhenMemberLeaves() {
+        ClusterCoordinator a = join("node-a");
+        ClusterCoordinator b = join("node-b");
+        a.refresh();
+        b.refresh();
+
+        b.close();
+        started.remove(b);
+        a.refresh();
+
+        assertEquals(List.of("node-a"), a.members());
+        assertEquals(RANGES, a.ownedRangeCount());
+    }
+
+    @Test
+    void testLeaseIsKeptUntilEnteredWorkExits() {
+        ClusterCoordinator a = join("node-a");
+        ClusterCoordinator b = join("node-b");
+        List<String> moving = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String id = "object-" + i;
+            assertTrue(a.enter(id), id);
+            if ("node-b".equals(b.ownerOf(id))) {
+                moving.add(id);
+            }
+        }
+        assertFalse(moving.isEmpty());
+
+        a.refresh();
+        b.refresh();
+        // a stopped admitting the moved ranges but still runs work on them
+        for (String id : moving) {
+            assertFalse(a.owns(id), id);
+            assertTrue(a.holdsLease(id), id);
+            assertTrue(a.enter(id), "admitted work may still be dispatched: " + id);
+            a.exit(id);
+            assertFalse(b.owns(id), id);
+            assertTrue(b.awaitsLease(b.rangeOf(id)), id);
+        }
+        assertFalse(b.isBalanced());
+
+        for (int i = 0; i < 1000; i++) {
+            a.exit("object-" + i);
+        }
+        a.refresh();
+        b.refresh();
+        assertTrue(b.isBalanced());
+        for (String id : moving) {
+            assertFalse(a.holdsLease(id), id);
+            assertFalse(a.enter(id), id);
+            assertTrue(b.owns(id), id);
+        }
+    }
+
+    @Test
+    void testAcquiredRangesAreAnnouncedBeforeTheyAreOwned() {
+        ClusterCoordinator a = join("node-a");
+        ClusterCoordinator b = new ClusterCoordinator(tempDir, "node-b", RANGES, 32, 60_000);
+        List<String> events = new ArrayList<>();
+        b.setHandoverListener(new ClusterCoordinator.HandoverListener() {
+            @Override
+            public void acquiring(int range) {
+                assertFalse(b.owns(idIn(b, range)));
+                events.add("acquiring " + range);
+            }
+
+            @Override
+            public void acquired(int range) {
+                assertTrue(b.owns(idIn(b, range)));
+                events.add("acquired " + range);
+            }
+        });
+        b.start();
+        started.add(b);
+        assertTrue(events.isEmpty());
+
+        a.refresh();
+        b.refresh();
+        assertEquals(2 * b.ownedRangeCount(), events.size());
+        int acquiring = events.indexOf("acquiring " + events.get(events.size() - 1).substring("acquired ".length()));
+        assertTrue(acquiring >= 0 && acquiring < events.size() / 2, "every lease is announced before any is reported");
+    }
+
+    private static String idIn(ClusterCoordinator coordinator, int range) {
+        for (int i = 0; ; i++) {
+            String id = "object-" + i;
+            if (coordinator.rangeOf(id) == range) {
+                return id;
+            }
+        }
+    }
+
+    @Test
+    void testDuplicateMemberIdIsRejected() {
+        join("node-a");
+        ClusterCoordinator duplicate = new ClusterCoordinator(tempDir, "node-a", RANGES, 32, 60_000);
+        assertThrows(IllegalStateException.class, duplicate::start);
+    }
+
+    @Test
+    void testAddingMemberMovesOnlyItsShare() {
+        List<String> three = List.of("a", "b", "c");
+        List<String> four = List.of("a", "b", "c", "d");
+        ConsistentHashRing before = new ConsistentHashRing(three, 64);
+        ConsistentHashRing after = new ConsistentHashRing(four, 64);
+        int moved = 0;
+        int keys = 10_000;
+        for (int i = 0; i < keys; i++) {
+            String key = "k" + i;
+            String owner = after.ownerOf(key);
+            if (!owner.equals(before.ownerOf(key))) {
+                assertEquals("d", owner, "keys may only move to the new member");
+                moved++;
+            }
+        }
+        // Ideal is 1/4 of the keys
+        assertTrue(moved > keys / 8 && moved < keys / 2, "moved " + moved);
+    }
+}
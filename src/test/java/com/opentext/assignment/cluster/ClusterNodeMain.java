@@ -0,0 +1,75 @@
+package com.opentext.assignment.cluster;
+
+import com.opentext.assignment.model.CancellationToken;
+import com.opentext.assignment.model.DataObject;
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.model.MessageSequence;
+import com.opentext.assignment.processor.MessageProcessor;
+import com.opentext.assignment.repository.FileRepository;
+import com.opentext.assignment.service.CompressionService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * One cluster member in its own JVM, driven by {@link MultiInstanceProcessingTest}.
+ * Args: storeDir memberId expectedMembers idCount outFile
+ * <p>
+ * Joins the cluster, writes {@code outFile.ready} once leases are balanced for the expected
+ * membership, waits for {@code outFile.go}, processes COMPRESS for every ID and writes the IDs it
+ * saved to {@code outFile}.
+ * </p>
+ */
+public class ClusterNodeMain {
+
+    public static void main(String[] args) throws Exception {
+        Path storeDir = Path.of(args[0]);
+        String memberId = args[1];
+        int expectedMembers = Integer.parseInt(args[2]);
+        int idCount = Integer.parseInt(args[3]);
+        Path outFile = Path.of(args[4]);
+
+        Queue<String> saved = new ConcurrentLinkedQueue<>();
+        FileRepository repository = new FileRepository(storeDir.toString(), 8192) {
+            @Override
+            public void save(DataObject obj, CancellationToken token) {
+                super.save(obj, token);
+                saved.add(obj.getId());
+            }
+        };
+        MessageProcessor processor = new MessageProcessor(repository, new CompressionService());
+        ReflectionTestUtils.setField(processor, "clusterEnabled", true);
+        ReflectionTestUtils.setField(processor, "clusterMemberId", memberId);
+        ReflectionTestUtils.setField(processor, "clusterRanges", 256);
+        ReflectionTestUtils.setField(processor, "clusterVirtualNodes", 32);
+        ReflectionTestUtils.setField(processor, "clusterRefreshIntervalMillis", 100L);
+        ReflectionTestUtils.setField(processor, "clusterRetainMax", 100_000);
+
+        ClusterCoordinator coordinator = processor.getClusterCoordinator().orElseThrow();
+        while (coordinator.members().size() != expectedMembers || !coordinator.isBalanced()) {
+            Thread.sleep(20);
+        }
+        Files.writeString(Path.of(outFile + ".ready"), memberId);
+        while (!Files.exists(Path.of(outFile + ".go"))) {
+            Thread.sleep(20);
+        }
+
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < idCount; i++) {
+            String id = "obj-" + i;
+            messages.add(new Message() {
+                @Override public String getDataObjectId() { return id; }
+                @Override public Type getType() { return Type.COMPRESS; }
+            });
+        }
+        MessageSequence sequence = messages::stream;
+        processor.process(sequence);
+        processor.shutdown();
+        Files.write(outFile, saved);
+    }
+}
@@ -0,0 +1,187 @@
+package com.opentext.assignment.cluster;
+
+import com.opentext.assignment.model.CancellationToken;
+import com.opentext.assignment.model.DataObject;
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.model.MessageSequence;
+import com.opentext.assignment.processor.MessageProcessor;
+import com.opentext.assignment.repository.FileRepository;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiInstanceProcessingTest {
+
+    private static final int IDS = 60;
+
+    @TempDir
+    Path tempDir;
+
+    private record SimpleMessage(String dataObjectId, Message.Type type) implements Message {
+        @Override public String getDataObjectId() { return dataObjectId; }
+        @Override public Type getType() { return type; }
+    }
+
+    private void createObjects(FileRepository repository) {
+        for (int i = 0; i < IDS; i++) {
+            repository.create("obj-" + i, "VVVVWW".chars().mapToObj(c -> (char) c));
+        }
+    }
+
+    private MessageProcessor member(FileRepository repository, String memberId) {
+        MessageProcessor processor = new MessageProcessor(repository, new CompressionService());
+        ReflectionTestUtils.setField(processor, "clusterEnabled", true);
+        ReflectionTestUtils.setField(processor, "clusterMemberId", memberId);
+        ReflectionTestUtils.setField(processor, "clusterRanges", 256);
+        ReflectionTestUtils.setField(processor, "clusterVirtualNodes", 32);
+        ReflectionTestUtils.setField(processor, "clusterRefreshIntervalMillis", 60_000L);
+        ReflectionTestUtils.setField(processor, "clusterRetainMax", 100_000);
+        return processor;
+    }
+
+    @Test
+    void testInstancesSharingStoreProcessEachIdOnce() throws IOException {
+        Map<String, AtomicInteger> saves = new ConcurrentHashMap<>();
+        FileRepository repository = new FileRepository(tempDir.toString(), 8192) {
+            @Override
+            public void save(DataObject obj, CancellationToken token) {
+                super.save(obj, token);
+                saves.computeIfAbsent(obj.getId(), k -> new AtomicInteger()).incrementAndGet();
+            }
+        };
+        createObjects(repository);
+        MessageProcessor a = member(repository, "a");
+        MessageProcessor b = member(repository, "b");
+        ClusterCoordinator ca = a.getClusterCoordinator().orElseThrow();
+        ClusterCoordinator cb = b.getClusterCoordinator().orElseThrow();
+        ca.refresh();
+        cb.refresh();
+
+        List<Message> feed = new ArrayList<>();
+        for (int i = 0; i < IDS; i++) {
+            feed.add(new SimpleMessage("obj-" + i, Message.Type.COMPRESS));
+        }
+        MessageSequence sequence = feed::stream;
+        a.processAll(List.of(sequence));
+        b.process(sequence);
+        a.shutdown();
+        b.shutdown();
+
+        assertEquals(IDS, saves.size());
+        saves.forEach((id, count) -> assertEquals(1, count.get(), id));
+        assertEquals(IDS, a.getNotOwnedMessageCount() + b.getNotOwnedMessageCount());
+        assertEquals("V4W2", Files.readString(tempDir.resolve("obj-7.data")));
+    }
+
+    @Test
+    void testMessagesSkippedDuringHandoverAreReplayedByTheNewOwner() throws IOException {
+        Map<String, AtomicInteger> saves = new ConcurrentHashMap<>();
+        FileRepository repository = new FileRepository(tempDir.toString(), 8192) {
+            @Override
+            public void save(DataObject obj, CancellationToken token) {
+                super.save(obj, token);
+                saves.computeIfAbsent(obj.getId(), k -> new AtomicInteger()).incrementAndGet();
+            }
+        };
+        createObjects(repository);
+        MessageProcessor a = member(repository, "a");
+        ClusterCoordinator ca = a.getClusterCoordinator().orElseThrow();
+        MessageProcessor b = member(repository, "b");
+        ClusterCoordinator cb = b.getClusterCoordinator().orElseThrow();
+
+        List<Message> feed = new ArrayList<>();
+        for (int i = 0; i < IDS; i++) {
+            feed.add(new SimpleMessage("obj-" + i, Message.Type.COMPRESS));
+        }
+        MessageSequence sequence = feed::stream;
+        // b's share is still leased by a, which has not seen the feed yet: b owns nothing
+        b.process(sequence);
+        assertEquals(IDS, b.getNotOwnedMessageCount());
+        assertTrue(saves.isEmpty());
+
+        ca.refresh();
+        cb.refresh();
+        a.process(sequence);
+        a.shutdown();
+        b.shutdown();
+
+        long moved = feed.stream().filter(m -> "b".equals(ca.ownerOf(m.getDataObjectId()))).count();
+        assertTrue(moved > 0 && moved < IDS);
+        assertEquals(moved, b.getHandoverReplayCount());
+        assertEquals(IDS, saves.size());
+        saves.forEach((id, count) -> assertEquals(1, count.get(), id));
+        for (int i = 0; i < IDS; i++) {
+            assertEquals("V4W2", Files.readString(tempDir.resolve("obj-" + i + ".data")), "obj-" + i);
+        }
+    }
+
+    /** Opt-in (-Drun.cluster.tests=true): members in separate JVMs coordinate through the store only. */
+    @Test
+    void testSeparateJvmsPartitionTheFeed() throws Exception {
+        Assumptions.assumeTrue(Boolean.getBoolean("run.cluster.tests"));
+        createObjects(new FileRepository(tempDir.toString(), 8192));
+
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        String classpath = System.getProperty("java.class.path");
+        List<Process> nodes = new ArrayList<>();
+        List<Path> outputs = new ArrayList<>();
+        int memberCount = 3;
+        for (int n = 0; n < memberCount; n++) {
+            Path out = tempDir.resolve("node-" + n + ".out");
+            outputs.add(out);
+            nodes.add(new ProcessBuilder(java, "-cp", classpath, ClusterNodeMain.class.getName(),
+                    tempDir.toString(), "node-" + n, String.valueOf(memberCount), String.valueOf(IDS), out.toString())
+                    .redirectErrorStream(true)
+                    .redirectOutput(tempDir.resolve("node-" + n + ".log").toFile())
+                    .start());
+        }
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            for (Path out : outputs) {
+                while (!Files.exists(Path.of(out + ".ready"))) {
+                    assertTrue(System.nanoTime() < deadline, "node did not become ready: " + out);
+                    Thread.sleep(50);
+                }
+            }
+            // Let every member observe the final lease state before the feed starts
+            Thread.sleep(500);
+            for (Path out : outputs) {
+                Files.createFile(Path.of(out + ".go"));
+            }
+            for (Process node : nodes) {
+                assertTrue(node.waitFor(60, TimeUnit.SECONDS));
+                assertEquals(0, node.exitValue());
+            }
+        } finally {
+            nodes.forEach(Process::destroyForcibly);
+        }
+
+        Set<String> all = new HashSet<>();
+        int total = 0;
+        for (Path out : outputs) {
+            List<String> saved = Files.readAllLines(out);
+            total += saved.size();
+            all.addAll(saved);
+        }
+        assertEquals(IDS, all.size(), "every ID processed by some member");
+        assertEquals(IDS, total, "no ID processed by two members");
+        assertTrue(new File(tempDir.toFile(), ".cluster").isDirectory());
+    }
+}
@@ -0,0 +1,114 @@
+package com.opentext.assignment.monitoring;
+
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.processor.MessageProcessor;
+import com.opentext.assignment.repository.FileRepository;
+import com.opentext.assignment.service.CompressionService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessingEventsTest {
+
+    private static final String ORIGINAL = "AAAAAAAAAABBBBBCCCCCCCCCCCCD";
+    private static final List<Class<? extends jdk.jfr.Event>> EVENTS = List.of(
+            MessageEnqueueEvent.class, MessageDequeueEvent.class, ObjectReadEvent.class, TransformEvent.class,
+            ObjectWriteEvent.class, ObjectCommitEvent.class, ObjectDeleteEvent.class);
+
+    @TempDir
+    Path tempDir;
+
+    private record SimpleMessage(String dataObjectId, Message.Type type) implements Message {
+        @Override public String getDataObjectId() { return dataObjectId; }
+        @Override public Type getType() { return type; }
+    }
+
+    private List<RecordedEvent> record(String dispatchMode) throws Exception {
+        FileRepository repository = new FileRepository(tempDir.resolve(dispatchMode).toString(), 8192);
+        MessageProcessor processor = new MessageProcessor(repository, new CompressionService());
+        ReflectionTestUtils.setField(processor, "dispatchMode", dispatchMode);
+        ReflectionTestUtils.setField(processor, "threadPoolSize", 2);
+        ReflectionTestUtils.setField(processor, "ringCapacity", 64);
+        ReflectionTestUtils.setField(processor, "ringInternCapacity", 64);
+        Path dump = tempDir.resolve(dispatchMode + ".jfr");
+        try (Recording recording = new Recording()) {
+            for (Class<? extends jdk.jfr.Event> type : EVENTS) {
+                recording.enable(type).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            repository.create("obj", ORIGINAL.chars().mapToObj(c -> (char) c));
+            for (Message.Type type : List.of(Message.Type.COMPRESS, Message.Type.DECOMPRESS, Message.Type.DELETE)) {
+                processor.submit(new SimpleMessage("obj", type)).get(30, TimeUnit.SECONDS);
+            }
+            recording.stop();
+            recording.dump(dump);
+        } finally {
+            processor.shutdown();
+        }
+        return RecordingFile.readAllEvents(dump).stream()
+                .filter(e -> e.getEventType().getName().startsWith("com.opentext.assignment."))
+                .sorted(Comparator.comparing(RecordedEvent::getStartTime))
+                .collect(Collectors.toList());
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals("com.opentext.assignment." + name)).toList();
+    }
+
+    @Test
+    void testEveryPhaseIsRecorded() throws Exception {
+        List<RecordedEvent> events = record("per-id");
+
+        assertEquals(3, named(events, "MessageEnqueue").size());
+        List<RecordedEvent> dequeued = named(events, "MessageDequeue");
+        assertEquals(List.of("COMPRESS", "DECOMPRESS", "DELETE"),
+                dequeued.stream().map(e -> e.getString("messageType")).toList());
+        dequeued.forEach(e -> assertTrue(e.getDuration("queueWait").toNanos() >= 0));
+
+        List<RecordedEvent> transforms = named(events, "Transform");
+        assertEquals(2, transforms.size());
+        RecordedEvent compress = transforms.stream()
+                .filter(e -> e.getString("messageType").equals("COMPRESS")).findFirst().orElseThrow();
+        assertEquals("obj", compress.getString("objectId"));
+        assertEquals(ORIGINAL.length(), compress.getLong("inputCharacters"));
+        assertTrue(compress.getLong("outputCharacters") < ORIGINAL.length());
+
+        List<RecordedEvent> reads = named(events, "ObjectRead");
+        assertFalse(reads.isEmpty());
+        assertTrue(reads.stream().allMatch(e -> e.getBoolean("found") && e.getLong("dataBytes") > 0));
+
+        // create, COMPRESS and DECOMPRESS each write and commit once
+        List<RecordedEvent> writes = named(events, "ObjectWrite");
+        assertEquals(3, writes.size());
+        assertEquals(ORIGINAL.length(), writes.get(0).getLong("characters"));
+        assertEquals(ORIGINAL.length(), writes.get(2).getLong("characters"));
+        assertEquals(3, named(events, "ObjectCommit").size());
+
+        List<RecordedEvent> deletes = named(events, "ObjectDelete");
+        assertEquals(1, deletes.size());
+        assertEquals("obj", deletes.get(0).getString("objectId"));
+    }
+
+    @Test
+    void testRingDispatchCarriesQueueWait() throws Exception {
+        List<RecordedEvent> dequeued = named(record("ring"), "MessageDequeue");
+        assertEquals(3, dequeued.size());
+        dequeued.forEach(e -> {
+            assertEquals("obj", e.getString("objectId"));
+            // A zero stamp would make the wait as long as the JVM's uptime
+            assertTrue(e.getDuration("queueWait").compareTo(Duration.ofSeconds(30)) < 0);
+        });
+    }
+}
@@ -0,0 +1,105 @@
+package com.opentext.assignment.processor;
+
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.model.MessageSequence;
+import com.opentext.assignment.repository.FileRepository;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackpressureTest {
+
+    private FileRepository repository;
+    private MessageProcessor processor;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FileRepository();
+        ReflectionTestUtils.setField(repository, "baseDirPath", tempDir.toString());
+        processor = new MessageProcessor(repository, new CompressionService());
+    }
+
+    private record SimpleMessage(String dataObjectId, Message.Type type) implements Message {
+        @Override public String getDataObjectId() { return dataObjectId; }
+        @Override public Type getType() { return type; }
+    }
+
+    @Test
+    void testGlobalLimitBoundsInFlightOperations() throws IOException {
+        ReflectionTestUtils.setField(processor, "maxInFlight", 3);
+        int objectCount = 10;
+        for (int i = 0; i < objectCount; i++) {
+            repository.create("bp" + i, "KKKKL".chars().mapToObj(c -> (char) c));
+        }
+
+        // 10 rounds x 10 IDs, toggled: an even number of operations per ID
+        MessageSequence sequence = () -> Stream.iterate(0, i -> i + 1).limit(100)
+                .map(i -> new SimpleMessage("bp" + (i % objectCount),
+                        (i / objectCount) % 2 == 0 ? Message.Type.COMPRESS : Message.Type.DECOMPRESS));
+        processor.process(sequence);
+
+        for (int i = 0; i < objectCount; i++) {
+            assertEquals("KKKKL", Files.readString(tempDir.resolve("bp" + i + ".data")));
+        }
+        BackpressureStats stats = processor.getBackpressureStats();
+        assertEquals(0, stats.inFlight());
+        assertTrue(stats.maxInFlight() <= 3, "maxInFlight=" + stats.maxInFlight());
+    }
+
+    @Test
+    void testDeleteReturnsCreditsOfDiscardedOperations() {
+        ReflectionTestUtils.setField(processor, "maxInFlight", 50);
+        String id = "bp-delete";
+        repository.create(id, "DDDD".chars().mapToObj(c -> (char) c));
+
+        MessageSequence sequence = () -> Stream.concat(
+                Stream.of(new SimpleMessage(id, Message.Type.DELETE)),
+                Stream.generate(() -> new SimpleMessage(id, Message.Type.COMPRESS)).limit(40));
+        processor.process(sequence);
+
+        assertEquals(0, processor.getBackpressureStats().inFlight());
+        assertFalse(Files.exists(tempDir.resolve(id + ".data")));
+    }
+
+    @Test
+    void testLimiterBlocksUntilCreditReleasedAndRecordsBlockedTime() throws Exception {
+        InFlightLimiter limiter = new InFlightLimiter(0, 1);
+        limiter.acquire("a");
+        limiter.acquire("b"); // other IDs are not affected by the per-ID limit
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                limiter.acquire("a");
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS), "second credit for 'a' must block");
+
+        limiter.release("a", 1);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        producer.join();
+
+        BackpressureStats stats = limiter.stats();
+        assertEquals(2, stats.inFlight());
+        assertEquals(1, stats.blockedCount());
+        assertTrue(stats.blockedNanos() >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+}
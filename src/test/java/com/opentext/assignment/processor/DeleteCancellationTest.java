@@ -0,0 +1,115 @@
+package com.opentext.assignment.processor;
+
+import com.opentext.assignment.model.DataObject;
+import com.opentext.assignment.model.FileDataObject;
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.repository.FileRepository;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeleteCancellationTest {
+
+    private static final long HUGE = 50_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    private final CountDownLatch streaming = new CountDownLatch(1);
+    private final AtomicLong produced = new AtomicLong();
+    private MessageProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        // Serves "huge" as a 50M character object that signals once the transform is under way
+        FileRepository repository = new FileRepository(tempDir.toString(), 8192) {
+            @Override
+            public Optional<DataObject> findById(String objectId) {
+                Optional<DataObject> found = super.findById(objectId);
+                if (!"huge".equals(objectId) || found.isEmpty()) {
+                    return found;
+                }
+                FileDataObject obj = new FileDataObject(objectId, null, false);
+                obj.setData(Stream.iterate(0L, i -> i + 1).limit(HUGE).map(i -> {
+                    if (produced.incrementAndGet() == 100_000) {
+                        streaming.countDown();
+                    }
+                    return (char) ('A' + (i / 3) % 26);
+                }));
+                return Optional.of(obj);
+            }
+        };
+        repository.create("huge", Stream.of('A'));
+        processor = new MessageProcessor(repository, new CompressionService());
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    private record SimpleMessage(String dataObjectId, Message.Type type) implements Message {
+        @Override public String getDataObjectId() { return dataObjectId; }
+        @Override public Type getType() { return type; }
+    }
+
+    @Test
+    void testDeleteCancelsRunningCompress() throws Exception {
+        CompletableFuture<Void> compress = processor.submit(new SimpleMessage("huge", Message.Type.COMPRESS));
+        assertTrue(streaming.await(30, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> delete = processor.submit(new SimpleMessage("huge", Message.Type.DELETE));
+        compress.get(30, TimeUnit.SECONDS);
+        delete.get(30, TimeUnit.SECONDS);
+
+        assertEquals(1, processor.getCancelledOperationCount());
+        assertTrue(produced.get() < HUGE, "transform should stop early, produced " + produced.get());
+        assertFalse(Files.exists(tempDir.resolve("huge.data")));
+        assertFalse(Files.exists(tempDir.resolve("huge.data.tmp")));
+        assertFalse(Files.exists(tempDir.resolve("huge.meta")));
+    }
+
+    @Test
+    void testDeleteSkipsOperationQueuedAheadOfIt() throws Exception {
+        processor.submit(new SimpleMessage("huge", Message.Type.COMPRESS));
+        assertTrue(streaming.await(30, TimeUnit.SECONDS));
+        // Queued behind the running COMPRESS, then made obsolete by the DELETE
+        CompletableFuture<Void> queued = processor.submit(new SimpleMessage("huge", Message.Type.DECOMPRESS));
+        CompletableFuture<Void> delete = processor.submit(new SimpleMessage("huge", Message.Type.DELETE));
+        queued.get(30, TimeUnit.SECONDS);
+        delete.get(30, TimeUnit.SECONDS);
+
+        assertEquals(2, processor.getCancelledOperationCount());
+        assertFalse(Files.exists(tempDir.resolve("huge.data")));
+    }
+
+    @Test
+    void testDiscardedSecondDeleteSettlesItsPendingCount() throws Exception {
+        processor.submit(new SimpleMessage("huge", Message.Type.COMPRESS));
+        assertTrue(streaming.await(30, TimeUnit.SECONDS));
+        // Both queued behind the running COMPRESS; the first DELETE discards the second
+        CompletableFuture<Void> first = processor.submit(new SimpleMessage("huge", Message.Type.DELETE));
+        CompletableFuture<Void> second = processor.submit(new SimpleMessage("huge", Message.Type.DELETE));
+        first.get(30, TimeUnit.SECONDS);
+        second.get(30, TimeUnit.SECONDS);
+
+        Map<?, ?> pendingDeletes = (Map<?, ?>) ReflectionTestUtils.getField(processor, "pendingDeletes");
+        assertNotNull(pendingDeletes);
+        assertTrue(pendingDeletes.isEmpty(), "left behind: " + pendingDeletes);
+    }
+}
@@ -0,0 +1,75 @@
+package com.opentext.assignment.processor;
+
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.model.MessageSequence;
+import com.opentext.assignment.repository.FileRepository;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the fixed platform pool with the virtual-thread execution mode at high ID cardinality.
+ * Skipped by default; enable with -Drun.benchmark.tests=true and run on Java 21+ to exercise
+ * virtual threads (Java 17 falls back to the platform pool for both runs).
+ */
+class ExecutionModeBenchmarkTest {
+
+    private static final int ID_COUNT = 5_000;
+    private static final int OBJECT_SIZE = 2_048;
+
+    @TempDir
+    Path tempDir;
+
+    private record SimpleMessage(String dataObjectId, Message.Type type) implements Message {
+        @Override public String getDataObjectId() { return dataObjectId; }
+        @Override public Type getType() { return type; }
+    }
+
+    @Test
+    void compareExecutionModesAtHighIdCardinality() throws IOException {
+        Assumptions.assumeTrue(Boolean.getBoolean("run.benchmark.tests"),
+                "Skipping execution mode benchmark. Enable with -Drun.benchmark.tests=true");
+        System.out.println("[DEBUG_LOG] java=" + System.getProperty("java.version")
+                + ", cores=" + Runtime.getRuntime().availableProcessors() + ", ids=" + ID_COUNT);
+
+        for (String mode : List.of("platform", "virtual", "platform", "virtual")) {
+            Path dir = Files.createDirectories(tempDir.resolve(mode + "-" + System.nanoTime()));
+            FileRepository repository = new FileRepository(dir.toString(), 1 << 16);
+            String payload = "AAAAB".repeat(OBJECT_SIZE / 5);
+            for (int i = 0; i < ID_COUNT; i++) {
+                repository.create("id-" + i, payload.chars().mapToObj(c -> (char) c));
+            }
+            MessageProcessor processor = new MessageProcessor(repository, new CompressionService());
+            ReflectionTestUtils.setField(processor, "executionMode", mode);
+            ReflectionTestUtils.setField(processor, "shutdownTimeoutSeconds", 600L);
+
+            List<Message> messages = new ArrayList<>(ID_COUNT * 2);
+            for (int i = 0; i < ID_COUNT; i++) {
+                messages.add(new SimpleMessage("id-" + i, Message.Type.COMPRESS));
+            }
+            for (int i = 0; i < ID_COUNT; i++) {
+                messages.add(new SimpleMessage("id-" + i, Message.Type.DECOMPRESS));
+            }
+            MessageSequence sequence = messages::stream;
+
+            long start = System.nanoTime();
+            processor.process(sequence);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+            System.out.println("[DEBUG_LOG] mode=" + mode + ", messages=" + messages.size()
+                    + ", elapsedMs=" + elapsedMs
+                    + ", msgs/s=" + (messages.size() * 1000L / Math.max(1L, elapsedMs)));
+
+            assertEquals("false", Files.readString(dir.resolve("id-0.meta")));
+        }
+    }
+}
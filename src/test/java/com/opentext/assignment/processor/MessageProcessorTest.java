@@ -1,21 +1,31 @@
 package com.opentext.assignment.processor;
 
+import com.opentext.assignment.model.CancellationToken;
+import com.opentext.assignment.model.DataObject;
 import com.opentext.assignment.model.Message;
 import com.opentext.assignment.model.MessageSequence;
 import com.opentext.assignment.repository.FileRepository;
 import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class MessageProcessorTest {
 
@@ -101,6 +111,79 @@ class MessageProcessorTest {
         assertEquals("C4", Files.readString(dataPath3));
     }
 
+    @Test
+    void testVirtualExecutionModeFallsBackToPlatformPoolBeforeJava21() throws IOException {
+        Assumptions.assumeTrue(Runtime.version().feature() < 21, "Virtual threads are available");
+        SaveTrackingRepository tracking = newTrackingProcessor();
+
+        processVirtualWorkload(tracking);
+
+        assertInstanceOf(ThreadPoolExecutor.class, ReflectionTestUtils.getField(processor, "executor"));
+        assertTrue(tracking.saveThreads.stream().allMatch(t -> t.getName().startsWith("message-processor-")),
+                "Saves ran outside the platform pool: " + tracking.saveThreads);
+        assertEquals(1, tracking.maxConcurrentSaves.get());
+    }
+
+    @Test
+    void testVirtualExecutionModeRunsOnVirtualThreadsWithIoLimit() throws Exception {
+        Assumptions.assumeTrue(Runtime.version().feature() >= 21, "Virtual threads require Java 21");
+        SaveTrackingRepository tracking = newTrackingProcessor();
+
+        processVirtualWorkload(tracking);
+
+        Method isVirtual = Thread.class.getMethod("isVirtual");
+        for (Thread thread : tracking.saveThreads) {
+            assertTrue((Boolean) isVirtual.invoke(thread), "Save ran on platform thread " + thread);
+        }
+        assertEquals(1, tracking.maxConcurrentSaves.get());
+    }
+
+    /** Replace the processor with one in virtual mode with a single I/O permit over a tracking repository. */
+    private SaveTrackingRepository newTrackingProcessor() {
+        SaveTrackingRepository tracking = new SaveTrackingRepository();
+        ReflectionTestUtils.setField(tracking, "baseDirPath", tempDir.toString());
+        processor = new MessageProcessor(tracking, new CompressionService());
+        ReflectionTestUtils.setField(processor, "executionMode", "virtual");
+        ReflectionTestUtils.setField(processor, "ioConcurrency", 1);
+        return tracking;
+    }
+
+    private void processVirtualWorkload(FileRepository target) throws IOException {
+        for (int i = 0; i < 20; i++) {
+            target.create("v" + i, "VVVVWW".chars().mapToObj(c -> (char) c));
+        }
+
+        MessageSequence sequence = () -> Stream.iterate(0, i -> i + 1).limit(20)
+                .flatMap(i -> Stream.of(
+                        new TestMessage("v" + i, Message.Type.COMPRESS),
+                        new TestMessage("v" + i, Message.Type.DECOMPRESS),
+                        new TestMessage("v" + i, Message.Type.COMPRESS)));
+        processor.process(sequence);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("V4W2", Files.readString(tempDir.resolve("v" + i + ".data")));
+            assertEquals("true", Files.readString(tempDir.resolve("v" + i + ".meta")));
+        }
+    }
+
+    /** Records which threads saved and how many saves overlapped. */
+    private static final class SaveTrackingRepository extends FileRepository {
+        final Set<Thread> saveThreads = ConcurrentHashMap.newKeySet();
+        final AtomicInteger maxConcurrentSaves = new AtomicInteger();
+        private final AtomicInteger activeSaves = new AtomicInteger();
+
+        @Override
+        public void save(DataObject obj, CancellationToken token) {
+            saveThreads.add(Thread.currentThread());
+            maxConcurrentSaves.accumulateAndGet(activeSaves.incrementAndGet(), Math::max);
+            try {
+                super.save(obj, token);
+            } finally {
+                activeSaves.decrementAndGet();
+            }
+        }
+    }
+
     private record TestMessage(String dataObjectId, Message.Type type) implements Message {
         @Override
         public String getDataObjectId() {
@@ -0,0 +1,95 @@
+package com.opentext.assignment.processor;
+
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.model.MessageSequence;
+import com.opentext.assignment.repository.FileRepository;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiSourceIngestionTest {
+
+    private FileRepository repository;
+    private MessageProcessor processor;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FileRepository(tempDir.toString(), 8192);
+        processor = new MessageProcessor(repository, new CompressionService());
+        ReflectionTestUtils.setField(processor, "threadPoolSize", 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    private record SimpleMessage(String dataObjectId, Message.Type type) implements Message {
+        @Override public String getDataObjectId() { return dataObjectId; }
+        @Override public Type getType() { return type; }
+    }
+
+    /** A partition of the feed: a few IDs, each toggled an odd number of times. */
+    private MessageSequence partition(int source, int ids, int rounds) {
+        List<Message> messages = new ArrayList<>();
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < ids; i++) {
+                messages.add(new SimpleMessage("src" + source + "-" + i,
+                        round % 2 == 0 ? Message.Type.COMPRESS : Message.Type.DECOMPRESS));
+            }
+        }
+        return messages::stream;
+    }
+
+    @Test
+    void testPerIdOrderHoldsWithinEachSource() throws IOException {
+        int sources = 4;
+        int ids = 10;
+        List<MessageSequence> feeds = new ArrayList<>();
+        for (int s = 0; s < sources; s++) {
+            for (int i = 0; i < ids; i++) {
+                repository.create("src" + s + "-" + i, "GGGGHH".chars().mapToObj(c -> (char) c));
+            }
+            feeds.add(partition(s, ids, 7));
+        }
+
+        processor.processAll(feeds);
+
+        for (int s = 0; s < sources; s++) {
+            for (int i = 0; i < ids; i++) {
+                assertEquals("G4H2", Files.readString(tempDir.resolve("src" + s + "-" + i + ".data")));
+                assertEquals("true", Files.readString(tempDir.resolve("src" + s + "-" + i + ".meta")));
+            }
+        }
+    }
+
+    @Test
+    void testFailingSourceDoesNotStopOthers() throws IOException {
+        repository.create("src0-0", "GGGGHH".chars().mapToObj(c -> (char) c));
+        MessageSequence healthy = partition(0, 1, 1);
+        MessageSequence broken = () -> Stream.<Message>of(new SimpleMessage("other", Message.Type.CREATE))
+                .peek(m -> {
+                    throw new IllegalStateException("feed disconnected");
+                });
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> processor.processAll(List.of(broken, healthy)));
+        assertEquals("feed disconnected", thrown.getMessage());
+        assertEquals("G4H2", Files.readString(tempDir.resolve("src0-0.data")));
+    }
+}
@@ -0,0 +1,183 @@
+package com.opentext.assignment.processor;
+
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.model.MessageSequence;
+import com.opentext.assignment.repository.FileRepository;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefetchTest {
+
+    private FileRepository repository;
+    private MessageProcessor processor;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FileRepository(tempDir.toString(), 8192);
+        processor = new MessageProcessor(repository, new CompressionService());
+        ReflectionTestUtils.setField(processor, "prefetchWindow", 16);
+        ReflectionTestUtils.setField(processor, "prefetchHeadBytes", 4096);
+        ReflectionTestUtils.setField(processor, "threadPoolSize", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    private record SimpleMessage(String dataObjectId, Message.Type type) implements Message {
+        @Override public String getDataObjectId() { return dataObjectId; }
+        @Override public Type getType() { return type; }
+    }
+
+    @Test
+    void testLookaheadKeepsOrderAndReportsMetrics() throws IOException, InterruptedException {
+        int objectCount = 40;
+        for (int i = 0; i < objectCount; i++) {
+            repository.create("p" + i, "KKKKLL".chars().mapToObj(c -> (char) c));
+        }
+        List<Message> messages = new ArrayList<>();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < objectCount; i++) {
+                messages.add(new SimpleMessage("p" + i, round % 2 == 0 ? Message.Type.COMPRESS : Message.Type.DECOMPRESS));
+            }
+        }
+        MessageSequence sequence = messages::stream;
+        processor.process(sequence);
+
+        for (int i = 0; i < objectCount; i++) {
+            assertEquals("K4L2", Files.readString(tempDir.resolve("p" + i + ".data")));
+        }
+        PrefetchStats stats = processor.getPrefetchStats().orElseThrow();
+        assertEquals(messages.size(), stats.hits() + stats.misses());
+        // The prefetch thread runs at low priority; give it a moment if the workers were faster
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (processor.getPrefetchStats().orElseThrow().issued() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(processor.getPrefetchStats().orElseThrow().issued() > 0);
+        assertTrue(stats.hitRatio() >= 0.0 && stats.hitRatio() <= 1.0);
+    }
+
+    @Test
+    void testPrefetchDisabledByDefault() {
+        MessageProcessor plain = new MessageProcessor(repository, new CompressionService());
+        MessageSequence sequence = () -> List.<Message>of().stream();
+        plain.process(sequence);
+        assertTrue(plain.getPrefetchStats().isEmpty());
+    }
+
+    @Test
+    void testRepositoryPrefetchReadsHeadOfExistingObject() {
+        repository.create("head", "ABCDEFGH".chars().mapToObj(c -> (char) c));
+        ByteBuffer scratch = ByteBuffer.allocate(4);
+        assertTrue(repository.prefetch("head", scratch));
+        assertEquals(4, scratch.position());
+        assertFalse(repository.prefetch("missing", scratch));
+    }
+
+    @Test
+    void testTricklingFeedIsNotHeldBackByTheWindow() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            repository.create("t" + i, "KKKKLL".chars().mapToObj(c -> (char) c));
+        }
+        // Fewer messages than the window, then the feed goes quiet without ending
+        BlockingQueue<Message> feed = new LinkedBlockingQueue<>();
+        for (int i = 0; i < 3; i++) {
+            feed.add(new SimpleMessage("t" + i, Message.Type.COMPRESS));
+        }
+        MessageSequence sequence = () -> Stream.generate(() -> {
+            try {
+                return feed.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        });
+        CompletableFuture<Void> running = processor.start(sequence);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (int i = 0; i < 3; i++) {
+            Path data = tempDir.resolve("t" + i + ".data");
+            while (!"K4L2".equals(Files.readString(data)) && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals("K4L2", Files.readString(data));
+        }
+        running.cancel(true);
+    }
+
+    /** A CREATE that records whether the processor accepted it; acceptance reads its ID. */
+    private static final class TrackedMessage implements Message {
+        private final String id;
+        private final AtomicBoolean accepted = new AtomicBoolean();
+
+        TrackedMessage(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String getDataObjectId() {
+            accepted.set(true);
+            return id;
+        }
+
+        @Override
+        public Type getType() {
+            return Type.CREATE;
+        }
+    }
+
+    @Test
+    void testCancellingStartProcessesMessagesAlreadyReadAhead() throws Exception {
+        // An endless feed that never pauses, so the window and the reader's queue stay full
+        Queue<TrackedMessage> taken = new ConcurrentLinkedQueue<>();
+        AtomicInteger counter = new AtomicInteger();
+        MessageSequence sequence = () -> Stream.generate(() -> {
+            TrackedMessage message = new TrackedMessage("c" + counter.getAndIncrement() % 64);
+            taken.add(message);
+            return message;
+        });
+        CompletableFuture<Void> running = processor.start(sequence);
+        while (taken.size() < 1000) {
+            Thread.sleep(1);
+        }
+        running.cancel(true);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        long missed;
+        do {
+            Thread.sleep(20);
+            missed = taken.stream().filter(m -> !m.accepted.get()).count();
+        } while (missed > 0 && System.nanoTime() < deadline);
+        assertEquals(0, missed, "messages taken from the feed but never processed");
+        int total = taken.size();
+        Thread.sleep(50);
+        assertEquals(total, taken.size(), "the feed is no longer read after cancelling");
+    }
+}
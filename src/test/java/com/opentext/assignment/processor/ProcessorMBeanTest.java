@@ -0,0 +1,145 @@
+package com.opentext.assignment.processor;
+
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.monitoring.LatencySnapshot;
+import com.opentext.assignment.monitoring.MessageProcessorMXBean;
+import com.opentext.assignment.repository.FileRepository;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessorMBeanTest {
+
+    private static final String NAME = "mbean-test";
+
+    private FileRepository repository;
+    private MessageProcessor processor;
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    private ObjectName objectName;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        repository = new FileRepository(tempDir.toString(), 8192);
+        processor = new MessageProcessor(repository, new CompressionService());
+        ReflectionTestUtils.setField(processor, "jmxEnabled", true);
+        ReflectionTestUtils.setField(processor, "jmxName", NAME);
+        ReflectionTestUtils.setField(processor, "threadPoolSize", 2);
+        ReflectionTestUtils.setField(processor, "shutdownTimeoutSeconds", 30L);
+        objectName = new ObjectName("com.opentext.assignment:type=MessageProcessor,name=" + ObjectName.quote(NAME));
+        for (String id : new String[]{"a", "b", "c"}) {
+            repository.create(id, "AAAABBBCCD".chars().mapToObj(c -> (char) c));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    private record SimpleMessage(String dataObjectId, Message.Type type) implements Message {
+        @Override public String getDataObjectId() { return dataObjectId; }
+        @Override public Type getType() { return type; }
+    }
+
+    private MessageProcessorMXBean register() {
+        processor.registerMBean();
+        assertTrue(server.isRegistered(objectName));
+        return JMX.newMXBeanProxy(server, objectName, MessageProcessorMXBean.class);
+    }
+
+    @Test
+    void testAttributesReflectProcessedWork() throws Exception {
+        MessageProcessorMXBean view = register();
+        processor.submit(new SimpleMessage("a", Message.Type.COMPRESS)).get(30, TimeUnit.SECONDS);
+        processor.submit(new SimpleMessage("b", Message.Type.COMPRESS)).get(30, TimeUnit.SECONDS);
+        processor.submit(new SimpleMessage("a", Message.Type.DECOMPRESS)).get(30, TimeUnit.SECONDS);
+        processor.submit(new SimpleMessage("c", Message.Type.DELETE)).get(30, TimeUnit.SECONDS);
+
+        Map<String, LatencySnapshot> latencies = view.getLatencies();
+        assertEquals(2, latencies.get("COMPRESS").getCount());
+        assertEquals(1, latencies.get("DECOMPRESS").getCount());
+        assertEquals(1, latencies.get("DELETE").getCount());
+        LatencySnapshot compress = latencies.get("COMPRESS");
+        assertTrue(compress.getP50Micros() <= compress.getP99Micros());
+        assertTrue(compress.getP99Micros() <= compress.getMaxMicros());
+
+        assertEquals(1, view.getTombstoneCount());
+        assertEquals(2, view.getWorkerThreads());
+        assertEquals(0, view.getInFlight());
+        assertEquals(0, view.getQueuedOperations());
+        assertEquals(0, view.getBusyWorkers());
+        double utilization = view.getThreadUtilization();
+        assertTrue(utilization > 0.0 && utilization <= 1.0, "utilization " + utilization);
+
+        processor.shutdown();
+        assertFalse(server.isRegistered(objectName));
+    }
+
+    @Test
+    void testSecondProcessorWithTheSameNameIsSkipped() {
+        register();
+        MessageProcessor other = new MessageProcessor(repository, new CompressionService());
+        ReflectionTestUtils.setField(other, "jmxEnabled", true);
+        ReflectionTestUtils.setField(other, "jmxName", NAME);
+        other.registerMBean();
+        other.shutdown();
+        // The first registration is untouched by the second processor
+        assertTrue(server.isRegistered(objectName));
+    }
+
+    @Test
+    void testPauseBlocksIngestionUntilResumed() throws Exception {
+        MessageProcessorMXBean view = register();
+        view.pauseIngestion();
+        assertTrue(processor.isIngestionPaused());
+
+        CompletableFuture<Void> submitted = CompletableFuture.runAsync(() ->
+                processor.submit(new SimpleMessage("a", Message.Type.COMPRESS)).join());
+        assertThrows(TimeoutException.class, () -> submitted.get(300, TimeUnit.MILLISECONDS));
+        assertFalse(repository.findById("a").orElseThrow().isCompressed());
+
+        view.resumeIngestion();
+        submitted.get(30, TimeUnit.SECONDS);
+        assertTrue(repository.findById("a").orElseThrow().isCompressed());
+        assertFalse(view.isIngestionPaused());
+    }
+
+    @Test
+    void testResizeExecutorAtRuntime() throws Exception {
+        MessageProcessorMXBean view = register();
+        processor.submit(new SimpleMessage("a", Message.Type.COMPRESS)).get(30, TimeUnit.SECONDS);
+
+        view.resizeExecutor(6);
+        assertEquals(6, view.getWorkerThreads());
+        view.resizeExecutor(1);
+        assertEquals(1, view.getWorkerThreads());
+        processor.submit(new SimpleMessage("a", Message.Type.DECOMPRESS)).get(30, TimeUnit.SECONDS);
+        assertFalse(repository.findById("a").orElseThrow().isCompressed());
+
+        assertThrows(IllegalArgumentException.class, () -> processor.resizeExecutor(0));
+    }
+
+    @Test
+    void testResizeIsRejectedForRingDispatch() {
+        ReflectionTestUtils.setField(processor, "dispatchMode", "ring");
+        assertThrows(IllegalStateException.class, () -> processor.resizeExecutor(4));
+    }
+}
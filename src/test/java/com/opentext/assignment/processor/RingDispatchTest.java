@@ -0,0 +1,154 @@
+package com.opentext.assignment.processor;
+
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.model.MessageSequence;
+import com.opentext.assignment.repository.FileRepository;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingDispatchTest {
+
+    private FileRepository repository;
+    private MessageProcessor processor;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FileRepository();
+        ReflectionTestUtils.setField(repository, "baseDirPath", tempDir.toString());
+        processor = new MessageProcessor(repository, new CompressionService());
+        ReflectionTestUtils.setField(processor, "dispatchMode", "ring");
+        ReflectionTestUtils.setField(processor, "shardCount", 3);
+        ReflectionTestUtils.setField(processor, "threadPoolSize", 4);
+        ReflectionTestUtils.setField(processor, "ringCapacity", 64);
+        ReflectionTestUtils.setField(processor, "ringInternCapacity", 1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    private record SimpleMessage(String dataObjectId, Message.Type type) implements Message {
+        @Override public String getDataObjectId() { return dataObjectId; }
+        @Override public Type getType() { return type; }
+    }
+
+    @Test
+    void testPerIdOrderingThroughRings() throws IOException {
+        int objectCount = 12;
+        for (int i = 0; i < objectCount; i++) {
+            repository.create("r" + i, "QQQQRR".chars().mapToObj(c -> (char) c));
+        }
+        List<Message> messages = new ArrayList<>();
+        for (int round = 0; round < 9; round++) {
+            for (int i = 0; i < objectCount; i++) {
+                messages.add(new SimpleMessage("r" + i, round % 2 == 0 ? Message.Type.COMPRESS : Message.Type.DECOMPRESS));
+            }
+        }
+        MessageSequence sequence = messages::stream;
+        processor.process(sequence);
+
+        for (int i = 0; i < objectCount; i++) {
+            assertEquals("Q4R2", Files.readString(tempDir.resolve("r" + i + ".data")));
+            assertEquals("true", Files.readString(tempDir.resolve("r" + i + ".meta")));
+        }
+        ShardStats stats = processor.getShardStats().orElseThrow();
+        assertEquals(3, stats.shardCount());
+        assertEquals(messages.size(), stats.totalEnqueued());
+    }
+
+    @Test
+    void testInternOverflowFallsBackWithoutBreakingOrder() throws IOException {
+        ReflectionTestUtils.setField(processor, "ringInternCapacity", 1);
+        for (String id : List.of("first", "second")) {
+            repository.create(id, "AAAB".chars().mapToObj(c -> (char) c));
+        }
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            messages.add(new SimpleMessage("first", i % 2 == 0 ? Message.Type.COMPRESS : Message.Type.DECOMPRESS));
+            messages.add(new SimpleMessage("second", i % 2 == 0 ? Message.Type.COMPRESS : Message.Type.DECOMPRESS));
+        }
+        MessageSequence sequence = messages::stream;
+        processor.process(sequence);
+
+        assertEquals("A3B", Files.readString(tempDir.resolve("first.data")));
+        assertEquals("A3B", Files.readString(tempDir.resolve("second.data")));
+    }
+
+    @Test
+    void testDeleteSkipsLaterOperations() {
+        String id = "ring-delete";
+        repository.create(id, "ZZZZ".chars().mapToObj(c -> (char) c));
+
+        MessageSequence sequence = () -> List.<Message>of(
+                new SimpleMessage(id, Message.Type.COMPRESS),
+                new SimpleMessage(id, Message.Type.DELETE),
+                new SimpleMessage(id, Message.Type.DECOMPRESS)
+        ).stream();
+        processor.process(sequence);
+
+        assertFalse(Files.exists(tempDir.resolve(id + ".data")));
+        assertFalse(Files.exists(tempDir.resolve(id + ".meta")));
+    }
+
+    @Test
+    void testSteadyStateDispatchDoesNotAllocate() throws InterruptedException {
+        Assumptions.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        AtomicLong executed = new AtomicLong();
+        InFlightLimiter limiter = new InFlightLimiter(1024, 0);
+        RingDispatcher dispatcher = new RingDispatcher(2, 1024, 64, (id, type) -> executed.incrementAndGet(),
+                limiter, "ring-test-");
+        String[] ids = new String[16];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = "alloc-" + i;
+        }
+        CompletionCounter call = new CompletionCounter(null);
+        int rounds = 200_000;
+        try {
+            // Warm-up interns every ID and lets the JIT settle
+            dispatchAll(dispatcher, limiter, ids, call, rounds);
+            long threadId = Thread.currentThread().getId();
+            long before = threads.getThreadAllocatedBytes(threadId);
+            dispatchAll(dispatcher, limiter, ids, call, rounds);
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+            assertTrue(call.await(System.nanoTime() + TimeUnit.SECONDS.toNanos(30)));
+            assertEquals(2L * rounds, executed.get());
+            // A few hundred bytes of noise (e.g. the MXBean call itself) is fine; one object per op is not
+            assertTrue(allocated < rounds / 10, "dispatch allocated " + allocated + " bytes for " + rounds + " operations");
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    private static void dispatchAll(RingDispatcher dispatcher, InFlightLimiter limiter, String[] ids,
+                                    CompletionCounter call, int rounds) throws InterruptedException {
+        for (int i = 0; i < rounds; i++) {
+            String id = ids[i & (ids.length - 1)];
+            limiter.acquire(id);
+            assertTrue(dispatcher.tryDispatch(id, Message.Type.CREATE, null, call, null));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.opentext.assignment.processor;
+
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.model.MessageSequence;
+import com.opentext.assignment.repository.FileRepository;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceModeTest {
+
+    private FileRepository repository;
+    private MessageProcessor processor;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FileRepository();
+        ReflectionTestUtils.setField(repository, "baseDirPath", tempDir.toString());
+        processor = new MessageProcessor(repository, new CompressionService());
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    private record SimpleMessage(String dataObjectId, Message.Type type) implements Message {
+        @Override public String getDataObjectId() { return dataObjectId; }
+        @Override public Type getType() { return type; }
+    }
+
+    @Test
+    void testSubmitCompletesPerMessageInOrder() throws Exception {
+        repository.create("svc", "SSSST".chars().mapToObj(c -> (char) c));
+
+        CompletableFuture<Void> compress = processor.submit(new SimpleMessage("svc", Message.Type.COMPRESS));
+        CompletableFuture<Void> decompress = processor.submit(new SimpleMessage("svc", Message.Type.DECOMPRESS));
+        CompletableFuture<Void> again = processor.submit(new SimpleMessage("svc", Message.Type.COMPRESS));
+
+        again.get(30, TimeUnit.SECONDS);
+        assertTrue(compress.isDone());
+        assertTrue(decompress.isDone());
+        assertEquals("S4T", Files.readString(tempDir.resolve("svc.data")));
+    }
+
+    @Test
+    void testFlushWaitsForAcceptedWorkAndExecutorPersists() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            repository.create("f" + i, "FFFG".chars().mapToObj(c -> (char) c));
+            processor.submit(new SimpleMessage("f" + i, Message.Type.COMPRESS));
+        }
+        assertTrue(processor.flush(30, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++) {
+            assertEquals("F3G", Files.readString(tempDir.resolve("f" + i + ".data")));
+        }
+        Object executorBefore = ReflectionTestUtils.getField(processor, "executor");
+
+        processor.process(() -> Stream.of(new SimpleMessage("f0", Message.Type.DECOMPRESS)));
+        assertEquals("FFFG", Files.readString(tempDir.resolve("f0.data")));
+        assertSame(executorBefore, ReflectionTestUtils.getField(processor, "executor"));
+    }
+
+    @Test
+    void testStartIngestsInBackgroundAndDeletedMessagesComplete() throws Exception {
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            repository.create("bg" + i, "BBBBC".chars().mapToObj(c -> (char) c));
+            messages.add(new SimpleMessage("bg" + i, Message.Type.COMPRESS));
+            messages.add(new SimpleMessage("bg" + i, Message.Type.DELETE));
+            messages.add(new SimpleMessage("bg" + i, Message.Type.DECOMPRESS));
+        }
+        MessageSequence sequence = messages::stream;
+
+        processor.start(sequence).get(30, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 5; i++) {
+            assertFalse(Files.exists(tempDir.resolve("bg" + i + ".data")));
+        }
+        // Messages for deleted IDs are accepted and complete immediately without effect
+        processor.submit(new SimpleMessage("bg0", Message.Type.COMPRESS)).get(1, TimeUnit.SECONDS);
+        assertEquals(0, processor.getBackpressureStats().inFlight());
+    }
+
+    @Test
+    void testStartClosesTheSequenceAndCompletesAfterItsOperations() throws Exception {
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            repository.create("st" + i, "TTTTU".chars().mapToObj(c -> (char) c));
+            messages.add(new SimpleMessage("st" + i, Message.Type.COMPRESS));
+        }
+        AtomicBoolean closed = new AtomicBoolean();
+        MessageSequence sequence = () -> messages.stream().onClose(() -> closed.set(true));
+
+        processor.start(sequence).get(30, TimeUnit.SECONDS);
+
+        assertTrue(closed.get());
+        for (int i = 0; i < 20; i++) {
+            assertEquals("T4U", Files.readString(tempDir.resolve("st" + i + ".data")));
+        }
+    }
+}
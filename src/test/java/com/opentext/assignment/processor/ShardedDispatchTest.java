@@ -0,0 +1,128 @@
+package com.opentext.assignment.processor;
+
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.model.MessageSequence;
+import com.opentext.assignment.repository.FileRepository;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedDispatchTest {
+
+    private FileRepository repository;
+    private MessageProcessor processor;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FileRepository();
+        ReflectionTestUtils.setField(repository, "baseDirPath", tempDir.toString());
+        processor = new MessageProcessor(repository, new CompressionService());
+        ReflectionTestUtils.setField(processor, "dispatchMode", "sharded");
+        ReflectionTestUtils.setField(processor, "shardCount", 3);
+        ReflectionTestUtils.setField(processor, "threadPoolSize", 4);
+    }
+
+    private record SimpleMessage(String dataObjectId, Message.Type type) implements Message {
+        @Override public String getDataObjectId() { return dataObjectId; }
+        @Override public Type getType() { return type; }
+    }
+
+    @Test
+    void testPerIdOrderingAcrossSharedShards() throws IOException {
+        int objectCount = 12;
+        for (int i = 0; i < objectCount; i++) {
+            repository.create("s" + i, "QQQQRR".chars().mapToObj(c -> (char) c));
+        }
+        List<Message> messages = new ArrayList<>();
+        for (int round = 0; round < 9; round++) {
+            for (int i = 0; i < objectCount; i++) {
+                messages.add(new SimpleMessage("s" + i, round % 2 == 0 ? Message.Type.COMPRESS : Message.Type.DECOMPRESS));
+            }
+        }
+        MessageSequence sequence = messages::stream;
+        processor.process(sequence);
+
+        // Odd number of toggles: every object ends compressed
+        for (int i = 0; i < objectCount; i++) {
+            assertEquals("Q4R2", Files.readString(tempDir.resolve("s" + i + ".data")));
+            assertEquals("true", Files.readString(tempDir.resolve("s" + i + ".meta")));
+        }
+
+        ShardStats stats = processor.getShardStats().orElseThrow();
+        assertEquals(3, stats.shardCount());
+        assertEquals(messages.size(), stats.totalEnqueued());
+        assertTrue(stats.skew() >= 1.0);
+    }
+
+    @Test
+    void testProcessWaitsForShardLongerThanOneDrainBatch() throws IOException {
+        String id = "hot-shard";
+        repository.create(id, "MMMN".chars().mapToObj(c -> (char) c));
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < ShardedDispatcher.DRAIN_BATCH * 2 + 1; i++) {
+            messages.add(new SimpleMessage(id, i % 2 == 0 ? Message.Type.COMPRESS : Message.Type.DECOMPRESS));
+        }
+        MessageSequence sequence = messages::stream;
+        processor.process(sequence);
+
+        assertEquals("M3N", Files.readString(tempDir.resolve(id + ".data")));
+        assertEquals("true", Files.readString(tempDir.resolve(id + ".meta")));
+    }
+
+    @Test
+    void testDeleteSkipsLaterOperationsInSameShard() {
+        String id = "sharded-delete";
+        repository.create(id, "ZZZZ".chars().mapToObj(c -> (char) c));
+
+        MessageSequence sequence = () -> List.<Message>of(
+                new SimpleMessage(id, Message.Type.COMPRESS),
+                new SimpleMessage(id, Message.Type.DELETE),
+                new SimpleMessage(id, Message.Type.DECOMPRESS)
+        ).stream();
+        processor.process(sequence);
+
+        assertFalse(Files.exists(tempDir.resolve(id + ".data")));
+        assertFalse(Files.exists(tempDir.resolve(id + ".meta")));
+    }
+
+    @Test
+    void testDispatcherRunsEachShardSequentially() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        ShardedDispatcher dispatcher = new ShardedDispatcher(2, () -> executor);
+        List<Integer> seen = java.util.Collections.synchronizedList(new ArrayList<>());
+        int count = ShardedDispatcher.DRAIN_BATCH * 3;
+        for (int i = 0; i < count; i++) {
+            int value = i;
+            dispatcher.dispatch("same-id", QueuedOperation.of("same-id", () -> seen.add(value)));
+        }
+        // Drainers resubmit themselves after each batch, so wait until the queue is empty
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (seen.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        executor.shutdown();
+
+        assertEquals(count, seen.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, seen.get(i));
+        }
+        assertEquals(count, dispatcher.stats().maxShardEnqueued());
+        assertEquals(2.0, dispatcher.stats().skew(), 1e-9);
+    }
+}
@@ -0,0 +1,100 @@
+package com.opentext.assignment.processor;
+
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.repository.FileRepository;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SizeAwareSchedulingTest {
+
+    private static final int THRESHOLD = 1_000;
+
+    private FileRepository repository;
+    private MessageProcessor processor;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FileRepository();
+        ReflectionTestUtils.setField(repository, "baseDirPath", tempDir.toString());
+        processor = new MessageProcessor(repository, new CompressionService());
+        ReflectionTestUtils.setField(processor, "threadPoolSize", 2);
+        ReflectionTestUtils.setField(processor, "largeObjectThresholdBytes", (long) THRESHOLD);
+        ReflectionTestUtils.setField(processor, "largeMaxConcurrent", 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    private record SimpleMessage(String dataObjectId, Message.Type type) implements Message {
+        @Override public String getDataObjectId() { return dataObjectId; }
+        @Override public Type getType() { return type; }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"per-id", "sharded"})
+    void testSmallJobsProceedWhileLargeLaneIsBusy(String dispatchMode) throws Exception {
+        ReflectionTestUtils.setField(processor, "dispatchMode", dispatchMode);
+        ReflectionTestUtils.setField(processor, "shardCount", 64);
+        repository.create("huge", "H".repeat(THRESHOLD * 5).chars().mapToObj(c -> (char) c));
+        repository.create("tiny", "TTT".chars().mapToObj(c -> (char) c));
+
+        // Warm up the executors, then occupy the single large-lane thread
+        processor.submit(new SimpleMessage("tiny", Message.Type.CREATE)).get(10, TimeUnit.SECONDS);
+        ExecutorService lane = (ExecutorService) ReflectionTestUtils.getField(processor, "largeExecutor");
+        CountDownLatch release = new CountDownLatch(1);
+        lane.submit(() -> {
+            release.await();
+            return null;
+        });
+
+        CompletableFuture<Void> large = processor.submit(new SimpleMessage("huge", Message.Type.COMPRESS));
+        CompletableFuture<Void> small = processor.submit(new SimpleMessage("tiny", Message.Type.COMPRESS));
+
+        small.get(10, TimeUnit.SECONDS);
+        assertEquals("T3", Files.readString(tempDir.resolve("tiny.data")));
+        assertFalse(large.isDone(), "large job must wait for a free large-lane slot");
+
+        release.countDown();
+        large.get(10, TimeUnit.SECONDS);
+        assertEquals("H" + THRESHOLD * 5, Files.readString(tempDir.resolve("huge.data")));
+    }
+
+    @Test
+    void testPerIdOrderingAcrossLanes() throws Exception {
+        String id = "mixed";
+        String original = "M".repeat(THRESHOLD * 2) + "N";
+        repository.create(id, original.chars().mapToObj(c -> (char) c));
+
+        // The object alternates between large (uncompressed) and small (compressed) representations
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(processor.submit(new SimpleMessage(id, i % 2 == 0 ? Message.Type.COMPRESS : Message.Type.DECOMPRESS)));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        assertEquals(original, Files.readString(tempDir.resolve(id + ".data")));
+        assertEquals("false", Files.readString(tempDir.resolve(id + ".meta")));
+    }
+}
@@ -0,0 +1,117 @@
+package com.opentext.assignment.processor;
+
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.model.MessageSequence;
+import com.opentext.assignment.repository.FileRepository;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TombstoneSetTest {
+
+    @TempDir
+    Path tempDir;
+
+    private record SimpleMessage(String dataObjectId, Message.Type type) implements Message {
+        @Override public String getDataObjectId() { return dataObjectId; }
+        @Override public Type getType() { return type; }
+    }
+
+    @Test
+    void testOldDeletesMoveToBloomFilterAndAreConfirmed() {
+        Set<String> live = new HashSet<>(List.of("live-object"));
+        TombstoneSet tombstones = TombstoneSet.inMemory(4, 1 << 16, 4, id -> !live.contains(id));
+        for (int i = 0; i < 100; i++) {
+            tombstones.add("deleted-" + i);
+        }
+
+        assertEquals(4, tombstones.recentSize());
+        assertEquals(96, tombstones.olderSize());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(tombstones.contains("deleted-" + i), "deleted-" + i);
+        }
+        // Confirmation rejects any Bloom hit for an object that still exists
+        assertFalse(tombstones.contains("live-object"));
+        assertFalse(tombstones.contains("never-deleted"));
+    }
+
+    @Test
+    void testTombstonesSurviveReopen() {
+        Path dir = tempDir.resolve("tombstones");
+        TombstoneSet tombstones = TombstoneSet.open(dir, 3, 1 << 12, 3, id -> true);
+        for (int i = 0; i < 10; i++) {
+            tombstones.add("gone-" + i);
+        }
+        // Not closed: the journal alone must be enough to recover
+        TombstoneSet reopened = TombstoneSet.open(dir, 3, 1 << 12, 3, id -> true);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(reopened.contains("gone-" + i), "gone-" + i);
+        }
+        assertEquals(3, reopened.recentSize());
+        assertEquals(7, reopened.olderSize());
+        reopened.close();
+
+        TombstoneSet afterClose = TombstoneSet.open(dir, 3, 1 << 12, 3, id -> true);
+        assertTrue(afterClose.contains("gone-9"));
+        assertTrue(afterClose.contains("gone-0"));
+    }
+
+    @Test
+    void testProcessorIgnoresDeletedIdAfterRestart() throws IOException {
+        FileRepository repository = new FileRepository(tempDir.resolve("store").toString(), 8192);
+        String id = "restart-delete";
+        repository.create(id, "AAAB".chars().mapToObj(c -> (char) c));
+
+        MessageProcessor first = newProcessor(repository);
+        MessageSequence delete = () -> List.<Message>of(new SimpleMessage(id, Message.Type.DELETE)).stream();
+        first.process(delete);
+        first.shutdown();
+
+        // The ID is re-created behind the processor's back; the tombstone must still win
+        repository.create(id, "AAAB".chars().mapToObj(c -> (char) c));
+        MessageProcessor second = newProcessor(repository);
+        MessageSequence compress = () -> List.<Message>of(new SimpleMessage(id, Message.Type.COMPRESS)).stream();
+        second.process(compress);
+        second.shutdown();
+
+        assertEquals("AAAB", Files.readString(tempDir.resolve("store").resolve(id + ".data")));
+    }
+
+    @Test
+    void testInMemoryTombstonesSurviveShutdownOfTheSameProcessor() throws IOException {
+        FileRepository repository = new FileRepository(tempDir.resolve("store").toString(), 8192);
+        String id = "reuse-delete";
+        repository.create(id, "AAAB".chars().mapToObj(c -> (char) c));
+
+        MessageProcessor processor = newProcessor(repository);
+        ReflectionTestUtils.setField(processor, "tombstoneDir", "");
+        processor.process(() -> List.<Message>of(new SimpleMessage(id, Message.Type.DELETE)).stream());
+        processor.shutdown();
+
+        repository.create(id, "AAAB".chars().mapToObj(c -> (char) c));
+        processor.process(() -> List.<Message>of(new SimpleMessage(id, Message.Type.COMPRESS)).stream());
+        processor.shutdown();
+
+        assertEquals("AAAB", Files.readString(tempDir.resolve("store").resolve(id + ".data")));
+        assertEquals(1, processor.tombstoneCount());
+    }
+
+    private MessageProcessor newProcessor(FileRepository repository) {
+        MessageProcessor processor = new MessageProcessor(repository, new CompressionService());
+        ReflectionTestUtils.setField(processor, "tombstoneRecentCapacity", 100);
+        ReflectionTestUtils.setField(processor, "tombstoneBloomBits", 1 << 12);
+        ReflectionTestUtils.setField(processor, "tombstoneBloomHashes", 3);
+        ReflectionTestUtils.setField(processor, "tombstoneDir", tempDir.resolve("tombstones").toString());
+        return processor;
+    }
+}
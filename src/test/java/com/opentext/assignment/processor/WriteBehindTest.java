@@ -0,0 +1,155 @@
+package com.opentext.assignment.processor;
+
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.repository.FileRepository;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindTest {
+
+    private FileRepository repository;
+    private MessageProcessor processor;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FileRepository(tempDir.toString(), 8192);
+        processor = new MessageProcessor(repository, new CompressionService());
+        ReflectionTestUtils.setField(processor, "compressWriteBehind", true);
+        ReflectionTestUtils.setField(processor, "writeBehindMaxPending", 100);
+        // Never idle long enough on its own; tests drain with flush() unless they shorten this
+        ReflectionTestUtils.setField(processor, "writeBehindIdleMillis", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(processor, "writeBehindIdleLoad", -1.0);
+        ReflectionTestUtils.setField(processor, "threadPoolSize", 2);
+        ReflectionTestUtils.setField(processor, "shutdownTimeoutSeconds", 30L);
+        for (String id : new String[]{"a", "b", "c", "d"}) {
+            repository.create(id, "AAAABBBCCD".chars().mapToObj(c -> (char) c));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    private record SimpleMessage(String dataObjectId, Message.Type type) implements Message {
+        @Override public String getDataObjectId() { return dataObjectId; }
+        @Override public Type getType() { return type; }
+    }
+
+    private boolean isCompressed(String id) {
+        return repository.findById(id).orElseThrow().isCompressed();
+    }
+
+    @Test
+    void testCompressReturnsAtOnceAndFlushRunsIt() throws Exception {
+        CompletableFuture<Void> future = processor.submit(new SimpleMessage("a", Message.Type.COMPRESS));
+        assertTrue(future.isDone());
+        assertFalse(isCompressed("a"));
+        assertEquals(1, processor.getWriteBehindStats().orElseThrow().pending());
+
+        assertTrue(processor.flush(30, TimeUnit.SECONDS));
+        assertTrue(isCompressed("a"));
+        WriteBehindStats stats = processor.getWriteBehindStats().orElseThrow();
+        assertEquals(0, stats.pending());
+        assertEquals(1, stats.dispatched());
+    }
+
+    @Test
+    void testIntentRunsOnceProcessorIsIdle() throws Exception {
+        ReflectionTestUtils.setField(processor, "writeBehindIdleMillis", 20L);
+        processor.submit(new SimpleMessage("a", Message.Type.COMPRESS)).get(30, TimeUnit.SECONDS);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!isCompressed("a") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(isCompressed("a"));
+        assertEquals(1, processor.getWriteBehindStats().orElseThrow().dispatched());
+    }
+
+    @Test
+    void testLaterMessagesCoalesceOrCancelTheIntent() throws Exception {
+        processor.submit(new SimpleMessage("a", Message.Type.COMPRESS));
+        processor.submit(new SimpleMessage("a", Message.Type.COMPRESS));
+        processor.submit(new SimpleMessage("a", Message.Type.DECOMPRESS)).get(30, TimeUnit.SECONDS);
+        processor.submit(new SimpleMessage("b", Message.Type.COMPRESS));
+        processor.submit(new SimpleMessage("b", Message.Type.DELETE)).get(30, TimeUnit.SECONDS);
+        processor.submit(new SimpleMessage("c", Message.Type.COMPRESS));
+
+        assertTrue(processor.flush(30, TimeUnit.SECONDS));
+        assertFalse(isCompressed("a"));
+        assertTrue(repository.findById("b").isEmpty());
+        assertTrue(isCompressed("c"));
+        WriteBehindStats stats = processor.getWriteBehindStats().orElseThrow();
+        assertEquals(3, stats.deferred());
+        assertEquals(1, stats.coalesced());
+        assertEquals(2, stats.cancelled());
+        assertEquals(1, stats.dispatched());
+    }
+
+    @Test
+    void testFullIntentTableFallsBackToInlineCompress() throws Exception {
+        ReflectionTestUtils.setField(processor, "writeBehindMaxPending", 1);
+        processor.submit(new SimpleMessage("a", Message.Type.COMPRESS));
+        processor.submit(new SimpleMessage("d", Message.Type.COMPRESS)).get(30, TimeUnit.SECONDS);
+
+        assertFalse(isCompressed("a"));
+        assertTrue(isCompressed("d"));
+        assertEquals(1, processor.getWriteBehindStats().orElseThrow().rejected());
+    }
+
+    @Test
+    void testLaterMessageParksWhileIntentIsDispatched() throws Exception {
+        // Dispatch blocks as it would on in-flight credits under backpressure
+        CountDownLatch dispatching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WriteBehindScheduler scheduler = new WriteBehindScheduler(10, 0, TimeUnit.HOURS.toMillis(1), -1.0,
+                () -> 0, id -> {
+                    dispatching.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, "write-behind-test");
+        try {
+            assertTrue(scheduler.tryDefer("a"));
+            Thread drain = new Thread(scheduler::drainAll);
+            drain.start();
+            assertTrue(dispatching.await(30, TimeUnit.SECONDS));
+
+            Thread later = new Thread(() -> scheduler.resolveBefore("a"));
+            later.start();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (later.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            // Parked on the intent, not spinning on a core
+            assertEquals(Thread.State.WAITING, later.getState());
+            assertTrue(later.isAlive());
+
+            release.countDown();
+            later.join(TimeUnit.SECONDS.toMillis(30));
+            drain.join(TimeUnit.SECONDS.toMillis(30));
+            assertFalse(later.isAlive());
+            assertFalse(drain.isAlive());
+            assertEquals(1, scheduler.stats().dispatched());
+        } finally {
+            scheduler.close();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.opentext.assignment.repository;
+
+import com.opentext.assignment.model.DataObject;
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.processor.MessageProcessor;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChecksumIntegrityTest {
+
+    private static final String ORIGINAL = "AAAAAAAAAABBBBBCCCCCCCCCCCCD".repeat(100);
+
+    private FileRepository repository;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FileRepository(tempDir.toString(), 8192);
+    }
+
+    private record SimpleMessage(String dataObjectId, Message.Type type) implements Message {
+        @Override public String getDataObjectId() { return dataObjectId; }
+        @Override public Type getType() { return type; }
+    }
+
+    private static Stream<Character> chars(String s) {
+        return s.chars().mapToObj(c -> (char) c);
+    }
+
+    private String read(String id) {
+        try (Stream<Character> data = repository.findById(id).orElseThrow().getData()) {
+            return data.map(String::valueOf).collect(Collectors.joining());
+        }
+    }
+
+    /** Flip one byte in place, keeping length and modification time, as silent bit rot would. */
+    private static void rot(Path file, int offset) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[offset] ^= 0x01;
+        Files.write(file, bytes);
+        Files.setLastModifiedTime(file, modified);
+    }
+
+    @Test
+    void testSaveRecordsChecksumOfWrittenBytes() throws IOException {
+        repository.create("c", chars(ORIGINAL));
+        Path dataPath = tempDir.resolve("c.data");
+        ObjectAttributes attributes = ObjectAttributes.read(dataPath);
+        assertNotNull(attributes);
+        CRC32C expected = new CRC32C();
+        expected.update(Files.readAllBytes(dataPath));
+        assertEquals((int) expected.getValue(), attributes.crc32c());
+        assertEquals(Files.size(dataPath), attributes.dataBytes());
+        assertTrue(attributes.describes(Files.size(dataPath)));
+        assertFalse(Files.exists(tempDir.resolve("c.data.tmp.attr")));
+        assertEquals(ORIGINAL, read("c"));
+
+        DataObject obj = repository.findById("c").orElseThrow();
+        new CompressionService().processOperation(obj, Message.Type.COMPRESS);
+        repository.save(obj);
+        expected.reset();
+        expected.update(Files.readAllBytes(dataPath));
+        assertEquals((int) expected.getValue(), ObjectAttributes.read(dataPath).crc32c());
+    }
+
+    @Test
+    void testDamagedFileFailsAtEndOfRead() throws IOException {
+        repository.create("d", chars(ORIGINAL));
+        rot(tempDir.resolve("d.data"), ORIGINAL.length() / 2);
+
+        UncheckedIOException failure = assertThrows(UncheckedIOException.class, () -> read("d"));
+        assertTrue(failure.getMessage().contains("Checksum mismatch"), failure.getMessage());
+    }
+
+    @Test
+    void testDamagedFileIsNotCopiedByProcessing() throws Exception {
+        repository.create("p", chars(ORIGINAL));
+        Path dataPath = tempDir.resolve("p.data");
+        rot(dataPath, 10);
+        byte[] damaged = Files.readAllBytes(dataPath);
+
+        MessageProcessor processor = new MessageProcessor(repository, new CompressionService());
+        ReflectionTestUtils.setField(processor, "threadPoolSize", 1);
+        try {
+            assertThrows(ExecutionException.class, () -> processor.submit(new SimpleMessage("p", Message.Type.COMPRESS))
+                    .get(30, TimeUnit.SECONDS));
+        } finally {
+            processor.shutdown();
+        }
+        assertArrayEquals(damaged, Files.readAllBytes(dataPath), "the damaged file must stay as it was");
+        assertEquals("false", Files.readString(tempDir.resolve("p.meta")));
+        assertFalse(Files.exists(tempDir.resolve("p.data.tmp")));
+    }
+
+    @Test
+    void testFileChangedOutsideTheRepositoryFailsTheRead() throws IOException {
+        repository.create("s", chars(ORIGINAL));
+        // Rewritten outside the repository: the attributes no longer describe the file
+        Files.writeString(tempDir.resolve("s.data"), "XYZ");
+        UncheckedIOException failure = assertThrows(UncheckedIOException.class, () -> read("s"));
+        assertTrue(failure.getMessage().contains("Checksum mismatch"), failure.getMessage());
+    }
+
+    @Test
+    void testTouchedFileIsStillVerified() throws IOException {
+        repository.create("t", chars(ORIGINAL));
+        Path dataPath = tempDir.resolve("t.data");
+        Files.setLastModifiedTime(dataPath, FileTime.fromMillis(System.currentTimeMillis() + 3_600_000L));
+        assertEquals(ORIGINAL, read("t"));
+
+        rot(dataPath, 3);
+        assertThrows(UncheckedIOException.class, () -> read("t"));
+    }
+
+    @Test
+    void testAttributesLeftWaitingByACrashDescribeTheCommittedFile() throws IOException {
+        String committed = ORIGINAL.toLowerCase();
+        repository.create("old", chars(ORIGINAL));
+        repository.create("k", chars(committed));
+        // Crash after the data rename, before the sidecar move: the old sidecar is still in place
+        Path dataPath = tempDir.resolve("k.data");
+        Files.move(ObjectAttributes.sidecarOf(dataPath), tempDir.resolve("k.data.tmp.attr"));
+        Files.copy(ObjectAttributes.sidecarOf(tempDir.resolve("old.data")), ObjectAttributes.sidecarOf(dataPath));
+
+        assertEquals(committed, read("k"));
+        assertEquals(Files.size(dataPath), repository.attributesOf("k").orElseThrow().dataBytes());
+
+        // The next save promotes them before its temp file would hide them, then replaces them
+        DataObject obj = repository.findById("k").orElseThrow();
+        new CompressionService().processOperation(obj, Message.Type.COMPRESS);
+        repository.save(obj);
+        assertFalse(Files.exists(tempDir.resolve("k.data.tmp.attr")));
+        obj = repository.findById("k").orElseThrow();
+        new CompressionService().processOperation(obj, Message.Type.DECOMPRESS);
+        repository.save(obj);
+        assertEquals(committed, read("k"));
+    }
+
+    @Test
+    void testAttributesOfAnUncommittedSaveAreIgnored() throws IOException {
+        repository.create("u", chars(ORIGINAL));
+        // Crash before the data rename: the temp file and its sidecar are left behind
+        repository.create("next", chars(ORIGINAL.toLowerCase()));
+        Files.copy(tempDir.resolve("next.data"), tempDir.resolve("u.data.tmp"));
+        Files.copy(ObjectAttributes.sidecarOf(tempDir.resolve("next.data")), tempDir.resolve("u.data.tmp.attr"));
+
+        assertEquals(ORIGINAL, read("u"));
+        repository.delete("u");
+        assertFalse(Files.exists(tempDir.resolve("u.data.tmp.attr")));
+    }
+
+    @Test
+    void testReadsRacingSavesAreNotReportedAsDamaged() throws Exception {
+        String other = ORIGINAL.toLowerCase();
+        repository.create("r", chars(ORIGINAL));
+        AtomicBoolean saving = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 300; i++) {
+                    DataObject obj = repository.findById("r").orElseThrow();
+                    // Same length either way, so only the checksum tells the versions apart
+                    obj.setData(chars(i % 2 == 0 ? other : ORIGINAL));
+                    repository.save(obj);
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                saving.set(false);
+            }
+        });
+        writer.start();
+        while (saving.get()) {
+            String data = read("r");
+            assertTrue(data.equals(ORIGINAL) || data.equals(other));
+        }
+        writer.join();
+        assertNull(failure.get());
+    }
+
+    @Test
+    void testGenerationalLayoutVerifiesAndReclaimsAttributes() throws IOException {
+        ReflectionTestUtils.setField(repository, "layout", "generational");
+        repository.create("g", chars(ORIGINAL));
+        assertTrue(Files.exists(tempDir.resolve("g.data.g1.attr")));
+        rot(tempDir.resolve("g.data.g1"), 5);
+        assertThrows(UncheckedIOException.class, () -> read("g"));
+
+        repository.delete("g");
+        assertFalse(Files.exists(tempDir.resolve("g.data.g1.attr")));
+    }
+
+    @Test
+    void testDisabledChecksumsKeepAttributesWithoutChecksum() throws IOException {
+        repository.create("o", chars(ORIGINAL));
+        ReflectionTestUtils.setField(repository, "checksums", false);
+        DataObject obj = repository.findById("o").orElseThrow();
+        new CompressionService().processOperation(obj, Message.Type.COMPRESS);
+        repository.save(obj);
+        ObjectAttributes attributes = ObjectAttributes.read(tempDir.resolve("o.data"));
+        assertNotNull(attributes);
+        assertFalse(attributes.checksummed());
+
+        // Nothing to verify against, even with checksums enabled again
+        ReflectionTestUtils.setField(repository, "checksums", true);
+        rot(tempDir.resolve("o.data"), 0);
+        assertDoesNotThrow(() -> read("o"));
+    }
+}
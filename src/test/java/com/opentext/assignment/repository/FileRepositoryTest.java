@@ -1,6 +1,7 @@
 package com.opentext.assignment.repository;
 
 
+import com.opentext.assignment.model.CancellationToken;
 import com.opentext.assignment.model.DataObject;
 import com.opentext.assignment.model.FileDataObject;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,6 +13,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -44,6 +46,27 @@ class FileRepositoryTest {
         assertFalse(Files.exists(tempDir.resolve(objectId + ".data.tmp")));
     }
 
+    @Test
+    void testCancelledSaveKeepsCommittedStateAndRemovesTempFile() throws IOException {
+        String objectId = "cancelled-save";
+        repository.create(objectId, "ABC".chars().mapToObj(c -> (char) c));
+
+        CancellationToken token = new CancellationToken();
+        FileDataObject obj = (FileDataObject) repository.findById(objectId).get();
+        obj.setData(Stream.iterate(0, i -> i + 1).limit(1_000_000).map(i -> {
+            if (i == 20_000) {
+                token.cancel();
+            }
+            return 'Z';
+        }));
+        obj.setCompressed(true);
+
+        assertThrows(CancellationException.class, () -> repository.save(obj, token));
+        assertEquals("ABC", Files.readString(tempDir.resolve(objectId + ".data")));
+        assertEquals("false", Files.readString(tempDir.resolve(objectId + ".meta")));
+        assertFalse(Files.exists(tempDir.resolve(objectId + ".data.tmp")));
+    }
+
     @Test
     void testSaveCompressed() throws IOException {
         String objectId = "test-object";
@@ -0,0 +1,127 @@
+package com.opentext.assignment.repository;
+
+import com.opentext.assignment.model.DataObject;
+import com.opentext.assignment.model.FileDataObject;
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.model.MessageSequence;
+import com.opentext.assignment.processor.MessageProcessor;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerationalRepositoryTest {
+
+    private FileRepository repository;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FileRepository(tempDir.toString(), 8192);
+        ReflectionTestUtils.setField(repository, "layout", "generational");
+    }
+
+    private record SimpleMessage(String dataObjectId, Message.Type type) implements Message {
+        @Override public String getDataObjectId() { return dataObjectId; }
+        @Override public Type getType() { return type; }
+    }
+
+    private static Stream<Character> chars(String value) {
+        return value.chars().mapToObj(c -> (char) c);
+    }
+
+    private void overwrite(String id, String data, boolean compressed) {
+        FileDataObject obj = new FileDataObject(id, null, compressed);
+        obj.setData(chars(data));
+        repository.save(obj);
+    }
+
+    @Test
+    void testReaderKeepsPinnedGenerationWhileWritersPublishNewOnes() throws IOException {
+        String id = "snap";
+        repository.create(id, chars("AAAABBBB"));
+
+        DataObject reader = repository.findById(id).orElseThrow();
+        Iterator<Character> data = reader.getData().iterator();
+        assertEquals('A', data.next());
+
+        // Two saves land while the reader is still streaming generation 1
+        overwrite(id, "A4B4", true);
+        overwrite(id, "C2", true);
+        assertEquals(1, repository.pinCount(id, 1));
+        assertTrue(Files.exists(tempDir.resolve(id + ".data.g1")));
+        assertFalse(Files.exists(tempDir.resolve(id + ".data.g2")), "unpinned generation reclaimed at once");
+
+        StringBuilder rest = new StringBuilder();
+        data.forEachRemaining(rest::append);
+        assertEquals("AAABBBB", rest.toString());
+        assertFalse(reader.isCompressed(), "flag belongs to the pinned generation");
+        reader.getData().close();
+
+        assertEquals(0, repository.pinCount(id, 1));
+        assertFalse(Files.exists(tempDir.resolve(id + ".data.g1")), "last reader reclaims its generation");
+        assertEquals("3 true", Files.readString(tempDir.resolve(id + ".gen")));
+        DataObject latest = repository.findById(id).orElseThrow();
+        assertTrue(latest.isCompressed());
+        try (Stream<Character> latestData = latest.getData()) {
+            assertEquals("C2", latestData.map(String::valueOf).reduce("", String::concat));
+        }
+    }
+
+    @Test
+    void testLegacyObjectIsReadAndMigratedOnSave() throws IOException {
+        FileRepository legacy = new FileRepository(tempDir.toString(), 8192);
+        legacy.create("old", chars("ZZZ"));
+
+        DataObject obj = repository.findById("old").orElseThrow();
+        assertFalse(obj.isCompressed());
+        obj.setData(chars("Z3"));
+        obj.setCompressed(true);
+        repository.save(obj);
+
+        assertFalse(Files.exists(tempDir.resolve("old.data")));
+        assertFalse(Files.exists(tempDir.resolve("old.meta")));
+        assertEquals("Z3", Files.readString(tempDir.resolve("old.data.g1")));
+        assertEquals(2, repository.sizeOf("old"));
+    }
+
+    @Test
+    void testProcessorRunsOnGenerationalLayout() throws IOException {
+        String id = "processed";
+        repository.create(id, chars("MMMMNN"));
+        MessageProcessor processor = new MessageProcessor(repository, new CompressionService());
+        MessageSequence toggles = () -> List.<Message>of(
+                new SimpleMessage(id, Message.Type.COMPRESS),
+                new SimpleMessage(id, Message.Type.DECOMPRESS),
+                new SimpleMessage(id, Message.Type.COMPRESS)
+        ).stream();
+        processor.process(toggles);
+
+        assertEquals("4 true", Files.readString(tempDir.resolve(id + ".gen")));
+        assertEquals("M4N2", Files.readString(tempDir.resolve(id + ".data.g4")));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(3, files.filter(f -> f.getFileName().toString().startsWith(id)).count(),
+                    "only the pointer, the current generation and its attributes remain");
+        }
+        assertTrue(Files.exists(tempDir.resolve(id + ".data.g4.attr")));
+
+        MessageSequence delete = () -> Stream.of(new SimpleMessage(id, Message.Type.DELETE));
+        processor.process(delete);
+        processor.shutdown();
+        assertTrue(repository.findById(id).isEmpty());
+        assertFalse(Files.exists(tempDir.resolve(id + ".data.g4")));
+        assertFalse(Files.exists(tempDir.resolve(id + ".data.g4.attr")));
+    }
+}
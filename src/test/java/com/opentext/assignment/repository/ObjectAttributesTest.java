@@ -0,0 +1,136 @@
+package com.opentext.assignment.repository;
+
+import com.opentext.assignment.model.DataObject;
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectAttributesTest {
+
+    // Runs: A x10, B x5, C x12, D x1 -> "A10B5C12D"
+    private static final String ORIGINAL = "AAAAAAAAAABBBBBCCCCCCCCCCCCD";
+    private static final String ENCODED = "A10B5C12D";
+
+    private FileRepository repository;
+    private final CompressionService service = new CompressionService();
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FileRepository(tempDir.toString(), 8192);
+    }
+
+    private static Stream<Character> chars(String s) {
+        return s.chars().mapToObj(c -> (char) c);
+    }
+
+    private String read(String id) {
+        try (Stream<Character> data = repository.findById(id).orElseThrow().getData()) {
+            return data.map(String::valueOf).collect(Collectors.joining());
+        }
+    }
+
+    private void process(String id, Message.Type type) {
+        DataObject obj = repository.findById(id).orElseThrow();
+        service.processOperation(obj, type);
+        repository.save(obj);
+    }
+
+    private static void assertRuns(ObjectAttributes attributes) {
+        assertEquals(ORIGINAL.length(), attributes.plainLength());
+        assertEquals(ENCODED.length(), attributes.encodedLength());
+        assertEquals(4, attributes.runCount());
+        assertEquals(12, attributes.longestRun());
+    }
+
+    @Test
+    void testPlainWriteRecordsRunsAndEncodedLength() {
+        long before = System.currentTimeMillis();
+        repository.create("p", chars(ORIGINAL));
+
+        ObjectAttributes attributes = repository.attributesOf("p").orElseThrow();
+        assertEquals(ObjectAttributes.Codec.PLAIN, attributes.codec());
+        assertRuns(attributes);
+        assertEquals(ORIGINAL.length(), attributes.dataBytes());
+        assertTrue(attributes.savedAtMillis() >= before);
+        assertEquals((double) ENCODED.length() / ORIGINAL.length(), attributes.compressionRatio(), 1e-9);
+    }
+
+    @Test
+    void testCompressedWriteRecordsTheSameRuns() {
+        repository.create("c", chars(ORIGINAL));
+        process("c", Message.Type.COMPRESS);
+
+        ObjectAttributes attributes = repository.attributesOf("c").orElseThrow();
+        assertEquals(ObjectAttributes.Codec.RLE, attributes.codec());
+        assertRuns(attributes);
+        assertEquals(ENCODED.length(), attributes.dataBytes());
+
+        process("c", Message.Type.DECOMPRESS);
+        assertEquals(ObjectAttributes.Codec.PLAIN, repository.attributesOf("c").orElseThrow().codec());
+        assertRuns(repository.attributesOf("c").orElseThrow());
+    }
+
+    @Test
+    void testEmptyAndSingleCharacterRuns() {
+        repository.create("e", Stream.empty());
+        ObjectAttributes empty = repository.attributesOf("e").orElseThrow();
+        assertEquals(0, empty.plainLength());
+        assertEquals(0, empty.runCount());
+        assertEquals(1.0, empty.compressionRatio());
+
+        repository.create("s", chars("ABAB"));
+        ObjectAttributes single = repository.attributesOf("s").orElseThrow();
+        assertEquals(4, single.runCount());
+        assertEquals(1, single.longestRun());
+        assertEquals(4, single.encodedLength());
+    }
+
+    @Test
+    void testStatsAggregateCurrentObjects() throws IOException {
+        repository.create("a", chars(ORIGINAL));
+        repository.create("b", chars(ORIGINAL));
+        process("b", Message.Type.COMPRESS);
+        Files.writeString(tempDir.resolve("legacy.data"), "XYZ");
+
+        RepositoryStats stats = repository.stats();
+        assertEquals(3, stats.objects());
+        assertEquals(1, stats.unknown());
+        assertEquals(1, stats.compressed());
+        assertEquals(ORIGINAL.length() + ENCODED.length(), stats.storedBytes());
+        assertEquals(2L * ORIGINAL.length(), stats.plainCharacters());
+        assertEquals(2L * ENCODED.length(), stats.encodedCharacters());
+        assertEquals(8, stats.runs());
+        assertEquals(12, stats.longestRun());
+        assertEquals(7.0, stats.meanRunLength(), 1e-9);
+
+        repository.delete("a");
+        assertEquals(2, repository.stats().objects());
+    }
+
+    @Test
+    void testStatsCountEachGenerationalObjectOnce() {
+        ReflectionTestUtils.setField(repository, "layout", "generational");
+        repository.create("g", chars(ORIGINAL));
+        process("g", Message.Type.COMPRESS);
+        process("g", Message.Type.DECOMPRESS);
+
+        RepositoryStats stats = repository.stats();
+        assertEquals(1, stats.objects());
+        assertEquals(0, stats.unknown());
+        assertEquals(ORIGINAL.length(), stats.plainCharacters());
+    }
+}
@@ -0,0 +1,210 @@
+package com.opentext.assignment.repository;
+
+import com.opentext.assignment.model.DataObject;
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelWriteTest {
+
+    private static final int MIN_CHARS = 64;
+    // 7000 characters in runs of 1 to 12, so segment boundaries fall inside runs
+    private static final String RUNS = IntStream.range(0, 7000)
+            .mapToObj(i -> String.valueOf((char) ('A' + (int) Math.sqrt(i * 2.0) % 26)))
+            .collect(Collectors.joining());
+
+    private FileRepository repository;
+    private final CompressionService service = new CompressionService();
+    private Path baseDir;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        baseDir = tempDir.resolve("base");
+        repository = new FileRepository(baseDir.toString(), 1024);
+        ReflectionTestUtils.setField(repository, "parallelWriteMinChars", (long) MIN_CHARS);
+    }
+
+    private static Stream<Character> chars(String s) {
+        return s.chars().mapToObj(c -> (char) c);
+    }
+
+    /** A sized, splittable parallel stream of the characters. */
+    private static Stream<Character> parallel(String s) {
+        return IntStream.range(0, s.length()).parallel().mapToObj(s::charAt);
+    }
+
+    private String read(String id) {
+        try (Stream<Character> data = repository.findById(id).orElseThrow().getData()) {
+            return data.map(String::valueOf).collect(Collectors.joining());
+        }
+    }
+
+    private static int crc32c(byte[] bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    /** The file and attributes a parallel create produces equal those of a sequential create. */
+    private void assertSameAsSequential(String data) throws IOException {
+        repository.create("sequential", chars(data));
+        repository.create("parallel", parallel(data));
+
+        byte[] expected = Files.readAllBytes(baseDir.resolve("sequential.data"));
+        assertArrayEquals(expected, Files.readAllBytes(baseDir.resolve("parallel.data")));
+        ObjectAttributes sequential = repository.attributesOf("sequential").orElseThrow();
+        ObjectAttributes parallel = repository.attributesOf("parallel").orElseThrow();
+        assertEquals(expected.length, parallel.dataBytes());
+        assertTrue(parallel.checksummed());
+        assertEquals(crc32c(expected), parallel.crc32c());
+        assertEquals(sequential.plainLength(), parallel.plainLength());
+        assertEquals(sequential.encodedLength(), parallel.encodedLength());
+        assertEquals(sequential.runCount(), parallel.runCount());
+        assertEquals(sequential.longestRun(), parallel.longestRun());
+        assertEquals(data, read("parallel"));
+        try (Stream<Path> left = Files.list(baseDir)) {
+            assertTrue(left.noneMatch(p -> p.getFileName().toString().contains(".tmp")));
+        }
+    }
+
+    @Test
+    void testAsciiDataMatchesSequentialWrite() throws IOException {
+        assertSameAsSequential(RUNS);
+    }
+
+    @Test
+    void testRunsAcrossSegmentsAreCountedOnce() throws IOException {
+        assertSameAsSequential("A".repeat(5000) + "B" + "C".repeat(3000));
+        ObjectAttributes attributes = repository.attributesOf("parallel").orElseThrow();
+        assertEquals(3, attributes.runCount());
+        assertEquals(5000, attributes.longestRun());
+        assertEquals("A5000BC3000".length(), attributes.encodedLength());
+    }
+
+    @Test
+    void testNonAsciiDataMatchesSequentialWrite() throws IOException {
+        // Two- and three-byte characters and surrogate pairs, some split between segments
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            data.append(i % 7 == 0 ? "é" : i % 11 == 0 ? "€" : i % 13 == 0 ? "😀" : "x");
+        }
+        assertSameAsSequential(data.toString());
+        assertSameAsSequential(RUNS + "ü" + RUNS);
+        assertSameAsSequential("x" + "😀".repeat(2000));
+    }
+
+    @Test
+    void testSmallSequentialOrUnsizedStreamsAreWrittenInOrder() throws IOException {
+        repository.create("small", parallel(RUNS.substring(0, MIN_CHARS - 1)));
+        assertEquals(RUNS.substring(0, MIN_CHARS - 1), read("small"));
+
+        repository.create("unsized", parallel(RUNS).filter(ch -> ch != 'Z'));
+        assertEquals(RUNS.replace("Z", ""), read("unsized"));
+
+        ReflectionTestUtils.setField(repository, "parallelWriteMinChars", 0L);
+        repository.create("disabled", parallel(RUNS));
+        assertEquals(RUNS, read("disabled"));
+    }
+
+    @Test
+    void testSaveAndRoundTripWithParallelData() {
+        repository.create("obj", chars("X"));
+        DataObject obj = repository.findById("obj").orElseThrow();
+        obj.setData(parallel(RUNS));
+        repository.save(obj);
+
+        obj = repository.findById("obj").orElseThrow();
+        service.processOperation(obj, Message.Type.COMPRESS);
+        repository.save(obj);
+        obj = repository.findById("obj").orElseThrow();
+        service.processOperation(obj, Message.Type.DECOMPRESS);
+        repository.save(obj);
+        assertEquals(RUNS, read("obj"));
+    }
+
+    @Test
+    void testGenerationalLayoutWritesInParallel() throws IOException {
+        ReflectionTestUtils.setField(repository, "layout", "generational");
+        repository.create("gen", parallel(RUNS));
+        assertEquals(RUNS, read("gen"));
+        ObjectAttributes attributes = repository.attributesOf("gen").orElseThrow();
+        assertEquals(crc32c(RUNS.getBytes(StandardCharsets.US_ASCII)), attributes.crc32c());
+    }
+
+    @Test
+    void testSegmentsRunOnTheRepositoryPool() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        repository.create("pooled", parallel(RUNS).peek(c -> threads.add(Thread.currentThread().getName())));
+        assertEquals(RUNS, read("pooled"));
+        assertFalse(threads.isEmpty());
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("parallel-write-")), threads.toString());
+    }
+
+    @Test
+    void testFailedSegmentWaitsForItsSiblingsBeforeCleaningUp() throws Exception {
+        // The first segment fails while another one is in the middle of its characters
+        CountDownLatch siblingBusy = new CountDownLatch(1);
+        AtomicInteger active = new AtomicInteger();
+        Stream<Character> failing = IntStream.range(0, RUNS.length()).parallel().mapToObj(i -> {
+            active.incrementAndGet();
+            try {
+                if (i == 0) {
+                    siblingBusy.await(5, TimeUnit.SECONDS);
+                    throw new IllegalStateException("source failed");
+                }
+                if (i == RUNS.length() - 1) {
+                    siblingBusy.countDown();
+                    Thread.sleep(200);
+                }
+                return RUNS.charAt(i);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                active.decrementAndGet();
+            }
+        });
+        assertThrows(IllegalStateException.class, () -> repository.create("failing", failing));
+
+        assertEquals(0, active.get(), "a segment was still writing after the save failed");
+        try (Stream<Path> left = Files.list(baseDir)) {
+            List<String> names = left.map(p -> p.getFileName().toString()).toList();
+            assertTrue(names.stream().noneMatch(name -> name.startsWith("failing")), names.toString());
+        }
+    }
+
+    @Test
+    void testCrc32cCombine() {
+        byte[] data = RUNS.getBytes(StandardCharsets.US_ASCII);
+        for (int split : List.of(0, 1, 7, 4096, data.length)) {
+            CRC32C first = new CRC32C();
+            first.update(data, 0, split);
+            CRC32C second = new CRC32C();
+            second.update(data, split, data.length - split);
+            assertEquals(crc32c(data), ParallelDataWriter.combine((int) first.getValue(), (int) second.getValue(),
+                    data.length - split), "split at " + split);
+        }
+    }
+}
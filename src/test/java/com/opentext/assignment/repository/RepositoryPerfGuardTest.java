@@ -0,0 +1,81 @@
+package com.opentext.assignment.repository;
+
+import com.opentext.assignment.PerfGuard;
+import com.opentext.assignment.model.DataObject;
+import com.opentext.assignment.model.FileDataObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Allocation and throughput budgets of the FileRepository save and read paths. Opt-in, see
+ * {@link PerfGuard}.
+ */
+class RepositoryPerfGuardTest {
+
+    private static final int CHARS = 16 << 20;
+
+    @TempDir
+    Path tempDir;
+
+    private FileRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        PerfGuard.assumeEnabled();
+        repository = new FileRepository(tempDir.toString(), 65536);
+    }
+
+    private static Stream<Character> data() {
+        return IntStream.range(0, CHARS).mapToObj(i -> (char) ('A' + (i / 7) % 26));
+    }
+
+    @Test
+    void saveStaysWithinBudgets() {
+        Runnable save = () -> {
+            FileDataObject obj = new FileDataObject("guard", null, false);
+            obj.setData(data());
+            repository.save(obj);
+        };
+        assertWithinBudgets("repository.save", save);
+    }
+
+    @Test
+    void readStaysWithinBudgets() {
+        repository.create("guard", data());
+        Runnable read = () -> {
+            DataObject obj = repository.findById("guard").orElseThrow();
+            long count = 0;
+            try (Stream<Character> data = obj.getData()) {
+                Iterator<Character> iterator = data.iterator();
+                while (iterator.hasNext()) {
+                    iterator.next();
+                    count++;
+                }
+            }
+            assertEquals(CHARS, count);
+        };
+        assertWithinBudgets("repository.read", read);
+    }
+
+    private static void assertWithinBudgets(String key, Runnable task) {
+        double mbPerSec = PerfGuard.bestMbPerSec(2, 3, CHARS, task);
+        double bytesPerChar = (double) PerfGuard.allocatedBytes(3, task) / CHARS;
+
+        double allocationBudget = PerfGuard.allocationBudget(key);
+        double throughputFloor = PerfGuard.throughputFloor(key);
+        PerfGuard.report(key, "alloc.bytes.per.char", bytesPerChar, allocationBudget);
+        PerfGuard.report(key, "mb.per.sec", mbPerSec, throughputFloor);
+        assertTrue(bytesPerChar <= allocationBudget,
+                key + " allocated " + bytesPerChar + " bytes per character, budget " + allocationBudget);
+        assertTrue(mbPerSec >= throughputFloor, key + " ran at " + mbPerSec + " MB/s, floor " + throughputFloor);
+    }
+}
@@ -0,0 +1,221 @@
+package com.opentext.assignment.repository;
+
+import com.opentext.assignment.model.DataObject;
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedLayoutTest {
+
+    private static final int CHUNK = 100;
+    // 1120 characters, 360 in RLE form: striped in both forms
+    private static final String LARGE = "AAAAAAAAAABBBBBCCCCCCCCCCCCD".repeat(40);
+    // 1000 characters, "A1000" in RLE form: single file once compressed
+    private static final String RUN = "A".repeat(1000);
+
+    private FileRepository repository;
+    private final CompressionService service = new CompressionService();
+    private Path baseDir;
+    private Path stripeA;
+    private Path stripeB;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        baseDir = tempDir.resolve("base");
+        stripeA = tempDir.resolve("disk-a");
+        stripeB = tempDir.resolve("disk-b");
+        repository = new FileRepository(baseDir.toString(), 8192);
+        ReflectionTestUtils.setField(repository, "stripeDirs", stripeA + "," + stripeB);
+        ReflectionTestUtils.setField(repository, "stripeChunkBytes", (long) CHUNK);
+    }
+
+    private static Stream<Character> chars(String s) {
+        return s.chars().mapToObj(c -> (char) c);
+    }
+
+    private String read(String id) {
+        try (Stream<Character> data = repository.findById(id).orElseThrow().getData()) {
+            return data.map(String::valueOf).collect(Collectors.joining());
+        }
+    }
+
+    private void process(String id, Message.Type type) {
+        DataObject obj = repository.findById(id).orElseThrow();
+        service.processOperation(obj, type);
+        repository.save(obj);
+    }
+
+    private static List<Path> files(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    @Test
+    void testObjectWithinOneChunkKeepsSingleFile() throws IOException {
+        repository.create("small", chars(LARGE.substring(0, CHUNK)));
+        assertTrue(Files.exists(baseDir.resolve("small.data")));
+        assertFalse(Files.exists(baseDir.resolve("small.stripe")));
+        assertTrue(files(stripeA).isEmpty());
+        assertTrue(files(stripeB).isEmpty());
+        assertEquals(LARGE.substring(0, CHUNK), read("small"));
+    }
+
+    @Test
+    void testLargeObjectIsStripedAcrossDirectories() throws IOException {
+        repository.create("big", chars(LARGE));
+
+        assertFalse(Files.exists(baseDir.resolve("big.data")));
+        StripeManifest manifest = StripeManifest.read(baseDir.resolve("big.stripe"));
+        assertNotNull(manifest);
+        assertEquals(LARGE.length(), manifest.totalBytes());
+        // 12 chunks: the first in the base directory, the others alternating between the stripes
+        assertEquals(12, manifest.chunks().size());
+        assertEquals(baseDir, manifest.chunks().get(0).getParent());
+        assertEquals(6, files(stripeA).size());
+        assertEquals(5, files(stripeB).size());
+        assertTrue(manifest.chunks().stream().allMatch(chunk -> {
+            try {
+                return Files.size(chunk) <= CHUNK;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }));
+
+        assertEquals(LARGE, read("big"));
+        assertEquals(LARGE.length(), repository.sizeOf("big"));
+        ObjectAttributes attributes = repository.attributesOf("big").orElseThrow();
+        assertEquals(LARGE.length(), attributes.dataBytes());
+        assertEquals(160, attributes.runCount());
+    }
+
+    @Test
+    void testSavesSwitchLayoutsAndReclaimOldChunks() throws IOException {
+        repository.create("run", chars(RUN));
+        List<Path> striped = StripeManifest.read(baseDir.resolve("run.stripe")).chunks();
+
+        process("run", Message.Type.COMPRESS);
+        assertEquals("A1000", Files.readString(baseDir.resolve("run.data")));
+        assertFalse(Files.exists(baseDir.resolve("run.stripe")));
+        assertTrue(striped.stream().noneMatch(Files::exists));
+        assertTrue(files(stripeA).isEmpty());
+
+        process("run", Message.Type.DECOMPRESS);
+        assertFalse(Files.exists(baseDir.resolve("run.data")));
+        assertEquals(RUN, read("run"));
+
+        // A striped save replacing a striped object leaves only the new chunks
+        repository.create("big", chars(LARGE));
+        process("big", Message.Type.COMPRESS);
+        assertEquals(4, StripeManifest.read(baseDir.resolve("big.stripe")).chunks().size());
+        process("big", Message.Type.DECOMPRESS);
+        assertEquals(LARGE, read("big"));
+        assertEquals(5 + 6, files(stripeA).size());
+        assertEquals(4 + 5, files(stripeB).size());
+    }
+
+    @Test
+    void testDeleteRemovesChunks() throws IOException {
+        repository.create("big", chars(LARGE));
+        repository.delete("big");
+        assertTrue(repository.findById("big").isEmpty());
+        assertTrue(files(stripeA).isEmpty());
+        assertTrue(files(stripeB).isEmpty());
+        List<Path> left = files(baseDir);
+        assertTrue(left.isEmpty(), "left behind: " + left);
+    }
+
+    @Test
+    void testDamagedOrMissingChunkFailsTheRead() throws IOException {
+        repository.create("big", chars(LARGE));
+        List<Path> chunks = StripeManifest.read(baseDir.resolve("big.stripe")).chunks();
+        Path chunk = chunks.get(5);
+        FileTime modified = Files.getLastModifiedTime(chunk);
+        byte[] bytes = Files.readAllBytes(chunk);
+        bytes[3] ^= 0x01;
+        Files.write(chunk, bytes);
+        Files.setLastModifiedTime(chunk, modified);
+        RuntimeException damaged = assertThrows(RuntimeException.class, () -> read("big"));
+        assertTrue(damaged.getMessage().contains("Checksum mismatch"), damaged.getMessage());
+
+        Files.delete(chunks.get(7));
+        assertThrows(RuntimeException.class, () -> read("big"));
+    }
+
+    @Test
+    void testFailedSaveLeavesNoChunks() throws IOException {
+        repository.create("big", chars(LARGE));
+        List<Path> before = files(stripeA);
+
+        DataObject obj = repository.findById("big").orElseThrow();
+        obj.setData(Stream.concat(chars(LARGE), Stream.<Character>generate(() -> {
+            throw new IllegalStateException("source failed");
+        }).limit(1)));
+        assertThrows(IllegalStateException.class, () -> repository.save(obj));
+
+        assertEquals(before, files(stripeA));
+        assertEquals(LARGE, read("big"));
+    }
+
+    @Test
+    void testStatsCountStripedObjectsOnce() {
+        repository.create("big", chars(LARGE));
+        repository.create("small", chars("ABC"));
+        RepositoryStats stats = repository.stats();
+        assertEquals(2, stats.objects());
+        assertEquals(0, stats.unknown());
+        assertEquals(LARGE.length() + 3, stats.plainCharacters());
+    }
+
+    @Test
+    void testReadsSurviveConcurrentStripedSaves() throws Exception {
+        String other = LARGE.toLowerCase();
+        repository.create("big", chars(LARGE));
+        AtomicBoolean saving = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 150; i++) {
+                    DataObject obj = repository.findById("big").orElseThrow();
+                    obj.setData(chars(i % 2 == 0 ? other : LARGE));
+                    repository.save(obj);
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                saving.set(false);
+            }
+        });
+        writer.start();
+        int reads = 0;
+        while (saving.get() || reads == 0) {
+            // Every read sees one complete save, never a chunk deleted under it
+            String data = read("big");
+            assertTrue(data.equals(LARGE) || data.equals(other), "torn read of " + data.length() + " characters");
+            reads++;
+        }
+        writer.join();
+        assertNull(failure.get());
+        // Replaced chunks are all reclaimed once no reader holds them
+        assertEquals(6, files(stripeA).size());
+        assertEquals(5, files(stripeB).size());
+    }
+}
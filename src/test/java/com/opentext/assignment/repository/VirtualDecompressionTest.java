@@ -0,0 +1,114 @@
+package com.opentext.assignment.repository;
+
+import com.opentext.assignment.model.DataObject;
+import com.opentext.assignment.model.Message;
+import com.opentext.assignment.processor.MessageProcessor;
+import com.opentext.assignment.service.CompressionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualDecompressionTest {
+
+    private static final String ORIGINAL = "AAAAAAAAAABBBBBCCCCCCCCCCCCD";
+
+    private FileRepository repository;
+    private MessageProcessor processor;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FileRepository(tempDir.toString(), 8192);
+        processor = new MessageProcessor(repository, new CompressionService());
+        ReflectionTestUtils.setField(processor, "decompressMode", "virtual");
+        ReflectionTestUtils.setField(processor, "threadPoolSize", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    private record SimpleMessage(String dataObjectId, Message.Type type) implements Message {
+        @Override public String getDataObjectId() { return dataObjectId; }
+        @Override public Type getType() { return type; }
+    }
+
+    private void run(String id, Message.Type type) throws Exception {
+        processor.submit(new SimpleMessage(id, type)).get(30, TimeUnit.SECONDS);
+    }
+
+    private String read(String id) {
+        try (Stream<Character> data = repository.findById(id).orElseThrow().getData()) {
+            return data.map(String::valueOf).collect(Collectors.joining());
+        }
+    }
+
+    @Test
+    void testDecompressOnlyRewritesStateAndReadsDecode() throws Exception {
+        repository.create("v", ORIGINAL.chars().mapToObj(c -> (char) c));
+        run("v", Message.Type.COMPRESS);
+        Path dataPath = tempDir.resolve("v.data");
+        String stored = Files.readString(dataPath);
+
+        run("v", Message.Type.DECOMPRESS);
+        assertEquals(stored, Files.readString(dataPath), "data file must not be rewritten");
+        assertEquals("false\n" + FileRepository.STORED_RLE, Files.readString(tempDir.resolve("v.meta")));
+        DataObject obj = repository.findById("v").orElseThrow();
+        assertFalse(obj.isCompressed());
+        assertEquals(ORIGINAL, read("v"));
+
+        // Compressing again only flips the state back
+        run("v", Message.Type.COMPRESS);
+        assertEquals(stored, Files.readString(dataPath));
+        assertEquals("true", Files.readString(tempDir.resolve("v.meta")));
+        assertTrue(repository.findById("v").orElseThrow().isCompressed());
+    }
+
+    @Test
+    void testMaterializesAfterConfiguredReads() throws IOException {
+        ReflectionTestUtils.setField(repository, "materializeAfterReads", 2);
+        repository.create("m", ORIGINAL.chars().mapToObj(c -> (char) c));
+        DataObject obj = repository.findById("m").orElseThrow();
+        new CompressionService().processOperation(obj, Message.Type.COMPRESS);
+        repository.save(obj);
+        assertTrue(repository.decompressVirtually("m"));
+        assertFalse(repository.decompressVirtually("m"), "already virtually decompressed");
+
+        assertEquals(ORIGINAL, read("m"));
+        assertEquals("false\n" + FileRepository.STORED_RLE, Files.readString(tempDir.resolve("m.meta")));
+        assertEquals(ORIGINAL, read("m"));
+        // Second closed read reached the threshold: the plain form is on disk now
+        assertEquals(ORIGINAL, Files.readString(tempDir.resolve("m.data")));
+        assertEquals("false", Files.readString(tempDir.resolve("m.meta")));
+        assertEquals(ORIGINAL, read("m"));
+    }
+
+    @Test
+    void testExplicitMaterializeInGenerationalLayout() throws Exception {
+        ReflectionTestUtils.setField(repository, "layout", "generational");
+        repository.create("g", ORIGINAL.chars().mapToObj(c -> (char) c));
+        run("g", Message.Type.COMPRESS);
+        run("g", Message.Type.DECOMPRESS);
+        assertEquals("2 false rle", Files.readString(tempDir.resolve("g.gen")));
+        assertEquals(ORIGINAL, read("g"));
+
+        processor.materialize("g").get(30, TimeUnit.SECONDS);
+        assertEquals("3 false", Files.readString(tempDir.resolve("g.gen")));
+        assertEquals(ORIGINAL, Files.readString(tempDir.resolve("g.data.g3")));
+        assertEquals(ORIGINAL, read("g"));
+    }
+}
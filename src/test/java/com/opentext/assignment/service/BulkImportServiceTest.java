@@ -0,0 +1,158 @@
+package com.opentext.assignment.service;
+
+import com.opentext.assignment.model.DataObject;
+import com.opentext.assignment.repository.FileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkImportServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path storeDir;
+    private BulkImportService importer;
+
+    @BeforeEach
+    void setUp() {
+        storeDir = tempDir.resolve("store");
+        importer = new BulkImportService(new FileRepository(storeDir.toString(), 4096), new CompressionService());
+    }
+
+    @Test
+    void testImportDirectoryCompressed() throws IOException {
+        Path source = Files.createDirectories(tempDir.resolve("source"));
+        for (int i = 0; i < 50; i++) {
+            Files.writeString(source.resolve("obj-" + i), "A".repeat(i + 1) + "BB");
+        }
+
+        BulkImportReport report = importer.importDirectory(source, new BulkImportOptions(4, true, 7));
+
+        assertEquals(50, report.imported());
+        assertEquals(0, report.failed());
+        for (int i = 0; i < 50; i++) {
+            String expected = (i == 0 ? "A" : "A" + (i + 1)) + "B2";
+            assertEquals(expected, Files.readString(storeDir.resolve("obj-" + i + ".data")));
+            assertEquals("true", Files.readString(storeDir.resolve("obj-" + i + ".meta")));
+        }
+        try (var files = Files.list(storeDir)) {
+            assertEquals(0, files.filter(p -> p.getFileName().toString().endsWith(".tmp")).count());
+        }
+    }
+
+    @Test
+    void testImportArchiveUncompressed() throws IOException {
+        String big = "C".repeat(BulkImportService.MAX_BUFFERED_ENTRY_CHARS + 10);
+        String archive = "first\t4\nAAAB"
+                + "second\t0\n"
+                + "third\t" + big.length() + "\n" + big
+                + "fourth\t3\nxyz";
+
+        BulkImportReport report = importer.importArchive(
+                new ByteArrayInputStream(archive.getBytes(StandardCharsets.UTF_8)), BulkImportOptions.defaults());
+
+        assertEquals(4, report.imported());
+        assertEquals(4 + big.length() + 3, report.characters());
+        assertEquals("AAAB", Files.readString(storeDir.resolve("first.data")));
+        assertEquals("", Files.readString(storeDir.resolve("second.data")));
+        assertEquals(big, Files.readString(storeDir.resolve("third.data")));
+        assertEquals("xyz", Files.readString(storeDir.resolve("fourth.data")));
+        assertEquals("false", Files.readString(storeDir.resolve("fourth.meta")));
+    }
+
+    @Test
+    void testTruncatedArchiveEntryIsReported() {
+        String archive = "short\t10\nAB";
+        assertThrows(Exception.class, () -> importer.importArchive(
+                new ByteArrayInputStream(archive.getBytes(StandardCharsets.UTF_8)), BulkImportOptions.defaults()));
+    }
+
+    @Test
+    void testFailedInlineEntryIsSkippedAndLaterEntriesImport() throws IOException {
+        // Lines inside the large entry look like headers; they must never be read as one
+        String big = "bogus\t3\n".repeat(BulkImportService.MAX_BUFFERED_ENTRY_CHARS / 8 + 10);
+        String archive = "broken\t" + big.length() + "\n" + big + "after\t3\nxyz";
+        importer = new BulkImportService(new FileRepository(storeDir.toString(), 4096) {
+            @Override
+            public boolean saveData(DataObject obj) {
+                if (obj.getId().equals("broken")) {
+                    obj.getData().limit(100).count();
+                    throw new UncheckedIOException(new IOException("disk full"));
+                }
+                return super.saveData(obj);
+            }
+        }, new CompressionService());
+
+        BulkImportReport report = importer.importArchive(
+                new ByteArrayInputStream(archive.getBytes(StandardCharsets.UTF_8)), BulkImportOptions.defaults());
+
+        assertEquals(1, report.imported());
+        assertEquals(1, report.failed());
+        assertEquals(3, report.characters());
+        assertEquals("xyz", Files.readString(storeDir.resolve("after.data")));
+        assertFalse(Files.exists(storeDir.resolve("bogus.data")));
+    }
+
+    /** Store whose batched meta writes fail the given number of times. */
+    private FileRepository failingMetaRepository(AtomicInteger failures) {
+        return new FileRepository(storeDir.toString(), 4096) {
+            @Override
+            public void writeMeta(Map<String, Boolean> compressedFlags) {
+                if (failures.getAndDecrement() > 0) {
+                    throw new RuntimeException("meta batch failed");
+                }
+                super.writeMeta(compressedFlags);
+            }
+        };
+    }
+
+    @Test
+    void testCompressedObjectsGetTheirMetaWithTheirData() throws IOException {
+        Path source = Files.createDirectories(tempDir.resolve("source"));
+        for (int i = 0; i < 10; i++) {
+            Files.writeString(source.resolve("obj-" + i), "AAAABB");
+        }
+        // Batches never succeed; compressed objects must not depend on them
+        FileRepository repository = failingMetaRepository(new AtomicInteger(Integer.MAX_VALUE));
+        importer = new BulkImportService(repository, new CompressionService());
+
+        BulkImportReport report = importer.importDirectory(source, new BulkImportOptions(4, true, 3));
+
+        assertEquals(10, report.imported());
+        assertEquals(0, report.failed());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("true", Files.readString(storeDir.resolve("obj-" + i + ".meta")));
+            assertTrue(repository.findById("obj-" + i).orElseThrow().isCompressed());
+        }
+    }
+
+    @Test
+    void testFailedMetaBatchIsRetriedAndNotCountedAsFailedObjects() throws IOException {
+        Path source = Files.createDirectories(tempDir.resolve("source"));
+        for (int i = 0; i < 10; i++) {
+            Files.writeString(source.resolve("obj-" + i), "xyz" + i);
+        }
+        importer = new BulkImportService(failingMetaRepository(new AtomicInteger(1)), new CompressionService());
+
+        BulkImportReport report = importer.importDirectory(source, new BulkImportOptions(1, false, 3));
+
+        assertEquals(10, report.imported());
+        assertEquals(0, report.failed());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("xyz" + i, Files.readString(storeDir.resolve("obj-" + i + ".data")));
+            assertEquals("false", Files.readString(storeDir.resolve("obj-" + i + ".meta")));
+        }
+    }
+}
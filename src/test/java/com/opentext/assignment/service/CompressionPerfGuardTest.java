@@ -0,0 +1,96 @@
+package com.opentext.assignment.service;
+
+import com.opentext.assignment.PerfGuard;
+import com.opentext.assignment.model.FileDataObject;
+import com.opentext.assignment.model.Message;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Allocation and throughput budgets of CompressionService. Opt-in, see {@link PerfGuard}.
+ */
+class CompressionPerfGuardTest {
+
+    private static final int CHARS = 4 << 20;
+
+    private final CompressionService service = new CompressionService();
+    private char[] plain;
+    private char[] compressed;
+
+    @BeforeEach
+    void setUp() {
+        PerfGuard.assumeEnabled();
+        // Runs of 1 to 8 letters: every group is emitted, counts stay single digit
+        SplittableRandom random = new SplittableRandom(11L);
+        plain = new char[CHARS];
+        char previous = 0;
+        for (int i = 0; i < CHARS; ) {
+            char c;
+            do {
+                c = (char) ('A' + random.nextInt(26));
+            } while (c == previous);
+            int run = Math.min(CHARS - i, 1 + random.nextInt(8));
+            for (int j = 0; j < run; j++) {
+                plain[i++] = c;
+            }
+            previous = c;
+        }
+        StringBuilder encoded = new StringBuilder();
+        new RLECompressorIterator(chars(plain).iterator()).forEachRemaining(encoded::append);
+        compressed = encoded.toString().toCharArray();
+    }
+
+    @Test
+    void compressStaysWithinBudgets() {
+        Runnable compress = () -> drain(transform(plain, false, Message.Type.COMPRESS));
+        assertWithinBudgets("compress", compress);
+    }
+
+    @Test
+    void decompressStaysWithinBudgets() {
+        Runnable decompress = () -> drain(transform(compressed, true, Message.Type.DECOMPRESS));
+        assertWithinBudgets("decompress", decompress);
+    }
+
+    private void assertWithinBudgets(String key, Runnable task) {
+        // Warm-up, then allocation per input character of a steady-state run
+        double mbPerSec = PerfGuard.bestMbPerSec(3, 5, CHARS, task);
+        double bytesPerChar = (double) PerfGuard.allocatedBytes(3, task) / CHARS;
+
+        double allocationBudget = PerfGuard.allocationBudget(key);
+        double throughputFloor = PerfGuard.throughputFloor(key);
+        PerfGuard.report(key, "alloc.bytes.per.char", bytesPerChar, allocationBudget);
+        PerfGuard.report(key, "mb.per.sec", mbPerSec, throughputFloor);
+        assertTrue(bytesPerChar <= allocationBudget,
+                key + " allocated " + bytesPerChar + " bytes per character, budget " + allocationBudget);
+        assertTrue(mbPerSec >= throughputFloor, key + " ran at " + mbPerSec + " MB/s, floor " + throughputFloor);
+    }
+
+    private Stream<Character> transform(char[] input, boolean inputCompressed, Message.Type type) {
+        FileDataObject obj = new FileDataObject("guard", null, inputCompressed);
+        obj.setData(chars(input));
+        service.processOperation(obj, type);
+        return obj.getData();
+    }
+
+    private static Stream<Character> chars(char[] data) {
+        return new String(data).chars().mapToObj(c -> (char) c);
+    }
+
+    private static void drain(Stream<Character> data) {
+        try (data) {
+            Iterator<Character> iterator = data.iterator();
+            long checksum = 0;
+            while (iterator.hasNext()) {
+                checksum += iterator.next();
+            }
+            assertTrue(checksum > 0);
+        }
+    }
+}